@@ -0,0 +1,167 @@
+package com.example.google_maps_native_sdk;
+
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Runs every marker and circle animation of a view from one frame callback.
+ *
+ * Tracks are keyed (e.g. {@code bounce:<id>}) and stepped in a single pass
+ * per vsync with the frame time, so progress depends on elapsed time, not on
+ * how many frames were drawn. When a pass costs more than its budget the
+ * next frames are skipped (up to {@link #MAX_SKIP}) and animations simply
+ * jump ahead instead of piling up work. The callback is posted only while
+ * something is running. Main thread only.
+ */
+final class AnimationEngine implements Choreographer.FrameCallback {
+  /** One running animation; allocate what it needs up front, not per frame. */
+  interface Track {
+    /** Advances to {@code frameNanos}; returns false once finished. */
+    boolean step(long frameNanos);
+
+    /** Called once when the track finishes, is replaced or is cancelled. */
+    void end();
+  }
+
+  static final long BUDGET_NANOS = 8_000_000L;
+  static final int MAX_SKIP = 3;
+
+  @Nullable private final Choreographer choreographer;
+  private final HashMap<String, Integer> index = new HashMap<>();
+  private String[] keys = new String[16];
+  private Track[] tracks = new Track[16];
+  private int count;
+  private boolean posted;
+  private int skip;
+
+  private long frames;
+  private long skippedFrames;
+  private long lastFrameNanos;
+  private long maxFrameNanos;
+  private double avgFrameNanos;
+
+  AnimationEngine(@Nullable Choreographer choreographer) {
+    this.choreographer = choreographer;
+  }
+
+  /** Starts {@code track} under {@code key}, ending the one it replaces. */
+  void start(@NonNull String key, @NonNull Track track) {
+    cancel(key);
+    if (count == tracks.length) {
+      keys = java.util.Arrays.copyOf(keys, count * 2);
+      tracks = java.util.Arrays.copyOf(tracks, count * 2);
+    }
+    keys[count] = key;
+    tracks[count] = track;
+    index.put(key, count++);
+    post();
+  }
+
+  @Nullable
+  Track get(@NonNull String key) {
+    Integer i = index.get(key);
+    return i == null ? null : tracks[i];
+  }
+
+  /** Ends the track under {@code key}; returns whether there was one. */
+  boolean cancel(@NonNull String key) {
+    Integer i = index.get(key);
+    if (i == null) return false;
+    Track t = tracks[i];
+    removeAt(i);
+    endQuietly(t);
+    return true;
+  }
+
+  void cancelAll() {
+    while (count > 0) {
+      Track t = tracks[count - 1];
+      removeAt(count - 1);
+      endQuietly(t);
+    }
+    if (posted && choreographer != null) choreographer.removeFrameCallback(this);
+    posted = false;
+  }
+
+  int size() { return count; }
+
+  @Override
+  public void doFrame(long frameTimeNanos) {
+    posted = false;
+    if (count == 0) return;
+    if (skip > 0) {
+      skip--;
+      skippedFrames++;
+      post();
+      return;
+    }
+    long t0 = System.nanoTime();
+    tick(frameTimeNanos);
+    record(System.nanoTime() - t0);
+    if (count > 0) post();
+  }
+
+  /** One pass over all tracks at {@code frameNanos}. */
+  void tick(long frameNanos) {
+    int i = 0;
+    while (i < count) {
+      Track t = tracks[i];
+      boolean running;
+      try { running = t.step(frameNanos); } catch (Throwable e) { running = false; }
+      if (running) {
+        i++;
+      } else {
+        removeAt(i); // the last track moves into slot i
+        endQuietly(t);
+      }
+    }
+  }
+
+  // Records the cost of a pass and decides how many frames to skip after it
+  void record(long workNanos) {
+    frames++;
+    lastFrameNanos = workNanos;
+    maxFrameNanos = Math.max(maxFrameNanos, workNanos);
+    avgFrameNanos = frames == 1 ? workNanos : avgFrameNanos * 0.9 + workNanos * 0.1;
+    skip = workNanos > BUDGET_NANOS ? (int) Math.min(MAX_SKIP, workNanos / BUDGET_NANOS) : 0;
+  }
+
+  private void removeAt(int i) {
+    index.remove(keys[i]);
+    int last = --count;
+    if (i != last) {
+      keys[i] = keys[last];
+      tracks[i] = tracks[last];
+      index.put(keys[i], i);
+    }
+    keys[last] = null;
+    tracks[last] = null;
+  }
+
+  private static void endQuietly(Track t) {
+    try { t.end(); } catch (Throwable ignored) {}
+  }
+
+  private void post() {
+    if (posted || choreographer == null) return;
+    posted = true;
+    choreographer.postFrameCallback(this);
+  }
+
+  @NonNull
+  Map<String, Object> stats() {
+    Map<String, Object> out = new HashMap<>();
+    out.put("active", count);
+    out.put("frames", frames);
+    out.put("skippedFrames", skippedFrames);
+    out.put("lastFrameMs", lastFrameNanos / 1e6);
+    out.put("avgFrameMs", avgFrameNanos / 1e6);
+    out.put("maxFrameMs", maxFrameNanos / 1e6);
+    return out;
+  }
+}
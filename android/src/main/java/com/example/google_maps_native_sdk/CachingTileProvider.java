@@ -0,0 +1,211 @@
+package com.example.google_maps_native_sdk;
+
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.maps.model.Tile;
+import com.google.android.gms.maps.model.TileProvider;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * XYZ tile provider with memory and disk tiers.
+ *
+ * Lookup order: process-wide byte-bounded memory LRU, then the on-disk store
+ * (keyed by layer/z/x/y), then the network. Network fetches run on a small
+ * shared pool; concurrent requests for the same tile share one fetch. Entries
+ * expire after the layer's TTL; an expired tile is still served when the
+ * refetch fails. Empty entries record "no tile" (HTTP 204/404).
+ */
+final class CachingTileProvider implements TileProvider {
+  static final int PRIORITY_VISIBLE = 0;
+  static final int PRIORITY_PREFETCH = 1;
+
+  static final int FETCH_THREADS = 4;
+
+  private static final class MemEntry {
+    final byte[] data;
+    final long expiresAt;
+
+    MemEntry(byte[] data, long expiresAt) {
+      this.data = data;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  private static final LruCache<String, MemEntry> MEMORY =
+      new LruCache<String, MemEntry>((int) Math.min(16L * 1024 * 1024, Runtime.getRuntime().maxMemory() / 16)) {
+        @Override
+        protected int sizeOf(@NonNull String key, @NonNull MemEntry value) {
+          return value.data.length + 64;
+        }
+      };
+
+  private static final ThreadPoolExecutor FETCH_POOL = new ThreadPoolExecutor(
+      FETCH_THREADS, FETCH_THREADS, 30L, TimeUnit.SECONDS, new PriorityBlockingQueue<>(), r -> {
+        Thread t = new Thread(r, "gmns-tiles");
+        t.setDaemon(true);
+        return t;
+      });
+
+  static {
+    FETCH_POOL.allowCoreThreadTimeOut(true);
+  }
+
+  private static final ConcurrentHashMap<String, Fetch> IN_FLIGHT = new ConcurrentHashMap<>();
+  private static final AtomicLong SEQ = new AtomicLong();
+  private static final AtomicLong memoryHits = new AtomicLong();
+  private static final AtomicLong diskHits = new AtomicLong();
+  private static final AtomicLong networkFetches = new AtomicLong();
+  private static final AtomicLong dedupeHits = new AtomicLong();
+  private static final AtomicLong failures = new AtomicLong();
+
+  private final class Fetch extends FutureTask<byte[]> implements Comparable<Fetch> {
+    final String key;
+    final long seq = SEQ.getAndIncrement();
+    volatile int priority;
+
+    Fetch(String key, Callable<byte[]> call, int priority) {
+      super(call);
+      this.key = key;
+      this.priority = priority;
+    }
+
+    @Override
+    public int compareTo(Fetch o) {
+      if (priority != o.priority) return priority < o.priority ? -1 : 1;
+      return Long.compare(seq, o.seq);
+    }
+
+    // Runs after waiters were released: fill the caches off their critical path
+    @Override
+    protected void done() {
+      IN_FLIGHT.remove(key, this);
+      if (isCancelled()) return;
+      try {
+        byte[] data = get();
+        long expiresAt = System.currentTimeMillis() + ttlMs;
+        MEMORY.put(key, new MemEntry(data, expiresAt));
+        disk.putBytes(key, data, new HttpIconFetcher.Validators(null, null, expiresAt, false));
+      } catch (Throwable ignored) {}
+    }
+  }
+
+  private final String layer;
+  private final TileUrlTemplate template;
+  private final int tileSize;
+  private final long ttlMs;
+  private final DiskLruCache disk;
+
+  /** {@code layer} namespaces cache keys (file-name safe, e.g. a hash of the template). */
+  CachingTileProvider(@NonNull String layer, @NonNull String template, int tileSize, long ttlMs, @NonNull DiskLruCache disk) {
+    this.layer = layer;
+    this.template = TileUrlTemplate.compile(template);
+    this.tileSize = tileSize;
+    this.ttlMs = Math.max(0, ttlMs);
+    this.disk = disk;
+  }
+
+  @Override
+  public Tile getTile(int x, int y, int zoom) {
+    byte[] data = load(x, y, zoom);
+    if (data == null) return null; // not available now; the map asks again later
+    if (data.length == 0) return NO_TILE;
+    return new Tile(tileSize, tileSize, data);
+  }
+
+  /**
+   * Starts a background fetch unless the tile is already fresh in memory or on disk
+   * (checked from the index, without reading the file). Returns the fetch, or null.
+   */
+  @Nullable
+  Future<byte[]> prefetch(int x, int y, int zoom, int priority) {
+    String key = key(x, y, zoom);
+    long now = System.currentTimeMillis();
+    MemEntry mem = MEMORY.get(key);
+    if (mem != null && mem.expiresAt > now) return null;
+    if (mem == null) {
+      HttpIconFetcher.Validators v = disk.validators(key);
+      if (v != null && v.expiresAt > now) return null;
+    }
+    return fetch(key, x, y, zoom, priority);
+  }
+
+  private String key(int x, int y, int zoom) {
+    return layer + "_" + zoom + "_" + x + "_" + y;
+  }
+
+  // Cached or fetched bytes (empty = no tile); null when unavailable
+  @Nullable
+  private byte[] load(int x, int y, int zoom) {
+    String key = key(x, y, zoom);
+    long now = System.currentTimeMillis();
+    MemEntry mem = MEMORY.get(key);
+    if (mem != null && mem.expiresAt > now) {
+      memoryHits.incrementAndGet();
+      return mem.data;
+    }
+    byte[] stale = mem != null ? mem.data : null;
+    if (stale == null) {
+      byte[] stored = disk.getBytes(key);
+      if (stored != null) {
+        HttpIconFetcher.Validators v = disk.validators(key);
+        long expiresAt = v != null ? v.expiresAt : 0L;
+        if (expiresAt > now) {
+          diskHits.incrementAndGet();
+          MEMORY.put(key, new MemEntry(stored, expiresAt));
+          return stored;
+        }
+        stale = stored;
+      }
+    }
+    Fetch f = fetch(key, x, y, zoom, PRIORITY_VISIBLE);
+    try {
+      return f.get(TileHttp.TIMEOUT_MS * 2L, TimeUnit.MILLISECONDS);
+    } catch (Throwable t) {
+      failures.incrementAndGet();
+      return stale;
+    }
+  }
+
+  private Fetch fetch(String key, int x, int y, int zoom, int priority) {
+    final String url = template.url(x, y, zoom);
+    Fetch f = new Fetch(key, () -> TileHttp.download(url), priority);
+    Fetch existing = IN_FLIGHT.putIfAbsent(key, f);
+    if (existing != null) {
+      dedupeHits.incrementAndGet();
+      // A visible request overtakes a queued prefetch of the same tile
+      if (priority < existing.priority && FETCH_POOL.remove(existing)) {
+        existing.priority = priority;
+        FETCH_POOL.execute(existing);
+      }
+      return existing;
+    }
+    networkFetches.incrementAndGet();
+    FETCH_POOL.execute(f);
+    return f;
+  }
+
+  static Map<String, Object> stats() {
+    Map<String, Object> out = new HashMap<>();
+    out.put("memoryHits", memoryHits.get());
+    out.put("diskHits", diskHits.get());
+    out.put("networkFetches", networkFetches.get());
+    out.put("dedupeHits", dedupeHits.get());
+    out.put("failures", failures.get());
+    out.put("memoryBytes", MEMORY.size());
+    out.put("queueDepth", FETCH_POOL.getQueue().size());
+    return out;
+  }
+}
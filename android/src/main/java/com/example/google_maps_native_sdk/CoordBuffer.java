@@ -0,0 +1,114 @@
+package com.example.google_maps_native_sdk;
+
+import androidx.annotation.NonNull;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Growable lat/lng buffer backed by a primitive array.
+ *
+ * Points keep an absolute index: appending never renumbers existing points and
+ * dropping a prefix only advances {@link #firstIndex()}. Storage is compacted
+ * lazily, so append and prefix trims are amortized O(1) per point.
+ */
+final class CoordBuffer {
+  private double[] data; // interleaved lat,lng
+  private int head;      // first live pair in data
+  private int size;      // live pairs
+  private int base;      // absolute index of the pair at head
+  private int version;   // bumped by every change
+
+  CoordBuffer(int capacity) {
+    data = new double[Math.max(4, capacity * 2)];
+  }
+
+  @NonNull
+  static CoordBuffer of(@NonNull List<LatLng> pts) {
+    CoordBuffer b = new CoordBuffer(pts.size());
+    b.appendAll(pts);
+    return b;
+  }
+
+  int size() { return size; }
+  /** Absolute index of the first live point. */
+  int firstIndex() { return base; }
+  /** Absolute index one past the last live point. */
+  int endIndex() { return base + size; }
+  /** Changes whenever the contents do; lets derived data know when to rebuild. */
+  int version() { return version; }
+
+  double lat(int index) { return data[(head + index - base) * 2]; }
+  double lng(int index) { return data[(head + index - base) * 2 + 1]; }
+
+  void append(double lat, double lng) {
+    ensureTail(1);
+    int o = (head + size) * 2;
+    data[o] = lat;
+    data[o + 1] = lng;
+    size++;
+    version++;
+  }
+
+  void appendAll(@NonNull List<LatLng> pts) {
+    ensureTail(pts.size());
+    int o = (head + size) * 2;
+    for (LatLng p : pts) {
+      data[o++] = p.latitude;
+      data[o++] = p.longitude;
+    }
+    size += pts.size();
+    version++;
+  }
+
+  /** Replaces the contents and restarts absolute indices at 0. */
+  void set(@NonNull List<LatLng> pts) {
+    head = 0;
+    size = 0;
+    base = 0;
+    appendAll(pts);
+  }
+
+  /** Drops every point with an absolute index below {@code index}. */
+  void dropBefore(int index) {
+    int n = Math.max(0, Math.min(size, index - base));
+    head += n;
+    size -= n;
+    base += n;
+    if (size == 0) head = 0;
+    if (n > 0) version++;
+  }
+
+  /** Creates LatLngs for the absolute range [from, to). */
+  @NonNull
+  List<LatLng> toLatLngs(int from, int to) {
+    from = Math.max(from, base);
+    to = Math.min(to, base + size);
+    List<LatLng> out = new ArrayList<>(Math.max(0, to - from));
+    for (int i = from; i < to; i++) {
+      int o = (head + i - base) * 2;
+      out.add(new LatLng(data[o], data[o + 1]));
+    }
+    return out;
+  }
+
+  @NonNull
+  List<LatLng> toLatLngs() { return toLatLngs(base, base + size); }
+
+  private void ensureTail(int extra) {
+    int needed = (head + size + extra) * 2;
+    if (needed <= data.length) return;
+    if (head > 0 && (size + extra) * 2 <= data.length / 2) {
+      // Enough room once the trimmed prefix is reclaimed
+      System.arraycopy(data, head * 2, data, 0, size * 2);
+      head = 0;
+      return;
+    }
+    double[] next = new double[Math.max(data.length * 2, (size + extra) * 2)];
+    System.arraycopy(data, head * 2, next, 0, size * 2);
+    data = next;
+    head = 0;
+  }
+}
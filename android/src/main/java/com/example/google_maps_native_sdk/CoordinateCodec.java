@@ -0,0 +1,178 @@
+package com.example.google_maps_native_sdk;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.maps.android.heatmaps.WeightedLatLng;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads coordinate lists sent over the method channel.
+ *
+ * Accepted inputs (checked in this order):
+ * - {@code encoded}: Google encoded polyline string, {@code precision} 5 or 6 (0/absent = auto-detect)
+ * - {@code points} as {@code double[]} (Dart Float64List) of packed lat,lng[,weight] values
+ * - {@code points} as {@code byte[]} holding little-endian float64 values in the same layout
+ * - {@code points} as {@code List<Map>} with lat/lng[/weight] keys (legacy format)
+ *
+ * {@code stride} is 2 (lat,lng) or 3 (lat,lng,weight) for the packed forms.
+ */
+final class CoordinateCodec {
+  private CoordinateCodec() {}
+
+  @NonNull
+  static List<LatLng> readLatLngs(@NonNull Map<String, Object> args) {
+    Object encoded = args.get("encoded");
+    if (encoded instanceof String) return decodeEncoded((String) encoded, precisionOf(args));
+    Object pts = args.get("points");
+    int stride = strideOf(args);
+    if (pts instanceof double[]) return fromPacked(DoubleBuffer.wrap((double[]) pts), stride);
+    if (pts instanceof byte[]) return fromPacked(asDoubles((byte[]) pts), stride);
+    if (pts instanceof List) {
+      @SuppressWarnings("unchecked") List<Map<String, Object>> list = (List<Map<String, Object>>) pts;
+      List<LatLng> out = new ArrayList<>(list.size());
+      for (Map<String, Object> pt : list) out.add(new LatLng(num(pt.get("lat")), num(pt.get("lng"))));
+      return out;
+    }
+    return new ArrayList<>();
+  }
+
+  /** Returns weighted points, or null when the input carries no weights. */
+  @Nullable
+  static List<WeightedLatLng> readWeighted(@NonNull Map<String, Object> args) {
+    Object pts = args.get("points");
+    if (strideOf(args) == 3) {
+      DoubleBuffer buf = null;
+      if (pts instanceof double[]) buf = DoubleBuffer.wrap((double[]) pts);
+      else if (pts instanceof byte[]) buf = asDoubles((byte[]) pts);
+      if (buf != null) {
+        int n = buf.remaining() / 3;
+        List<WeightedLatLng> out = new ArrayList<>(n);
+        int base = buf.position();
+        for (int i = 0; i < n; i++) {
+          int o = base + i * 3;
+          out.add(new WeightedLatLng(new LatLng(buf.get(o), buf.get(o + 1)), buf.get(o + 2)));
+        }
+        return out;
+      }
+    }
+    if (pts instanceof List) {
+      @SuppressWarnings("unchecked") List<Map<String, Object>> list = (List<Map<String, Object>>) pts;
+      if (list.isEmpty() || !list.get(0).containsKey("weight")) return null;
+      List<WeightedLatLng> out = new ArrayList<>(list.size());
+      for (Map<String, Object> pt : list) {
+        Object w = pt.get("weight");
+        out.add(new WeightedLatLng(new LatLng(num(pt.get("lat")), num(pt.get("lng"))), w != null ? num(w) : 1.0));
+      }
+      return out;
+    }
+    return null;
+  }
+
+  /** Heatmap input as weighted points; unweighted inputs get intensity 1. */
+  @NonNull
+  static List<WeightedLatLng> readWeightedOrUnit(@NonNull Map<String, Object> args) {
+    List<WeightedLatLng> weighted = readWeighted(args);
+    if (weighted != null) return weighted;
+    List<LatLng> pts = readLatLngs(args);
+    List<WeightedLatLng> out = new ArrayList<>(pts.size());
+    for (LatLng p : pts) out.add(new WeightedLatLng(p));
+    return out;
+  }
+
+  /** A packed float64 array sent as {@code double[]} or little-endian {@code byte[]}; empty otherwise. */
+  @NonNull
+  static double[] readDoubles(@Nullable Object packed) {
+    if (packed instanceof double[]) return (double[]) packed;
+    if (packed instanceof byte[]) {
+      DoubleBuffer buf = asDoubles((byte[]) packed);
+      double[] out = new double[buf.remaining()];
+      buf.get(out);
+      return out;
+    }
+    return new double[0];
+  }
+
+  @NonNull
+  private static List<LatLng> fromPacked(@NonNull DoubleBuffer buf, int stride) {
+    int n = buf.remaining() / stride;
+    List<LatLng> out = new ArrayList<>(n);
+    int base = buf.position();
+    for (int i = 0; i < n; i++) {
+      int o = base + i * stride;
+      out.add(new LatLng(buf.get(o), buf.get(o + 1)));
+    }
+    return out;
+  }
+
+  @NonNull
+  private static DoubleBuffer asDoubles(@NonNull byte[] bytes) {
+    return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+  }
+
+  /**
+   * Decodes a Google encoded polyline. With precision 0 the integer deltas are decoded once
+   * into a primitive buffer and the scale (1e5 or 1e6) is chosen from the value range, the
+   * same rule used by the Dart PolylineCodec.
+   */
+  @NonNull
+  static List<LatLng> decodeEncoded(@NonNull String encoded, int precision) {
+    final int len = encoded.length();
+    // Each point takes at least 2 chars; size for the worst case to avoid regrowth
+    int[] values = new int[Math.max(2, len)];
+    int count = 0;
+    int index = 0, lat = 0, lng = 0;
+    long maxAbsLat = 0, maxAbsLng = 0;
+    while (index < len) {
+      int b, shift = 0, result = 0;
+      do {
+        if (index >= len) break;
+        b = encoded.charAt(index++) - 63;
+        result |= (b & 0x1f) << shift;
+        shift += 5;
+      } while (b >= 0x20);
+      lat += ((result & 1) != 0 ? ~(result >> 1) : (result >> 1));
+
+      shift = 0;
+      result = 0;
+      do {
+        if (index >= len) break;
+        b = encoded.charAt(index++) - 63;
+        result |= (b & 0x1f) << shift;
+        shift += 5;
+      } while (b >= 0x20);
+      lng += ((result & 1) != 0 ? ~(result >> 1) : (result >> 1));
+
+      values[count++] = lat;
+      values[count++] = lng;
+      maxAbsLat = Math.max(maxAbsLat, Math.abs((long) lat));
+      maxAbsLng = Math.max(maxAbsLng, Math.abs((long) lng));
+    }
+    double scale;
+    if (precision == 6) scale = 1e6;
+    else if (precision == 5) scale = 1e5;
+    else scale = (maxAbsLat > 90L * 100000L || maxAbsLng > 180L * 100000L) ? 1e6 : 1e5;
+    List<LatLng> out = new ArrayList<>(count / 2);
+    for (int i = 0; i + 1 < count; i += 2) out.add(new LatLng(values[i] / scale, values[i + 1] / scale));
+    return out;
+  }
+
+  private static int strideOf(Map<String, Object> args) {
+    Object s = args.get("stride");
+    return s instanceof Number && ((Number) s).intValue() == 3 ? 3 : 2;
+  }
+
+  private static int precisionOf(Map<String, Object> args) {
+    Object p = args.get("precision");
+    return p instanceof Number ? ((Number) p).intValue() : 0;
+  }
+
+  private static double num(Object o) { return o == null ? 0 : ((Number) o).doubleValue(); }
+}
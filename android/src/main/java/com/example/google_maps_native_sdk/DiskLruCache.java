@@ -0,0 +1,379 @@
+package com.example.google_maps_native_sdk;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded LRU of files on disk (encoded marker icons, raw map tiles).
+ *
+ * The index lives in memory and is persisted as an append-only journal
+ * ({@code P key size validators}, {@code V key validators}, {@code R key},
+ * {@code A key}) that is read once per process and compacted when it grows
+ * well past the live entry count. HTTP validators (ETag, Last-Modified,
+ * expiry) are kept per entry so icons can be revalidated. Size
+ * accounting is incremental, so no directory scan happens after startup.
+ * Entries are written to a temp file and renamed into place, so readers never
+ * see partial files. Keys must be file-name safe without spaces (hex hashes).
+ *
+ * One instance per directory per process; use {@link #open}.
+ */
+final class DiskLruCache {
+  private static final String JOURNAL = "journal";
+  private static final String JOURNAL_TMP = "journal.tmp";
+  private static final Map<String, DiskLruCache> OPEN = new HashMap<>();
+
+  private static final class Entry {
+    final long size;
+    @Nullable HttpIconFetcher.Validators validators;
+
+    Entry(long size, @Nullable HttpIconFetcher.Validators validators) {
+      this.size = size;
+      this.validators = validators;
+    }
+  }
+
+  private final File dir;
+  private final long maxBytes;
+  private final int maxEntries;
+  // Access-ordered: iteration starts at the least recently used entry
+  private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(64, 0.75f, true);
+  private long totalBytes;
+  private int redundantOps;
+  private boolean loaded;
+  @Nullable private Writer journal;
+
+  private DiskLruCache(File dir, long maxBytes, int maxEntries) {
+    this.dir = dir;
+    this.maxBytes = maxBytes;
+    this.maxEntries = maxEntries;
+  }
+
+  /** Shared cache for {@code dir}; the journal is loaded lazily on first use, off the caller's thread. */
+  @NonNull
+  static DiskLruCache open(@NonNull File dir, long maxBytes, int maxEntries) {
+    synchronized (OPEN) {
+      String path = dir.getAbsolutePath();
+      DiskLruCache c = OPEN.get(path);
+      if (c == null) {
+        c = new DiskLruCache(dir, maxBytes, maxEntries);
+        OPEN.put(path, c);
+      }
+      return c;
+    }
+  }
+
+  /**
+   * Closes the journal and forgets the shared instance, so the next {@link #open} replays the
+   * journal as after a process restart. The instance must not be used afterwards.
+   */
+  void close() {
+    synchronized (OPEN) {
+      OPEN.remove(dir.getAbsolutePath());
+    }
+    synchronized (this) {
+      try { if (journal != null) journal.close(); } catch (IOException ignored) {}
+      journal = null;
+    }
+  }
+
+  /** Decodes the entry with a single open, or returns null (missing entries cost no filesystem access). */
+  @Nullable
+  Bitmap get(@NonNull String key) {
+    synchronized (this) {
+      ensureLoaded();
+      if (!index.containsKey(key)) return null;
+      index.get(key); // touch for LRU order
+      appendJournal("A " + key, false);
+    }
+    Bitmap b = BitmapFactory.decodeFile(new File(dir, key).getAbsolutePath());
+    if (b == null) remove(key); // file vanished or is corrupt
+    return b;
+  }
+
+  /** Reads the entry's raw bytes with a single open, or returns null. */
+  @Nullable
+  byte[] getBytes(@NonNull String key) {
+    synchronized (this) {
+      ensureLoaded();
+      if (!index.containsKey(key)) return null;
+      index.get(key);
+      appendJournal("A " + key, false);
+    }
+    try (FileInputStream in = new FileInputStream(new File(dir, key))) {
+      byte[] data = new byte[(int) in.getChannel().size()];
+      int off = 0;
+      while (off < data.length) {
+        int n = in.read(data, off, data.length - off);
+        if (n < 0) throw new IOException("truncated");
+        off += n;
+      }
+      return data;
+    } catch (IOException e) {
+      remove(key);
+      return null;
+    }
+  }
+
+  /** Validators stored with the entry, or null (unknown entry or not from HTTP). */
+  @Nullable
+  synchronized HttpIconFetcher.Validators validators(@NonNull String key) {
+    ensureLoaded();
+    Entry e = index.get(key);
+    return e != null ? e.validators : null;
+  }
+
+  /** Replaces the validators after a 304 without rewriting the file. */
+  synchronized void updateValidators(@NonNull String key, @NonNull HttpIconFetcher.Validators v) {
+    ensureLoaded();
+    Entry e = index.get(key);
+    if (e == null) return;
+    e.validators = v;
+    appendJournal("V " + key + " " + encode(v), true);
+    redundantOps++;
+    maybeCompact();
+  }
+
+  void put(@NonNull String key, @NonNull Bitmap bmp) { put(key, bmp, null); }
+
+  /** Encodes and stores {@code bmp}; the write becomes visible atomically. */
+  void put(@NonNull String key, @NonNull Bitmap bmp, @Nullable HttpIconFetcher.Validators validators) {
+    write(key, validators, fos -> {
+      if (!bmp.compress(losslessFormat(), 100, fos)) throw new IOException("compress failed");
+    });
+  }
+
+  /** Stores raw bytes; the write becomes visible atomically. */
+  void putBytes(@NonNull String key, @NonNull byte[] data, @Nullable HttpIconFetcher.Validators validators) {
+    write(key, validators, fos -> fos.write(data));
+  }
+
+  private interface Body {
+    void writeTo(FileOutputStream fos) throws IOException;
+  }
+
+  private void write(String key, @Nullable HttpIconFetcher.Validators validators, Body body) {
+    synchronized (this) { ensureLoaded(); } // creates the directory on first use
+    File tmp = new File(dir, key + "." + Thread.currentThread().getId() + ".tmp");
+    long size;
+    try (FileOutputStream fos = new FileOutputStream(tmp)) {
+      body.writeTo(fos);
+      fos.getFD().sync();
+      size = tmp.length();
+    } catch (Throwable t) {
+      //noinspection ResultOfMethodCallIgnored
+      tmp.delete();
+      return;
+    }
+    synchronized (this) {
+      ensureLoaded();
+      if (size > maxBytes || !tmp.renameTo(new File(dir, key))) {
+        //noinspection ResultOfMethodCallIgnored
+        tmp.delete();
+        return;
+      }
+      Entry old = index.put(key, new Entry(size, validators));
+      if (old != null) {
+        totalBytes -= old.size;
+        redundantOps++;
+      }
+      totalBytes += size;
+      appendJournal("P " + key + " " + size + " " + encode(validators), true);
+      trim();
+      maybeCompact();
+    }
+  }
+
+  synchronized void remove(@NonNull String key) {
+    ensureLoaded();
+    Entry e = index.remove(key);
+    if (e == null) return;
+    totalBytes -= e.size;
+    //noinspection ResultOfMethodCallIgnored
+    new File(dir, key).delete();
+    appendJournal("R " + key, true);
+    redundantOps += 2;
+    maybeCompact();
+  }
+
+  synchronized Map<String, Object> stats() {
+    Map<String, Object> out = new HashMap<>();
+    out.put("entries", index.size());
+    out.put("bytes", totalBytes);
+    return out;
+  }
+
+  // Lossless and compact: WEBP_LOSSLESS (API 30+), WEBP at quality 100 is lossless on API 29, else PNG
+  @SuppressWarnings("deprecation")
+  private static Bitmap.CompressFormat losslessFormat() {
+    if (Build.VERSION.SDK_INT >= 30) return Bitmap.CompressFormat.WEBP_LOSSLESS;
+    if (Build.VERSION.SDK_INT >= 29) return Bitmap.CompressFormat.WEBP;
+    return Bitmap.CompressFormat.PNG;
+  }
+
+  private void trim() {
+    Iterator<Map.Entry<String, Entry>> it = index.entrySet().iterator();
+    while ((totalBytes > maxBytes || index.size() > maxEntries) && it.hasNext()) {
+      Map.Entry<String, Entry> e = it.next();
+      it.remove();
+      totalBytes -= e.getValue().size;
+      //noinspection ResultOfMethodCallIgnored
+      new File(dir, e.getKey()).delete();
+      appendJournal("R " + e.getKey(), false);
+      redundantOps += 2;
+    }
+    flushJournal();
+  }
+
+  private void ensureLoaded() {
+    if (loaded) return;
+    loaded = true;
+    //noinspection ResultOfMethodCallIgnored
+    dir.mkdirs();
+    File jf = new File(dir, JOURNAL);
+    if (jf.exists()) {
+      try (BufferedReader r = new BufferedReader(new InputStreamReader(new FileInputStream(jf), StandardCharsets.UTF_8))) {
+        String line;
+        while ((line = r.readLine()) != null) {
+          String[] parts = line.split(" ");
+          if (parts.length < 2) continue;
+          String key = parts[1];
+          switch (parts[0]) {
+            case "P": {
+              if (parts.length < 3) break;
+              long size = Long.parseLong(parts[2]);
+              Entry old = index.put(key, new Entry(size, decode(parts, 3)));
+              if (old != null) { totalBytes -= old.size; redundantOps++; }
+              totalBytes += size;
+              break;
+            }
+            case "V": {
+              Entry e = index.get(key);
+              if (e != null) e.validators = decode(parts, 2);
+              redundantOps++;
+              break;
+            }
+            case "R": {
+              Entry e = index.remove(key);
+              if (e != null) totalBytes -= e.size;
+              redundantOps += 2;
+              break;
+            }
+            case "A":
+              index.get(key);
+              redundantOps++;
+              break;
+            default:
+              break;
+          }
+        }
+      } catch (Throwable t) {
+        // Unreadable journal: start over
+        index.clear();
+        totalBytes = 0;
+      }
+    }
+    // One scan per process: drop interrupted writes and files the index does not know
+    // (including the PNGs written by the previous directory-scan cache)
+    File[] files = dir.listFiles();
+    if (files != null) {
+      for (File f : files) {
+        String name = f.getName();
+        if (name.equals(JOURNAL) || index.containsKey(name)) continue;
+        //noinspection ResultOfMethodCallIgnored
+        f.delete();
+      }
+    }
+    rewriteJournal();
+    trim();
+  }
+
+  private void appendJournal(String line, boolean flush) {
+    try {
+      if (journal == null) {
+        journal = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(dir, JOURNAL), true), StandardCharsets.UTF_8));
+      }
+      journal.write(line);
+      journal.write('\n');
+      if (flush) journal.flush();
+      if (line.charAt(0) == 'A') redundantOps++;
+    } catch (IOException ignored) {}
+  }
+
+  private void flushJournal() {
+    try { if (journal != null) journal.flush(); } catch (IOException ignored) {}
+  }
+
+  private void maybeCompact() {
+    if (redundantOps >= 2000 && redundantOps >= index.size() * 2) rewriteJournal();
+  }
+
+  // Writes the live index in LRU order to a temp journal and swaps it in
+  private void rewriteJournal() {
+    try {
+      if (journal != null) journal.close();
+    } catch (IOException ignored) {}
+    journal = null;
+    File tmp = new File(dir, JOURNAL_TMP);
+    try (Writer w = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8))) {
+      for (Map.Entry<String, Entry> e : index.entrySet()) {
+        Entry v = e.getValue();
+        w.write("P " + e.getKey() + " " + v.size + " " + encode(v.validators) + "\n");
+      }
+    } catch (IOException e) {
+      //noinspection ResultOfMethodCallIgnored
+      tmp.delete();
+      return;
+    }
+    if (tmp.renameTo(new File(dir, JOURNAL))) redundantOps = 0;
+  }
+
+  // Validators as three space-free fields: expiresAt etag lastModified ("-" for none)
+  private static String encode(@Nullable HttpIconFetcher.Validators v) {
+    if (v == null) return "0 - -";
+    return v.expiresAt + " " + field(v.etag) + " " + field(v.lastModified);
+  }
+
+  @Nullable
+  private static HttpIconFetcher.Validators decode(String[] parts, int from) {
+    if (parts.length < from + 3) return null;
+    try {
+      long expiresAt = Long.parseLong(parts[from]);
+      String etag = unfield(parts[from + 1]);
+      String lastModified = unfield(parts[from + 2]);
+      if (etag == null && lastModified == null && expiresAt == 0) return null;
+      return new HttpIconFetcher.Validators(etag, lastModified, expiresAt, false);
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  private static String field(@Nullable String s) {
+    if (s == null || s.isEmpty()) return "-";
+    try { return java.net.URLEncoder.encode(s, "UTF-8"); } catch (Exception e) { return "-"; }
+  }
+
+  @Nullable
+  private static String unfield(String s) {
+    if ("-".equals(s)) return null;
+    try { return java.net.URLDecoder.decode(s, "UTF-8"); } catch (Exception e) { return null; }
+  }
+}
@@ -22,6 +22,10 @@ public class GoogleMapsNativeSdkPlugin implements FlutterPlugin, ActivityAware,
   private EventChannel headingChannel;
   private MethodChannel audioChannel;
   private MethodChannel navUiChannel;
+  private MethodChannel offlineChannel;
+  private EventChannel offlineEvents;
+  private volatile EventChannel.EventSink offlineSink;
+  private OfflineRegionManager offlineRegions;
   private android.hardware.SensorManager sensorManager;
   private android.hardware.Sensor rotationSensor;
   private android.hardware.SensorEventListener headingListener;
@@ -157,6 +161,57 @@ public class GoogleMapsNativeSdkPlugin implements FlutterPlugin, ActivityAware,
         result.notImplemented();
       }
     });
+
+    // Offline region packs
+    final android.os.Handler main = new android.os.Handler(android.os.Looper.getMainLooper());
+    final java.io.File offlineDir = new java.io.File(binding.getApplicationContext().getFilesDir(), "gmns_offline");
+    offlineEvents = new EventChannel(messenger, "google_maps_native_sdk/offline/events");
+    offlineEvents.setStreamHandler(new EventChannel.StreamHandler() {
+      @Override public void onListen(Object args, EventChannel.EventSink events) { offlineSink = events; }
+      @Override public void onCancel(Object args) { offlineSink = null; }
+    });
+    offlineChannel = new MethodChannel(messenger, "google_maps_native_sdk/offline");
+    offlineChannel.setMethodCallHandler((call, result) -> {
+      if (offlineRegions == null) {
+        offlineRegions = new OfflineRegionManager(offlineDir, OfflineRegionManager.DEFAULT_MAX_TILES,
+            region -> main.post(() -> {
+              EventChannel.EventSink sink = offlineSink;
+              if (sink != null) sink.success(region);
+            }));
+      }
+      String m = call.method;
+      try {
+        if ("offline#create".equals(m)) {
+          @SuppressWarnings("unchecked") java.util.Map<String, Object> a = (java.util.Map<String, Object>) call.arguments;
+          @SuppressWarnings("unchecked") java.util.Map<String, Object> b = (java.util.Map<String, Object>) a.get("bounds");
+          Object concurrency = a.get("concurrency");
+          result.success(offlineRegions.create((String) a.get("id"), (String) a.get("name"), (String) a.get("urlTemplate"),
+              ((Number) b.get("minLat")).doubleValue(), ((Number) b.get("minLng")).doubleValue(),
+              ((Number) b.get("maxLat")).doubleValue(), ((Number) b.get("maxLng")).doubleValue(),
+              ((Number) a.get("minZoom")).intValue(), ((Number) a.get("maxZoom")).intValue(),
+              concurrency instanceof Number ? ((Number) concurrency).intValue() : 0));
+        } else if ("offline#list".equals(m)) {
+          result.success(offlineRegions.list());
+        } else if ("offline#get".equals(m)) {
+          result.success(offlineRegions.get((String) call.arguments));
+        } else if ("offline#pause".equals(m)) {
+          result.success(offlineRegions.pause((String) call.arguments));
+        } else if ("offline#resume".equals(m)) {
+          @SuppressWarnings("unchecked") java.util.Map<String, Object> a = (java.util.Map<String, Object>) call.arguments;
+          Object concurrency = a.get("concurrency");
+          result.success(offlineRegions.resume((String) a.get("id"),
+              concurrency instanceof Number ? ((Number) concurrency).intValue() : 0));
+        } else if ("offline#delete".equals(m)) {
+          result.success(offlineRegions.delete((String) call.arguments));
+        } else {
+          result.notImplemented();
+        }
+      } catch (IllegalArgumentException | IllegalStateException e) {
+        result.error("invalid_region", e.getMessage(), null);
+      } catch (Throwable t) {
+        result.error("offline_error", t.getMessage(), null);
+      }
+    });
   }
 
   @Override
@@ -167,6 +222,15 @@ public class GoogleMapsNativeSdkPlugin implements FlutterPlugin, ActivityAware,
     headingChannel = null;
     audioChannel = null;
     navUiChannel = null;
+    try {
+      if (offlineEvents != null) offlineEvents.setStreamHandler(null);
+      if (offlineChannel != null) offlineChannel.setMethodCallHandler(null);
+      if (offlineRegions != null) offlineRegions.shutdown();
+    } catch (Throwable ignored) {}
+    offlineEvents = null;
+    offlineChannel = null;
+    offlineSink = null;
+    offlineRegions = null;
   }
 
   // Reflection-based check so the plugin compiles without Navigation SDK dependency
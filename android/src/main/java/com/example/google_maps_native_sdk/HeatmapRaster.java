@@ -0,0 +1,136 @@
+package com.example.google_maps_native_sdk;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Renders aggregated heatmap cells into 256 px ARGB tiles.
+ *
+ * Cell weights are first binned per pixel (tile plus a radius-wide margin, so
+ * neighbours bleed across tile edges without seams), then blurred with a
+ * separable Gaussian: the cost depends on the tile size and radius, not on how
+ * many events a cell holds. Intensities are scaled by {@code maxIntensity}
+ * and mapped through a 256-entry color map.
+ */
+final class HeatmapRaster {
+  static final int TILE = 256;
+
+  private HeatmapRaster() {}
+
+  /**
+   * ARGB pixels for tile x/y at the zoom {@code cellPx} belongs to, or null when nothing is
+   * visible. Cell keys are relative to this tile as returned by {@link HeatmapStream#cellsIn}.
+   */
+  static int[] render(int x, int y, @NonNull HeatmapStream.Cells cells, double cellPx,
+                      int radiusPx, double maxIntensity, @NonNull int[] colorMap) {
+    if (cells.size == 0 || !(maxIntensity > 0)) return null;
+    int r = Math.max(1, radiusPx);
+    int dim = TILE + 2 * r;
+    double originX = x * (double) TILE - r;
+    double originY = y * (double) TILE - r;
+    float[] grid = new float[dim * dim];
+    boolean any = false;
+    for (int i = 0; i < cells.size; i++) {
+      long key = cells.keys[i];
+      int px = (int) Math.floor((HeatmapStream.cellX(key) + 0.5) * cellPx - originX);
+      int py = (int) Math.floor((HeatmapStream.cellY(key) + 0.5) * cellPx - originY);
+      if (px < 0 || py < 0 || px >= dim || py >= dim) continue;
+      grid[py * dim + px] += (float) cells.weights[i];
+      any = true;
+    }
+    if (!any) return null;
+
+    float[] kernel = kernel(r);
+    float[] rows = new float[dim * dim];
+    for (int yy = 0; yy < dim; yy++) {
+      int row = yy * dim;
+      for (int xx = 0; xx < dim; xx++) {
+        float v = grid[row + xx];
+        if (v == 0f) continue;
+        int from = Math.max(0, xx - r), to = Math.min(dim - 1, xx + r);
+        for (int k = from; k <= to; k++) rows[row + k] += v * kernel[k - xx + r];
+      }
+    }
+    // Column pass only for the visible square, a row at a time
+    int[] out = new int[TILE * TILE];
+    float[] acc = new float[TILE];
+    float scale = (float) (255.0 / maxIntensity);
+    boolean visible = false;
+    for (int yy = r; yy < r + TILE; yy++) {
+      java.util.Arrays.fill(acc, 0f);
+      for (int k = -r; k <= r; k++) {
+        int src = (yy + k) * dim + r;
+        float w = kernel[k + r];
+        for (int xx = 0; xx < TILE; xx++) acc[xx] += rows[src + xx] * w;
+      }
+      int dst = (yy - r) * TILE;
+      for (int xx = 0; xx < TILE; xx++) {
+        int idx = Math.min(255, (int) (acc[xx] * scale));
+        if (idx <= 0) continue;
+        int c = colorMap[idx];
+        if ((c >>> 24) == 0) continue;
+        out[dst + xx] = c;
+        visible = true;
+      }
+    }
+    return visible ? out : null;
+  }
+
+  // 1D Gaussian with sigma = radius / 3, peak 1
+  private static float[] kernel(int r) {
+    float[] k = new float[2 * r + 1];
+    double sigma = r / 3.0;
+    for (int i = -r; i <= r; i++) k[i + r] = (float) Math.exp(-(i * i) / (2 * sigma * sigma));
+    return k;
+  }
+
+  /**
+   * 256 ARGB colors: {@code colors} placed at {@code startPoints} (ascending, 0..1) and
+   * interpolated between them; below the first point the first color fades in from transparent.
+   * Alpha is multiplied by {@code opacity}.
+   */
+  @NonNull
+  static int[] colorMap(@NonNull int[] colors, @NonNull float[] startPoints, double opacity) {
+    int[] map = new int[256];
+    int n = Math.min(colors.length, startPoints.length);
+    if (n == 0) return map;
+    double o = Math.max(0.0, Math.min(1.0, opacity));
+    for (int i = 0; i < 256; i++) {
+      float f = i / 255f;
+      int c;
+      if (f <= startPoints[0]) {
+        float t = startPoints[0] > 0 ? f / startPoints[0] : 1f;
+        c = withAlpha(colors[0], (int) ((colors[0] >>> 24) * t));
+      } else {
+        int s = 0;
+        while (s < n - 1 && f > startPoints[s + 1]) s++;
+        if (s == n - 1) {
+          c = colors[n - 1];
+        } else {
+          float span = startPoints[s + 1] - startPoints[s];
+          c = lerp(colors[s], colors[s + 1], span > 0 ? (f - startPoints[s]) / span : 1f);
+        }
+      }
+      map[i] = withAlpha(c, (int) Math.round((c >>> 24) * o));
+    }
+    return map;
+  }
+
+  /** The heatmap library's default look: green fading in, red at the peak. */
+  @NonNull
+  static int[] defaultColorMap(double opacity) {
+    return colorMap(new int[]{0xff66e100, 0xffff0000}, new float[]{0.2f, 1f}, opacity);
+  }
+
+  private static int withAlpha(int c, int a) {
+    return (Math.max(0, Math.min(255, a)) << 24) | (c & 0xffffff);
+  }
+
+  private static int lerp(int a, int b, float t) {
+    int out = 0;
+    for (int shift = 0; shift <= 24; shift += 8) {
+      int ca = (a >>> shift) & 0xff, cb = (b >>> shift) & 0xff;
+      out |= Math.round(ca + (cb - ca) * t) << shift;
+    }
+    return out;
+  }
+}
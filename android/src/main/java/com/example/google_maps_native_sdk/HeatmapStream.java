@@ -0,0 +1,239 @@
+package com.example.google_maps_native_sdk;
+
+import androidx.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+/**
+ * Time-windowed grid aggregate behind a streaming heatmap.
+ *
+ * Events (lat, lng, weight, timestamp) are summed into square Web Mercator
+ * cells ({@code 2^cellZoom} per axis) and into a ring of time buckets that
+ * together span the window. When the clock moves past a bucket its per-cell
+ * sums are subtracted from the totals, so expiry costs what the bucket held,
+ * not what the window holds. Every cell whose total changed is recorded as
+ * dirty until {@link #takeDirty()} so the renderer can drop only the tiles
+ * that cover it. Thread-safe; all methods lock the instance.
+ */
+final class HeatmapStream {
+  static final int MAX_CELL_ZOOM = 24;
+  private static final double EPSILON = 1e-9;
+
+  /** Cells touching one tile: packed keys (see {@link #cell}) and total weights. */
+  static final class Cells {
+    final long[] keys;
+    final double[] weights;
+    final int size;
+
+    Cells(long[] keys, double[] weights, int size) {
+      this.keys = keys;
+      this.weights = weights;
+      this.size = size;
+    }
+  }
+
+  final int cellZoom;
+  final long bucketMs;
+  private final int bucketCount;
+  private final HashMap<Long, double[]>[] buckets;
+  private final HashMap<Long, double[]> totals = new HashMap<>();
+  private HashSet<Long> dirty = new HashSet<>();
+  private long head = Long.MIN_VALUE; // absolute number of the newest bucket
+  private long version;
+  private long accepted;
+  private long dropped;
+  private final HashMap<Integer, Double> maxByZoom = new HashMap<>();
+  private long maxVersion = -1;
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  HeatmapStream(long windowMs, int bucketCount, int cellZoom) {
+    this.bucketCount = Math.max(1, bucketCount);
+    this.bucketMs = Math.max(1L, (Math.max(1L, windowMs) + this.bucketCount - 1) / this.bucketCount);
+    this.cellZoom = Math.max(1, Math.min(MAX_CELL_ZOOM, cellZoom));
+    this.buckets = new HashMap[this.bucketCount];
+    for (int i = 0; i < this.bucketCount; i++) buckets[i] = new HashMap<>();
+  }
+
+  static long cell(int cx, int cy) {
+    return ((long) cx << 32) | (cy & 0xffffffffL);
+  }
+
+  static int cellX(long key) { return (int) (key >>> 32); }
+  static int cellY(long key) { return (int) key; }
+
+  /**
+   * Adds events packed as {lat, lng, weight, timestampMs} (stride 4). Future timestamps count as
+   * {@code nowMs}; events older than the window are dropped. Returns the number accepted.
+   */
+  synchronized int add(@NonNull double[] events, long nowMs) {
+    advance(nowMs);
+    long oldest = head - bucketCount + 1;
+    int n = 0;
+    int size = 1 << cellZoom;
+    for (int i = 0; i + 3 < events.length; i += 4) {
+      double lat = events[i], lng = events[i + 1], w = events[i + 2];
+      long ts = Math.min((long) events[i + 3], nowMs);
+      long b = Math.floorDiv(ts, bucketMs);
+      if (b < oldest || !(w > 0) || Double.isInfinite(w) || Double.isNaN(lat) || Double.isNaN(lng)) {
+        dropped++;
+        continue;
+      }
+      int cx = Math.min(size - 1, Math.max(0, (int) (PolylineLod.mercatorX(lng) * size)));
+      int cy = Math.min(size - 1, Math.max(0, (int) (PolylineLod.mercatorY(lat) * size)));
+      long key = cell(cx, cy);
+      HashMap<Long, double[]> bucket = buckets[(int) Math.floorMod(b, (long) bucketCount)];
+      double[] bw = bucket.get(key);
+      if (bw == null) bucket.put(key, bw = new double[1]);
+      bw[0] += w;
+      double[] tw = totals.get(key);
+      if (tw == null) totals.put(key, tw = new double[1]);
+      tw[0] += w;
+      dirty.add(key);
+      n++;
+    }
+    if (n > 0) version++;
+    accepted += n;
+    return n;
+  }
+
+  /** Moves the window to end at {@code nowMs}, expiring buckets that fell out of it. */
+  synchronized void advance(long nowMs) {
+    long b = Math.floorDiv(nowMs, bucketMs);
+    if (head == Long.MIN_VALUE) {
+      head = b;
+      return;
+    }
+    if (b <= head) return;
+    long steps = Math.min(b - head, bucketCount);
+    for (long k = 1; k <= steps; k++) {
+      HashMap<Long, double[]> bucket = buckets[(int) Math.floorMod(head + k, (long) bucketCount)];
+      if (bucket.isEmpty()) continue;
+      for (Map.Entry<Long, double[]> e : bucket.entrySet()) {
+        Long key = e.getKey();
+        double[] tw = totals.get(key);
+        if (tw != null && (tw[0] -= e.getValue()[0]) <= EPSILON) totals.remove(key);
+        dirty.add(key);
+      }
+      bucket.clear();
+      version++;
+    }
+    head = b;
+  }
+
+  /** Cells changed since the last call, packed by {@link #cell}. */
+  @NonNull
+  synchronized long[] takeDirty() {
+    long[] out = new long[dirty.size()];
+    int i = 0;
+    for (long k : dirty) out[i++] = k;
+    dirty = new HashSet<>();
+    return out;
+  }
+
+  synchronized boolean isEmpty() {
+    return totals.isEmpty();
+  }
+
+  /** Milliseconds from {@code nowMs} until the next bucket boundary (the next expiry). */
+  long untilNextBucket(long nowMs) {
+    return bucketMs - Math.floorMod(nowMs, bucketMs);
+  }
+
+  /**
+   * Cells whose area lies within {@code marginPx} pixels of tile z/x/y (256 px tiles).
+   * Probes the covered cell range when it is smaller than the grid, otherwise filters all cells.
+   */
+  @NonNull
+  synchronized Cells cellsIn(int z, int x, int y, int marginPx) {
+    double cellPx = cellPx(z);
+    long cx0 = (long) Math.floor((x * 256.0 - marginPx) / cellPx);
+    long cx1 = (long) Math.floor(((x + 1) * 256.0 + marginPx) / cellPx);
+    long cy0 = (long) Math.floor((y * 256.0 - marginPx) / cellPx);
+    long cy1 = (long) Math.floor(((y + 1) * 256.0 + marginPx) / cellPx);
+    long size = 1L << cellZoom;
+    long[] keys = new long[Math.min(totals.size(), 1024)];
+    double[] weights = new double[keys.length];
+    int n = 0;
+    long area = (cx1 - cx0 + 1) * (cy1 - cy0 + 1);
+    if (area <= totals.size()) {
+      for (long cy = Math.max(0, cy0); cy <= Math.min(size - 1, cy1); cy++) {
+        for (long cx = cx0; cx <= cx1; cx++) {
+          // Tiles at the antimeridian see cells wrapped from the other side
+          long key = cell((int) Math.floorMod(cx, size), (int) cy);
+          double[] w = totals.get(key);
+          if (w == null) continue;
+          if (n == keys.length) {
+            keys = java.util.Arrays.copyOf(keys, n * 2);
+            weights = java.util.Arrays.copyOf(weights, n * 2);
+          }
+          keys[n] = cell((int) cx, (int) cy); // unwrapped, relative to this tile
+          weights[n++] = w[0];
+        }
+      }
+    } else {
+      for (Map.Entry<Long, double[]> e : totals.entrySet()) {
+        long key = e.getKey();
+        long cx = cellX(key), cy = cellY(key);
+        if (cy < cy0 || cy > cy1) continue;
+        if (cx < cx0 || cx > cx1) {
+          if (cx + size >= cx0 && cx + size <= cx1) cx += size;
+          else if (cx - size >= cx0 && cx - size <= cx1) cx -= size;
+          else continue;
+        }
+        if (n == keys.length) {
+          keys = java.util.Arrays.copyOf(keys, Math.max(16, n * 2));
+          weights = java.util.Arrays.copyOf(weights, keys.length);
+        }
+        keys[n] = cell((int) cx, (int) cy);
+        weights[n++] = e.getValue()[0];
+      }
+    }
+    return new Cells(keys, weights, n);
+  }
+
+  /**
+   * Largest summed weight falling in one pixel at zoom {@code z}: a per-zoom scale so tiles
+   * normalise alike (no seams). Cached until the data changes.
+   */
+  synchronized double maxPerPixel(int z) {
+    if (version != maxVersion) {
+      maxByZoom.clear();
+      maxVersion = version;
+    }
+    Double cached = maxByZoom.get(z);
+    if (cached != null) return cached;
+    int shift = cellZoom - (z + 8);
+    double max = 0;
+    if (shift <= 0) {
+      for (double[] w : totals.values()) max = Math.max(max, w[0]);
+    } else {
+      HashMap<Long, double[]> bins = new HashMap<>();
+      for (Map.Entry<Long, double[]> e : totals.entrySet()) {
+        long key = e.getKey();
+        long bin = cell(cellX(key) >>> shift, cellY(key) >>> shift);
+        double[] b = bins.get(bin);
+        if (b == null) bins.put(bin, b = new double[1]);
+        max = Math.max(max, b[0] += e.getValue()[0]);
+      }
+    }
+    maxByZoom.put(z, max);
+    return max;
+  }
+
+  /** Size of one cell in pixels at zoom {@code z}. */
+  double cellPx(int z) {
+    return Math.scalb(1.0, z + 8 - cellZoom);
+  }
+
+  @NonNull
+  synchronized Map<String, Object> stats() {
+    Map<String, Object> out = new HashMap<>();
+    out.put("cells", totals.size());
+    out.put("accepted", accepted);
+    out.put("dropped", dropped);
+    out.put("pendingDirty", dirty.size());
+    return out;
+  }
+}
@@ -0,0 +1,369 @@
+package com.example.google_maps_native_sdk;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.maps.model.CameraPosition;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import com.google.maps.android.clustering.Cluster;
+import com.google.maps.android.clustering.ClusterItem;
+import com.google.maps.android.clustering.algo.AbstractAlgorithm;
+import com.google.maps.android.clustering.algo.ScreenBasedAlgorithm;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Clustering with a cluster hierarchy kept per zoom (supercluster-style).
+ *
+ * Each zoom 0..maxZoom has a grid of {@code gridPx}-pixel cells holding the
+ * item count and coordinate sums of the items inside. The grids nest (a cell
+ * at zoom z is four cells at z+1), so adding, moving or removing an item
+ * touches one cell per zoom instead of reclustering everything. A query reads
+ * only the cells of the requested zoom inside the viewport (set from the
+ * camera idle handler); above maxZoom items are returned one by one.
+ * All index access is synchronized on the instance.
+ */
+final class HierarchicalClusterAlgorithm<T extends ClusterItem> extends AbstractAlgorithm<T>
+    implements ScreenBasedAlgorithm<T> {
+  static final int DEFAULT_GRID_PX = 100;
+  static final int DEFAULT_MAX_ZOOM = 20;
+  // Items of clusters up to this size are copied at query time (the renderer draws them)
+  private static final int EAGER_ITEMS = 8;
+  // Viewport grown by this fraction of its span on each side, so short pans need no pop-in
+  private static final double VIEWPORT_MARGIN = 0.25;
+
+  private static final class Node<T> {
+    int count;
+    double sumX;
+    double sumY;
+    @Nullable LinkedHashSet<T> items; // finest zoom only
+  }
+
+  private final int maxZoom;
+  private int gridPx;
+  private double baseCells; // cells per axis at maxZoom
+  private final List<HashMap<Long, Node<T>>> levels = new ArrayList<>();
+  private final HashMap<T, double[]> positions = new HashMap<>();
+  @Nullable private double[] viewport; // mercator {minX, minY, maxX, maxY}, minX > maxX across the antimeridian
+
+  HierarchicalClusterAlgorithm(int gridPx, int maxZoom) {
+    this.maxZoom = Math.max(0, Math.min(24, maxZoom));
+    for (int z = 0; z <= this.maxZoom; z++) levels.add(new HashMap<>());
+    setGrid(gridPx);
+  }
+
+  private void setGrid(int px) {
+    gridPx = Math.max(8, px);
+    baseCells = Math.scalb(256.0, maxZoom) / gridPx;
+  }
+
+  static long key(int cx, int cy) {
+    return ((long) cx << 32) | (cy & 0xffffffffL);
+  }
+
+  // ---- index updates ----
+
+  @Override
+  public synchronized boolean addItem(T item) {
+    if (positions.containsKey(item)) {
+      updateItem(item);
+      return false;
+    }
+    LatLng p = item.getPosition();
+    if (p == null) return false;
+    double[] m = {PolylineLod.mercatorX(p.longitude), PolylineLod.mercatorY(p.latitude)};
+    positions.put(item, m);
+    insert(item, m);
+    return true;
+  }
+
+  @Override
+  public synchronized boolean addItems(Collection<T> items) {
+    boolean changed = false;
+    for (T item : items) changed |= addItem(item);
+    return changed;
+  }
+
+  @Override
+  public synchronized boolean removeItem(T item) {
+    double[] m = positions.remove(item);
+    if (m == null) return false;
+    delete(item, m);
+    return true;
+  }
+
+  @Override
+  public synchronized boolean removeItems(Collection<T> items) {
+    boolean changed = false;
+    for (T item : items) changed |= removeItem(item);
+    return changed;
+  }
+
+  /** Re-reads the item's position (items are updated in place). */
+  @Override
+  public synchronized boolean updateItem(T item) {
+    double[] old = positions.get(item);
+    LatLng p = item.getPosition();
+    if (old == null || p == null) return false;
+    double mx = PolylineLod.mercatorX(p.longitude), my = PolylineLod.mercatorY(p.latitude);
+    if (mx == old[0] && my == old[1]) return true;
+    delete(item, old);
+    double[] m = {mx, my};
+    positions.put(item, m);
+    insert(item, m);
+    return true;
+  }
+
+  @Override
+  public synchronized void clearItems() {
+    positions.clear();
+    for (HashMap<Long, Node<T>> level : levels) level.clear();
+  }
+
+  @Override
+  public synchronized Collection<T> getItems() {
+    return new ArrayList<>(positions.keySet());
+  }
+
+  @Override
+  public synchronized void setMaxDistanceBetweenClusteredItems(int maxDistance) {
+    if (Math.max(8, maxDistance) == gridPx) return;
+    setGrid(maxDistance);
+    for (HashMap<Long, Node<T>> level : levels) level.clear();
+    for (Map.Entry<T, double[]> e : positions.entrySet()) insert(e.getKey(), e.getValue());
+  }
+
+  @Override
+  public synchronized int getMaxDistanceBetweenClusteredItems() {
+    return gridPx;
+  }
+
+  private int baseCell(double m) {
+    return (int) Math.min(Math.floor(baseCells), Math.max(0, Math.floor(m * baseCells)));
+  }
+
+  private void insert(T item, double[] m) {
+    int bx = baseCell(m[0]), by = baseCell(m[1]);
+    for (int z = 0; z <= maxZoom; z++) {
+      int shift = maxZoom - z;
+      long k = key(bx >> shift, by >> shift);
+      HashMap<Long, Node<T>> level = levels.get(z);
+      Node<T> node = level.get(k);
+      if (node == null) level.put(k, node = new Node<>());
+      node.count++;
+      node.sumX += m[0];
+      node.sumY += m[1];
+      if (z == maxZoom) {
+        if (node.items == null) node.items = new LinkedHashSet<>();
+        node.items.add(item);
+      }
+    }
+  }
+
+  private void delete(T item, double[] m) {
+    int bx = baseCell(m[0]), by = baseCell(m[1]);
+    for (int z = 0; z <= maxZoom; z++) {
+      int shift = maxZoom - z;
+      long k = key(bx >> shift, by >> shift);
+      HashMap<Long, Node<T>> level = levels.get(z);
+      Node<T> node = level.get(k);
+      if (node == null) continue;
+      if (--node.count <= 0) {
+        level.remove(k);
+        continue;
+      }
+      node.sumX -= m[0];
+      node.sumY -= m[1];
+      if (node.items != null) node.items.remove(item);
+    }
+  }
+
+  // ---- queries ----
+
+  /** Limits queries to {@code bounds} (plus a margin); null queries the whole world. */
+  synchronized void setVisibleBounds(@Nullable LatLngBounds bounds) {
+    if (bounds == null || bounds.southwest == null || bounds.northeast == null) {
+      viewport = null;
+      return;
+    }
+    double minX = PolylineLod.mercatorX(bounds.southwest.longitude);
+    double maxX = PolylineLod.mercatorX(bounds.northeast.longitude);
+    double minY = PolylineLod.mercatorY(bounds.northeast.latitude);
+    double maxY = PolylineLod.mercatorY(bounds.southwest.latitude);
+    double width = maxX >= minX ? maxX - minX : maxX + 1 - minX;
+    double spanX = width * VIEWPORT_MARGIN;
+    double spanY = (maxY - minY) * VIEWPORT_MARGIN;
+    if (width + 2 * spanX >= 1) {
+      minX = 0;
+      maxX = 1;
+    } else {
+      minX -= spanX;
+      maxX += spanX;
+      if (minX < 0) minX += 1;
+      if (maxX > 1) maxX -= 1;
+    }
+    viewport = new double[]{minX, Math.max(0, minY - spanY), maxX, Math.min(1, maxY + spanY)};
+  }
+
+  @Override
+  public boolean shouldReclusterOnMapMovement() {
+    return true; // the result depends on the viewport
+  }
+
+  @Override
+  public void onCameraChange(CameraPosition position) {
+    // The viewport comes from setVisibleBounds (it accounts for tilt and bearing)
+  }
+
+  @Override
+  public synchronized Set<? extends Cluster<T>> getClusters(float zoom) {
+    int z = (int) Math.floor(zoom);
+    boolean unclustered = z > maxZoom;
+    int level = Math.max(0, Math.min(maxZoom, z));
+    Set<Cluster<T>> out = new HashSet<>();
+    for (Map.Entry<Long, Node<T>> e : visibleNodes(level)) {
+      long k = e.getKey();
+      Node<T> node = e.getValue();
+      if (unclustered) {
+        for (T item : node.items) out.add(new Single<>(item));
+      } else if (node.count == 1) {
+        out.add(new Single<>(first(level, cellX(k), cellY(k))));
+      } else {
+        out.add(new GridCluster(level, k, node));
+      }
+    }
+    return out;
+  }
+
+  static int cellX(long key) { return (int) (key >>> 32); }
+  static int cellY(long key) { return (int) key; }
+
+  private List<Map.Entry<Long, Node<T>>> visibleNodes(int z) {
+    HashMap<Long, Node<T>> level = levels.get(z);
+    double[] v = viewport;
+    if (v == null) return new ArrayList<>(level.entrySet());
+    int shift = maxZoom - z;
+    int y0 = baseCell(v[1]) >> shift, y1 = baseCell(v[3]) >> shift;
+    int x0 = baseCell(v[0]) >> shift, x1 = baseCell(v[2]) >> shift;
+    int last = (int) Math.floor(baseCells) >> shift;
+    // Across the antimeridian the x range splits in two
+    int[][] xr = x0 <= x1 ? new int[][]{{x0, x1}} : new int[][]{{x0, last}, {0, x1}};
+    long area = 0;
+    for (int[] r : xr) area += (long) (r[1] - r[0] + 1) * (y1 - y0 + 1);
+    List<Map.Entry<Long, Node<T>>> out = new ArrayList<>();
+    if (area <= level.size()) {
+      for (int[] r : xr) {
+        for (int cx = r[0]; cx <= r[1]; cx++) {
+          for (int cy = y0; cy <= y1; cy++) {
+            long k = key(cx, cy);
+            Node<T> node = level.get(k);
+            if (node != null) out.add(new java.util.AbstractMap.SimpleImmutableEntry<>(k, node));
+          }
+        }
+      }
+    } else {
+      for (Map.Entry<Long, Node<T>> e : level.entrySet()) {
+        int cx = cellX(e.getKey()), cy = cellY(e.getKey());
+        if (cy < y0 || cy > y1) continue;
+        for (int[] r : xr) {
+          if (cx >= r[0] && cx <= r[1]) {
+            out.add(e);
+            break;
+          }
+        }
+      }
+    }
+    return out;
+  }
+
+  // Items under cell (cx, cy) of zoom z, walking the four children per zoom
+  private void collect(int z, int cx, int cy, Collection<T> out) {
+    Node<T> node = levels.get(z).get(key(cx, cy));
+    if (node == null) return;
+    if (z == maxZoom) {
+      if (node.items != null) out.addAll(node.items);
+      return;
+    }
+    for (int dx = 0; dx < 2; dx++) {
+      for (int dy = 0; dy < 2; dy++) collect(z + 1, cx * 2 + dx, cy * 2 + dy, out);
+    }
+  }
+
+  private T first(int z, int cx, int cy) {
+    List<T> one = new ArrayList<>(1);
+    collect(z, cx, cy, one);
+    return one.get(0);
+  }
+
+  private static LatLng fromMercator(double mx, double my) {
+    double lat = Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * my))));
+    return new LatLng(lat, mx * 360.0 - 180.0);
+  }
+
+  private static final class Single<T extends ClusterItem> implements Cluster<T> {
+    final T item;
+
+    Single(T item) { this.item = item; }
+
+    @Override public LatLng getPosition() { return item.getPosition(); }
+    @Override public Collection<T> getItems() { return Collections.singletonList(item); }
+    @Override public int getSize() { return 1; }
+    @Override public boolean equals(Object o) { return o instanceof Single && ((Single<?>) o).item == item; }
+    @Override public int hashCode() { return System.identityHashCode(item); }
+  }
+
+  // A cell with several items. Small clusters copy their items now; larger ones on demand.
+  private final class GridCluster implements Cluster<T> {
+    final int z;
+    final long key;
+    final int count;
+    final LatLng position;
+    @Nullable private Collection<T> items;
+
+    GridCluster(int z, long key, Node<T> node) {
+      this.z = z;
+      this.key = key;
+      this.count = node.count;
+      this.position = fromMercator(node.sumX / node.count, node.sumY / node.count);
+      if (count <= EAGER_ITEMS) items = itemsNow();
+    }
+
+    private Collection<T> itemsNow() {
+      List<T> out = new ArrayList<>(count);
+      collect(z, cellX(key), cellY(key), out);
+      return Collections.unmodifiableList(out);
+    }
+
+    @Override public LatLng getPosition() { return position; }
+    @Override public int getSize() { return count; }
+
+    @Override
+    public Collection<T> getItems() {
+      synchronized (HierarchicalClusterAlgorithm.this) {
+        if (items == null) items = itemsNow();
+        return items;
+      }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof HierarchicalClusterAlgorithm<?>.GridCluster)) return false;
+      HierarchicalClusterAlgorithm<?>.GridCluster c = (HierarchicalClusterAlgorithm<?>.GridCluster) o;
+      return c.z == z && c.key == key && c.count == count
+          && c.position.latitude == position.latitude && c.position.longitude == position.longitude;
+    }
+
+    @Override
+    public int hashCode() {
+      return (int) (key ^ (key >>> 32)) * 31 + z * 7 + count;
+    }
+  }
+}
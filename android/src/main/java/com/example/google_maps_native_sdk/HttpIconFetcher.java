@@ -0,0 +1,170 @@
+package com.example.google_maps_native_sdk;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Conditional HTTP fetch for remote icons.
+ *
+ * Sends {@code If-None-Match}/{@code If-Modified-Since} when validators are
+ * known and computes freshness from {@code Cache-Control: max-age} (falling
+ * back to {@code Expires}, then a heuristic on {@code Last-Modified}).
+ * Plain java.net only, so it runs in JVM unit tests.
+ */
+final class HttpIconFetcher {
+  static final int TIMEOUT_MS = 6000;
+  static final int MAX_BODY_BYTES = 8 * 1024 * 1024;
+  /** Freshness used when the response carries no lifetime information. */
+  static final long DEFAULT_TTL_MS = 60L * 60L * 1000L;
+  private static final long MAX_HEURISTIC_TTL_MS = 24L * 60L * 60L * 1000L;
+
+  private HttpIconFetcher() {}
+
+  /** Cache validators and freshness stored next to a cached icon. */
+  static final class Validators {
+    @Nullable final String etag;
+    @Nullable final String lastModified;
+    final long expiresAt;
+    final boolean noStore;
+
+    Validators(@Nullable String etag, @Nullable String lastModified, long expiresAt, boolean noStore) {
+      this.etag = etag;
+      this.lastModified = lastModified;
+      this.expiresAt = expiresAt;
+      this.noStore = noStore;
+    }
+
+    boolean canRevalidate() { return etag != null || lastModified != null; }
+  }
+
+  static final class Response {
+    final boolean notModified;
+    /** New body on 200; null on 304. */
+    @Nullable final byte[] body;
+    @NonNull final Validators validators;
+
+    Response(boolean notModified, @Nullable byte[] body, @NonNull Validators validators) {
+      this.notModified = notModified;
+      this.body = body;
+      this.validators = validators;
+    }
+  }
+
+  /**
+   * Fetches {@code url}; with {@code cached} validators the request is conditional and a 304
+   * yields {@code notModified} with refreshed freshness (validators kept unless replaced).
+   */
+  @NonNull
+  static Response fetch(@NonNull String url, @Nullable Validators cached, long now) throws IOException {
+    HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+    conn.setConnectTimeout(TIMEOUT_MS);
+    conn.setReadTimeout(TIMEOUT_MS);
+    conn.setInstanceFollowRedirects(true);
+    conn.setUseCaches(false);
+    conn.setRequestProperty("User-Agent", "Mozilla/5.0 (Android) GoogleMapsNativeSDK/1.0");
+    if (cached != null) {
+      if (cached.etag != null) conn.setRequestProperty("If-None-Match", cached.etag);
+      if (cached.lastModified != null) conn.setRequestProperty("If-Modified-Since", cached.lastModified);
+    }
+    try {
+      int code = conn.getResponseCode();
+      if (code == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+        String etag = conn.getHeaderField("ETag");
+        String lastModified = conn.getHeaderField("Last-Modified");
+        Validators v = validatorsFrom(conn,
+            etag != null ? etag : cached.etag,
+            lastModified != null ? lastModified : cached.lastModified, now);
+        return new Response(true, null, v);
+      }
+      if (code < 200 || code >= 300) throw new IOException("HTTP " + code + " for " + url);
+      byte[] body;
+      try (InputStream is = conn.getInputStream()) {
+        body = readAll(is);
+      }
+      Validators v = validatorsFrom(conn, conn.getHeaderField("ETag"), conn.getHeaderField("Last-Modified"), now);
+      return new Response(false, body, v);
+    } finally {
+      try { conn.disconnect(); } catch (Throwable ignored) {}
+    }
+  }
+
+  @NonNull
+  private static Validators validatorsFrom(@NonNull HttpURLConnection conn, @Nullable String etag,
+                                           @Nullable String lastModified, long now) {
+    String cc = conn.getHeaderField("Cache-Control");
+    boolean noStore = cc != null && cc.toLowerCase(Locale.US).contains("no-store");
+    long ttl = freshnessMs(cc, conn.getHeaderField("Expires"), conn.getHeaderField("Date"), lastModified, now);
+    return new Validators(etag, lastModified, now + ttl, noStore);
+  }
+
+  /** Freshness lifetime in ms: max-age, else Expires - Date, else 10% of the age since Last-Modified (capped). */
+  static long freshnessMs(@Nullable String cacheControl, @Nullable String expires, @Nullable String date,
+                          @Nullable String lastModified, long now) {
+    if (cacheControl != null) {
+      String cc = cacheControl.toLowerCase(Locale.US);
+      if (cc.contains("no-cache") || cc.contains("no-store")) return 0;
+      long maxAge = parseMaxAge(cc);
+      if (maxAge >= 0) return maxAge * 1000L;
+    }
+    long dateMs = parseHttpDate(date);
+    long base = dateMs > 0 ? dateMs : now;
+    long expiresMs = parseHttpDate(expires);
+    if (expires != null) return Math.max(0, expiresMs - base);
+    long lastModifiedMs = parseHttpDate(lastModified);
+    if (lastModifiedMs > 0 && lastModifiedMs < base) {
+      return Math.min(MAX_HEURISTIC_TTL_MS, (base - lastModifiedMs) / 10);
+    }
+    return DEFAULT_TTL_MS;
+  }
+
+  /** {@code max-age} seconds from a Cache-Control value, or -1. */
+  static long parseMaxAge(@NonNull String cacheControl) {
+    for (String part : cacheControl.split(",")) {
+      String p = part.trim().toLowerCase(Locale.US);
+      if (!p.startsWith("max-age")) continue;
+      int eq = p.indexOf('=');
+      if (eq < 0) continue;
+      String v = p.substring(eq + 1).trim();
+      if (v.startsWith("\"") && v.endsWith("\"") && v.length() >= 2) v = v.substring(1, v.length() - 1);
+      try { return Math.max(0, Long.parseLong(v)); } catch (NumberFormatException ignored) {}
+    }
+    return -1;
+  }
+
+  // RFC 1123 date in ms; 0 when absent or invalid (invalid Expires means "already expired")
+  private static long parseHttpDate(@Nullable String value) {
+    if (value == null) return 0;
+    try {
+      SimpleDateFormat f = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+      f.setTimeZone(TimeZone.getTimeZone("GMT"));
+      Date d = f.parse(value);
+      return d != null ? d.getTime() : 0;
+    } catch (Exception e) {
+      return 0;
+    }
+  }
+
+  @NonNull
+  private static byte[] readAll(@NonNull InputStream is) throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream(16 * 1024);
+    byte[] buf = new byte[16 * 1024];
+    int total = 0;
+    int n;
+    while ((n = is.read(buf)) != -1) {
+      total += n;
+      if (total > MAX_BODY_BYTES) throw new IOException("icon source too large");
+      bos.write(buf, 0, n);
+    }
+    return bos.toByteArray();
+  }
+}
@@ -0,0 +1,148 @@
+package com.example.google_maps_native_sdk;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Decodes icon images straight to (about) their display size.
+ *
+ * Bounds are read first and the image is decoded with a power-of-two
+ * {@code inSampleSize}, so a 1024px source for a 48dp icon never exists at full
+ * size. The sampled bitmap is decoded into a recycled buffer from a small
+ * process-wide pool and, when a final resize is still needed, returned to the
+ * pool afterwards. JPEG sources have no alpha and decode as RGB_565.
+ */
+final class IconDecoder {
+  private static final BitmapPool POOL = new BitmapPool(4 * 1024 * 1024);
+  private static final int MAX_SOURCE_BYTES = 8 * 1024 * 1024;
+
+  private IconDecoder() {}
+
+  /**
+   * Decodes {@code data} so that its longest side is at most {@code maxPx}.
+   * Hardware bitmaps are only used when {@code allowHardware} is set (API 26+) and
+   * no software resize is needed; Maps marker icons must stay software bitmaps.
+   */
+  @Nullable
+  static Bitmap decode(@NonNull byte[] data, int maxPx, boolean allowHardware) {
+    maxPx = Math.max(1, maxPx);
+    BitmapFactory.Options bounds = new BitmapFactory.Options();
+    bounds.inJustDecodeBounds = true;
+    BitmapFactory.decodeByteArray(data, 0, data.length, bounds);
+    int w = bounds.outWidth, h = bounds.outHeight;
+    if (w <= 0 || h <= 0) return null;
+
+    int sample = sampleSize(w, h, maxPx);
+    int sw = (w + sample - 1) / sample, sh = (h + sample - 1) / sample;
+    boolean opaque = "image/jpeg".equals(bounds.outMimeType);
+    Bitmap.Config config = opaque ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+    boolean needsResize = Math.max(sw, sh) > maxPx;
+
+    BitmapFactory.Options opts = new BitmapFactory.Options();
+    opts.inSampleSize = sample;
+    if (allowHardware && !needsResize && Build.VERSION.SDK_INT >= 26) {
+      opts.inPreferredConfig = Bitmap.Config.HARDWARE;
+      Bitmap hw = BitmapFactory.decodeByteArray(data, 0, data.length, opts);
+      if (hw != null) return hw;
+      opts = new BitmapFactory.Options();
+      opts.inSampleSize = sample;
+    }
+    opts.inPreferredConfig = config;
+    opts.inMutable = true;
+    opts.inBitmap = POOL.take(sw * sh * bytesPerPixel(config));
+    Bitmap sampled;
+    try {
+      sampled = BitmapFactory.decodeByteArray(data, 0, data.length, opts);
+    } catch (IllegalArgumentException e) {
+      // Pooled buffer rejected (size/config mismatch); decode into a fresh one
+      opts.inBitmap = null;
+      sampled = BitmapFactory.decodeByteArray(data, 0, data.length, opts);
+    }
+    if (sampled == null) return null;
+
+    int side = Math.max(sampled.getWidth(), sampled.getHeight());
+    if (side <= maxPx) return sampled;
+    float scale = (float) maxPx / (float) side;
+    int nw = Math.max(1, Math.round(sampled.getWidth() * scale));
+    int nh = Math.max(1, Math.round(sampled.getHeight() * scale));
+    Bitmap scaled = Bitmap.createScaledBitmap(sampled, nw, nh, true);
+    if (scaled != sampled) POOL.put(sampled);
+    return scaled;
+  }
+
+  /** Reads a stream fully (bounded), so bounds and pixels can be decoded from the same bytes. */
+  @NonNull
+  static byte[] readAll(@NonNull InputStream is) throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream(16 * 1024);
+    byte[] buf = new byte[16 * 1024];
+    int total = 0;
+    int n;
+    while ((n = is.read(buf)) != -1) {
+      total += n;
+      if (total > MAX_SOURCE_BYTES) throw new IOException("icon source too large");
+      bos.write(buf, 0, n);
+    }
+    return bos.toByteArray();
+  }
+
+  /** Largest power of two keeping the sampled longest side at or above {@code maxPx}. */
+  static int sampleSize(int w, int h, int maxPx) {
+    int side = Math.max(w, h);
+    int sample = 1;
+    while (side / (sample * 2) >= maxPx) sample *= 2;
+    return sample;
+  }
+
+  private static int bytesPerPixel(Bitmap.Config config) {
+    return config == Bitmap.Config.RGB_565 ? 2 : 4;
+  }
+
+  /** Bounded set of mutable bitmaps reusable as {@code inBitmap}. */
+  static final class BitmapPool {
+    private final long maxBytes;
+    private final ArrayDeque<Bitmap> free = new ArrayDeque<>();
+    private long bytes;
+
+    BitmapPool(long maxBytes) { this.maxBytes = maxBytes; }
+
+    /** Smallest pooled bitmap with room for {@code needed} bytes, or null. */
+    @Nullable
+    synchronized Bitmap take(int needed) {
+      Bitmap best = null;
+      for (Bitmap b : free) {
+        int size = b.getAllocationByteCount();
+        if (size >= needed && (best == null || size < best.getAllocationByteCount())) best = b;
+      }
+      if (best != null) {
+        free.remove(best);
+        bytes -= best.getAllocationByteCount();
+      }
+      return best;
+    }
+
+    synchronized void put(@NonNull Bitmap b) {
+      if (!b.isMutable() || b.isRecycled()) return;
+      int size = b.getAllocationByteCount();
+      if (size > maxBytes) return;
+      free.addLast(b);
+      bytes += size;
+      // Evict oldest first
+      Iterator<Bitmap> it = free.iterator();
+      while (bytes > maxBytes && it.hasNext()) {
+        Bitmap old = it.next();
+        it.remove();
+        bytes -= old.getAllocationByteCount();
+      }
+    }
+  }
+}
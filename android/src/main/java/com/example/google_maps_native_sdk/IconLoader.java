@@ -0,0 +1,202 @@
+package com.example.google_maps_native_sdk;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded, prioritized marker icon loader.
+ *
+ * Requests are coalesced by cache key: any number of markers waiting for the
+ * same icon share one load. Each owner (marker id) waits for at most one key;
+ * cancelling an owner drops its interest and removes the load from the queue
+ * once nobody waits for it. Queued loads for visible markers run first.
+ * Results are delivered on the main executor, including loads that lost all
+ * their owners so the decoded icon still lands in the cache.
+ */
+final class IconLoader {
+  static final int PRIORITY_VISIBLE = 0;
+  static final int PRIORITY_OFFSCREEN = 1;
+
+  interface Source {
+    @Nullable Bitmap load(@NonNull String url, int iconDp) throws Exception;
+  }
+
+  interface Listener {
+    /** Main thread. {@code owners} are the ids still waiting for {@code key}. */
+    void onIconLoaded(@NonNull String key, @Nullable Bitmap bitmap, @NonNull List<String> owners);
+  }
+
+  interface Visibility {
+    boolean isVisible(@NonNull String owner);
+  }
+
+  private final class Job implements Runnable, Comparable<Job> {
+    final String key;
+    final String url;
+    final int iconDp;
+    final long seq;
+    int priority;
+    final Set<String> owners = new LinkedHashSet<>();
+
+    Job(String key, String url, int iconDp, int priority, long seq) {
+      this.key = key;
+      this.url = url;
+      this.iconDp = iconDp;
+      this.priority = priority;
+      this.seq = seq;
+    }
+
+    @Override
+    public int compareTo(Job o) {
+      if (priority != o.priority) return priority < o.priority ? -1 : 1;
+      return Long.compare(seq, o.seq);
+    }
+
+    @Override
+    public void run() {
+      Bitmap bmp = null;
+      try { bmp = source.load(url, iconDp); } catch (Throwable ignored) {}
+      final List<String> waiting;
+      synchronized (IconLoader.this) {
+        if (inFlight.get(key) == this) inFlight.remove(key);
+        waiting = new ArrayList<>(owners);
+        for (String owner : owners) {
+          if (ownerJobs.get(owner) == this) ownerJobs.remove(owner);
+        }
+        loads++;
+        if (shutdown) return;
+      }
+      final Bitmap ready = bmp;
+      main.execute(() -> {
+        if (!shutdown) listener.onIconLoaded(key, ready, waiting);
+      });
+    }
+  }
+
+  private final Source source;
+  private final Listener listener;
+  private final Executor main;
+  private final ThreadPoolExecutor pool;
+  private final Map<String, Job> inFlight = new HashMap<>();
+  private final Map<String, Job> ownerJobs = new HashMap<>();
+  private long seq;
+  private volatile boolean shutdown;
+
+  // Counters (guarded by this)
+  private long requests;
+  private long dedupeHits;
+  private long loads;
+  private long cancelled;
+
+  IconLoader(@NonNull Source source, @NonNull Listener listener, @NonNull Executor main, int threads) {
+    this.source = source;
+    this.listener = listener;
+    this.main = main;
+    int n = Math.max(1, threads);
+    this.pool = new ThreadPoolExecutor(n, n, 30L, TimeUnit.SECONDS, new PriorityBlockingQueue<>(), r -> {
+      Thread t = new Thread(r, "gmns-icons");
+      t.setDaemon(true);
+      t.setPriority(Thread.NORM_PRIORITY - 1);
+      return t;
+    });
+    this.pool.allowCoreThreadTimeOut(true);
+  }
+
+  /** Requests {@code key} for {@code owner}, replacing whatever the owner waited for before. */
+  synchronized void request(@NonNull String owner, @NonNull String key, @NonNull String url, int iconDp, int priority) {
+    if (shutdown) return;
+    requests++;
+    Job prev = ownerJobs.get(owner);
+    if (prev != null) {
+      if (prev.key.equals(key)) return;
+      detach(owner, prev);
+    }
+    Job job = inFlight.get(key);
+    if (job != null) {
+      dedupeHits++;
+      job.owners.add(owner);
+      ownerJobs.put(owner, job);
+      if (priority < job.priority && pool.remove(job)) {
+        job.priority = priority;
+        pool.execute(job);
+      }
+      return;
+    }
+    job = new Job(key, url, iconDp, priority, seq++);
+    job.owners.add(owner);
+    inFlight.put(key, job);
+    ownerJobs.put(owner, job);
+    pool.execute(job);
+  }
+
+  /** Drops the owner's pending request (marker removed or switched icon source). */
+  synchronized void cancel(@NonNull String owner) {
+    Job job = ownerJobs.get(owner);
+    if (job != null) detach(owner, job);
+  }
+
+  synchronized void cancelAll() {
+    for (Job job : inFlight.values()) {
+      if (pool.remove(job)) cancelled++;
+    }
+    inFlight.clear();
+    ownerJobs.clear();
+  }
+
+  /** Re-sorts queued loads after the camera moved; started loads are unaffected. */
+  synchronized void reprioritize(@NonNull Visibility visibility) {
+    if (pool.getQueue().isEmpty()) return;
+    for (Job job : inFlight.values()) {
+      int p = PRIORITY_OFFSCREEN;
+      for (String owner : job.owners) {
+        if (visibility.isVisible(owner)) { p = PRIORITY_VISIBLE; break; }
+      }
+      if (p != job.priority && pool.remove(job)) {
+        job.priority = p;
+        pool.execute(job);
+      }
+    }
+  }
+
+  void shutdown() {
+    synchronized (this) {
+      shutdown = true;
+      inFlight.clear();
+      ownerJobs.clear();
+    }
+    pool.shutdownNow();
+  }
+
+  synchronized Map<String, Object> stats() {
+    Map<String, Object> out = new HashMap<>();
+    out.put("queueDepth", pool.getQueue().size());
+    out.put("inFlight", inFlight.size());
+    out.put("requests", requests);
+    out.put("dedupeHits", dedupeHits);
+    out.put("loads", loads);
+    out.put("cancelled", cancelled);
+    return out;
+  }
+
+  private void detach(String owner, Job job) {
+    ownerJobs.remove(owner);
+    job.owners.remove(owner);
+    if (job.owners.isEmpty() && pool.remove(job)) {
+      inFlight.remove(job.key);
+      cancelled++;
+    }
+  }
+}
@@ -2,12 +2,9 @@ package com.example.google_maps_native_sdk;
 
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.os.Build;
 import android.util.LruCache;
 import android.view.View;
-import android.animation.ValueAnimator;
-import android.view.animation.LinearInterpolator;
 import android.view.animation.AccelerateDecelerateInterpolator;
 import android.graphics.Point;
 
@@ -18,6 +15,7 @@ import com.google.android.gms.maps.CameraUpdateFactory;
 import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.MapView;
 import com.google.android.gms.maps.OnMapReadyCallback;
+import com.google.android.gms.maps.model.BitmapDescriptor;
 import com.google.android.gms.maps.model.BitmapDescriptorFactory;
 import com.google.android.gms.maps.model.CameraPosition;
 import com.google.android.gms.maps.model.LatLng;
@@ -27,10 +25,7 @@ import com.google.android.gms.maps.model.MarkerOptions;
 import com.google.android.gms.maps.model.PolylineOptions;
 
 import java.io.InputStream;
-import java.io.ByteArrayInputStream;
 import android.util.Base64;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -53,6 +48,8 @@ import com.google.maps.android.clustering.ClusterItem;
 import com.google.maps.android.heatmaps.HeatmapTileProvider;
 import com.google.android.gms.maps.model.TileOverlay;
 import com.google.android.gms.maps.model.TileOverlayOptions;
+import com.google.android.gms.maps.model.Tile;
+import com.google.android.gms.maps.model.TileProvider;
 import com.google.android.gms.maps.model.UrlTileProvider;
 import com.google.android.gms.maps.model.Circle;
 import com.google.android.gms.maps.model.CircleOptions;
@@ -63,22 +60,89 @@ class MapViewPlatformView implements PlatformView, OnMapReadyCallback, MethodCal
   private GoogleMap map;
   private final MethodChannel channel;
   private final LruCache<String, Bitmap> iconCache;
-  private final ExecutorService executor = Executors.newCachedThreadPool();
-  private final java.io.File diskCacheDir;
+  // One descriptor per cached icon so markers sharing an icon share its renderer copy; follows iconCache evictions
+  private final Map<String, BitmapDescriptor> descriptorCache = new java.util.concurrent.ConcurrentHashMap<>();
+  private long descriptorHits;
+  private long descriptorMisses;
+  private final IconLoader iconLoader;
+  @Nullable private LatLngBounds lastVisibleBounds;
+  private final DiskLruCache diskCache;
+  // Network icons: expiry per icon key (url#dp=); stale icons are served and revalidated in the background
+  private final Map<String, Long> iconExpiry = new java.util.concurrent.ConcurrentHashMap<>();
+  private final java.util.Set<String> revalidating = java.util.Collections.newSetFromMap(new java.util.concurrent.ConcurrentHashMap<>());
+  private final ExecutorService revalidateExecutor = Executors.newSingleThreadExecutor();
+  private long revalidations;
+  private long revalidationsChanged;
 
-  private final Map<String, Marker> markers = new HashMap<>();
-  private final Map<String, com.google.android.gms.maps.model.Polyline> polylines = new HashMap<>();
-  private final Map<String, TileOverlay> tileOverlays = new HashMap<>();
+  // Id <-> object both ways; tapped objects resolve through their tag
+  private final ObjectRegistry<Marker> markers = new ObjectRegistry<>(new ObjectRegistry.Tags<Marker>() {
+    @Override public void set(@NonNull Marker m, Object tag) { m.setTag(tag); }
+    @Override public Object get(@NonNull Marker m) { return m.getTag(); }
+  });
+  private final ObjectRegistry<com.google.android.gms.maps.model.Polyline> polylines = new ObjectRegistry<>(new ObjectRegistry.Tags<com.google.android.gms.maps.model.Polyline>() {
+    @Override public void set(@NonNull com.google.android.gms.maps.model.Polyline p, Object tag) { p.setTag(tag); }
+    @Override public Object get(@NonNull com.google.android.gms.maps.model.Polyline p) { return p.getTag(); }
+  });
+  // Pulse rings, keyed by their marker id
+  private final ObjectRegistry<Circle> circles = new ObjectRegistry<>(new ObjectRegistry.Tags<Circle>() {
+    @Override public void set(@NonNull Circle c, Object tag) { c.setTag(tag); }
+    @Override public Object get(@NonNull Circle c) { return c.getTag(); }
+  });
+  // Native copy of each polyline's geometry; trails split appended polylines into chunks
+  private final Map<String, CoordBuffer> polylinePaths = new HashMap<>();
+  private final Map<String, PolylineTrail> polylineTrails = new HashMap<>();
+  private final Map<String, PolylineLod> polylineLods = new HashMap<>();
+  private final Map<String, PolylineProgress> polylineProgress = new HashMap<>();
+  private final ObjectRegistry<TileOverlay> tileOverlays = new ObjectRegistry<>(null);
+  // Caching overlays by id, for route-corridor prefetch
+  private final Map<String, CachingTileProvider> cachingTiles = new HashMap<>();
+  private final TilePrefetcher tilePrefetcher = new TilePrefetcher();
   private final Map<String, ClusterItemImpl> clusterItems = new HashMap<>();
-  private final Map<String, ValueAnimator> markerAnimators = new HashMap<>();
-  private final Map<String, Pulse> pulseMap = new HashMap<>();
+  // markers#sync bookkeeping: content hash last applied per id, and icon key currently requested per marker
+  private final Map<String, Object> markerHashes = new HashMap<>();
+  private final Map<String, String> markerIconKeys = new HashMap<>();
+  // Bounce, pulse and motion tracks, stepped together once per frame
+  private final AnimationEngine animations = new AnimationEngine(android.view.Choreographer.getInstance());
+  // Refresh requests from marker/style changes, merged into one refresh per frame
+  private final RenderScheduler render = new RenderScheduler(android.view.Choreographer.getInstance(), this::refreshNow);
+  // Every non-clustered marker as a plain record; `markers` holds the ones that are live Marker objects
+  private final Map<String, MarkerRecord> markerRecords = new HashMap<>();
+  // map#setMarkerVirtualization: only markers in view (plus a margin) are live; released ones are pooled
+  private boolean virtualMarkers = false;
+  private double virtualMargin = 0.5;
+  private int virtualMaxLive = 1500;
+  private final MarkerGrid markerGrid = new MarkerGrid(16);
+  private final java.util.ArrayDeque<Marker> markerPool = new java.util.ArrayDeque<>();
+  @Nullable private double[] virtualArea; // south, west, north, east
+  private long virtualMaterialized, virtualReused, virtualReleased;
+  // nav#startFollow: location fixes snapped to a route polyline drive the vehicle marker and camera
+  @Nullable private NavFollow navFollow;
+  // route#* queries and follow mode: indexed geometry per polyline id, rebuilt when its points change
+  private final Map<String, RouteEntry> routeGeometries = new HashMap<>();
   // Track instances to forward host lifecycle
   private static final java.util.Set<MapViewPlatformView> INSTANCES = java.util.Collections.newSetFromMap(new java.util.WeakHashMap<>());
 
   private ClusterManager<ClusterItemImpl> clusterManager;
   private boolean clusteringEnabled = false;
-  private HeatmapTileProvider heatmapProvider;
-  private TileOverlay heatmapOverlay;
+  // map#setClusterOptions: "distance" (maps-utils default), "grid" or "hierarchical"
+  private String clusterAlgorithm = "distance";
+  private int clusterGridSize = HierarchicalClusterAlgorithm.DEFAULT_GRID_PX;
+  private int clusterMaxZoom = HierarchicalClusterAlgorithm.DEFAULT_MAX_ZOOM;
+  @Nullable private HierarchicalClusterAlgorithm<ClusterItemImpl> hierarchicalClusters;
+  private boolean clusterPosted = false;
+  // Named heatmap layers; mutated only on heatmapExecutor
+  private final Map<String, HeatmapLayer> heatmaps = new java.util.concurrent.ConcurrentHashMap<>();
+  private final Map<String, HeatmapStreamLayer> heatmapStreams = new java.util.concurrent.ConcurrentHashMap<>();
+  private final ExecutorService heatmapExecutor = Executors.newSingleThreadExecutor(r -> {
+    Thread t = new Thread(r, "gmns-heatmap");
+    t.setDaemon(true);
+    return t;
+  });
+  // map#batch: recluster requests raised while a batch is applied are deferred and flushed once
+  // (refreshes need no deferral: the batch runs within one frame, so the scheduler merges them)
+  private int batchDepth = 0;
+  private boolean batchClusterPending = false;
+  private boolean batchHeatmapQueued = false;
 
   MapViewPlatformView(Context context, BinaryMessenger messenger, int viewId, Map<String, Object> params) {
     this.context = context;
@@ -97,6 +161,7 @@ class MapViewPlatformView implements PlatformView, OnMapReadyCallback, MethodCal
     this.mapView.getMapAsync(this);
     this.channel = new MethodChannel(messenger, "google_maps_native_sdk/" + viewId);
     this.channel.setMethodCallHandler(this);
+    this.iconLoader = new IconLoader(this::loadBitmapScaled, this::onIconLoaded, mapView::post, 4);
 
     final int maxMem = (int) (Runtime.getRuntime().maxMemory() / 1024);
     final int cacheSize = Math.min(1024 * 12, maxMem / 16); // up to ~12MB
@@ -106,37 +171,45 @@ class MapViewPlatformView implements PlatformView, OnMapReadyCallback, MethodCal
         if (Build.VERSION.SDK_INT >= 19) return value.getAllocationByteCount() / 1024;
         return value.getByteCount() / 1024;
       }
+
+      @Override
+      protected void entryRemoved(boolean evicted, @NonNull String key, @NonNull Bitmap oldValue, @Nullable Bitmap newValue) {
+        descriptorCache.remove(key);
+      }
     };
 
     // Apply initial params after mapReady
     this.pendingParams = params;
-    // Disk cache dir
-    this.diskCacheDir = new java.io.File(context.getCacheDir(), "gmns_icons");
-    //noinspection ResultOfMethodCallIgnored
-    this.diskCacheDir.mkdirs();
-    executor.submit(() -> { try { pruneDiskCache(32L * 1024L * 1024L, 300); } catch (Throwable ignored) {} });
+    // Disk cache (shared per process; index is loaded by the first icon load)
+    this.diskCache = DiskLruCache.open(new java.io.File(context.getCacheDir(), "gmns_icons"), 32L * 1024L * 1024L, 300);
     synchronized (INSTANCES) { INSTANCES.add(this); }
   }
 
   private Map<String, Object> pendingParams;
 
   // Cluster item representation
+  // Fields are mutable so markers#sync can update an item in place (ClusterManager.updateItem)
   static class ClusterItemImpl implements ClusterItem {
-    final LatLng position;
+    LatLng position;
     final String id;
-    final String title;
-    final String snippet;
-    final String iconUrl;
-    final float iconDp;
-    final float anchorU;
-    final float anchorV;
-    final float rotation;
-    final float zIndex;
-    final boolean draggable;
+    String title;
+    String snippet;
+    String iconUrl;
+    float iconDp;
+    float anchorU;
+    float anchorV;
+    float rotation;
+    float zIndex;
+    boolean draggable;
 
     ClusterItemImpl(String id, LatLng position, String title, String snippet,
                     String iconUrl, float iconDp, float anchorU, float anchorV, float rotation, float zIndex, boolean draggable) {
       this.id = id;
+      set(position, title, snippet, iconUrl, iconDp, anchorU, anchorV, rotation, zIndex, draggable);
+    }
+
+    void set(LatLng position, String title, String snippet,
+             String iconUrl, float iconDp, float anchorU, float anchorV, float rotation, float zIndex, boolean draggable) {
       this.position = position;
       this.title = title;
       this.snippet = snippet;
@@ -155,6 +228,23 @@ class MapViewPlatformView implements PlatformView, OnMapReadyCallback, MethodCal
     @Override public Float getZIndex() { return zIndex; }
   }
 
+  // Plain state of a non-clustered marker, kept whether or not it is on the map
+  static class MarkerRecord {
+    LatLng position;
+    String title;
+    String snippet;
+    String iconUrl;
+    double iconDp;
+    float anchorU;
+    float anchorV;
+    float rotation;
+    float zIndex;
+    boolean draggable;
+    @Nullable String bytesIconKey; // markers#setIconBytes
+    // Held here: bytes icons cannot be reloaded if the icon cache evicts them
+    @Nullable BitmapDescriptor bytesIcon;
+  }
+
   // Custom cluster renderer to apply custom marker icons for single items
   class ClusterRenderer extends com.google.maps.android.clustering.view.DefaultClusterRenderer<ClusterItemImpl> {
     ClusterRenderer(Context ctx, GoogleMap map, ClusterManager<ClusterItemImpl> mgr) {
@@ -165,24 +255,13 @@ class MapViewPlatformView implements PlatformView, OnMapReadyCallback, MethodCal
     protected void onBeforeClusterItemRendered(@NonNull ClusterItemImpl item, @NonNull MarkerOptions markerOptions) {
       super.onBeforeClusterItemRendered(item, markerOptions);
       if (item.iconUrl != null && !item.iconUrl.isEmpty()) {
-        String key = item.iconUrl + "#dp=" + (int) Math.max(1, item.iconDp);
-        Bitmap cached = iconCache.get(key);
+        String key = iconKey(item.iconUrl, item.iconDp);
+        BitmapDescriptor cached = iconDescriptor(key);
         if (cached != null) {
-          markerOptions.icon(BitmapDescriptorFactory.fromBitmap(cached));
+          markerOptions.icon(cached);
         } else {
-          // async load and update after
-          executor.submit(() -> {
-            Bitmap ready = null;
-            try { ready = loadBitmapScaled(item.iconUrl, (int) Math.max(1, item.iconDp)); } catch (Throwable ignored) {}
-            final Bitmap finalBmp = ready;
-            mapView.post(() -> {
-              if (finalBmp != null) {
-                iconCache.put(key, finalBmp);
-                Marker m = markers.get(item.id);
-                if (m != null) m.setIcon(BitmapDescriptorFactory.fromBitmap(finalBmp));
-              }
-            });
-          });
+          // Rendered items are on screen; the icon is swapped in once loaded (see onClusterItemRendered)
+          iconLoader.request(item.id, key, item.iconUrl, (int) Math.max(1, item.iconDp), IconLoader.PRIORITY_VISIBLE);
         }
       }
       markerOptions.anchor(item.anchorU, item.anchorV);
@@ -197,6 +276,19 @@ class MapViewPlatformView implements PlatformView, OnMapReadyCallback, MethodCal
     protected void onClusterItemRendered(@NonNull ClusterItemImpl item, @NonNull Marker marker) {
       super.onClusterItemRendered(item, marker);
       markers.put(item.id, marker);
+      String key = iconKey(item.iconUrl, item.iconDp);
+      if (key != null) markerIconKeys.put(item.id, key);
+    }
+
+    // Called when an item updated in place (markers#sync) keeps its rendered marker
+    @Override
+    protected void onClusterItemUpdated(@NonNull ClusterItemImpl item, @NonNull Marker marker) {
+      super.onClusterItemUpdated(item, marker);
+      marker.setAnchor(item.anchorU, item.anchorV);
+      marker.setRotation(item.rotation);
+      marker.setZIndex(item.zIndex);
+      marker.setDraggable(item.draggable);
+      applyMarkerIcon(item.id, marker, item.iconUrl, item.iconDp);
     }
   }
 
@@ -206,10 +298,16 @@ class MapViewPlatformView implements PlatformView, OnMapReadyCallback, MethodCal
   @Override
   public void dispose() {
     try {
+      animations.cancelAll();
+      render.cancel();
+      navFollow = null;
       try { mapView.onPause(); } catch (Throwable ignored) {}
       try { mapView.onStop(); } catch (Throwable ignored) {}
       try { mapView.onDestroy(); } catch (Throwable ignored) {}
-      executor.shutdownNow();
+      iconLoader.shutdown();
+      revalidateExecutor.shutdownNow();
+      tilePrefetcher.shutdown();
+      heatmapExecutor.shutdownNow();
     } catch (Throwable ignored) {}
     synchronized (INSTANCES) { INSTANCES.remove(this); }
   }
@@ -218,6 +316,15 @@ class MapViewPlatformView implements PlatformView, OnMapReadyCallback, MethodCal
   public void onMapReady(@NonNull GoogleMap googleMap) {
     this.map = googleMap;
     map.setOnMarkerClickListener(this);
+    map.setOnPolylineClickListener(p -> {
+      String id = polylines.idOf(p);
+      if (id != null) channel.invokeMethod("event#onPolylineTap", id);
+    });
+    map.setOnCircleClickListener(c -> {
+      String id = circles.idOf(c);
+      if (id != null) channel.invokeMethod("event#onCircleTap", id);
+    });
+    map.setOnCameraIdleListener(this::onCameraIdleInternal);
     try {
       map.setOnMapLoadedCallback(() -> {
         try { mapView.setAlpha(1f); } catch (Throwable ignored) {}
@@ -242,25 +349,28 @@ class MapViewPlatformView implements PlatformView, OnMapReadyCallback, MethodCal
         clusterManager = new ClusterManager<>(context, map);
         ClusterRenderer renderer = new ClusterRenderer(context, map, clusterManager);
         clusterManager.setRenderer(renderer);
-        map.setOnCameraIdleListener(clusterManager);
         map.setOnMarkerClickListener(clusterManager);
         clusterManager.setOnClusterItemClickListener(item -> {
           try { channel.invokeMethod("event#onMarkerTap", item.id); } catch (Throwable ignored) {}
           return false;
         });
+        applyClusterAlgorithm();
       }
-      // Migrate existing normal markers into cluster items
-      if (!markers.isEmpty()) {
-        for (Map.Entry<String, Marker> e : new ArrayList<>(markers.entrySet())) {
-          Marker mk = e.getValue();
-          String id = e.getKey();
-          LatLng p = mk.getPosition();
-          ClusterItemImpl item = new ClusterItemImpl(id, p, mk.getTitle(), mk.getSnippet(), "", 48f, 0.5f, 0.62f, 0f, 0f, false);
-          clusterItems.put(id, item);
+      // Migrate existing normal markers (live or virtualized) into cluster items
+      if (!markerRecords.isEmpty()) {
+        for (Map.Entry<String, MarkerRecord> e : markerRecords.entrySet()) {
+          MarkerRecord r = e.getValue();
+          ClusterItemImpl item = new ClusterItemImpl(e.getKey(), r.position, r.title, r.snippet,
+              r.iconUrl != null ? r.iconUrl : "", (float) r.iconDp, r.anchorU, r.anchorV, r.rotation, r.zIndex, r.draggable);
+          clusterItems.put(e.getKey(), item);
           clusterManager.addItem(item);
-          mk.remove();
         }
+        animations.cancelAll();
+        for (Marker mk : markers.values()) mk.remove();
         markers.clear();
+        markerRecords.clear();
+        markerGrid.clear();
+        drainMarkerPool();
         clusterManager.cluster();
       }
     } else {
@@ -269,11 +379,29 @@ class MapViewPlatformView implements PlatformView, OnMapReadyCallback, MethodCal
         clusterItems.clear();
         // keep clusterManager instance but detach listeners so clicks go back to this
         map.setOnMarkerClickListener(this);
-        map.setOnCameraIdleListener(null);
       }
     }
   }
 
+  // Installs the configured algorithm; ClusterManager moves the current items over
+  private void applyClusterAlgorithm() {
+    if (clusterManager == null) return;
+    com.google.maps.android.clustering.algo.Algorithm<ClusterItemImpl> algorithm;
+    hierarchicalClusters = null;
+    if ("hierarchical".equals(clusterAlgorithm)) {
+      hierarchicalClusters = new HierarchicalClusterAlgorithm<>(clusterGridSize, clusterMaxZoom);
+      hierarchicalClusters.setVisibleBounds(lastVisibleBounds);
+      algorithm = hierarchicalClusters;
+    } else if ("grid".equals(clusterAlgorithm)) {
+      algorithm = new com.google.maps.android.clustering.algo.GridBasedAlgorithm<>();
+    } else {
+      algorithm = new com.google.maps.android.clustering.algo.PreCachingAlgorithmDecorator<>(
+          new com.google.maps.android.clustering.algo.NonHierarchicalDistanceBasedAlgorithm<>());
+    }
+    algorithm.setMaxDistanceBetweenClusteredItems(clusterGridSize);
+    clusterManager.setAlgorithm(algorithm);
+  }
+
   private void applyInitialParams(Map<String, Object> params) {
     try {
       @SuppressWarnings("unchecked")
@@ -395,51 +523,55 @@ class MapViewPlatformView implements PlatformView, OnMapReadyCallback, MethodCal
           boolean ok = map.setMapStyle(style == null ? null : new com.google.android.gms.maps.model.MapStyleOptions(style));
           result.success(ok);
         } catch (Throwable t) { result.error("style_error","Invalid style", t.toString()); }
-        scheduleRefresh();
+        scheduleRefresh(true);
         break;
       }
       case "markers#add": {
         @SuppressWarnings("unchecked") Map<String, Object> m = (Map<String, Object>) call.arguments;
+        String id = (String) m.get("id");
+        boolean wasLive = markers.containsKey(id);
+        // Upserts in place outside markers#sync: the next sync must re-apply its options
+        markerHashes.remove(id);
         addMarkerInternal(m);
-        scheduleRefresh();
+        // An off-screen virtual marker has no live object yet: nothing to redraw
+        scheduleRefresh((clusteringEnabled && clusterManager != null) || wasLive || markers.containsKey(id));
         result.success(null);
         break;
       }
       case "markers#update": {
         @SuppressWarnings("unchecked") Map<String, Object> m = (Map<String, Object>) call.arguments;
         String id = (String) m.get("id");
+        markerHashes.remove(id);
+        @SuppressWarnings("unchecked") Map<String, Object> pos = (Map<String, Object>) m.get("position");
+        LatLng position = pos != null ? new LatLng(toDouble(pos.get("lat")), toDouble(pos.get("lng"))) : null;
+        boolean visible = true;
         if (clusteringEnabled && clusterManager != null) {
-          ClusterItemImpl old = clusterItems.remove(id);
-          if (old != null) try { clusterManager.removeItem(old); } catch (Throwable ignored) {}
-          @SuppressWarnings("unchecked") Map<String, Object> pos = (Map<String, Object>) m.get("position");
-          double lat = pos != null ? toDouble(pos.get("lat")) : old != null ? old.position.latitude : 0;
-          double lng = pos != null ? toDouble(pos.get("lng")) : old != null ? old.position.longitude : 0;
-          double rotation = m.get("rotation") != null ? toDouble(m.get("rotation")) : (old != null ? old.rotation : 0);
-          ClusterItemImpl item = new ClusterItemImpl(
-              id,
-              new LatLng(lat, lng),
-              old != null ? old.title : null,
-              old != null ? old.snippet : null,
-              old != null ? old.iconUrl : "",
-              old != null ? old.iconDp : 48f,
-              old != null ? old.anchorU : 0.5f,
-              old != null ? old.anchorV : 0.62f,
-              (float) rotation,
-              old != null ? old.zIndex : 0f,
-              old != null && old.draggable
-          );
-          clusterItems.put(id, item);
-          clusterManager.addItem(item);
-          clusterManager.cluster();
+          moveClusterItem(id, position, m.get("rotation") != null ? (float) toDouble(m.get("rotation")) : null);
         } else {
+          if (position != null) animations.cancel("move:" + id);
+          MarkerRecord rec = markerRecords.get(id);
+          if (rec != null) {
+            if (position != null) rec.position = position;
+            if (m.get("rotation") != null) rec.rotation = (float) toDouble(m.get("rotation"));
+            if (virtualMarkers && position != null) markerGrid.put(id, position.latitude, position.longitude);
+          }
           Marker marker = markers.get(id);
           if (marker != null) {
-            @SuppressWarnings("unchecked") Map<String, Object> pos = (Map<String, Object>) m.get("position");
-            if (pos != null) marker.setPosition(new LatLng(toDouble(pos.get("lat")), toDouble(pos.get("lng"))));
+            if (position != null) marker.setPosition(position);
             if (m.get("rotation") != null) marker.setRotation(((Double) toDouble(m.get("rotation"))).floatValue());
+          } else if (rec != null && virtualMarkers && inVirtualArea(rec.position)) {
+            materializeMarker(id, rec);
+          } else {
+            visible = false;
           }
         }
-        scheduleRefresh();
+        scheduleRefresh(visible);
+        result.success(null);
+        break;
+      }
+      case "markers#animateTo": {
+        @SuppressWarnings("unchecked") Map<String, Object> m = (Map<String, Object>) call.arguments;
+        animateMarkerTo(m);
         result.success(null);
         break;
       }
@@ -447,23 +579,45 @@ class MapViewPlatformView implements PlatformView, OnMapReadyCallback, MethodCal
         @SuppressWarnings("unchecked") Map<String, Object> m = (Map<String, Object>) call.arguments;
         String id = (String) m.get("id");
         Marker marker = markers.get(id);
-        if (marker != null) {
+        MarkerRecord rec = markerRecords.get(id);
+        if (marker != null || rec != null) {
           Object bytesObj = m.get("bytes");
           if (bytesObj instanceof byte[]) {
             byte[] bytes = (byte[]) bytesObj;
-            Bitmap bmp = BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
-            if (bmp != null) {
-              Bitmap scaled = scaleBitmapToDp(bmp, 48);
-              marker.setIcon(BitmapDescriptorFactory.fromBitmap(scaled));
+            // Keyed by content so repeated bytes skip decoding and share one descriptor
+            String key = ICON_KEY_BYTES_PREFIX + md5(bytes) + "#dp=48";
+            BitmapDescriptor desc = iconDescriptor(key);
+            if (desc == null) {
+              Bitmap scaled = decodeIcon(bytes, 48);
+              if (scaled != null) {
+                iconCache.put(key, scaled);
+                desc = iconDescriptor(key);
+              }
+            }
+            if (desc != null) {
+              if (rec != null) {
+                rec.bytesIconKey = key;
+                rec.bytesIcon = desc;
+              }
+              if (marker != null) {
+                marker.setIcon(desc);
+                markerIconKeys.put(id, key);
+              }
+              iconLoader.cancel(id);
+              markerHashes.remove(id);
             }
           }
           Object au = m.get("anchorU");
           Object av = m.get("anchorV");
           if (au instanceof Number && av instanceof Number) {
-            marker.setAnchor(((Number) au).floatValue(), ((Number) av).floatValue());
+            if (rec != null) {
+              rec.anchorU = ((Number) au).floatValue();
+              rec.anchorV = ((Number) av).floatValue();
+            }
+            if (marker != null) marker.setAnchor(((Number) au).floatValue(), ((Number) av).floatValue());
           }
         }
-        scheduleRefresh();
+        scheduleRefresh(marker != null);
         result.success(null);
         break;
       }
@@ -490,7 +644,7 @@ class MapViewPlatformView implements PlatformView, OnMapReadyCallback, MethodCal
         double maxRadius = args.get("maxRadius") instanceof Number ? ((Number) args.get("maxRadius")).doubleValue() : 120.0;
         int repeat = args.get("repeat") instanceof Number ? ((Number) args.get("repeat")).intValue() : 0;
         int color = args.get("color") instanceof Number ? ((Number) args.get("color")).intValue() : 0x551976D2;
-        startMarkerPulse(id, durationMs, maxRadius, color, repeat);
+        startMarkerPulse(id, durationMs, maxRadius, color, repeat, Boolean.TRUE.equals(args.get("clickable")));
         result.success(null);
         break;
       }
@@ -502,79 +656,149 @@ class MapViewPlatformView implements PlatformView, OnMapReadyCallback, MethodCal
       }
       case "markers#remove": {
         String id = (String) call.arguments;
-        if (clusteringEnabled && clusterManager != null) {
-          ClusterItemImpl old = clusterItems.remove(id);
-          if (old != null) try { clusterManager.removeItem(old); } catch (Throwable ignored) {}
-          clusterManager.cluster();
-        } else {
-          Marker marker = markers.remove(id);
-          if (marker != null) marker.remove();
-        }
-        stopMarkerBounce(id);
-        stopMarkerPulse(id);
+        removeMarkerInternal(id);
         result.success(null);
         break;
       }
+      case "markers#sync": {
+        @SuppressWarnings("unchecked") Map<String, Object> args = (Map<String, Object>) call.arguments;
+        @SuppressWarnings("unchecked") List<Map<String, Object>> desired = (List<Map<String, Object>>) args.get("markers");
+        result.success(syncMarkers(desired != null ? desired : new ArrayList<>()));
+        break;
+      }
       case "markers#clear": {
         if (clusteringEnabled && clusterManager != null) {
           clusterManager.clearItems();
           clusterItems.clear();
-          clusterManager.cluster();
+          requestCluster();
         }
         for (Marker mk : markers.values()) mk.remove();
         markers.clear();
-        for (ValueAnimator va : markerAnimators.values()) { try { va.cancel(); } catch (Throwable ignored) {} }
-        markerAnimators.clear();
-        for (Pulse pp : pulseMap.values()) {
-          try { if (pp.animator != null) pp.animator.cancel(); } catch (Throwable ignored) {}
-          try { if (pp.circle != null) pp.circle.remove(); } catch (Throwable ignored) {}
-        }
-        pulseMap.clear();
+        markerRecords.clear();
+        markerGrid.clear();
+        drainMarkerPool();
+        markerHashes.clear();
+        markerIconKeys.clear();
+        iconLoader.cancelAll();
+        animations.cancelAll();
         result.success(null);
         break;
       }
       case "polylines#add": {
         @SuppressWarnings("unchecked") Map<String, Object> p = (Map<String, Object>) call.arguments;
         String id = (String) p.get("id");
-        @SuppressWarnings("unchecked") List<Map<String, Object>> pts = (List<Map<String, Object>>) p.get("points");
-        PolylineOptions opts = new PolylineOptions();
-        for (Map<String, Object> pt : pts) {
-          opts.add(new LatLng(toDouble(pt.get("lat")), toDouble(pt.get("lng"))));
+        List<LatLng> pts = CoordinateCodec.readLatLngs(p);
+        CoordBuffer path = CoordBuffer.of(pts);
+        polylineLods.remove(id);
+        PolylineLod lod = null;
+        if (Boolean.TRUE.equals(p.get("lod"))) {
+          double tolerancePx = p.get("lodTolerancePx") instanceof Number ? ((Number) p.get("lodTolerancePx")).doubleValue() : 1.0;
+          lod = new PolylineLod(path, tolerancePx, Boolean.TRUE.equals(p.get("lodKeepVisible")));
+          List<LatLng> lodPts = lod.pointsFor(map.getCameraPosition().zoom, visibleBounds());
+          if (lodPts != null) pts = lodPts;
         }
+        PolylineOptions opts = new PolylineOptions().addAll(pts);
         int color = ((Number) p.get("color")).intValue();
         double width = toDouble(p.get("width"));
         boolean geodesic = (Boolean) p.get("geodesic");
         boolean dotted = (Boolean) p.get("dotted");
         opts.color(color).width((float) width).geodesic(geodesic).pattern(dotted ? java.util.Arrays.asList(new com.google.android.gms.maps.model.Dot(), new com.google.android.gms.maps.model.Gap(12)) : null);
+        opts.clickable(Boolean.TRUE.equals(p.get("clickable")));
         com.google.android.gms.maps.model.Polyline polyline = map.addPolyline(opts);
+        dropPolylineTrail(id);
+        removePolylineProgress(id);
         com.google.android.gms.maps.model.Polyline old = polylines.put(id, polyline);
         if (old != null) old.remove();
+        polylinePaths.put(id, path);
+        if (lod != null) polylineLods.put(id, lod);
         result.success(null);
         break;
       }
       case "polylines#updatePoints": {
         @SuppressWarnings("unchecked") Map<String, Object> p = (Map<String, Object>) call.arguments;
         String id = (String) p.get("id");
-        @SuppressWarnings("unchecked") List<Map<String, Object>> pts = (List<Map<String, Object>>) p.get("points");
         com.google.android.gms.maps.model.Polyline poly = polylines.get(id);
         if (poly != null) {
-          java.util.List<LatLng> list = new java.util.ArrayList<>(pts.size());
-          for (Map<String, Object> pt : pts) list.add(new LatLng(toDouble(pt.get("lat")), toDouble(pt.get("lng"))));
-          poly.setPoints(list);
+          List<LatLng> pts = CoordinateCodec.readLatLngs(p);
+          dropPolylineTrail(id);
+          removePolylineProgress(id);
+          CoordBuffer path = CoordBuffer.of(pts);
+          polylinePaths.put(id, path);
+          PolylineLod old = polylineLods.get(id);
+          if (old != null) {
+            PolylineLod lod = old.rebuild(path);
+            polylineLods.put(id, lod);
+            List<LatLng> lodPts = lod.pointsFor(map.getCameraPosition().zoom, visibleBounds());
+            if (lodPts != null) pts = lodPts;
+          }
+          poly.setPoints(pts);
         }
         result.success(null);
         break;
       }
+      case "polylines#appendPoints": {
+        @SuppressWarnings("unchecked") Map<String, Object> p = (Map<String, Object>) call.arguments;
+        String id = (String) p.get("id");
+        PolylineTrail trail = polylineTrail(id);
+        if (trail != null) {
+          trail.append(CoordinateCodec.readLatLngs(p));
+          polylines.put(id, trail.live());
+        }
+        result.success(trail != null ? trail.path().endIndex() : null);
+        break;
+      }
+      case "polylines#trimPrefix":
+      case "polylines#trimToIndex": {
+        @SuppressWarnings("unchecked") Map<String, Object> p = (Map<String, Object>) call.arguments;
+        String id = (String) p.get("id");
+        PolylineTrail trail = polylineTrail(id);
+        if (trail != null) {
+          // trimPrefix counts from the current first point; trimToIndex uses absolute indices
+          int n = p.get("count") instanceof Number ? ((Number) p.get("count")).intValue() : 0;
+          int index = "polylines#trimPrefix".equals(call.method)
+              ? trail.path().firstIndex() + n
+              : (p.get("index") instanceof Number ? ((Number) p.get("index")).intValue() : 0);
+          trail.trimTo(index);
+        }
+        result.success(trail != null ? trail.path().firstIndex() : null);
+        break;
+      }
       case "polylines#remove": {
         String id = (String) call.arguments;
         com.google.android.gms.maps.model.Polyline p = polylines.remove(id);
         if (p != null) p.remove();
+        dropPolylineTrail(id);
+        removePolylineProgress(id);
+        polylinePaths.remove(id);
+        polylineLods.remove(id);
+        routeGeometries.remove(id);
+        result.success(null);
+        break;
+      }
+      case "polylines#setProgress": {
+        @SuppressWarnings("unchecked") Map<String, Object> args = (Map<String, Object>) call.arguments;
+        setPolylineProgress(args);
+        result.success(null);
+        break;
+      }
+      case "polylines#clearProgress": {
+        String id = (String) call.arguments;
+        com.google.android.gms.maps.model.Polyline main = polylines.get(id);
+        CoordBuffer path = polylinePaths.get(id);
+        if (removePolylineProgress(id) && main != null && path != null) main.setPoints(path.toLatLngs());
         result.success(null);
         break;
       }
       case "polylines#clear": {
         for (com.google.android.gms.maps.model.Polyline p : polylines.values()) p.remove();
         polylines.clear();
+        for (PolylineTrail t : polylineTrails.values()) t.removeSealed();
+        polylineTrails.clear();
+        polylinePaths.clear();
+        polylineLods.clear();
+        routeGeometries.clear();
+        for (PolylineProgress pr : polylineProgress.values()) pr.traveled.remove();
+        polylineProgress.clear();
         result.success(null);
         break;
       }
@@ -593,25 +817,102 @@ class MapViewPlatformView implements PlatformView, OnMapReadyCallback, MethodCal
         result.success(null);
         break;
       }
-      case "heatmap#set": {
+      case "map#setMarkerVirtualization": {
         @SuppressWarnings("unchecked") Map<String, Object> args = (Map<String, Object>) call.arguments;
-        @SuppressWarnings("unchecked") List<Map<String, Object>> pts = (List<Map<String, Object>>) args.get("points");
-        java.util.List<com.google.android.gms.maps.model.LatLng> data = new java.util.ArrayList<>(pts.size());
-        for (Map<String, Object> pt : pts) data.add(new LatLng(toDouble(pt.get("lat")), toDouble(pt.get("lng"))));
-        int radius = args.get("radius") instanceof Number ? ((Number) args.get("radius")).intValue() : 20;
-        double opacity = args.get("opacity") instanceof Number ? ((Number) args.get("opacity")).doubleValue() : 0.7;
-        if (heatmapOverlay != null) { heatmapOverlay.remove(); heatmapOverlay = null; }
-        heatmapProvider = new HeatmapTileProvider.Builder().data(data).radius(radius).opacity(opacity).build();
-        heatmapOverlay = map.addTileOverlay(new TileOverlayOptions().tileProvider(heatmapProvider));
+        if (args.get("margin") instanceof Number) virtualMargin = Math.max(0.0, ((Number) args.get("margin")).doubleValue());
+        if (args.get("maxLive") instanceof Number) virtualMaxLive = Math.max(1, ((Number) args.get("maxLive")).intValue());
+        setMarkerVirtualization(Boolean.TRUE.equals(args.get("enabled")));
+        scheduleRefresh(true);
         result.success(null);
         break;
       }
-      case "heatmap#clear": {
-        if (heatmapOverlay != null) { heatmapOverlay.remove(); heatmapOverlay = null; }
-        heatmapProvider = null;
+      case "map#setClusterOptions": {
+        @SuppressWarnings("unchecked") Map<String, Object> args = (Map<String, Object>) call.arguments;
+        if (args.get("algorithm") instanceof String) clusterAlgorithm = (String) args.get("algorithm");
+        if (args.get("gridSize") instanceof Number) clusterGridSize = Math.max(8, ((Number) args.get("gridSize")).intValue());
+        if (args.get("maxZoom") instanceof Number) clusterMaxZoom = ((Number) args.get("maxZoom")).intValue();
+        if (clusterManager != null) {
+          applyClusterAlgorithm();
+          requestCluster();
+        }
         result.success(null);
         break;
       }
+      case "heatmap#set":
+      case "heatmap#replaceData":
+      case "heatmap#addPoints": {
+        @SuppressWarnings("unchecked") Map<String, Object> args = (Map<String, Object>) call.arguments;
+        String id = args.get("id") instanceof String ? (String) args.get("id") : DEFAULT_HEATMAP;
+        boolean append = "heatmap#addPoints".equals(call.method);
+        Integer radius = args.get("radius") instanceof Number ? ((Number) args.get("radius")).intValue() : null;
+        Double opacity = args.get("opacity") instanceof Number ? ((Number) args.get("opacity")).doubleValue() : null;
+        runHeatmapOp(result, () -> applyHeatmapData(id, CoordinateCodec.readWeightedOrUnit(args), append, radius, opacity));
+        break;
+      }
+      case "heatmap#remove": {
+        String id = (String) call.arguments;
+        runHeatmapOp(result, () -> removeHeatmap(id));
+        break;
+      }
+      case "heatmap#clear": {
+        runHeatmapOp(result, () -> {
+          for (String id : new ArrayList<>(heatmaps.keySet())) removeHeatmap(id);
+          for (String id : new ArrayList<>(heatmapStreams.keySet())) removeHeatmap(id);
+          return null;
+        });
+        break;
+      }
+      case "heatmap#streamCreate": {
+        @SuppressWarnings("unchecked") Map<String, Object> args = (Map<String, Object>) call.arguments;
+        String id = (String) args.get("id");
+        long windowMs = args.get("windowMs") instanceof Number ? ((Number) args.get("windowMs")).longValue() : 60_000L;
+        int buckets = args.get("buckets") instanceof Number ? ((Number) args.get("buckets")).intValue() : 60;
+        int cellZoom = args.get("cellZoom") instanceof Number ? ((Number) args.get("cellZoom")).intValue() : 23;
+        int radius = args.get("radius") instanceof Number ? ((Number) args.get("radius")).intValue() : 20;
+        double opacity = args.get("opacity") instanceof Number ? ((Number) args.get("opacity")).doubleValue() : 0.7;
+        double maxIntensity = args.get("maxIntensity") instanceof Number ? ((Number) args.get("maxIntensity")).doubleValue() : 0.0;
+        double maxRefreshHz = args.get("maxRefreshHz") instanceof Number ? ((Number) args.get("maxRefreshHz")).doubleValue() : 2.0;
+        int[] colorMap = HeatmapRaster.defaultColorMap(opacity);
+        @SuppressWarnings("unchecked") List<Number> colors = (List<Number>) args.get("gradientColors");
+        @SuppressWarnings("unchecked") List<Number> starts = (List<Number>) args.get("gradientStartPoints");
+        if (colors != null && starts != null && !colors.isEmpty() && colors.size() == starts.size()) {
+          int[] c = new int[colors.size()];
+          float[] sp = new float[starts.size()];
+          for (int i = 0; i < c.length; i++) {
+            c[i] = colors.get(i).intValue();
+            sp[i] = starts.get(i).floatValue();
+          }
+          colorMap = HeatmapRaster.colorMap(c, sp, opacity);
+        }
+        final int[] gradient = colorMap;
+        runHeatmapOp(result, () -> {
+          if (id == null || heatmaps.containsKey(id) || heatmapStreams.containsKey(id)) {
+            throw new IllegalArgumentException("heatmap id in use: " + id);
+          }
+          HeatmapStreamLayer layer = new HeatmapStreamLayer();
+          layer.stream = new HeatmapStream(windowMs, buckets, cellZoom);
+          layer.provider = new StreamingHeatmapProvider(layer.stream, radius, maxIntensity, gradient);
+          layer.minRefreshMs = maxRefreshHz > 0 ? (long) Math.ceil(1000.0 / maxRefreshHz) : 0L;
+          layer.tick = () -> refreshHeatmapStream(id, layer);
+          heatmapStreams.put(id, layer);
+          mapView.post(() -> layer.overlay = map.addTileOverlay(new TileOverlayOptions().tileProvider(layer.provider)));
+          return null;
+        });
+        break;
+      }
+      case "heatmap#streamPush": {
+        @SuppressWarnings("unchecked") Map<String, Object> args = (Map<String, Object>) call.arguments;
+        String id = (String) args.get("id");
+        double[] events = CoordinateCodec.readDoubles(args.get("events"));
+        runHeatmapOp(result, () -> {
+          HeatmapStreamLayer layer = heatmapStreams.get(id);
+          if (layer == null) throw new IllegalArgumentException("unknown heatmap stream: " + id);
+          int accepted = layer.stream.add(events, System.currentTimeMillis());
+          if (accepted > 0) mapView.post(() -> scheduleHeatmapStream(layer));
+          return accepted;
+        });
+        break;
+      }
       case "tiles#add": {
         @SuppressWarnings("unchecked") Map<String, Object> args = (Map<String, Object>) call.arguments;
         String id = (String) args.get("id");
@@ -619,32 +920,113 @@ class MapViewPlatformView implements PlatformView, OnMapReadyCallback, MethodCal
         int tileSize = args.get("tileSize") instanceof Number ? ((Number) args.get("tileSize")).intValue() : 256;
         double opacity = args.get("opacity") instanceof Number ? ((Number) args.get("opacity")).doubleValue() : 1.0;
         double zIndex = args.get("zIndex") instanceof Number ? ((Number) args.get("zIndex")).doubleValue() : 0.0;
-        UrlTileProvider provider = new UrlTileProvider(tileSize, tileSize) {
-          @Override
-          public java.net.URL getTileUrl(int x, int y, int zoom) {
-            try {
-              String url = template.replace("{x}", String.valueOf(x)).replace("{y}", String.valueOf(y)).replace("{z}", String.valueOf(zoom));
-              return new java.net.URL(url);
-            } catch (Exception e) { return null; }
+        TileProvider provider;
+        if (Boolean.TRUE.equals(args.get("cache"))) {
+          long ttlMs = args.get("cacheTtlMs") instanceof Number ? ((Number) args.get("cacheTtlMs")).longValue() : 24L * 60L * 60L * 1000L;
+          // Layer key from the template: overlays with the same source share cached tiles
+          provider = new CachingTileProvider(md5(template), template, tileSize, ttlMs, tileDiskCache());
+        } else {
+          final TileUrlTemplate compiled = TileUrlTemplate.compile(template);
+          provider = new UrlTileProvider(tileSize, tileSize) {
+            @Override
+            public java.net.URL getTileUrl(int x, int y, int zoom) {
+              try {
+                return new java.net.URL(compiled.url(x, y, zoom));
+              } catch (Exception e) { return null; }
+            }
+          };
+        }
+        TileOverlay old = tileOverlays.remove(id);
+        if (old != null) old.remove();
+        TileOverlay overlay = map.addTileOverlay(new TileOverlayOptions().tileProvider(provider).zIndex((float) zIndex).transparency((float) (1.0 - Math.max(0.0, Math.min(1.0, opacity)))));
+        tileOverlays.put(id, overlay);
+        if (provider instanceof CachingTileProvider) cachingTiles.put(id, (CachingTileProvider) provider);
+        else cachingTiles.remove(id);
+        result.success(null);
+        break;
+      }
+      case "tiles#addLocal": {
+        @SuppressWarnings("unchecked") Map<String, Object> args = (Map<String, Object>) call.arguments;
+        String id = (String) args.get("id");
+        String path = (String) args.get("path");
+        int tileSize = args.get("tileSize") instanceof Number ? ((Number) args.get("tileSize")).intValue() : 256;
+        double opacity = args.get("opacity") instanceof Number ? ((Number) args.get("opacity")).doubleValue() : 1.0;
+        double zIndex = args.get("zIndex") instanceof Number ? ((Number) args.get("zIndex")).doubleValue() : 0.0;
+        final PmTilesArchive archive;
+        try {
+          if (path != null && path.startsWith("file://")) path = path.substring("file://".length());
+          archive = PmTilesArchive.open(new java.io.File(path));
+        } catch (Exception e) {
+          result.error("archive_error", "Cannot open tile archive: " + e.getMessage(), null);
+          break;
+        }
+        if (!archive.isRaster()) {
+          result.error("archive_error", "Only raster archives (png/jpeg/webp/avif) can be drawn as tile overlays", null);
+          break;
+        }
+        TileProvider provider = (x, y, zoom) -> {
+          try {
+            byte[] data = archive.getTile(zoom, x, y);
+            return data != null ? new Tile(tileSize, tileSize, data) : TileProvider.NO_TILE;
+          } catch (Throwable t) {
+            return TileProvider.NO_TILE;
           }
         };
         TileOverlay old = tileOverlays.remove(id);
         if (old != null) old.remove();
         TileOverlay overlay = map.addTileOverlay(new TileOverlayOptions().tileProvider(provider).zIndex((float) zIndex).transparency((float) (1.0 - Math.max(0.0, Math.min(1.0, opacity)))));
         tileOverlays.put(id, overlay);
-        result.success(null);
+        cachingTiles.remove(id);
+        Map<String, Object> info = new HashMap<>();
+        info.put("minZoom", archive.minZoom);
+        info.put("maxZoom", archive.maxZoom);
+        info.put("minLat", archive.minLat);
+        info.put("minLng", archive.minLon);
+        info.put("maxLat", archive.maxLat);
+        info.put("maxLng", archive.maxLon);
+        info.put("tileType", archive.tileType);
+        result.success(info);
         break;
       }
       case "tiles#remove": {
         String id = (String) call.arguments;
         TileOverlay o = tileOverlays.remove(id);
         if (o != null) o.remove();
+        cachingTiles.remove(id);
         result.success(null);
         break;
       }
       case "tiles#clear": {
         for (TileOverlay o : tileOverlays.values()) { o.remove(); }
         tileOverlays.clear();
+        cachingTiles.clear();
+        tilePrefetcher.cancel();
+        result.success(null);
+        break;
+      }
+      case "tiles#prefetchRoute": {
+        @SuppressWarnings("unchecked") Map<String, Object> args = (Map<String, Object>) call.arguments;
+        String overlayId = (String) args.get("overlayId");
+        CachingTileProvider provider = cachingTiles.get(overlayId);
+        if (provider == null) {
+          result.error("not_cached", "Tile overlay '" + overlayId + "' was not added with cache: true", null);
+          break;
+        }
+        long[] tiles = planCorridor(args);
+        if (tiles == null) {
+          result.error("invalid_route", "Unknown polyline or fewer than 2 route points", null);
+          break;
+        }
+        int concurrency = args.get("concurrency") instanceof Number ? ((Number) args.get("concurrency")).intValue() : 2;
+        // Leave at least one fetch worker free for visible tiles
+        concurrency = Math.max(1, Math.min(CachingTileProvider.FETCH_THREADS - 1, concurrency));
+        long maxBps = args.get("maxBytesPerSecond") instanceof Number ? ((Number) args.get("maxBytesPerSecond")).longValue() : 0L;
+        tilePrefetcher.start((x, y, z) -> provider.prefetch(x, y, z, CachingTileProvider.PRIORITY_PREFETCH), tiles, concurrency, maxBps);
+        result.success(tiles.length);
+        break;
+      }
+      case "tiles#cancelPrefetch": {
+        tilePrefetcher.cancel();
         result.success(null);
         break;
       }
@@ -665,6 +1047,80 @@ class MapViewPlatformView implements PlatformView, OnMapReadyCallback, MethodCal
         result.error("not_supported", "Android: mapId can only be set at creation (GoogleMapOptions.mapId)", null);
         break;
       }
+      case "map#batch": {
+        @SuppressWarnings("unchecked") Map<String, Object> args = (Map<String, Object>) call.arguments;
+        @SuppressWarnings("unchecked") List<Map<String, Object>> ops = (List<Map<String, Object>>) args.get("ops");
+        applyBatch(ops != null ? ops : new ArrayList<>(), result);
+        break;
+      }
+      case "route#nearest":
+      case "route#distanceAlong":
+      case "route#offRoute": {
+        @SuppressWarnings("unchecked") Map<String, Object> args = (Map<String, Object>) call.arguments;
+        routeQuery(call.method, args, result);
+        break;
+      }
+      case "nav#startFollow": {
+        @SuppressWarnings("unchecked") Map<String, Object> args = (Map<String, Object>) call.arguments;
+        startNavFollow(args);
+        result.success(null);
+        break;
+      }
+      case "nav#location": {
+        if (navFollow == null) { result.error("not_following", "Call nav#startFollow first", null); break; }
+        @SuppressWarnings("unchecked") Map<String, Object> args = (Map<String, Object>) call.arguments;
+        result.success(navLocation(args));
+        break;
+      }
+      case "nav#stopFollow": {
+        stopNavFollow();
+        result.success(null);
+        break;
+      }
+      case "map#getStats": {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("icons", iconLoader.stats());
+        Map<String, Object> descriptors = new HashMap<>();
+        descriptors.put("size", descriptorCache.size());
+        descriptors.put("hits", descriptorHits);
+        descriptors.put("misses", descriptorMisses);
+        stats.put("descriptors", descriptors);
+        Map<String, Object> disk = diskCache.stats();
+        disk.put("revalidations", revalidations);
+        disk.put("revalidationsChanged", revalidationsChanged);
+        stats.put("disk", disk);
+        Map<String, Object> tiles = CachingTileProvider.stats();
+        tiles.put("prefetch", tilePrefetcher.stats());
+        stats.put("tiles", tiles);
+        Map<String, Object> streams = new HashMap<>();
+        for (Map.Entry<String, HeatmapStreamLayer> e : heatmapStreams.entrySet()) {
+          Map<String, Object> s = e.getValue().provider.stats();
+          s.put("refreshes", e.getValue().refreshes);
+          streams.put(e.getKey(), s);
+        }
+        stats.put("heatmapStreams", streams);
+        Map<String, Object> markerStats = new HashMap<>();
+        markerStats.put("records", markerRecords.size());
+        markerStats.put("live", markers.size());
+        markerStats.put("pooled", markerPool.size());
+        markerStats.put("materialized", virtualMaterialized);
+        markerStats.put("reused", virtualReused);
+        markerStats.put("released", virtualReleased);
+        stats.put("markers", markerStats);
+        stats.put("animations", animations.stats());
+        stats.put("render", render.stats());
+        Map<String, Object> routes = new HashMap<>();
+        for (Map.Entry<String, RouteEntry> e : routeGeometries.entrySet()) {
+          Map<String, Object> r = new HashMap<>();
+          r.put("points", e.getValue().geometry.size());
+          r.put("windowHits", e.getValue().geometry.windowHits);
+          r.put("indexedSearches", e.getValue().geometry.indexedSearches);
+          routes.put(e.getKey(), r);
+        }
+        stats.put("routes", routes);
+        result.success(stats);
+        break;
+      }
       case "map#dispose": {
         dispose();
         result.success(null);
@@ -675,6 +1131,532 @@ class MapViewPlatformView implements PlatformView, OnMapReadyCallback, MethodCal
     }
   }
 
+  // Layer used by heatmap#set/heatmap#clear and by calls without an id
+  private static final String DEFAULT_HEATMAP = "default";
+
+  // A named heatmap: its provider, the points it renders and its overlay (main thread)
+  static class HeatmapLayer {
+    HeatmapTileProvider provider;
+    final ArrayList<com.google.maps.android.heatmaps.WeightedLatLng> data = new ArrayList<>();
+    volatile TileOverlay overlay;
+    int radius;
+    double opacity;
+  }
+
+  // A streaming heatmap: time-windowed aggregate, its renderer and refresh pacing (main thread)
+  static class HeatmapStreamLayer {
+    HeatmapStream stream;
+    StreamingHeatmapProvider provider;
+    volatile TileOverlay overlay;
+    Runnable tick;
+    long minRefreshMs;
+    long lastRefresh;
+    long refreshes;
+  }
+
+  // Main thread: (re)arms the layer's refresh no sooner than its max refresh rate allows
+  private void scheduleHeatmapStream(HeatmapStreamLayer layer) {
+    long now = android.os.SystemClock.uptimeMillis();
+    long delay = Math.max(0L, layer.lastRefresh + layer.minRefreshMs - now);
+    mapView.removeCallbacks(layer.tick);
+    mapView.postDelayed(layer.tick, delay);
+  }
+
+  // Main thread: expires old buckets and redraws only tiles near changed cells
+  private void refreshHeatmapStream(String id, HeatmapStreamLayer layer) {
+    if (heatmapStreams.get(id) != layer) return;
+    long wall = System.currentTimeMillis();
+    layer.stream.advance(wall);
+    long[] dirty = layer.stream.takeDirty();
+    TileOverlay o = layer.overlay;
+    if (dirty.length > 0 && o != null) {
+      layer.provider.invalidate(dirty);
+      o.clearTileCache();
+      layer.lastRefresh = android.os.SystemClock.uptimeMillis();
+      layer.refreshes++;
+    }
+    // Wake up for the next expiry while anything is left in the window
+    if (!layer.stream.isEmpty()) {
+      mapView.removeCallbacks(layer.tick);
+      mapView.postDelayed(layer.tick, Math.max(layer.minRefreshMs, layer.stream.untilNextBucket(wall)));
+    }
+  }
+
+  // Runs a heatmap op on the heatmap thread (ops stay in call order) and replies on main.
+  // Inside map#batch the batch reply is held until the op has replied (see applyBatch).
+  private void runHeatmapOp(Result result, java.util.concurrent.Callable<Object> op) {
+    try {
+      if (batchDepth > 0) batchHeatmapQueued = true;
+      heatmapExecutor.execute(() -> {
+        Object value;
+        try {
+          value = op.call();
+        } catch (Throwable t) {
+          mapView.post(() -> result.error("heatmap_error", String.valueOf(t.getMessage()), null));
+          return;
+        }
+        mapView.post(() -> result.success(value));
+      });
+    } catch (java.util.concurrent.RejectedExecutionException e) {
+      result.error("disposed", "Map was disposed", null);
+    }
+  }
+
+  // Heatmap thread: updates the layer's provider in place (no overlay swap, so no flicker).
+  // Returns the layer's point count.
+  private Object applyHeatmapData(String id, List<com.google.maps.android.heatmaps.WeightedLatLng> pts,
+                                  boolean append, @Nullable Integer radius, @Nullable Double opacity) {
+    if (heatmapStreams.containsKey(id)) throw new IllegalArgumentException("heatmap id in use by a stream: " + id);
+    HeatmapLayer layer = heatmaps.get(id);
+    if (layer == null) {
+      if (pts.isEmpty()) return 0;
+      HeatmapLayer created = new HeatmapLayer();
+      created.data.addAll(pts);
+      created.radius = radius != null ? radius : 20;
+      created.opacity = opacity != null ? opacity : 0.7;
+      created.provider = new HeatmapTileProvider.Builder()
+          .weightedData(new ArrayList<>(created.data))
+          .radius(created.radius)
+          .opacity(created.opacity)
+          .build();
+      heatmaps.put(id, created);
+      mapView.post(() -> created.overlay = map.addTileOverlay(new TileOverlayOptions().tileProvider(created.provider)));
+      return created.data.size();
+    }
+    if (!append) layer.data.clear();
+    layer.data.addAll(pts);
+    // Empty input clears, as heatmap#set always did (the provider rejects empty data)
+    if (layer.data.isEmpty()) {
+      removeHeatmap(id);
+      return 0;
+    }
+    if (radius != null && radius != layer.radius) {
+      layer.radius = radius;
+      layer.provider.setRadius(radius);
+    }
+    if (opacity != null && opacity != layer.opacity) {
+      layer.opacity = opacity;
+      layer.provider.setOpacity(opacity);
+    }
+    // The provider keeps the collection it is given: hand it a snapshot
+    if (!pts.isEmpty() || !append) layer.provider.setWeightedData(new ArrayList<>(layer.data));
+    mapView.post(() -> {
+      TileOverlay o = layer.overlay;
+      if (o != null) o.clearTileCache();
+    });
+    return layer.data.size();
+  }
+
+  // Heatmap thread: forgets the layer and removes its overlay on main
+  private Object removeHeatmap(String id) {
+    HeatmapStreamLayer stream = heatmapStreams.remove(id);
+    if (stream != null) {
+      mapView.post(() -> {
+        mapView.removeCallbacks(stream.tick);
+        TileOverlay o = stream.overlay;
+        if (o != null) o.remove();
+        stream.overlay = null;
+      });
+      return true;
+    }
+    HeatmapLayer layer = heatmaps.remove(id);
+    if (layer == null) return false;
+    mapView.post(() -> {
+      TileOverlay o = layer.overlay;
+      if (o != null) o.remove();
+      layer.overlay = null;
+    });
+    return true;
+  }
+
+  // Corridor tile plan from a stored polyline (polylineId, absolute fromIndex) or sent points
+  @Nullable
+  private long[] planCorridor(Map<String, Object> args) {
+    double[] lat;
+    double[] lng;
+    int from = args.get("fromIndex") instanceof Number ? ((Number) args.get("fromIndex")).intValue() : 0;
+    String polylineId = (String) args.get("polylineId");
+    if (polylineId != null) {
+      CoordBuffer path = polylinePaths.get(polylineId);
+      if (path == null) return null;
+      int n = path.size();
+      lat = new double[n];
+      lng = new double[n];
+      for (int i = 0; i < n; i++) {
+        lat[i] = path.lat(path.firstIndex() + i);
+        lng[i] = path.lng(path.firstIndex() + i);
+      }
+      from -= path.firstIndex();
+    } else {
+      List<LatLng> pts = CoordinateCodec.readLatLngs(args);
+      lat = new double[pts.size()];
+      lng = new double[pts.size()];
+      for (int i = 0; i < pts.size(); i++) {
+        lat[i] = pts.get(i).latitude;
+        lng[i] = pts.get(i).longitude;
+      }
+    }
+    if (lat.length < 2) return null;
+    double corridor = args.get("corridorMeters") instanceof Number ? ((Number) args.get("corridorMeters")).doubleValue() : 150.0;
+    double ahead = args.get("aheadMeters") instanceof Number ? ((Number) args.get("aheadMeters")).doubleValue() : 0.0;
+    int maxTiles = args.get("maxTiles") instanceof Number ? ((Number) args.get("maxTiles")).intValue() : 1000;
+    int[] zooms;
+    if (args.get("zooms") instanceof List) {
+      List<?> zs = (List<?>) args.get("zooms");
+      zooms = new int[zs.size()];
+      for (int i = 0; i < zooms.length; i++) zooms[i] = Math.max(0, Math.min(22, ((Number) zs.get(i)).intValue()));
+    } else {
+      zooms = new int[]{14, 15, 16};
+    }
+    return TileCorridor.cover(lat, lng, from, corridor, zooms, ahead, maxTiles);
+  }
+
+  // Shared on-disk tile store for caching tile overlays
+  private DiskLruCache tileDiskCache() {
+    return DiskLruCache.open(new java.io.File(context.getCacheDir(), "gmns_tiles"), 64L * 1024L * 1024L, 20000);
+  }
+
+  // Returns the chunked trail for a polyline, converting a plain polyline on first use
+  @Nullable
+  private PolylineTrail polylineTrail(String id) {
+    PolylineTrail trail = polylineTrails.get(id);
+    if (trail != null) return trail;
+    com.google.android.gms.maps.model.Polyline poly = polylines.get(id);
+    if (poly == null) return null;
+    CoordBuffer path = polylinePaths.get(id);
+    if (path == null) {
+      path = CoordBuffer.of(poly.getPoints());
+      polylinePaths.put(id, path);
+    }
+    // Trails are edited incrementally; a simplified LOD or progress rendering would go stale, so draw full detail
+    boolean hadProgress = removePolylineProgress(id);
+    if (polylineLods.remove(id) != null || hadProgress) poly.setPoints(path.toLatLngs());
+    trail = new PolylineTrail(map, path, poly);
+    polylineTrails.put(id, trail);
+    return trail;
+  }
+
+  private void dropPolylineTrail(String id) {
+    PolylineTrail trail = polylineTrails.remove(id);
+    if (trail != null) trail.removeSealed();
+  }
+
+  static final class RouteEntry {
+    CoordBuffer path;
+    int version;
+    RouteGeometry geometry;
+  }
+
+  // Indexed geometry of polyline id, rebuilt when its points changed; null without 2 points
+  @Nullable
+  private RouteGeometry routeGeometry(@Nullable String id) {
+    CoordBuffer path = id != null ? polylinePaths.get(id) : null;
+    if (path == null || path.size() < 2) {
+      if (id != null) routeGeometries.remove(id);
+      return null;
+    }
+    RouteEntry e = routeGeometries.get(id);
+    if (e == null || e.path != path || e.version != path.version()) {
+      if (e == null) routeGeometries.put(id, e = new RouteEntry());
+      e.path = path;
+      e.version = path.version();
+      e.geometry = RouteGeometry.of(path);
+    }
+    return e.geometry;
+  }
+
+  // route#nearest / route#distanceAlong / route#offRoute
+  private void routeQuery(String method, Map<String, Object> args, Result result) {
+    String id = (String) args.get("polylineId");
+    RouteGeometry geo = routeGeometry(id);
+    if (geo == null) {
+      result.error("invalid_route", "Unknown polyline or fewer than 2 route points", null);
+      return;
+    }
+    double lat = toDouble(args.get("lat")), lng = toDouble(args.get("lng"));
+    // Ordered queries (a moving vehicle) can search around the previous match first
+    RouteGeometry.Match m = Boolean.TRUE.equals(args.get("sequential"))
+        ? geo.match(lat, lng, args.get("toleranceMeters") instanceof Number ? toDouble(args.get("toleranceMeters")) : 30.0)
+        : geo.nearest(lat, lng);
+    switch (method) {
+      case "route#distanceAlong":
+        result.success(m.along);
+        break;
+      case "route#offRoute": {
+        double threshold = args.get("thresholdMeters") instanceof Number ? toDouble(args.get("thresholdMeters")) : 30.0;
+        Map<String, Object> out = new HashMap<>();
+        out.put("offRoute", m.distance > threshold);
+        out.put("distanceMeters", m.distance);
+        result.success(out);
+        break;
+      }
+      default: {
+        Map<String, Object> out = new HashMap<>();
+        out.put("lat", m.lat);
+        out.put("lng", m.lng);
+        out.put("segmentIndex", m.segment + polylinePaths.get(id).firstIndex());
+        out.put("distanceAlongMeters", m.along);
+        out.put("distanceRemainingMeters", Math.max(0.0, geo.length() - m.along));
+        out.put("distanceMeters", m.distance);
+        out.put("bearing", m.bearing);
+        result.success(out);
+        break;
+      }
+    }
+  }
+
+  // Traveled/remaining split of a route polyline. The remaining part is drawn by the
+  // polyline itself and the traveled part by a companion polyline with its own style.
+  static class PolylineProgress {
+    com.google.android.gms.maps.model.Polyline traveled;
+    List<LatLng> full;
+    int segment = -1;
+    double fraction = -1;
+  }
+
+  private void setPolylineProgress(Map<String, Object> args) {
+    String id = (String) args.get("id");
+    com.google.android.gms.maps.model.Polyline main = polylines.get(id);
+    CoordBuffer path = polylinePaths.get(id);
+    if (main == null || path == null || path.size() < 2) return;
+    PolylineProgress pr = polylineProgress.get(id);
+    if (pr == null) {
+      // Progress needs the whole geometry on one polyline
+      dropPolylineTrail(id);
+      polylineLods.remove(id);
+      pr = new PolylineProgress();
+      pr.full = path.toLatLngs();
+      pr.traveled = map.addPolyline(new PolylineOptions()
+          .color(0xFF9E9E9E)
+          .width(main.getWidth())
+          .geodesic(main.isGeodesic())
+          .zIndex(main.getZIndex())
+          .clickable(main.isClickable()));
+      polylines.link(id, pr.traveled);
+      polylineProgress.put(id, pr);
+    }
+    if (args.get("traveledColor") instanceof Number) pr.traveled.setColor(((Number) args.get("traveledColor")).intValue());
+    if (args.get("traveledWidth") instanceof Number) pr.traveled.setWidth(((Number) args.get("traveledWidth")).floatValue());
+
+    int n = pr.full.size();
+    int seg = args.get("segmentIndex") instanceof Number ? ((Number) args.get("segmentIndex")).intValue() : 0;
+    seg = Math.max(0, Math.min(n - 2, seg - path.firstIndex()));
+    double fraction = Math.max(0.0, Math.min(1.0, toDouble(args.get("fraction"))));
+    if (seg == pr.segment && fraction == pr.fraction) return;
+    pr.segment = seg;
+    pr.fraction = fraction;
+
+    LatLng a = pr.full.get(seg);
+    LatLng b = pr.full.get(seg + 1);
+    LatLng split = main.isGeodesic()
+        ? com.google.maps.android.SphericalUtil.interpolate(a, b, fraction)
+        : new LatLng(a.latitude + (b.latitude - a.latitude) * fraction, a.longitude + (b.longitude - a.longitude) * fraction);
+    List<LatLng> traveled = new ArrayList<>(seg + 2);
+    traveled.addAll(pr.full.subList(0, seg + 1));
+    traveled.add(split);
+    List<LatLng> remaining = new ArrayList<>(n - seg);
+    remaining.add(split);
+    remaining.addAll(pr.full.subList(seg + 1, n));
+    pr.traveled.setPoints(traveled);
+    main.setPoints(remaining);
+  }
+
+  private boolean removePolylineProgress(String id) {
+    PolylineProgress pr = polylineProgress.remove(id);
+    if (pr == null) return false;
+    try { pr.traveled.remove(); } catch (Throwable ignored) {}
+    return true;
+  }
+
+  private void onCameraIdleInternal() {
+    lastVisibleBounds = visibleBounds();
+    // The hierarchical algorithm only reads cells in view, so it needs the viewport first
+    if (hierarchicalClusters != null) hierarchicalClusters.setVisibleBounds(lastVisibleBounds);
+    if (clusteringEnabled && clusterManager != null) clusterManager.onCameraIdle();
+    updateVirtualMarkers();
+    updatePolylineLods();
+    iconLoader.reprioritize(id -> {
+      LatLng pos = markerPosition(id);
+      return pos == null || lastVisibleBounds == null || lastVisibleBounds.contains(pos);
+    });
+  }
+
+  @Nullable
+  private LatLng markerPosition(String id) {
+    ClusterItemImpl item = clusterItems.get(id);
+    if (item != null) return item.position;
+    Marker m = markers.get(id);
+    if (m != null) return m.getPosition();
+    MarkerRecord rec = markerRecords.get(id);
+    return rec != null ? rec.position : null;
+  }
+
+  // Swaps in the simplified geometry matching the current zoom band (and viewport, if requested)
+  private void updatePolylineLods() {
+    if (polylineLods.isEmpty() || map == null) return;
+    float zoom = map.getCameraPosition().zoom;
+    LatLngBounds visible = visibleBounds();
+    for (Map.Entry<String, PolylineLod> e : polylineLods.entrySet()) {
+      List<LatLng> pts = e.getValue().pointsFor(zoom, visible);
+      if (pts == null) continue;
+      com.google.android.gms.maps.model.Polyline poly = polylines.get(e.getKey());
+      if (poly != null) poly.setPoints(pts);
+    }
+  }
+
+  @Nullable
+  private LatLngBounds visibleBounds() {
+    try { return map.getProjection().getVisibleRegion().latLngBounds; } catch (Throwable t) { return null; }
+  }
+
+  // Applies an ordered list of {method, args} operations in a single main-thread pass.
+  // Each op goes through onMethodCall; clustering and redraw are flushed once at the end.
+  // Heatmap ops reply from the heatmap thread, so when the batch queued any, the reply waits
+  // (off the main thread) for a marker task queued behind them instead of blocking the pass.
+  private void applyBatch(List<Map<String, Object>> ops, Result reply) {
+    List<BatchOpResult> results = new ArrayList<>(ops.size());
+    batchHeatmapQueued = false;
+    beginBatch();
+    try {
+      for (Map<String, Object> op : ops) {
+        String method = op != null ? (String) op.get("method") : null;
+        BatchOpResult r = new BatchOpResult();
+        if (!isBatchable(method)) {
+          r.error("not_batchable", "Method not allowed in map#batch: " + method, null);
+        } else {
+          try { onMethodCall(new MethodCall(method, op.get("args")), r); }
+          catch (Throwable t) { r.error("batch_op_error", t.toString(), null); }
+        }
+        results.add(r);
+      }
+    } finally {
+      endBatch();
+    }
+    if (batchHeatmapQueued) {
+      batchHeatmapQueued = false;
+      try {
+        // Runs after every heatmap op of the batch; their replies were posted to main before this one
+        heatmapExecutor.execute(() -> mapView.post(() -> reply.success(batchReply(results))));
+        return;
+      } catch (java.util.concurrent.RejectedExecutionException ignored) {
+        // Disposed: the heatmap ops already replied with an error
+      }
+    }
+    reply.success(batchReply(results));
+  }
+
+  private static List<Object> batchReply(List<BatchOpResult> results) {
+    List<Object> out = new ArrayList<>(results.size());
+    for (BatchOpResult r : results) out.add(r.toMap());
+    return out;
+  }
+
+  private void beginBatch() { batchDepth++; }
+
+  private void endBatch() {
+    batchDepth--;
+    if (batchDepth == 0) {
+      if (batchClusterPending) { batchClusterPending = false; requestCluster(); }
+    }
+  }
+
+  // Reconciles the live marker set with the full desired set. Unchanged hashes are skipped,
+  // existing ids are updated in place and ids missing from the desired set are removed.
+  private Map<String, Object> syncMarkers(List<Map<String, Object>> desired) {
+    int added = 0, updated = 0, unchanged = 0, removed = 0;
+    java.util.Set<String> keep = new java.util.HashSet<>(desired.size() * 2);
+    beginBatch();
+    try {
+      for (Map<String, Object> m : desired) {
+        String id = (String) m.get("id");
+        if (id == null) continue;
+        keep.add(id);
+        Object hash = m.get("hash") != null ? m.get("hash") : m.hashCode();
+        boolean exists = (clusteringEnabled && clusterManager != null) ? clusterItems.containsKey(id) : markerRecords.containsKey(id);
+        if (exists && hash.equals(markerHashes.get(id))) { unchanged++; continue; }
+        addMarkerInternal(m);
+        markerHashes.put(id, hash);
+        if (exists) updated++; else added++;
+      }
+      java.util.Set<String> current = (clusteringEnabled && clusterManager != null) ? clusterItems.keySet() : markerRecords.keySet();
+      for (String id : new ArrayList<>(current)) {
+        if (!keep.contains(id)) { removeMarkerInternal(id); removed++; }
+      }
+      if (added + updated + removed > 0) scheduleRefresh(true);
+    } finally {
+      endBatch();
+    }
+    Map<String, Object> out = new HashMap<>();
+    out.put("added", added);
+    out.put("updated", updated);
+    out.put("removed", removed);
+    out.put("unchanged", unchanged);
+    return out;
+  }
+
+  private void removeMarkerInternal(String id) {
+    if (clusteringEnabled && clusterManager != null) {
+      ClusterItemImpl old = clusterItems.remove(id);
+      if (old != null) try { clusterManager.removeItem(old); } catch (Throwable ignored) {}
+      requestCluster();
+    } else {
+      markerRecords.remove(id);
+      markerGrid.remove(id);
+      Marker marker = markers.remove(id);
+      if (marker != null) marker.remove();
+    }
+    markerHashes.remove(id);
+    markerIconKeys.remove(id);
+    iconLoader.cancel(id);
+    stopMarkerBounce(id);
+    stopMarkerPulse(id);
+    animations.cancel("move:" + id);
+  }
+
+  private static boolean isBatchable(String method) {
+    if (method == null) return false;
+    return method.startsWith("markers#") || method.startsWith("polylines#")
+        || method.startsWith("tiles#") || method.startsWith("heatmap#");
+  }
+
+  // Collects the outcome of one batched op as {ok, value} or {ok, code, message}
+  static class BatchOpResult implements Result {
+    private final Map<String, Object> out = new HashMap<>();
+
+    @Override public void success(Object value) {
+      out.put("ok", true);
+      if (value != null) out.put("value", value);
+    }
+
+    @Override public void error(@NonNull String code, @Nullable String message, @Nullable Object details) {
+      out.put("ok", false);
+      out.put("code", code);
+      if (message != null) out.put("message", message);
+    }
+
+    @Override public void notImplemented() {
+      out.put("ok", false);
+      out.put("code", "not_implemented");
+    }
+
+    Map<String, Object> toMap() {
+      if (out.isEmpty()) out.put("ok", true);
+      return out;
+    }
+  }
+
+  // Reclusters once per main-loop pass: item changes arriving back to back share one run
+  private void requestCluster() {
+    if (clusterManager == null) return;
+    if (batchDepth > 0) { batchClusterPending = true; return; }
+    if (clusterPosted) return;
+    clusterPosted = true;
+    mapView.post(() -> {
+      clusterPosted = false;
+      if (clusterManager != null) clusterManager.cluster();
+    });
+  }
+
   private void addMarkerInternal(Map<String, Object> m) {
     String id = (String) m.get("id");
     @SuppressWarnings("unchecked") Map<String, Object> pos = (Map<String, Object>) m.get("position");
@@ -691,9 +1673,16 @@ class MapViewPlatformView implements PlatformView, OnMapReadyCallback, MethodCal
     double zIndex = toDouble(m.get("zIndex"));
 
     if (clusteringEnabled && clusterManager != null) {
-      ClusterItemImpl old = clusterItems.remove(id);
-      if (old != null) try { clusterManager.removeItem(old); } catch (Throwable ignored) {}
-      ClusterItemImpl item = new ClusterItemImpl(
+      ClusterItemImpl item = clusterItems.get(id);
+      if (item != null) {
+        // In-place upsert: the renderer keeps the marker and re-applies fields in onClusterItemUpdated
+        item.set(new LatLng(lat, lng), title, snippet, iconUrl != null ? iconUrl : "", (float) iconDp,
+            (float) anchorU, (float) anchorV, (float) rotation, (float) zIndex, draggable);
+        clusterManager.updateItem(item);
+        requestCluster();
+        return;
+      }
+      item = new ClusterItemImpl(
           id,
           new LatLng(lat, lng),
           title,
@@ -708,49 +1697,256 @@ class MapViewPlatformView implements PlatformView, OnMapReadyCallback, MethodCal
       );
       clusterItems.put(id, item);
       clusterManager.addItem(item);
-      clusterManager.cluster();
+      requestCluster();
       return;
     }
 
-    Marker existing = markers.remove(id);
-    if (existing != null) existing.remove();
-
-    MarkerOptions opts = new MarkerOptions()
-        .position(new LatLng(lat, lng))
-        .anchor((float) anchorU, (float) anchorV)
-        .rotation((float) rotation)
-        .zIndex((float) zIndex)
-        .draggable(draggable);
-    if (title != null) opts.title(title);
-    if (snippet != null) opts.snippet(snippet);
-
-    if (iconUrl != null && !iconUrl.isEmpty()) {
-      String key = iconUrl + "#dp=" + (int) Math.max(1, iconDp);
-      Bitmap cached = iconCache.get(key);
-      if (cached != null) {
-        opts.icon(BitmapDescriptorFactory.fromBitmap(cached));
-        Marker mk = map.addMarker(opts);
-        if (mk != null) markers.put(id, mk);
-      } else {
-        // Add marker immediately with default icon, then load and swap icon
-        Marker mk = map.addMarker(opts);
-        if (mk != null) markers.put(id, mk);
-        executor.submit(() -> {
-          Bitmap bmp = null;
-          try { bmp = loadBitmapScaled(iconUrl, (int) Math.max(1, iconDp)); } catch (Throwable ignored) {}
-          final Bitmap ready = bmp;
-          mapView.post(() -> {
-            if (ready != null) {
-              iconCache.put(key, ready);
-              Marker current = markers.get(id);
-              if (current != null) current.setIcon(BitmapDescriptorFactory.fromBitmap(ready));
-            }
-          });
-        });
+    MarkerRecord rec = markerRecords.get(id);
+    if (rec == null) markerRecords.put(id, rec = new MarkerRecord());
+    rec.position = new LatLng(lat, lng);
+    rec.title = title;
+    rec.snippet = snippet;
+    rec.iconUrl = iconUrl;
+    rec.iconDp = iconDp;
+    rec.anchorU = (float) anchorU;
+    rec.anchorV = (float) anchorV;
+    rec.rotation = (float) rotation;
+    rec.zIndex = (float) zIndex;
+    rec.draggable = draggable;
+    rec.bytesIconKey = null;
+    rec.bytesIcon = null;
+    if (virtualMarkers) markerGrid.put(id, lat, lng);
+
+    Marker existing = markers.get(id);
+    if (existing != null) {
+      // In-place upsert: mutate the live marker instead of removing and re-adding it
+      LatLng cur = existing.getPosition();
+      if (cur == null || cur.latitude != lat || cur.longitude != lng) existing.setPosition(rec.position);
+      existing.setTitle(title);
+      existing.setSnippet(snippet);
+      existing.setAnchor((float) anchorU, (float) anchorV);
+      existing.setRotation((float) rotation);
+      existing.setZIndex((float) zIndex);
+      existing.setDraggable(draggable);
+      applyMarkerIcon(id, existing, iconUrl, iconDp);
+      return;
+    }
+    // Virtualized markers out of view stay records until the camera brings them in
+    if (virtualMarkers && !inVirtualArea(rec.position)) return;
+    materializeMarker(id, rec);
+  }
+
+  // Creates the live Marker for a record, reusing a pooled one when available
+  private void materializeMarker(String id, MarkerRecord rec) {
+    String key = rec.bytesIconKey != null ? rec.bytesIconKey : iconKey(rec.iconUrl, rec.iconDp);
+    BitmapDescriptor cached = iconDescriptor(key);
+    if (cached == null) cached = rec.bytesIcon;
+    Marker mk = markerPool.poll();
+    if (mk != null) {
+      mk.setPosition(rec.position);
+      mk.setTitle(rec.title);
+      mk.setSnippet(rec.snippet);
+      mk.setAnchor(rec.anchorU, rec.anchorV);
+      mk.setRotation(rec.rotation);
+      mk.setZIndex(rec.zIndex);
+      mk.setDraggable(rec.draggable);
+      mk.setIcon(cached != null ? cached : BitmapDescriptorFactory.defaultMarker());
+      mk.setVisible(true);
+      virtualReused++;
+    } else {
+      MarkerOptions opts = new MarkerOptions()
+          .position(rec.position)
+          .anchor(rec.anchorU, rec.anchorV)
+          .rotation(rec.rotation)
+          .zIndex(rec.zIndex)
+          .draggable(rec.draggable);
+      if (rec.title != null) opts.title(rec.title);
+      if (rec.snippet != null) opts.snippet(rec.snippet);
+      if (cached != null) opts.icon(cached);
+      mk = map.addMarker(opts);
+      if (mk == null) return;
+    }
+    if (virtualMarkers) virtualMaterialized++;
+    markers.put(id, mk);
+    if (key != null) {
+      markerIconKeys.put(id, key);
+      // Marker was added with the default icon; load and swap once ready
+      if (cached == null && rec.bytesIconKey == null) loadMarkerIconAsync(id, rec.iconUrl, rec.iconDp, key, rec.position);
+    }
+  }
+
+  // Takes a virtualized marker off the map, keeping its Marker for reuse
+  private void releaseMarker(String id) {
+    Marker mk = markers.remove(id);
+    if (mk == null) return;
+    stopMarkerBounce(id);
+    stopMarkerPulse(id);
+    animations.cancel("move:" + id);
+    markerIconKeys.remove(id);
+    iconLoader.cancel(id);
+    virtualReleased++;
+    if (markerPool.size() < MARKER_POOL_MAX) {
+      mk.hideInfoWindow();
+      mk.setVisible(false);
+      markerPool.add(mk);
+    } else {
+      mk.remove();
+    }
+  }
+
+  private static final int MARKER_POOL_MAX = 256;
+
+  private boolean inVirtualArea(LatLng p) {
+    if (virtualArea == null) updateVirtualArea();
+    double[] a = virtualArea;
+    // Viewport still unknown: show it rather than lose it
+    return a == null || MarkerGrid.inside(p.latitude, p.longitude, a[0], a[1], a[2], a[3]);
+  }
+
+  // Visible bounds grown by virtualMargin of their span on each side
+  private void updateVirtualArea() {
+    LatLngBounds b = lastVisibleBounds != null ? lastVisibleBounds : visibleBounds();
+    if (b == null) {
+      virtualArea = null;
+      return;
+    }
+    double south = b.southwest.latitude, north = b.northeast.latitude;
+    double west = b.southwest.longitude, east = b.northeast.longitude;
+    double spanLng = east >= west ? east - west : east + 360 - west;
+    double dLat = (north - south) * virtualMargin, dLng = spanLng * virtualMargin;
+    if (spanLng + 2 * dLng >= 360) {
+      west = -180;
+      east = 180;
+    } else {
+      west -= dLng;
+      east += dLng;
+      if (west < -180) west += 360;
+      if (east > 180) east -= 360;
+    }
+    virtualArea = new double[]{Math.max(-90, south - dLat), west, Math.min(90, north + dLat), east};
+  }
+
+  // Camera idle: swaps the live marker set to what is in (or near) view
+  private void updateVirtualMarkers() {
+    if (!virtualMarkers || clusteringEnabled) return;
+    updateVirtualArea();
+    double[] a = virtualArea;
+    if (a == null) return;
+    List<String> want = markerGrid.query(a[0], a[1], a[2], a[3]);
+    if (want.size() > virtualMaxLive) {
+      // Too many in view: keep the ones nearest the centre
+      LatLng c = map.getCameraPosition().target;
+      java.util.Collections.sort(want, (x, y) -> Double.compare(
+          distance2(markerRecords.get(x).position, c), distance2(markerRecords.get(y).position, c)));
+      want = want.subList(0, virtualMaxLive);
+    }
+    java.util.Set<String> keep = new java.util.HashSet<>(want);
+    for (String id : new ArrayList<>(markers.keySet())) {
+      if (!keep.contains(id)) releaseMarker(id);
+    }
+    for (String id : want) {
+      if (!markers.containsKey(id)) materializeMarker(id, markerRecords.get(id));
+    }
+  }
+
+  private static double distance2(LatLng p, LatLng c) {
+    double dLat = p.latitude - c.latitude;
+    double dLng = Math.abs(p.longitude - c.longitude);
+    if (dLng > 180) dLng = 360 - dLng;
+    dLng *= Math.cos(Math.toRadians(c.latitude));
+    return dLat * dLat + dLng * dLng;
+  }
+
+  private void setMarkerVirtualization(boolean enabled) {
+    if (enabled == virtualMarkers) {
+      if (enabled) updateVirtualMarkers();
+      return;
+    }
+    virtualMarkers = enabled;
+    if (enabled) {
+      for (Map.Entry<String, MarkerRecord> e : markerRecords.entrySet()) {
+        LatLng p = e.getValue().position;
+        markerGrid.put(e.getKey(), p.latitude, p.longitude);
       }
+      updateVirtualMarkers();
     } else {
-      Marker mk = map.addMarker(opts);
-      if (mk != null) markers.put(id, mk);
+      markerGrid.clear();
+      for (Map.Entry<String, MarkerRecord> e : markerRecords.entrySet()) {
+        if (!markers.containsKey(e.getKey())) materializeMarker(e.getKey(), e.getValue());
+      }
+      drainMarkerPool();
+    }
+  }
+
+  private void drainMarkerPool() {
+    for (Marker mk : markerPool) { try { mk.remove(); } catch (Throwable ignored) {} }
+    markerPool.clear();
+  }
+
+  // Icon key prefix for icons set from raw bytes (markers#setIconBytes), followed by the content hash
+  private static final String ICON_KEY_BYTES_PREFIX = "bytes:";
+
+  // Shared descriptor for a cached icon, created on first use; null when the bitmap is not cached
+  @Nullable
+  private BitmapDescriptor iconDescriptor(@Nullable String key) {
+    if (key == null) return null;
+    BitmapDescriptor desc = descriptorCache.get(key);
+    if (desc != null) {
+      descriptorHits++;
+      checkIconFreshness(key);
+      return desc;
+    }
+    Bitmap bmp = iconCache.get(key);
+    if (bmp == null) return null;
+    checkIconFreshness(key);
+    descriptorMisses++;
+    desc = BitmapDescriptorFactory.fromBitmap(bmp);
+    descriptorCache.put(key, desc);
+    return desc;
+  }
+
+  @Nullable
+  private static String iconKey(@Nullable String iconUrl, double iconDp) {
+    if (iconUrl == null || iconUrl.isEmpty()) return null;
+    return iconUrl + "#dp=" + (int) Math.max(1, iconDp);
+  }
+
+  // Applies the icon for (iconUrl, iconDp) to an existing marker unless it is already the requested one
+  private void applyMarkerIcon(String id, Marker mk, @Nullable String iconUrl, double iconDp) {
+    String key = iconKey(iconUrl, iconDp);
+    String prev = markerIconKeys.get(id);
+    if (key == null ? prev == null : key.equals(prev)) return;
+    if (key == null) {
+      markerIconKeys.remove(id);
+      iconLoader.cancel(id);
+      mk.setIcon(BitmapDescriptorFactory.defaultMarker());
+      return;
+    }
+    markerIconKeys.put(id, key);
+    BitmapDescriptor cached = iconDescriptor(key);
+    if (cached != null) mk.setIcon(cached);
+    else loadMarkerIconAsync(id, iconUrl, iconDp, key, mk.getPosition());
+  }
+
+  private void loadMarkerIconAsync(String id, String iconUrl, double iconDp, String key, LatLng position) {
+    // Before the first camera idle the viewport is unknown; treat everything as visible
+    boolean visible = lastVisibleBounds == null || lastVisibleBounds.contains(position);
+    iconLoader.request(id, key, iconUrl, (int) Math.max(1, iconDp),
+        visible ? IconLoader.PRIORITY_VISIBLE : IconLoader.PRIORITY_OFFSCREEN);
+  }
+
+  // Main thread: caches the icon and applies it to every marker still expecting it
+  private void onIconLoaded(String key, @Nullable Bitmap bmp, List<String> owners) {
+    if (bmp == null) return;
+    iconCache.put(key, bmp);
+    BitmapDescriptor desc = null;
+    for (String id : owners) {
+      // Skip markers removed or switched to another icon meanwhile
+      if (!key.equals(markerIconKeys.get(id))) continue;
+      Marker current = markers.get(id);
+      if (current == null) continue;
+      if (desc == null) desc = iconDescriptor(key);
+      if (desc != null) current.setIcon(desc);
     }
   }
 
@@ -763,10 +1959,7 @@ class MapViewPlatformView implements PlatformView, OnMapReadyCallback, MethodCal
         String meta = urlStr.substring(5, comma); // e.g., image/png;base64
         String data = urlStr.substring(comma + 1);
         byte[] bytes = meta.contains("base64") ? Base64.decode(data, Base64.DEFAULT) : data.getBytes(java.nio.charset.StandardCharsets.UTF_8);
-        try (InputStream is = new ByteArrayInputStream(bytes)) {
-          Bitmap raw = BitmapFactory.decodeStream(is);
-          return raw != null ? scaleBitmapToDp(raw, Math.max(1, iconDp)) : null;
-        }
+        return decodeIcon(bytes, iconDp);
       }
       return null;
     }
@@ -777,80 +1970,117 @@ class MapViewPlatformView implements PlatformView, OnMapReadyCallback, MethodCal
       try {
         String lookup = io.flutter.FlutterInjector.instance().flutterLoader().getLookupKeyForAsset(asset);
         try (InputStream is = context.getAssets().open(lookup)) {
-          Bitmap raw = BitmapFactory.decodeStream(is);
-          return raw != null ? scaleBitmapToDp(raw, Math.max(1, iconDp)) : null;
+          return decodeIcon(IconDecoder.readAll(is), iconDp);
         }
       } catch (Throwable ignored) { }
       return null;
     }
 
-    // Network URL with disk caching of the scaled variant
-    final String name = md5(urlStr + "#dp=" + Math.max(1, iconDp)) + ".png";
-    final java.io.File f = new java.io.File(diskCacheDir, name);
-    if (f.exists()) {
-      Bitmap b = BitmapFactory.decodeFile(f.getAbsolutePath());
-      if (b != null) return b;
-    }
-    URL url = new URL(urlStr);
-    HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-    conn.setConnectTimeout(6000);
-    conn.setReadTimeout(6000);
-    conn.setInstanceFollowRedirects(true);
-    conn.setRequestProperty("User-Agent", "Mozilla/5.0 (Android) GoogleMapsNativeSDK/1.0");
-    conn.connect();
-    try (InputStream is = conn.getInputStream()) {
-      Bitmap raw = BitmapFactory.decodeStream(is);
-      Bitmap scaled = raw != null ? scaleBitmapToDp(raw, Math.max(1, iconDp)) : null;
-      if (scaled != null) {
-        try (java.io.FileOutputStream fos = new java.io.FileOutputStream(f)) {
-          scaled.compress(Bitmap.CompressFormat.PNG, 100, fos);
-        } catch (Throwable ignored) {}
-        executor.submit(() -> { try { pruneDiskCache(32L * 1024L * 1024L, 300); } catch (Throwable ignored2) {} });
-      }
-      return scaled;
-    } finally {
-      try { conn.disconnect(); } catch (Throwable ignored) {}
+    // Network URL with disk caching of the scaled variant; a stale copy is returned and revalidated
+    final String key = urlStr + "#dp=" + Math.max(1, iconDp);
+    final String name = md5(key);
+    Bitmap b = diskCache.get(name);
+    if (b != null) {
+      HttpIconFetcher.Validators v = diskCache.validators(name);
+      iconExpiry.put(key, v != null ? v.expiresAt : 0L);
+      checkIconFreshness(key);
+      return b;
+    }
+    HttpIconFetcher.Response res = HttpIconFetcher.fetch(urlStr, null, System.currentTimeMillis());
+    Bitmap scaled = res.body != null ? decodeIcon(res.body, iconDp) : null;
+    if (scaled != null) storeNetworkIcon(key, name, scaled, res.validators);
+    return scaled;
+  }
+
+  // Minimum spacing between revalidations of one icon, also for no-cache / max-age=0 responses
+  private static final long MIN_REVALIDATE_INTERVAL_MS = 30_000L;
+
+  private void storeNetworkIcon(String key, String name, Bitmap bmp, HttpIconFetcher.Validators v) {
+    if (!v.noStore) diskCache.put(name, bmp, v);
+    iconExpiry.put(key, Math.max(v.expiresAt, System.currentTimeMillis() + MIN_REVALIDATE_INTERVAL_MS));
+  }
+
+  // Starts a background revalidation when the network icon behind key is past its max-age
+  private void checkIconFreshness(String key) {
+    Long exp = iconExpiry.get(key);
+    if (exp == null || exp > System.currentTimeMillis()) return;
+    if (!revalidating.add(key)) return;
+    int sep = key.lastIndexOf("#dp=");
+    final String url = key.substring(0, sep);
+    final int dp = Integer.parseInt(key.substring(sep + 4));
+    try {
+      revalidateExecutor.execute(() -> {
+        try { revalidateIcon(key, url, dp); } finally { revalidating.remove(key); }
+      });
+    } catch (Throwable t) {
+      revalidating.remove(key); // executor shut down
+    }
+  }
+
+  // Background: conditional GET; a 304 only refreshes validators, a changed image replaces the cached one
+  private void revalidateIcon(String key, String url, int dp) {
+    String name = md5(key);
+    long now = System.currentTimeMillis();
+    revalidations++;
+    try {
+      HttpIconFetcher.Validators cached = diskCache.validators(name);
+      HttpIconFetcher.Response res = HttpIconFetcher.fetch(url, cached != null && cached.canRevalidate() ? cached : null, now);
+      if (res.notModified) {
+        diskCache.updateValidators(name, res.validators);
+        iconExpiry.put(key, Math.max(res.validators.expiresAt, now + MIN_REVALIDATE_INTERVAL_MS));
+        return;
+      }
+      Bitmap fresh = res.body != null ? decodeIcon(res.body, dp) : null;
+      if (fresh == null) {
+        iconExpiry.put(key, now + MIN_REVALIDATE_INTERVAL_MS);
+        return;
+      }
+      storeNetworkIcon(key, name, fresh, res.validators);
+      revalidationsChanged++;
+      mapView.post(() -> onIconRevalidated(key, fresh));
+    } catch (Throwable t) {
+      // Offline or server error: keep serving the cached icon, retry later
+      iconExpiry.put(key, now + MIN_REVALIDATE_INTERVAL_MS);
     }
   }
 
-  private void pruneDiskCache(long maxBytes, int maxFiles) {
-    java.io.File[] files = diskCacheDir.listFiles();
-    if (files == null || files.length == 0) return;
-    java.util.Arrays.sort(files, java.util.Comparator.comparingLong(java.io.File::lastModified));
-    long total = 0; for (java.io.File f : files) total += f.length();
-    int count = files.length; int idx = 0;
-    while ((total > maxBytes || count > maxFiles) && idx < files.length) {
-      java.io.File f = files[idx++]; long len = f.length(); f.delete(); total -= len; count--; }
+  // Main thread: swaps a changed icon into the cache and onto every marker showing it
+  private void onIconRevalidated(String key, Bitmap bmp) {
+    iconCache.put(key, bmp);
+    BitmapDescriptor desc = null;
+    for (Map.Entry<String, String> e : markerIconKeys.entrySet()) {
+      if (!key.equals(e.getValue())) continue;
+      Marker m = markers.get(e.getKey());
+      if (m == null) continue;
+      if (desc == null) desc = iconDescriptor(key);
+      if (desc != null) m.setIcon(desc);
+    }
   }
 
   private static String md5(String s) {
+    return md5(s.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+  }
+
+  private static String md5(byte[] data) {
     try {
       java.security.MessageDigest md = java.security.MessageDigest.getInstance("MD5");
-      byte[] bytes = md.digest(s.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+      byte[] bytes = md.digest(data);
       StringBuilder sb = new StringBuilder();
       for (byte b : bytes) sb.append(String.format("%02x", b));
       return sb.toString();
     } catch (Exception e) {
-      return Integer.toHexString(s.hashCode());
+      return Integer.toHexString(java.util.Arrays.hashCode(data));
     }
   }
 
   private static double toDouble(Object o) { return o == null ? 0 : ((Number) o).doubleValue(); }
   private static Double toNullableDouble(Object o) { return o == null ? null : ((Number) o).doubleValue(); }
 
-  private Bitmap scaleBitmapToDp(Bitmap bmp, int maxDp) {
-    try {
-      float density = context.getResources().getDisplayMetrics().density;
-      int maxPx = Math.max(1, (int) (maxDp * density));
-      int w = bmp.getWidth();
-      int h = bmp.getHeight();
-      int maxSide = Math.max(w, h);
-      if (maxSide <= maxPx) return bmp;
-      float scale = (float) maxPx / (float) maxSide;
-      int nw = Math.max(1, Math.round(w * scale));
-      int nh = Math.max(1, Math.round(h * scale));
-      return Bitmap.createScaledBitmap(bmp, nw, nh, true);
-    } catch (Throwable t) { return bmp; }
+  // Decodes straight to the icon size (maxDp on the longest side); software bitmap for the Maps renderer
+  @Nullable
+  private Bitmap decodeIcon(byte[] bytes, int maxDp) {
+    float density = context.getResources().getDisplayMetrics().density;
+    return IconDecoder.decode(bytes, (int) (Math.max(1, maxDp) * density), false);
   }
 
   // Lifecycle hooks forwarded by plugin
@@ -862,138 +2092,441 @@ class MapViewPlatformView implements PlatformView, OnMapReadyCallback, MethodCal
 
   static void dispatchStart() { synchronized (INSTANCES) { for (MapViewPlatformView v : INSTANCES) v.onHostStart(); } }
   static void dispatchResume() { synchronized (INSTANCES) { for (MapViewPlatformView v : INSTANCES) v.onHostResume(); } }
+  static void dispatchPause() { synchronized (INSTANCES) { for (MapViewPlatformView v : INSTANCES) v.onHostPause(); } }
+  static void dispatchStop() { synchronized (INSTANCES) { for (MapViewPlatformView v : INSTANCES) v.onHostStop(); } }
+  static void dispatchDestroy() { synchronized (INSTANCES) { for (MapViewPlatformView v : INSTANCES) v.onHostDestroy(); } }
+
+  // Re-adds a cluster item with a new position and/or rotation
+  private void moveClusterItem(String id, @Nullable LatLng position, @Nullable Float rotation) {
+    ClusterItemImpl old = clusterItems.remove(id);
+    if (old != null) try { clusterManager.removeItem(old); } catch (Throwable ignored) {}
+    ClusterItemImpl item = new ClusterItemImpl(
+        id,
+        position != null ? position : old != null ? old.position : new LatLng(0, 0),
+        old != null ? old.title : null,
+        old != null ? old.snippet : null,
+        old != null ? old.iconUrl : "",
+        old != null ? old.iconDp : 48f,
+        old != null ? old.anchorU : 0.5f,
+        old != null ? old.anchorV : 0.62f,
+        rotation != null ? rotation : old != null ? old.rotation : 0f,
+        old != null ? old.zIndex : 0f,
+        old != null && old.draggable
+    );
+    clusterItems.put(id, item);
+    clusterManager.addItem(item);
+    requestCluster();
+  }
+
+  // Moves a live marker along a MarkerMotion; the record already holds the target
+  static final class MotionTrack implements AnimationEngine.Track {
+    final Marker marker;
+    final MarkerMotion motion;
+    final long durationNanos;
+    long start = -1;
+
+    MotionTrack(Marker marker, MarkerMotion motion, int durationMs) {
+      this.marker = marker;
+      this.motion = motion;
+      this.durationNanos = Math.max(1, durationMs) * 1_000_000L;
+    }
+
+    @Override public boolean step(long now) {
+      if (start < 0) start = now;
+      double f = Math.min(1.0, (now - start) / (double) durationNanos);
+      motion.positionAt(f);
+      marker.setPosition(new LatLng(motion.out[0], motion.out[1]));
+      if (motion.rotates()) marker.setRotation((float) motion.rotationAt(f));
+      return f < 1.0;
+    }
+
+    @Override public void end() {}
+  }
+
+  private void animateMarkerTo(Map<String, Object> m) {
+    String id = (String) m.get("id");
+    @SuppressWarnings("unchecked") Map<String, Object> t = (Map<String, Object>) m.get("target");
+    if (id == null || t == null) return;
+    LatLng target = new LatLng(toDouble(t.get("lat")), toDouble(t.get("lng")));
+    Float rotation = m.get("rotation") instanceof Number ? ((Number) m.get("rotation")).floatValue() : null;
+    boolean alongPath = Boolean.TRUE.equals(m.get("rotateAlongPath"));
+    // Moved outside markers#sync: the next sync must re-apply its options
+    markerHashes.remove(id);
+    if (clusteringEnabled && clusterManager != null) {
+      // Cluster items are drawn by the renderer; they jump to the target
+      if (clusterItems.containsKey(id)) moveClusterItem(id, target, rotation);
+      return;
+    }
+    MarkerRecord rec = markerRecords.get(id);
+    if (rec == null) return;
+    Marker marker = markers.get(id);
+    LatLng from = marker != null ? marker.getPosition() : rec.position;
+    float fromRotation = marker != null ? marker.getRotation() : rec.rotation;
+    rec.position = target;
+    if (rotation != null) rec.rotation = rotation;
+    if (virtualMarkers) markerGrid.put(id, target.latitude, target.longitude);
+    if (marker == null) {
+      if (virtualMarkers && inVirtualArea(target)) materializeMarker(id, rec);
+      return;
+    }
+    stopMarkerBounce(id);
+    List<LatLng> via = CoordinateCodec.readLatLngs(m);
+    double[] path = new double[2 * (via.size() + 2)];
+    int k = 0;
+    path[k++] = from.latitude;
+    path[k++] = from.longitude;
+    for (LatLng p : via) { path[k++] = p.latitude; path[k++] = p.longitude; }
+    path[k++] = target.latitude;
+    path[k] = target.longitude;
+    MarkerMotion motion = new MarkerMotion(path, "geodesic".equals(m.get("interpolation")), fromRotation,
+        rotation != null ? rotation : Double.NaN, alongPath);
+    int durationMs = m.get("durationMs") instanceof Number ? ((Number) m.get("durationMs")).intValue() : 1000;
+    // Replacing a running track retargets from where the marker is now
+    animations.start("move:" + id, new MotionTrack(marker, motion, durationMs));
+    if (alongPath && rotation == null) {
+      motion.positionAt(1.0);
+      rec.rotation = (float) motion.rotationAt(1.0);
+    }
+  }
+
+  static final class NavFollow {
+    String routeId;
+    @Nullable String markerId;
+    boolean snap = true;
+    boolean camera = true;
+    boolean followBearing = true;
+    @Nullable Float zoom;
+    @Nullable Float tilt;
+    double headingAlpha = 0.35; // share of each heading change applied; 1 = no smoothing
+    double lowSpeedKmh = 5.0;
+    double toleranceMeters = 30.0;
+    int durationMs = 1000;
+    String vehicleRotation = "course"; // course | route | heading
+    @Nullable RouteGeometry geometry; // the one lastSegment/lastAlong refer to
+    double heading = Double.NaN; // smoothed
+    int lastSegment = -1;
+    double lastAlong = -1;
+  }
+
+  private void startNavFollow(Map<String, Object> args) {
+    stopNavFollow();
+    NavFollow nf = new NavFollow();
+    nf.routeId = (String) args.get("polylineId");
+    nf.markerId = (String) args.get("markerId");
+    if (args.get("snapToRoute") instanceof Boolean) nf.snap = (Boolean) args.get("snapToRoute");
+    if (args.get("moveCamera") instanceof Boolean) nf.camera = (Boolean) args.get("moveCamera");
+    if (args.get("followBearing") instanceof Boolean) nf.followBearing = (Boolean) args.get("followBearing");
+    if (args.get("zoom") instanceof Number) nf.zoom = ((Number) args.get("zoom")).floatValue();
+    if (args.get("tilt") instanceof Number) nf.tilt = ((Number) args.get("tilt")).floatValue();
+    if (args.get("headingSmoothing") instanceof Number) nf.headingAlpha = Math.max(0.01, Math.min(1.0, toDouble(args.get("headingSmoothing"))));
+    if (args.get("lowSpeedKmh") instanceof Number) nf.lowSpeedKmh = toDouble(args.get("lowSpeedKmh"));
+    if (args.get("toleranceMeters") instanceof Number) nf.toleranceMeters = toDouble(args.get("toleranceMeters"));
+    if (args.get("durationMs") instanceof Number) nf.durationMs = ((Number) args.get("durationMs")).intValue();
+    if (args.get("vehicleRotation") instanceof String) nf.vehicleRotation = (String) args.get("vehicleRotation");
+    navFollow = nf;
+  }
+
+  private void stopNavFollow() {
+    NavFollow nf = navFollow;
+    navFollow = null;
+    if (nf == null) return;
+    animations.cancel(nf.markerId != null ? "move:" + nf.markerId : "follow");
+  }
+
+  @Nullable
+  private RouteGeometry navGeometry(NavFollow nf) {
+    RouteGeometry geo = routeGeometry(nf.routeId);
+    if (geo != nf.geometry) {
+      nf.geometry = geo;
+      nf.lastSegment = -1;
+      nf.lastAlong = -1;
+    }
+    return geo;
+  }
+
+  /**
+   * Snaps one fix (lat, lng, speedKmh, course, heading) or a packed batch (stride 5, NaN for
+   * missing values) to the route, then moves the vehicle marker and camera towards the last one.
+   */
+  private Map<String, Object> navLocation(Map<String, Object> args) {
+    NavFollow nf = navFollow;
+    double[] fixes;
+    if (args.get("fixes") != null) {
+      fixes = CoordinateCodec.readDoubles(args.get("fixes"));
+    } else {
+      fixes = new double[]{
+          toDouble(args.get("lat")), toDouble(args.get("lng")),
+          args.get("speedKmh") instanceof Number ? toDouble(args.get("speedKmh")) : Double.NaN,
+          args.get("course") instanceof Number ? toDouble(args.get("course")) : Double.NaN,
+          args.get("heading") instanceof Number ? toDouble(args.get("heading")) : Double.NaN};
+    }
+    Map<String, Object> out = new HashMap<>();
+    if (fixes.length < 5) return out;
+    RouteGeometry geo = navGeometry(nf);
+    RouteGeometry.Match match = null;
+    int startSegment = nf.lastSegment;
+    double startAlong = nf.lastAlong;
+    double lat = 0, lng = 0, rotation = Double.NaN, routeBearing = Double.NaN;
+    for (int i = 0; i + 4 < fixes.length; i += 5) {
+      double fLat = fixes[i], fLng = fixes[i + 1], speed = fixes[i + 2], course = fixes[i + 3], device = fixes[i + 4];
+      match = geo != null ? geo.match(fLat, fLng, nf.toleranceMeters) : null;
+      routeBearing = match != null ? match.bearing : Double.NaN;
+      // Moving: course, else the route; slow or stopped: the device heading, else the route
+      boolean moving = !Double.isNaN(speed) && speed >= nf.lowSpeedKmh;
+      double candidate = moving ? (!Double.isNaN(course) ? course : routeBearing) : (!Double.isNaN(device) ? device : routeBearing);
+      if (!Double.isNaN(candidate)) {
+        nf.heading = Double.isNaN(nf.heading) ? MarkerMotion.normalize(candidate)
+            : MarkerMotion.normalize(nf.heading + MarkerMotion.shortestArc(nf.heading, candidate) * nf.headingAlpha);
+      }
+      switch (nf.vehicleRotation) {
+        case "route": rotation = !Double.isNaN(routeBearing) ? routeBearing : course; break;
+        case "heading": rotation = nf.heading; break;
+        default: rotation = moving && !Double.isNaN(course) ? course : !Double.isNaN(routeBearing) ? routeBearing : nf.heading; break;
+      }
+      boolean snapped = nf.snap && match != null;
+      lat = snapped ? match.lat : fLat;
+      lng = snapped ? match.lng : fLng;
+    }
+    if (match != null) {
+      nf.lastSegment = match.segment;
+      nf.lastAlong = match.along;
+    }
+    int durationMs = args.get("durationMs") instanceof Number ? ((Number) args.get("durationMs")).intValue() : nf.durationMs;
+    followTo(nf, nf.snap ? geo : null, startSegment, startAlong, match, lat, lng, rotation, durationMs);
+
+    out.put("lat", lat);
+    out.put("lng", lng);
+    out.put("heading", Double.isNaN(nf.heading) ? null : nf.heading);
+    if (match != null) {
+      CoordBuffer path = polylinePaths.get(nf.routeId);
+      out.put("segmentIndex", match.segment + (path != null ? path.firstIndex() : 0));
+      out.put("distanceAlongMeters", match.along);
+      out.put("distanceRemainingMeters", Math.max(0.0, geo.length() - match.along));
+      out.put("progress", geo.length() > 0 ? match.along / geo.length() : 1.0);
+      out.put("offRouteMeters", match.distance);
+      out.put("routeBearing", routeBearing);
+    }
+    return out;
+  }
+
+  // Animates the vehicle marker and camera to (lat, lng); along the route the marker follows its vertices
+  private void followTo(NavFollow nf, @Nullable RouteGeometry geo, int fromSegment, double fromAlong,
+                        @Nullable RouteGeometry.Match match, double lat, double lng, double rotation, int durationMs) {
+    if (map == null) return;
+    Marker marker = nf.markerId != null ? markers.get(nf.markerId) : null;
+    MarkerRecord rec = nf.markerId != null ? markerRecords.get(nf.markerId) : null;
+    // Moved outside markers#sync: the next sync must re-apply its options
+    if (nf.markerId != null) markerHashes.remove(nf.markerId);
+    if (rec != null) {
+      rec.position = new LatLng(lat, lng);
+      if (!Double.isNaN(rotation)) rec.rotation = (float) rotation;
+      if (virtualMarkers) markerGrid.put(nf.markerId, lat, lng);
+    }
+    if (marker == null && !nf.camera) return;
+    CameraPosition cam = map.getCameraPosition();
+    LatLng from = marker != null ? marker.getPosition() : cam.target;
+    // Route vertices crossed since the previous match, when it moved forward a plausible amount
+    int via = 0;
+    if (geo != null && match != null && fromSegment >= 0 && match.along >= fromAlong && match.segment - fromSegment <= 256) {
+      via = Math.max(0, match.segment - fromSegment);
+    }
+    double[] path = new double[2 * (via + 2)];
+    int k = 0;
+    path[k++] = from.latitude;
+    path[k++] = from.longitude;
+    for (int s = fromSegment + 1; via > 0 && s <= match.segment; s++) {
+      path[k++] = geo.lat[s];
+      path[k++] = geo.lng[s];
+    }
+    path[k++] = lat;
+    path[k] = lng;
+    MarkerMotion motion = new MarkerMotion(path, false, marker != null ? marker.getRotation() : 0, rotation, false);
+    FollowTrack track = new FollowTrack(map, marker, motion, durationMs);
+    if (nf.camera) {
+      track.camera = true;
+      track.zoom = nf.zoom != null ? nf.zoom : cam.zoom;
+      track.tilt = nf.tilt != null ? nf.tilt : cam.tilt;
+      track.bearingFrom = cam.bearing;
+      track.bearingDelta = nf.followBearing && !Double.isNaN(nf.heading) ? MarkerMotion.shortestArc(cam.bearing, nf.heading) : 0;
+    }
+    animations.start(nf.markerId != null ? "move:" + nf.markerId : "follow", track);
+  }
+
+  // Vehicle marker and camera moved together, in the same frame
+  static final class FollowTrack implements AnimationEngine.Track {
+    final GoogleMap map;
+    @Nullable final Marker marker;
+    final MarkerMotion motion;
+    final long durationNanos;
+    boolean camera;
+    float zoom;
+    float tilt;
+    double bearingFrom;
+    double bearingDelta;
+    long start = -1;
+
+    FollowTrack(GoogleMap map, @Nullable Marker marker, MarkerMotion motion, int durationMs) {
+      this.map = map;
+      this.marker = marker;
+      this.motion = motion;
+      this.durationNanos = Math.max(1, durationMs) * 1_000_000L;
+    }
+
+    @Override public boolean step(long now) {
+      if (start < 0) start = now;
+      double f = Math.min(1.0, (now - start) / (double) durationNanos);
+      motion.positionAt(f);
+      LatLng p = new LatLng(motion.out[0], motion.out[1]);
+      if (marker != null) {
+        marker.setPosition(p);
+        if (motion.rotates()) marker.setRotation((float) motion.rotationAt(f));
+      }
+      if (camera) {
+        float bearing = (float) MarkerMotion.normalize(bearingFrom + bearingDelta * f);
+        map.moveCamera(CameraUpdateFactory.newCameraPosition(new CameraPosition(p, zoom, tilt, bearing)));
+      }
+      return f < 1.0;
+    }
+
+    @Override public void end() {}
+  }
+
+  // Bounces above the start position; degrees per pixel are measured once, not per frame
+  static final class BounceTrack implements AnimationEngine.Track {
+    final Marker marker;
+    final LatLng startPos;
+    final double latPerPx;
+    final double heightPx;
+    final long durationNanos;
+    final int repeat; // <= 0: forever
+    long start = -1;
+
+    BounceTrack(Marker marker, LatLng startPos, double latPerPx, double heightPx, int durationMs, int repeat) {
+      this.marker = marker;
+      this.startPos = startPos;
+      this.latPerPx = latPerPx;
+      this.heightPx = heightPx;
+      this.durationNanos = Math.max(1, durationMs) * 1_000_000L;
+      this.repeat = repeat;
+    }
+
+    @Override public boolean step(long now) {
+      if (start < 0) start = now;
+      double t = (now - start) / (double) durationNanos;
+      if (repeat > 0 && t >= repeat) return false;
+      double dy = Math.sin(Math.PI * (t - Math.floor(t))) * heightPx; // smooth up/down
+      marker.setPosition(new LatLng(startPos.latitude + dy * latPerPx, startPos.longitude));
+      return true;
+    }
+
+    @Override public void end() { marker.setPosition(startPos); }
+  }
+
   private void startMarkerBounce(String id, int durationMs, double heightDp, int repeat) {
     try {
       final Marker marker = markers.get(id);
       if (marker == null || map == null) return;
-      // Cancel any existing animator
       stopMarkerBounce(id);
       final float density = context.getResources().getDisplayMetrics().density;
-      final float heightPx = (float) (Math.max(1.0, heightDp) * density);
+      final double heightPx = Math.max(1.0, heightDp) * density;
       final com.google.android.gms.maps.Projection proj = map.getProjection();
       final LatLng startPos = marker.getPosition();
       final Point startPt = proj.toScreenLocation(startPos);
-
-      ValueAnimator animator = ValueAnimator.ofFloat(0f, 1f);
-      animator.setInterpolator(new LinearInterpolator());
-      animator.setDuration(Math.max(1, durationMs));
-      if (repeat <= 0) {
-        animator.setRepeatCount(ValueAnimator.INFINITE);
-      } else {
-        // Each cycle is one up+down; ValueAnimator repeat repeats the 0..1 segment
-        animator.setRepeatCount(Math.max(0, repeat - 1));
-      }
-      animator.addUpdateListener(a -> {
-        try {
-          float f = (float) a.getAnimatedValue(); // 0..1
-          double dy = -Math.sin(Math.PI * f) * heightPx; // smooth up/down
-          Point p = new Point(startPt.x, startPt.y + (int) Math.round(dy));
-          LatLng ll = proj.fromScreenLocation(p);
-          marker.setPosition(ll);
-        } catch (Throwable ignored) {}
-      });
-      animator.addListener(new android.animation.AnimatorListenerAdapter() {
-        @Override public void onAnimationEnd(android.animation.Animator animation) {
-          try { marker.setPosition(startPos); } catch (Throwable ignored) {}
-          markerAnimators.remove(id);
-        }
-        @Override public void onAnimationCancel(android.animation.Animator animation) {
-          try { marker.setPosition(startPos); } catch (Throwable ignored) {}
-          markerAnimators.remove(id);
-        }
-      });
-      markerAnimators.put(id, animator);
-      animator.start();
+      LatLng above = proj.fromScreenLocation(new Point(startPt.x, startPt.y - 100));
+      double latPerPx = (above.latitude - startPos.latitude) / 100.0;
+      animations.start("bounce:" + id, new BounceTrack(marker, startPos, latPerPx, heightPx, durationMs, repeat));
     } catch (Throwable ignored) {}
   }
 
   private void stopMarkerBounce(String id) {
-    try {
-      ValueAnimator a = markerAnimators.remove(id);
-      if (a != null) a.cancel();
-    } catch (Throwable ignored) {}
+    animations.cancel("bounce:" + id);
   }
 
-  static class Pulse { Circle circle; ValueAnimator animator; }
-  private void startMarkerPulse(String id, int durationMs, double maxRadiusMeters, int argb, int repeat) {
+  // Grows and fades a ring around a marker, following it when it moves
+  final class PulseTrack implements AnimationEngine.Track {
+    final String id;
+    final Marker marker;
+    final Circle circle;
+    final double maxRadiusMeters;
+    final int baseAlpha;
+    final int rgb;
+    final long durationNanos;
+    final int repeat; // <= 0: forever
+    long start = -1;
+    LatLng center;
+    int alpha = -1;
+
+    PulseTrack(String id, Marker marker, Circle circle, double maxRadiusMeters, int argb, int durationMs, int repeat) {
+      this.id = id;
+      this.marker = marker;
+      this.circle = circle;
+      this.maxRadiusMeters = maxRadiusMeters;
+      this.baseAlpha = (argb >>> 24) & 0xFF;
+      this.rgb = argb & 0x00FFFFFF;
+      this.durationNanos = Math.max(1, durationMs) * 1_000_000L;
+      this.repeat = repeat;
+      this.center = marker.getPosition();
+    }
+
+    @Override public boolean step(long now) {
+      if (start < 0) start = now;
+      double t = (now - start) / (double) durationNanos;
+      if (repeat > 0 && t >= repeat) return false;
+      double f = t - Math.floor(t);
+      LatLng p = marker.getPosition();
+      if (!p.equals(center)) circle.setCenter(center = p);
+      circle.setRadius(Math.max(0.0, f * maxRadiusMeters));
+      int a = (int) Math.round(baseAlpha * (1 - f));
+      if (a != alpha) circle.setFillColor(((alpha = a) << 24) | rgb);
+      return true;
+    }
+
+    @Override public void end() {
+      try { circle.remove(); } catch (Throwable ignored) {}
+      if (circles.get(id) == circle) circles.remove(id);
+    }
+  }
+
+  // clickable: opt-in, otherwise the growing ring would swallow taps meant for the map and markers
+  private void startMarkerPulse(String id, int durationMs, double maxRadiusMeters, int argb, int repeat, boolean clickable) {
     try {
       Marker marker = markers.get(id);
       if (marker == null || map == null) return;
       stopMarkerPulse(id);
-      int baseAlpha = (argb >>> 24) & 0xFF;
-      int rgb = argb & 0x00FFFFFF;
       Circle circle = map.addCircle(new CircleOptions()
           .center(marker.getPosition())
           .radius(0)
           .strokeWidth(0f)
-          .fillColor((baseAlpha << 24) | rgb)
+          .fillColor(argb)
+          .clickable(clickable)
       );
-      ValueAnimator animator = ValueAnimator.ofFloat(0f, 1f);
-      animator.setInterpolator(new LinearInterpolator());
-      animator.setDuration(Math.max(1, durationMs));
-      if (repeat <= 0) animator.setRepeatCount(ValueAnimator.INFINITE); else animator.setRepeatCount(Math.max(0, repeat - 1));
-      animator.addUpdateListener(a -> {
-        try {
-          float t = (float) a.getAnimatedValue();
-          double r = t * maxRadiusMeters;
-          int alpha = (int) Math.round(baseAlpha * (1 - t));
-          circle.setCenter(marker.getPosition());
-          circle.setRadius(Math.max(0.0, r));
-          circle.setFillColor((alpha << 24) | rgb);
-        } catch (Throwable ignored) {}
-      });
-      animator.addListener(new android.animation.AnimatorListenerAdapter() {
-        @Override public void onAnimationEnd(android.animation.Animator animation) {
-          try { circle.remove(); } catch (Throwable ignored) {}
-          pulseMap.remove(id);
-        }
-        @Override public void onAnimationCancel(android.animation.Animator animation) {
-          try { circle.remove(); } catch (Throwable ignored) {}
-          pulseMap.remove(id);
-        }
-      });
-      Pulse p = new Pulse();
-      p.circle = circle;
-      p.animator = animator;
-      pulseMap.put(id, p);
-      animator.start();
+      circles.put(id, circle);
+      animations.start("pulse:" + id, new PulseTrack(id, marker, circle, maxRadiusMeters, argb, durationMs, repeat));
     } catch (Throwable ignored) {}
   }
 
   private void stopMarkerPulse(String id) {
-    try {
-      Pulse p = pulseMap.remove(id);
-      if (p != null) {
-        if (p.animator != null) p.animator.cancel();
-        if (p.circle != null) p.circle.remove();
-      }
-    } catch (Throwable ignored) {}
+    animations.cancel("pulse:" + id);
+  }
+
+  // visible: whether the change touched something drawn (a live marker, the style, cluster items)
+  private void scheduleRefresh(boolean visible) {
+    render.request(visible);
   }
 
-  private void scheduleRefresh() {
+  // Runs at most once per frame from the render scheduler
+  private void refreshNow() {
+    try { mapView.invalidate(); } catch (Throwable ignored) {}
     try {
-      mapView.post(() -> {
-        try { mapView.invalidate(); } catch (Throwable ignored) {}
-        try {
-          CameraPosition cp = map.getCameraPosition();
-          map.moveCamera(CameraUpdateFactory.newCameraPosition(cp));
-        } catch (Throwable ignored) {}
-      });
+      CameraPosition cp = map.getCameraPosition();
+      map.moveCamera(CameraUpdateFactory.newCameraPosition(cp));
     } catch (Throwable ignored) {}
   }
 
-  static void dispatchPause() { synchronized (INSTANCES) { for (MapViewPlatformView v : INSTANCES) v.onHostPause(); } }
-  static void dispatchStop() { synchronized (INSTANCES) { for (MapViewPlatformView v : INSTANCES) v.onHostStop(); } }
-  static void dispatchDestroy() { synchronized (INSTANCES) { for (MapViewPlatformView v : INSTANCES) v.onHostDestroy(); } }
-
   @Override
   public boolean onMarkerClick(@NonNull Marker marker) {
-    for (Map.Entry<String, Marker> e : markers.entrySet()) {
-      if (e.getValue().equals(marker)) {
-        channel.invokeMethod("event#onMarkerTap", e.getKey());
-        break;
-      }
-    }
+    String id = markers.idOf(marker);
+    if (id != null) channel.invokeMethod("event#onMarkerTap", id);
     return false; // allow default behavior
   }
 }
@@ -0,0 +1,125 @@
+package com.example.google_maps_native_sdk;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spatial index of marker ids for viewport queries.
+ *
+ * Ids are bucketed into square Web Mercator cells ({@code 2^cellZoom} per
+ * axis). A query probes the cells overlapping the box, or scans the occupied
+ * cells when the box spans more cells than are occupied (zoomed out), then
+ * keeps the ids whose position is inside. Boxes may cross the antimeridian
+ * (west > east). Not thread-safe; used from the main thread.
+ */
+final class MarkerGrid {
+  private static final class Entry {
+    double lat;
+    double lng;
+    long cell;
+  }
+
+  private final int cellZoom;
+  private final HashMap<Long, HashSet<String>> cells = new HashMap<>();
+  private final HashMap<String, Entry> positions = new HashMap<>();
+
+  MarkerGrid(int cellZoom) {
+    this.cellZoom = Math.max(0, Math.min(24, cellZoom));
+  }
+
+  private static long key(int cx, int cy) {
+    return ((long) cx << 32) | (cy & 0xffffffffL);
+  }
+
+  private int cellOf(double m) {
+    int size = 1 << cellZoom;
+    return Math.min(size - 1, Math.max(0, (int) Math.floor(m * size)));
+  }
+
+  /** Adds or moves {@code id}. */
+  void put(@NonNull String id, double lat, double lng) {
+    long k = key(cellOf(PolylineLod.mercatorX(lng)), cellOf(PolylineLod.mercatorY(lat)));
+    Entry e = positions.get(id);
+    boolean relink = e == null || e.cell != k;
+    if (e == null) positions.put(id, e = new Entry());
+    else if (relink) unlink(id, e.cell);
+    e.lat = lat;
+    e.lng = lng;
+    e.cell = k;
+    if (!relink) return;
+    HashSet<String> ids = cells.get(k);
+    if (ids == null) cells.put(k, ids = new HashSet<>());
+    ids.add(id);
+  }
+
+  boolean remove(@NonNull String id) {
+    Entry e = positions.remove(id);
+    if (e == null) return false;
+    unlink(id, e.cell);
+    return true;
+  }
+
+  private void unlink(String id, long k) {
+    HashSet<String> ids = cells.get(k);
+    if (ids == null) return;
+    ids.remove(id);
+    if (ids.isEmpty()) cells.remove(k);
+  }
+
+  void clear() {
+    cells.clear();
+    positions.clear();
+  }
+
+  int size() {
+    return positions.size();
+  }
+
+  /** Whether (lat, lng) lies in the box; west > east wraps across the antimeridian. */
+  static boolean inside(double lat, double lng, double south, double west, double north, double east) {
+    if (lat < south || lat > north) return false;
+    return west <= east ? lng >= west && lng <= east : lng >= west || lng <= east;
+  }
+
+  /** Ids inside the box, in no particular order. */
+  @NonNull
+  List<String> query(double south, double west, double north, double east) {
+    List<String> out = new ArrayList<>();
+    if (positions.isEmpty()) return out;
+    int size = 1 << cellZoom;
+    int y0 = cellOf(PolylineLod.mercatorY(north)), y1 = cellOf(PolylineLod.mercatorY(south));
+    int x0 = cellOf(PolylineLod.mercatorX(west)), x1 = cellOf(PolylineLod.mercatorX(east));
+    int[][] xr = west <= east ? new int[][]{{x0, x1}} : new int[][]{{x0, size - 1}, {0, x1}};
+    long area = 0;
+    for (int[] r : xr) area += (long) (r[1] - r[0] + 1) * (y1 - y0 + 1);
+    if (area <= cells.size()) {
+      for (int[] r : xr) {
+        for (int cx = r[0]; cx <= r[1]; cx++) {
+          for (int cy = y0; cy <= y1; cy++) {
+            HashSet<String> ids = cells.get(key(cx, cy));
+            if (ids != null) collect(ids, south, west, north, east, out);
+          }
+        }
+      }
+    } else {
+      for (Map.Entry<Long, HashSet<String>> e : cells.entrySet()) {
+        int cy = (int) (long) e.getKey();
+        if (cy < y0 || cy > y1) continue;
+        collect(e.getValue(), south, west, north, east, out);
+      }
+    }
+    return out;
+  }
+
+  private void collect(HashSet<String> ids, double south, double west, double north, double east, List<String> out) {
+    for (String id : ids) {
+      Entry e = positions.get(id);
+      if (inside(e.lat, e.lng, south, west, north, east)) out.add(id);
+    }
+  }
+}
@@ -0,0 +1,159 @@
+package com.example.google_maps_native_sdk;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Position and rotation of a marker moving along a path at constant speed.
+ *
+ * The path starts at the marker's current position and ends at the target,
+ * with optional intermediate points (road geometry between two fixes). A
+ * fraction of the duration maps to the same fraction of the path length, so
+ * short and long legs are covered at one speed. Legs are interpolated in
+ * lat/lng (through the shorter side of the antimeridian) or along great
+ * circles. Rotation turns the short way round, either to a fixed target or
+ * to the bearing of the current leg. Queries are expected in increasing
+ * order and reuse a cursor; {@link #out} is overwritten by each call.
+ */
+final class MarkerMotion {
+  private static final double EARTH_RADIUS = 6371009.0;
+  // Share of a leg over which the heading turns from the previous leg's bearing
+  private static final double TURN_SHARE = 0.15;
+
+  private final double[] lat;
+  private final double[] lng;
+  private final double[] cum; // meters from the start to each vertex
+  private final double[] bearing; // per leg
+  private final boolean geodesic;
+  private final double fromRotation;
+  private final double rotationDelta; // NaN: rotation is left alone
+  private final boolean alongPath;
+  private int seg;
+  private double along;
+
+  /** Result of {@link #positionAt}: lat, lng. */
+  final double[] out = new double[2];
+
+  /**
+   * {@code latLngs} holds (lat, lng) pairs from the start to the target. {@code targetRotation}
+   * NaN keeps the rotation unless {@code alongPath} turns it to the bearing of each leg.
+   */
+  MarkerMotion(@NonNull double[] latLngs, boolean geodesic, double fromRotation, double targetRotation, boolean alongPath) {
+    int n = Math.max(1, latLngs.length / 2);
+    lat = new double[n];
+    lng = new double[n];
+    for (int i = 0; i < n; i++) {
+      lat[i] = latLngs.length >= 2 ? latLngs[2 * i] : 0;
+      lng[i] = latLngs.length >= 2 ? latLngs[2 * i + 1] : 0;
+    }
+    cum = new double[n];
+    bearing = new double[Math.max(1, n - 1)];
+    for (int i = 1; i < n; i++) {
+      cum[i] = cum[i - 1] + distance(lat[i - 1], lng[i - 1], lat[i], lng[i]);
+      bearing[i - 1] = bearing(lat[i - 1], lng[i - 1], lat[i], lng[i]);
+    }
+    // A zero-length leg has no direction: keep the previous one
+    for (int i = 0; i < bearing.length; i++) {
+      if (i + 1 < n && cum[i + 1] == cum[i]) bearing[i] = i > 0 ? bearing[i - 1] : fromRotation;
+    }
+    this.geodesic = geodesic;
+    this.fromRotation = normalize(fromRotation);
+    this.rotationDelta = Double.isNaN(targetRotation) ? Double.NaN : shortestArc(this.fromRotation, targetRotation);
+    this.alongPath = alongPath && n > 1;
+  }
+
+  double length() { return cum[cum.length - 1]; }
+
+  boolean rotates() { return alongPath || !Double.isNaN(rotationDelta); }
+
+  /** Position at {@code fraction} (0..1) of the path, written to {@link #out}. */
+  void positionAt(double fraction) {
+    double f = Math.max(0.0, Math.min(1.0, fraction));
+    int last = lat.length - 1;
+    if (last == 0 || f >= 1.0) {
+      seg = Math.max(0, last - 1);
+      along = length();
+      out[0] = lat[last];
+      out[1] = lng[last];
+      return;
+    }
+    double d = f * length();
+    if (d < cum[seg]) seg = 0;
+    while (seg < last - 1 && cum[seg + 1] <= d) seg++;
+    along = d;
+    double legLen = cum[seg + 1] - cum[seg];
+    double t = legLen > 0 ? (d - cum[seg]) / legLen : 1.0;
+    interpolate(seg, t);
+  }
+
+  /** Rotation in degrees [0, 360) at {@code fraction}; call after {@link #positionAt} with the same value. */
+  double rotationAt(double fraction) {
+    if (!alongPath) {
+      if (Double.isNaN(rotationDelta)) return fromRotation;
+      return normalize(fromRotation + rotationDelta * Math.max(0.0, Math.min(1.0, fraction)));
+    }
+    double prev = seg == 0 ? fromRotation : bearing[seg - 1];
+    double legLen = cum[seg + 1] - cum[seg];
+    double turn = legLen * TURN_SHARE;
+    double t = turn > 0 ? Math.min(1.0, (along - cum[seg]) / turn) : 1.0;
+    return normalize(prev + shortestArc(prev, bearing[seg]) * t);
+  }
+
+  private void interpolate(int i, double t) {
+    double lat1 = lat[i], lng1 = lng[i], lat2 = lat[i + 1], lng2 = lng[i + 1];
+    if (!geodesic) {
+      out[0] = lat1 + (lat2 - lat1) * t;
+      out[1] = wrapLng(lng1 + wrapLng(lng2 - lng1) * t);
+      return;
+    }
+    double p1 = Math.toRadians(lat1), l1 = Math.toRadians(lng1);
+    double p2 = Math.toRadians(lat2), l2 = Math.toRadians(lng2);
+    double x1 = Math.cos(p1) * Math.cos(l1), y1 = Math.cos(p1) * Math.sin(l1), z1 = Math.sin(p1);
+    double x2 = Math.cos(p2) * Math.cos(l2), y2 = Math.cos(p2) * Math.sin(l2), z2 = Math.sin(p2);
+    double dot = Math.max(-1.0, Math.min(1.0, x1 * x2 + y1 * y2 + z1 * z2));
+    double omega = Math.acos(dot);
+    double a, b;
+    if (omega < 1e-12) {
+      a = 1 - t;
+      b = t;
+    } else {
+      double s = Math.sin(omega);
+      a = Math.sin((1 - t) * omega) / s;
+      b = Math.sin(t * omega) / s;
+    }
+    double x = a * x1 + b * x2, y = a * y1 + b * y2, z = a * z1 + b * z2;
+    out[0] = Math.toDegrees(Math.atan2(z, Math.sqrt(x * x + y * y)));
+    out[1] = Math.toDegrees(Math.atan2(y, x));
+  }
+
+  /** Signed degrees in (-180, 180] turning from {@code from} to {@code to} the short way. */
+  static double shortestArc(double from, double to) {
+    double d = normalize(to - from);
+    return d > 180 ? d - 360 : d;
+  }
+
+  static double normalize(double deg) {
+    double d = deg % 360.0;
+    return d < 0 ? d + 360.0 : d;
+  }
+
+  private static double wrapLng(double lng) {
+    double l = ((lng + 180.0) % 360.0 + 360.0) % 360.0 - 180.0;
+    return l == -180.0 && lng > 0 ? 180.0 : l;
+  }
+
+  // Haversine, meters
+  static double distance(double lat1, double lng1, double lat2, double lng2) {
+    double p1 = Math.toRadians(lat1), p2 = Math.toRadians(lat2);
+    double dp = p2 - p1, dl = Math.toRadians(lng2 - lng1);
+    double h = Math.sin(dp / 2) * Math.sin(dp / 2) + Math.cos(p1) * Math.cos(p2) * Math.sin(dl / 2) * Math.sin(dl / 2);
+    return 2 * EARTH_RADIUS * Math.asin(Math.min(1.0, Math.sqrt(h)));
+  }
+
+  // Initial bearing, degrees clockwise from north
+  static double bearing(double lat1, double lng1, double lat2, double lng2) {
+    double p1 = Math.toRadians(lat1), p2 = Math.toRadians(lat2), dl = Math.toRadians(lng2 - lng1);
+    double y = Math.sin(dl) * Math.cos(p2);
+    double x = Math.cos(p1) * Math.sin(p2) - Math.sin(p1) * Math.cos(p2) * Math.cos(dl);
+    return normalize(Math.toDegrees(Math.atan2(y, x)));
+  }
+}
@@ -0,0 +1,115 @@
+package com.example.google_maps_native_sdk;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Map objects owned by the view, indexed both ways.
+ *
+ * Ids map to objects in a hash map; the way back uses the object's own tag
+ * when it has one (markers, polylines, circles), otherwise a reverse hash
+ * map (tile overlays), so resolving a tapped object is constant time.
+ * Secondary objects drawn for an id (trail chunks, the traveled part of a
+ * route, a pulse ring) can be {@link #link linked} to it and resolve to the
+ * same id without being listed. Not thread-safe; used from the main thread.
+ */
+final class ObjectRegistry<T> {
+  /** Reads and writes the tag of an object type that carries one. */
+  interface Tags<T> {
+    void set(@NonNull T obj, @Nullable Object tag);
+
+    @Nullable Object get(@NonNull T obj);
+  }
+
+  private final HashMap<String, T> byId = new HashMap<>();
+  @Nullable private final Tags<T> tags;
+  @Nullable private final HashMap<T, String> byObject;
+
+  /** {@code tags} null keeps a reverse map instead, keyed by the object's equals/hashCode. */
+  ObjectRegistry(@Nullable Tags<T> tags) {
+    this.tags = tags;
+    this.byObject = tags == null ? new HashMap<>() : null;
+  }
+
+  /**
+   * Registers {@code obj} under {@code id} and returns the object it replaces. The replaced
+   * object keeps resolving to {@code id} until it is unlinked or removed.
+   */
+  @Nullable
+  T put(@NonNull String id, @NonNull T obj) {
+    T old = byId.put(id, obj);
+    link(id, obj);
+    return old;
+  }
+
+  @Nullable
+  T get(@Nullable String id) {
+    return id == null ? null : byId.get(id);
+  }
+
+  boolean containsKey(@Nullable String id) {
+    return id != null && byId.containsKey(id);
+  }
+
+  /** Unregisters {@code id} and returns its object, which no longer resolves to it. */
+  @Nullable
+  T remove(@Nullable String id) {
+    if (id == null) return null;
+    T old = byId.remove(id);
+    if (old != null) unlink(old);
+    return old;
+  }
+
+  /** Makes {@code obj} resolve to {@code id} without registering it under the id. */
+  void link(@NonNull String id, @NonNull T obj) {
+    if (tags != null) {
+      try { tags.set(obj, id); } catch (Throwable ignored) {}
+    } else {
+      byObject.put(obj, id);
+    }
+  }
+
+  void unlink(@NonNull T obj) {
+    if (tags != null) {
+      try { tags.set(obj, null); } catch (Throwable ignored) {}
+    } else {
+      byObject.remove(obj);
+    }
+  }
+
+  /** The id {@code obj} was registered or linked under, or null. */
+  @Nullable
+  String idOf(@Nullable T obj) {
+    if (obj == null) return null;
+    if (tags == null) return byObject.get(obj);
+    Object tag;
+    try { tag = tags.get(obj); } catch (Throwable t) { return null; }
+    return tag instanceof String ? (String) tag : null;
+  }
+
+  /** Unregisters everything; registered objects stop resolving (linked ones are left as they are). */
+  void clear() {
+    if (tags != null) {
+      for (T obj : byId.values()) unlink(obj);
+    } else {
+      byObject.clear();
+    }
+    byId.clear();
+  }
+
+  int size() { return byId.size(); }
+
+  boolean isEmpty() { return byId.isEmpty(); }
+
+  @NonNull Set<String> keySet() { return Collections.unmodifiableSet(byId.keySet()); }
+
+  @NonNull Collection<T> values() { return Collections.unmodifiableCollection(byId.values()); }
+
+  @NonNull Set<Map.Entry<String, T>> entrySet() { return Collections.unmodifiableSet(byId.entrySet()); }
+}
@@ -0,0 +1,551 @@
+package com.example.google_maps_native_sdk;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Offline region packs: a bounding box and zoom range of XYZ tiles downloaded
+ * into a single PMTiles archive ({@code <id>.pmtiles}) that
+ * {@code tiles#addLocal} can serve.
+ *
+ * Downloads run on a bounded worker pool per region. Tiles are appended to a
+ * staging data file and recorded in a fixed-size index ({@code <id>.data} /
+ * {@code <id>.idx}); on resume the index is replayed (a torn last record is
+ * dropped) so completed tiles are not fetched again. The archive is built once
+ * every tile is present and the staging files are then removed. Region state
+ * lives in {@code <id>.region} (java.util.Properties).
+ */
+final class OfflineRegionManager {
+  static final String STATUS_DOWNLOADING = "downloading";
+  static final String STATUS_PAUSED = "paused";
+  static final String STATUS_INCOMPLETE = "incomplete";
+  static final String STATUS_COMPLETE = "complete";
+  static final String STATUS_FAILED = "failed";
+
+  static final int DEFAULT_CONCURRENCY = 4;
+  static final int MAX_CONCURRENCY = 8;
+  static final long DEFAULT_MAX_TILES = 100_000L;
+  static final int MAX_ZOOM = 22;
+
+  private static final int RECORD_BYTES = 8 + 8 + 4; // tileId, offset, length
+  private static final int ATTEMPTS = 3;
+  private static final long PROGRESS_INTERVAL_MS = 250L;
+  private static final double MAX_LAT = 85.05112878;
+  private static final Pattern ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+  interface Listener {
+    /** Progress or state change; called on download threads. */
+    void onRegionChanged(@NonNull Map<String, Object> region);
+  }
+
+  static final class Region {
+    final String id;
+    final String name;
+    final String template;
+    final double minLat, minLng, maxLat, maxLng;
+    final int minZoom, maxZoom;
+    final long createdAt;
+    final long total;
+    volatile String status;
+    volatile long completed;
+    volatile long bytes;
+    volatile long failed;
+    volatile long archiveBytes;
+    @Nullable volatile String error;
+
+    Region(String id, String name, String template, double minLat, double minLng, double maxLat, double maxLng,
+           int minZoom, int maxZoom, long createdAt) {
+      this.id = id;
+      this.name = name;
+      this.template = template;
+      this.minLat = minLat;
+      this.minLng = minLng;
+      this.maxLat = maxLat;
+      this.maxLng = maxLng;
+      this.minZoom = minZoom;
+      this.maxZoom = maxZoom;
+      this.createdAt = createdAt;
+      this.total = countTiles(minLat, minLng, maxLat, maxLng, minZoom, maxZoom);
+    }
+  }
+
+  private final File dir;
+  private final long maxTiles;
+  @Nullable private final Listener listener;
+  private final Map<String, Region> regions = new LinkedHashMap<>();
+  private final Map<String, Job> jobs = new HashMap<>();
+  private final ExecutorService control = Executors.newCachedThreadPool(r -> {
+    Thread t = new Thread(r, "gmns-offline");
+    t.setDaemon(true);
+    return t;
+  });
+
+  OfflineRegionManager(@NonNull File dir, long maxTiles, @Nullable Listener listener) {
+    this.dir = dir;
+    this.maxTiles = maxTiles;
+    this.listener = listener;
+    //noinspection ResultOfMethodCallIgnored
+    dir.mkdirs();
+    load();
+  }
+
+  /** Registers a region and starts downloading it. */
+  @NonNull
+  synchronized Map<String, Object> create(@NonNull String id, @Nullable String name, @NonNull String template,
+                                          double minLat, double minLng, double maxLat, double maxLng,
+                                          int minZoom, int maxZoom, int concurrency) throws IOException {
+    if (!ID.matcher(id).matches()) throw new IllegalArgumentException("id must match [A-Za-z0-9_-]{1,64}");
+    if (regions.containsKey(id)) throw new IllegalArgumentException("region '" + id + "' already exists");
+    if (jobs.containsKey(id)) throw new IllegalStateException("region '" + id + "' is still being deleted");
+    if (!(minLat <= maxLat) || !(minLng <= maxLng)) throw new IllegalArgumentException("invalid bounds");
+    if (minZoom < 0 || maxZoom > MAX_ZOOM || minZoom > maxZoom) throw new IllegalArgumentException("invalid zoom range");
+    TileUrlTemplate.compile(template);
+    Region r = new Region(id, name != null ? name : id, template, minLat, minLng, maxLat, maxLng,
+        minZoom, maxZoom, System.currentTimeMillis());
+    if (r.total > maxTiles) throw new IllegalArgumentException("region has " + r.total + " tiles (limit " + maxTiles + ")");
+    r.status = STATUS_DOWNLOADING;
+    save(r);
+    regions.put(id, r);
+    start(r, concurrency);
+    return snapshot(r);
+  }
+
+  @NonNull
+  synchronized List<Map<String, Object>> list() {
+    List<Map<String, Object>> out = new ArrayList<>();
+    for (Region r : regions.values()) out.add(snapshot(r));
+    return out;
+  }
+
+  @Nullable
+  synchronized Map<String, Object> get(@NonNull String id) {
+    Region r = regions.get(id);
+    return r != null ? snapshot(r) : null;
+  }
+
+  /** Restarts an unfinished download; completed tiles are kept. False when unknown or already complete. */
+  synchronized boolean resume(@NonNull String id, int concurrency) {
+    Region r = regions.get(id);
+    if (r == null || STATUS_COMPLETE.equals(r.status)) return false;
+    Job running = jobs.get(id);
+    if (running != null) {
+      // Still winding down after pause(): start again once it stops
+      if (running.cancelled) running.restartConcurrency = concurrency;
+      return true;
+    }
+    start(r, concurrency);
+    return true;
+  }
+
+  /** Stops downloading after in-flight tiles; progress is kept for resume(). */
+  synchronized boolean pause(@NonNull String id) {
+    Job job = jobs.get(id);
+    if (job == null) return false;
+    job.restartConcurrency = 0;
+    job.cancelled = true;
+    return true;
+  }
+
+  /** Cancels any download and removes the region's files. */
+  synchronized boolean delete(@NonNull String id) {
+    Region r = regions.remove(id);
+    if (r == null) return false;
+    Job job = jobs.get(id);
+    if (job != null) {
+      // The job removes the files once its workers have stopped
+      job.deleted = true;
+      job.cancelled = true;
+      // Already past the download (state reported, job not yet retired): nothing writes them anymore
+      if (!STATUS_DOWNLOADING.equals(r.status)) deleteFiles(id);
+    } else {
+      deleteFiles(id);
+    }
+    return true;
+  }
+
+  @NonNull
+  File archiveFile(@NonNull String id) {
+    return new File(dir, id + ".pmtiles");
+  }
+
+  /** Pauses every running download (state stays resumable). */
+  synchronized void shutdown() {
+    for (Job job : jobs.values()) {
+      job.restartConcurrency = 0;
+      job.cancelled = true;
+    }
+    control.shutdown();
+  }
+
+  private void start(Region r, int concurrency) {
+    int n = Math.max(1, Math.min(MAX_CONCURRENCY, concurrency > 0 ? concurrency : DEFAULT_CONCURRENCY));
+    Job job = new Job(r, n);
+    jobs.put(r.id, job);
+    r.status = STATUS_DOWNLOADING;
+    r.error = null;
+    control.execute(job);
+  }
+
+  private synchronized void finished(Job job) {
+    jobs.remove(job.region.id, job);
+    if (job.deleted) {
+      deleteFiles(job.region.id);
+      return;
+    }
+    if (job.restartConcurrency > 0 && regions.get(job.region.id) == job.region) start(job.region, job.restartConcurrency);
+  }
+
+  private final class Job implements Runnable {
+    final Region region;
+    final int concurrency;
+    volatile boolean cancelled;
+    volatile boolean deleted;
+    volatile int restartConcurrency;
+    private final AtomicLong lastNotify = new AtomicLong();
+
+    Job(Region region, int concurrency) {
+      this.region = region;
+      this.concurrency = concurrency;
+    }
+
+    @Override
+    public void run() {
+      Region r = region;
+      Staging staging = null;
+      try {
+        staging = new Staging(new File(dir, r.id + ".data"), new File(dir, r.id + ".idx"));
+        r.completed = staging.records.size();
+        r.bytes = staging.payloadBytes;
+        r.failed = 0;
+        persist(true);
+        download(staging);
+        if (cancelled) {
+          r.status = STATUS_PAUSED;
+        } else if (r.failed > 0) {
+          r.status = STATUS_INCOMPLETE;
+        } else {
+          List<PmTilesWriter.Source> sources = new ArrayList<>(staging.records);
+          Collections.sort(sources, (a, b) -> Long.compare(a.tileId, b.tileId));
+          r.archiveBytes = PmTilesWriter.write(archiveFile(r.id), sources, staging.data, r.minZoom, r.maxZoom,
+              new double[]{r.minLng, r.minLat, r.maxLng, r.maxLat});
+          staging.close();
+          staging = null;
+          deleteStaging(r.id);
+          r.status = STATUS_COMPLETE;
+        }
+      } catch (Throwable t) {
+        r.status = STATUS_FAILED;
+        r.error = String.valueOf(t.getMessage());
+      } finally {
+        if (staging != null) staging.close();
+      }
+      if (!deleted) persist(true);
+      finished(this);
+    }
+
+    private void download(Staging staging) throws InterruptedException {
+      TileIterator it = new TileIterator(region);
+      TileUrlTemplate template = TileUrlTemplate.compile(region.template);
+      ExecutorService workers = Executors.newFixedThreadPool(concurrency, r -> {
+        Thread t = new Thread(r, "gmns-offline-dl");
+        t.setDaemon(true);
+        return t;
+      });
+      for (int i = 0; i < concurrency; i++) {
+        workers.execute(() -> {
+          int[] t;
+          while (!cancelled && (t = it.next()) != null) {
+            long tileId = PmTilesArchive.tileId(t[0], t[1], t[2]);
+            if (staging.has(tileId)) continue;
+            byte[] data = fetch(template.url(t[1], t[2], t[0]));
+            if (data == null) {
+              if (!cancelled) synchronized (region) { region.failed++; }
+              continue;
+            }
+            try {
+              staging.append(tileId, data);
+              synchronized (region) {
+                region.completed++;
+                region.bytes += data.length;
+              }
+            } catch (IOException e) {
+              synchronized (region) { region.failed++; }
+            }
+            persist(false);
+          }
+        });
+      }
+      workers.shutdown();
+      while (!workers.awaitTermination(1, TimeUnit.SECONDS)) {
+        // keep waiting; workers exit after their current tile once cancelled
+      }
+    }
+
+    @Nullable
+    private byte[] fetch(String url) {
+      for (int attempt = 0; attempt < ATTEMPTS && !cancelled; attempt++) {
+        try {
+          return TileHttp.download(url);
+        } catch (IOException e) {
+          try { Thread.sleep(200L << attempt); } catch (InterruptedException ie) { return null; }
+        }
+      }
+      return null;
+    }
+
+    // Throttled progress; state changes are always written and reported
+    private void persist(boolean force) {
+      long now = System.currentTimeMillis();
+      long last = lastNotify.get();
+      if (!force && (now - last < PROGRESS_INTERVAL_MS || !lastNotify.compareAndSet(last, now))) return;
+      lastNotify.set(now);
+      if (deleted) return;
+      if (force) {
+        try { save(region); } catch (IOException ignored) {}
+      }
+      if (listener != null) {
+        try { listener.onRegionChanged(snapshot(region)); } catch (Throwable ignored) {}
+      }
+    }
+  }
+
+  /** Append-only staging: tile bytes in a data file, fixed-size records in an index. */
+  static final class Staging {
+    final RandomAccessFile data;
+    private final OutputStream index;
+    final List<PmTilesWriter.Source> records = new ArrayList<>();
+    private final Set<Long> done = new HashSet<>();
+    long payloadBytes;
+
+    Staging(@NonNull File dataFile, @NonNull File indexFile) throws IOException {
+      data = new RandomAccessFile(dataFile, "rw");
+      long dataLen = data.length();
+      long validEnd = 0;
+      long validRecords = 0;
+      if (indexFile.exists()) {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(indexFile));
+             DataInputStream din = new DataInputStream(in)) {
+          long count = indexFile.length() / RECORD_BYTES;
+          for (long i = 0; i < count; i++) {
+            long tileId = din.readLong();
+            long offset = din.readLong();
+            int length = din.readInt();
+            // Records are appended after their bytes; stop at the first one that is not backed by data
+            if (offset != validEnd || length < 0 || offset + length > dataLen) break;
+            records.add(new PmTilesWriter.Source(tileId, offset, length));
+            done.add(tileId);
+            validEnd = offset + length;
+            payloadBytes += length;
+            validRecords++;
+          }
+        }
+      }
+      data.setLength(validEnd);
+      try (RandomAccessFile idx = new RandomAccessFile(indexFile, "rw")) {
+        idx.setLength(validRecords * RECORD_BYTES);
+      }
+      index = new FileOutputStream(indexFile, true);
+    }
+
+    synchronized boolean has(long tileId) {
+      return done.contains(tileId);
+    }
+
+    /** Appends a tile (empty = the source has no tile there). */
+    synchronized void append(long tileId, @NonNull byte[] bytes) throws IOException {
+      if (done.contains(tileId)) return;
+      long offset = data.length();
+      data.seek(offset);
+      data.write(bytes);
+      ByteBuffer rec = ByteBuffer.allocate(RECORD_BYTES);
+      rec.putLong(tileId).putLong(offset).putInt(bytes.length);
+      index.write(rec.array());
+      records.add(new PmTilesWriter.Source(tileId, offset, bytes.length));
+      done.add(tileId);
+      payloadBytes += bytes.length;
+    }
+
+    synchronized void close() {
+      try { data.getFD().sync(); } catch (Throwable ignored) {}
+      try { data.close(); } catch (Throwable ignored) {}
+      try { index.close(); } catch (Throwable ignored) {}
+    }
+  }
+
+  /** Walks z, then x, then y over the region's tile ranges. Thread-safe. */
+  static final class TileIterator {
+    private final Region r;
+    private int z;
+    private int x, x1, y, y0, y1;
+
+    TileIterator(@NonNull Region r) {
+      this.r = r;
+      this.z = r.minZoom - 1;
+      this.x = 0;
+      this.x1 = -1;
+    }
+
+    /** {z, x, y} or null when exhausted. */
+    @Nullable
+    synchronized int[] next() {
+      while (true) {
+        if (x <= x1 && y <= y1) {
+          int[] t = {z, x, y};
+          if (++y > y1) {
+            y = y0;
+            x++;
+          }
+          return t;
+        }
+        if (++z > r.maxZoom) return null;
+        x = lngToX(r.minLng, z);
+        x1 = lngToX(r.maxLng, z);
+        y0 = latToY(r.maxLat, z);
+        y1 = latToY(r.minLat, z);
+        y = y0;
+      }
+    }
+  }
+
+  static long countTiles(double minLat, double minLng, double maxLat, double maxLng, int minZoom, int maxZoom) {
+    long total = 0;
+    for (int z = minZoom; z <= maxZoom; z++) {
+      long w = lngToX(maxLng, z) - lngToX(minLng, z) + 1L;
+      long h = latToY(minLat, z) - latToY(maxLat, z) + 1L;
+      total += w * h;
+    }
+    return total;
+  }
+
+  static int lngToX(double lng, int z) {
+    int n = 1 << z;
+    int x = (int) Math.floor((lng + 180.0) / 360.0 * n);
+    return Math.max(0, Math.min(n - 1, x));
+  }
+
+  static int latToY(double lat, int z) {
+    int n = 1 << z;
+    double rad = Math.toRadians(Math.max(-MAX_LAT, Math.min(MAX_LAT, lat)));
+    int y = (int) Math.floor((1.0 - Math.log(Math.tan(rad) + 1.0 / Math.cos(rad)) / Math.PI) / 2.0 * n);
+    return Math.max(0, Math.min(n - 1, y));
+  }
+
+  @NonNull
+  private Map<String, Object> snapshot(Region r) {
+    Map<String, Object> m = new HashMap<>();
+    m.put("id", r.id);
+    m.put("name", r.name);
+    m.put("template", r.template);
+    m.put("minLat", r.minLat);
+    m.put("minLng", r.minLng);
+    m.put("maxLat", r.maxLat);
+    m.put("maxLng", r.maxLng);
+    m.put("minZoom", r.minZoom);
+    m.put("maxZoom", r.maxZoom);
+    m.put("createdAt", r.createdAt);
+    m.put("status", r.status);
+    m.put("total", r.total);
+    m.put("completed", r.completed);
+    m.put("bytes", r.bytes);
+    m.put("failed", r.failed);
+    m.put("archiveBytes", r.archiveBytes);
+    if (r.error != null) m.put("error", r.error);
+    if (STATUS_COMPLETE.equals(r.status)) m.put("path", archiveFile(r.id).getAbsolutePath());
+    return m;
+  }
+
+  private void save(Region r) throws IOException {
+    Properties p = new Properties();
+    p.setProperty("id", r.id);
+    p.setProperty("name", r.name);
+    p.setProperty("template", r.template);
+    p.setProperty("minLat", Double.toString(r.minLat));
+    p.setProperty("minLng", Double.toString(r.minLng));
+    p.setProperty("maxLat", Double.toString(r.maxLat));
+    p.setProperty("maxLng", Double.toString(r.maxLng));
+    p.setProperty("minZoom", Integer.toString(r.minZoom));
+    p.setProperty("maxZoom", Integer.toString(r.maxZoom));
+    p.setProperty("createdAt", Long.toString(r.createdAt));
+    p.setProperty("status", r.status);
+    p.setProperty("completed", Long.toString(r.completed));
+    p.setProperty("bytes", Long.toString(r.bytes));
+    p.setProperty("failed", Long.toString(r.failed));
+    p.setProperty("archiveBytes", Long.toString(r.archiveBytes));
+    if (r.error != null) p.setProperty("error", r.error);
+    File tmp = new File(dir, r.id + ".region.tmp");
+    try (FileOutputStream os = new FileOutputStream(tmp)) {
+      p.store(os, null);
+      os.getFD().sync();
+    }
+    if (!tmp.renameTo(new File(dir, r.id + ".region"))) throw new IOException("could not save region " + r.id);
+  }
+
+  private void load() {
+    File[] files = dir.listFiles((d, name) -> name.endsWith(".region"));
+    if (files == null) return;
+    List<Region> loaded = new ArrayList<>();
+    for (File f : files) {
+      Properties p = new Properties();
+      try (InputStream in = new FileInputStream(f)) {
+        p.load(in);
+        Region r = new Region(p.getProperty("id"), p.getProperty("name"), p.getProperty("template"),
+            Double.parseDouble(p.getProperty("minLat")), Double.parseDouble(p.getProperty("minLng")),
+            Double.parseDouble(p.getProperty("maxLat")), Double.parseDouble(p.getProperty("maxLng")),
+            Integer.parseInt(p.getProperty("minZoom")), Integer.parseInt(p.getProperty("maxZoom")),
+            Long.parseLong(p.getProperty("createdAt", "0")));
+        r.status = p.getProperty("status", STATUS_PAUSED);
+        // A download interrupted by process death resumes explicitly
+        if (STATUS_DOWNLOADING.equals(r.status)) r.status = STATUS_PAUSED;
+        r.completed = Long.parseLong(p.getProperty("completed", "0"));
+        r.bytes = Long.parseLong(p.getProperty("bytes", "0"));
+        r.failed = Long.parseLong(p.getProperty("failed", "0"));
+        r.archiveBytes = Long.parseLong(p.getProperty("archiveBytes", "0"));
+        r.error = p.getProperty("error");
+        if (STATUS_COMPLETE.equals(r.status) && !archiveFile(r.id).exists()) r.status = STATUS_INCOMPLETE;
+        loaded.add(r);
+      } catch (Throwable ignored) {}
+    }
+    Collections.sort(loaded, (a, b) -> Long.compare(a.createdAt, b.createdAt));
+    for (Region r : loaded) regions.put(r.id, r);
+  }
+
+  private void deleteStaging(String id) {
+    //noinspection ResultOfMethodCallIgnored
+    new File(dir, id + ".data").delete();
+    //noinspection ResultOfMethodCallIgnored
+    new File(dir, id + ".idx").delete();
+  }
+
+  private void deleteFiles(String id) {
+    deleteStaging(id);
+    //noinspection ResultOfMethodCallIgnored
+    archiveFile(id).delete();
+    //noinspection ResultOfMethodCallIgnored
+    new File(dir, id + ".region").delete();
+  }
+}
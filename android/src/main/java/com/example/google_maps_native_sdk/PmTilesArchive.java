@@ -0,0 +1,262 @@
+package com.example.google_maps_native_sdk;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Read-only PMTiles v3 archive served from a memory-mapped file.
+ *
+ * The root directory is decoded once at open; leaf directories are decoded on
+ * first use and kept in a small LRU. A lookup is a binary search over the
+ * directory's tile ids (Hilbert order), and tile bytes are copied straight out
+ * of the mapping, so no per-tile file opens or seeks happen.
+ */
+final class PmTilesArchive {
+  static final int HEADER_BYTES = 127;
+
+  static final int COMPRESSION_NONE = 1;
+  static final int COMPRESSION_GZIP = 2;
+
+  static final int TILE_TYPE_MVT = 1;
+  static final int TILE_TYPE_PNG = 2;
+  static final int TILE_TYPE_JPEG = 3;
+  static final int TILE_TYPE_WEBP = 4;
+  static final int TILE_TYPE_AVIF = 5;
+
+  private static final long SEGMENT_BYTES = 1L << 30;
+  private static final int LEAF_CACHE_ENTRIES = 64;
+
+  /** Decoded directory: parallel arrays sorted by tile id. */
+  static final class Directory {
+    final long[] tileIds;
+    final int[] runLengths;
+    final long[] offsets;
+    final int[] lengths;
+
+    Directory(long[] tileIds, int[] runLengths, long[] offsets, int[] lengths) {
+      this.tileIds = tileIds;
+      this.runLengths = runLengths;
+      this.offsets = offsets;
+      this.lengths = lengths;
+    }
+
+    int size() { return tileIds.length; }
+
+    /** Index of the last entry with tileId <= id, or -1. */
+    int find(long id) {
+      int i = Arrays.binarySearch(tileIds, id);
+      return i >= 0 ? i : -i - 2;
+    }
+  }
+
+  private final MappedByteBuffer[] segments;
+  private final long fileLength;
+  final int internalCompression;
+  final int tileCompression;
+  final int tileType;
+  final int minZoom;
+  final int maxZoom;
+  final double minLon;
+  final double minLat;
+  final double maxLon;
+  final double maxLat;
+  private final long leafDirsOffset;
+  private final long tileDataOffset;
+  private final Directory root;
+  private final Map<Long, Directory> leaves = new LinkedHashMap<Long, Directory>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Long, Directory> eldest) {
+      return size() > LEAF_CACHE_ENTRIES;
+    }
+  };
+
+  private PmTilesArchive(MappedByteBuffer[] segments, long fileLength) throws IOException {
+    this.segments = segments;
+    this.fileLength = fileLength;
+    if (fileLength < HEADER_BYTES) throw new IOException("not a PMTiles archive (too short)");
+    ByteBuffer h = ByteBuffer.wrap(read(0, HEADER_BYTES)).order(ByteOrder.LITTLE_ENDIAN);
+    byte[] magic = new byte[7];
+    h.get(magic);
+    if (!"PMTiles".equals(new String(magic, StandardCharsets.US_ASCII))) throw new IOException("not a PMTiles archive");
+    int version = h.get(7) & 0xff;
+    if (version != 3) throw new IOException("unsupported PMTiles version " + version);
+    long rootOffset = h.getLong(8);
+    long rootLength = h.getLong(16);
+    this.leafDirsOffset = h.getLong(40);
+    this.tileDataOffset = h.getLong(56);
+    this.internalCompression = h.get(97) & 0xff;
+    this.tileCompression = h.get(98) & 0xff;
+    this.tileType = h.get(99) & 0xff;
+    this.minZoom = h.get(100) & 0xff;
+    this.maxZoom = h.get(101) & 0xff;
+    this.minLon = h.getInt(102) / 1e7;
+    this.minLat = h.getInt(106) / 1e7;
+    this.maxLon = h.getInt(110) / 1e7;
+    this.maxLat = h.getInt(114) / 1e7;
+    this.root = decodeDirectory(decompress(read(rootOffset, (int) rootLength), internalCompression));
+  }
+
+  /** Maps {@code file} read-only and decodes the header and root directory. */
+  @NonNull
+  static PmTilesArchive open(@NonNull File file) throws IOException {
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel ch = raf.getChannel()) {
+      long len = ch.size();
+      int count = (int) ((len + SEGMENT_BYTES - 1) / SEGMENT_BYTES);
+      MappedByteBuffer[] segs = new MappedByteBuffer[Math.max(1, count)];
+      for (int i = 0; i < count; i++) {
+        long start = i * SEGMENT_BYTES;
+        segs[i] = ch.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_BYTES, len - start));
+      }
+      if (count == 0) segs[0] = ch.map(FileChannel.MapMode.READ_ONLY, 0, 0);
+      // The mapping stays valid after the channel is closed
+      return new PmTilesArchive(segs, len);
+    }
+  }
+
+  /** Raster tiles only; vector (MVT) tiles cannot be drawn by a TileProvider. */
+  boolean isRaster() {
+    return tileType == TILE_TYPE_PNG || tileType == TILE_TYPE_JPEG || tileType == TILE_TYPE_WEBP || tileType == TILE_TYPE_AVIF;
+  }
+
+  /** Tile bytes (decompressed), or null when the archive has no such tile. */
+  @Nullable
+  byte[] getTile(int z, int x, int y) throws IOException {
+    if (z < minZoom || z > maxZoom) return null;
+    long id = tileId(z, x, y);
+    Directory dir = root;
+    long dirOffset = -1;
+    for (int depth = 0; depth < 4; depth++) {
+      int i = dir.find(id);
+      if (i < 0) return null;
+      int run = dir.runLengths[i];
+      if (run == 0) {
+        // Leaf directory pointer
+        dirOffset = leafDirsOffset + dir.offsets[i];
+        dir = leaf(dirOffset, dir.lengths[i]);
+        continue;
+      }
+      if (id >= dir.tileIds[i] + run) return null;
+      byte[] data = read(tileDataOffset + dir.offsets[i], dir.lengths[i]);
+      return tileCompression == COMPRESSION_GZIP ? decompress(data, COMPRESSION_GZIP) : data;
+    }
+    return null;
+  }
+
+  private Directory leaf(long offset, int length) throws IOException {
+    synchronized (leaves) {
+      Directory d = leaves.get(offset);
+      if (d != null) return d;
+    }
+    Directory d = decodeDirectory(decompress(read(offset, length), internalCompression));
+    synchronized (leaves) {
+      leaves.put(offset, d);
+    }
+    return d;
+  }
+
+  // Copies [offset, offset + length) out of the mapping (may span two segments)
+  @NonNull
+  private byte[] read(long offset, int length) throws IOException {
+    if (offset < 0 || length < 0 || offset + length > fileLength) throw new IOException("range outside archive");
+    byte[] out = new byte[length];
+    int done = 0;
+    while (done < length) {
+      long pos = offset + done;
+      int seg = (int) (pos / SEGMENT_BYTES);
+      int segPos = (int) (pos % SEGMENT_BYTES);
+      ByteBuffer b = segments[seg].duplicate();
+      b.position(segPos);
+      int n = Math.min(length - done, b.remaining());
+      b.get(out, done, n);
+      done += n;
+    }
+    return out;
+  }
+
+  @NonNull
+  static byte[] decompress(@NonNull byte[] data, int compression) throws IOException {
+    if (compression == COMPRESSION_NONE || compression == 0) return data;
+    if (compression != COMPRESSION_GZIP) throw new IOException("unsupported PMTiles compression " + compression);
+    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+      ByteArrayOutputStream bos = new ByteArrayOutputStream(data.length * 4);
+      byte[] buf = new byte[16 * 1024];
+      int n;
+      while ((n = in.read(buf)) != -1) bos.write(buf, 0, n);
+      return bos.toByteArray();
+    }
+  }
+
+  /** Decodes a v3 directory: count, delta tile ids, run lengths, lengths, offsets (0 = contiguous). */
+  @NonNull
+  static Directory decodeDirectory(@NonNull byte[] data) throws IOException {
+    int[] pos = {0};
+    int n = (int) readVarint(data, pos);
+    long[] ids = new long[n];
+    int[] runs = new int[n];
+    long[] offsets = new long[n];
+    int[] lengths = new int[n];
+    long last = 0;
+    for (int i = 0; i < n; i++) {
+      last += readVarint(data, pos);
+      ids[i] = last;
+    }
+    for (int i = 0; i < n; i++) runs[i] = (int) readVarint(data, pos);
+    for (int i = 0; i < n; i++) lengths[i] = (int) readVarint(data, pos);
+    for (int i = 0; i < n; i++) {
+      long v = readVarint(data, pos);
+      offsets[i] = (v == 0 && i > 0) ? offsets[i - 1] + lengths[i - 1] : v - 1;
+    }
+    return new Directory(ids, runs, offsets, lengths);
+  }
+
+  private static long readVarint(byte[] data, int[] pos) throws IOException {
+    long value = 0;
+    int shift = 0;
+    while (true) {
+      if (pos[0] >= data.length) throw new IOException("truncated PMTiles directory");
+      int b = data[pos[0]++] & 0xff;
+      value |= (long) (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) return value;
+      shift += 7;
+      if (shift > 63) throw new IOException("bad varint");
+    }
+  }
+
+  /** PMTiles tile id: tiles of all lower zooms, then the Hilbert index within zoom z. */
+  static long tileId(int z, int x, int y) {
+    long acc = ((1L << (2 * z)) - 1) / 3;
+    long d = 0;
+    long tx = x, ty = y;
+    for (long s = (1L << z) / 2; s > 0; s /= 2) {
+      int rx = (tx & s) > 0 ? 1 : 0;
+      int ry = (ty & s) > 0 ? 1 : 0;
+      d += s * s * ((3L * rx) ^ ry);
+      if (ry == 0) {
+        if (rx == 1) {
+          tx = s - 1 - tx;
+          ty = s - 1 - ty;
+        }
+        long t = tx;
+        tx = ty;
+        ty = t;
+      }
+    }
+    return acc + d;
+  }
+}
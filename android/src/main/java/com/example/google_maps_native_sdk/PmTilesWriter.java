@@ -0,0 +1,244 @@
+package com.example.google_maps_native_sdk;
+
+import androidx.annotation.NonNull;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Builds a PMTiles v3 archive (readable by {@link PmTilesArchive}) from tiles
+ * staged in a flat data file.
+ *
+ * Identical tiles are stored once: consecutive ids with the same content
+ * collapse into one run-length entry and repeated content elsewhere points at
+ * the first copy. Directories are gzip-compressed; when the root would not fit
+ * the 16 KiB header budget the entries are split into leaf directories.
+ */
+final class PmTilesWriter {
+  private static final int ROOT_BUDGET_BYTES = 16384 - PmTilesArchive.HEADER_BYTES;
+  private static final int FIRST_LEAF_SIZE = 4096;
+
+  /** A staged tile: {@code length} bytes at {@code offset} in the staging file. */
+  static final class Source {
+    final long tileId;
+    final long offset;
+    final int length;
+
+    Source(long tileId, long offset, int length) {
+      this.tileId = tileId;
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+
+  private static final class Entry {
+    final long tileId;
+    final long offset;
+    final int length;
+    int runLength;
+
+    Entry(long tileId, long offset, int length, int runLength) {
+      this.tileId = tileId;
+      this.offset = offset;
+      this.length = length;
+      this.runLength = runLength;
+    }
+  }
+
+  private PmTilesWriter() {}
+
+  /**
+   * Writes {@code out} (via a temp file and rename). {@code sources} must be sorted by tile id;
+   * empty sources are skipped. Bounds are {minLng, minLat, maxLng, maxLat}. Returns the archive size.
+   */
+  static long write(@NonNull File out, @NonNull List<Source> sources, @NonNull RandomAccessFile data,
+                    int minZoom, int maxZoom, @NonNull double[] bounds) throws IOException {
+    // Pass 1: dedupe by content and assign offsets in the output tile section
+    List<Entry> entries = new ArrayList<>();
+    List<Source> unique = new ArrayList<>();
+    Map<String, Long> seen = new HashMap<>();
+    long tileBytes = 0;
+    long addressed = 0;
+    int tileType = 0;
+    Entry last = null;
+    String lastHash = null;
+    for (Source s : sources) {
+      if (s.length <= 0) continue;
+      byte[] b = read(data, s.offset, s.length);
+      if (tileType == 0) tileType = sniffTileType(b);
+      String hash = hash(b);
+      addressed++;
+      if (last != null && hash.equals(lastHash) && s.tileId == last.tileId + last.runLength) {
+        last.runLength++;
+        continue;
+      }
+      Long prior = seen.get(hash);
+      long offset;
+      if (prior != null) {
+        offset = prior;
+      } else {
+        offset = tileBytes;
+        seen.put(hash, offset);
+        unique.add(s);
+        tileBytes += s.length;
+      }
+      last = new Entry(s.tileId, offset, s.length, 1);
+      entries.add(last);
+      lastHash = hash;
+    }
+
+    // Directories: a single root when it fits, otherwise root -> leaves
+    byte[] root = gzip(serialize(entries));
+    byte[] leaves = new byte[0];
+    if (root.length > ROOT_BUDGET_BYTES) {
+      for (int leafSize = FIRST_LEAF_SIZE; ; leafSize *= 2) {
+        ByteArrayOutputStream leafOut = new ByteArrayOutputStream();
+        List<Entry> pointers = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i += leafSize) {
+          List<Entry> chunk = entries.subList(i, Math.min(entries.size(), i + leafSize));
+          byte[] leaf = gzip(serialize(chunk));
+          pointers.add(new Entry(chunk.get(0).tileId, leafOut.size(), leaf.length, 0));
+          leafOut.write(leaf);
+        }
+        root = gzip(serialize(pointers));
+        if (root.length <= ROOT_BUDGET_BYTES) {
+          leaves = leafOut.toByteArray();
+          break;
+        }
+      }
+    }
+    byte[] metadata = gzip("{\"generator\":\"google_maps_native_sdk\"}".getBytes(StandardCharsets.UTF_8));
+
+    long rootOffset = PmTilesArchive.HEADER_BYTES;
+    long metadataOffset = rootOffset + root.length;
+    long leafOffset = metadataOffset + metadata.length;
+    long dataOffset = leafOffset + leaves.length;
+
+    ByteBuffer h = ByteBuffer.allocate(PmTilesArchive.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    h.put("PMTiles".getBytes(StandardCharsets.US_ASCII));
+    h.put((byte) 3);
+    h.putLong(rootOffset).putLong(root.length);
+    h.putLong(metadataOffset).putLong(metadata.length);
+    h.putLong(leafOffset).putLong(leaves.length);
+    h.putLong(dataOffset).putLong(tileBytes);
+    h.putLong(addressed).putLong(entries.size()).putLong(unique.size());
+    h.put((byte) 1); // clustered: tile data follows tile id order
+    h.put((byte) PmTilesArchive.COMPRESSION_GZIP);
+    h.put((byte) PmTilesArchive.COMPRESSION_NONE);
+    h.put((byte) tileType);
+    h.put((byte) minZoom).put((byte) maxZoom);
+    h.putInt(e7(bounds[0])).putInt(e7(bounds[1])).putInt(e7(bounds[2])).putInt(e7(bounds[3]));
+    h.put((byte) minZoom);
+    h.putInt(e7((bounds[0] + bounds[2]) / 2)).putInt(e7((bounds[1] + bounds[3]) / 2));
+
+    File tmp = new File(out.getPath() + ".tmp");
+    try (FileOutputStream fos = new FileOutputStream(tmp)) {
+      OutputStream os = new BufferedOutputStream(fos, 64 * 1024);
+      os.write(h.array());
+      os.write(root);
+      os.write(metadata);
+      os.write(leaves);
+      // Pass 2: copy unique tile contents in offset order
+      for (Source s : unique) os.write(read(data, s.offset, s.length));
+      os.flush();
+      fos.getFD().sync();
+    } catch (IOException e) {
+      //noinspection ResultOfMethodCallIgnored
+      tmp.delete();
+      throw e;
+    }
+    if (!tmp.renameTo(out)) {
+      //noinspection ResultOfMethodCallIgnored
+      tmp.delete();
+      throw new IOException("could not move archive into place");
+    }
+    return out.length();
+  }
+
+  // Inverse of PmTilesArchive.decodeDirectory
+  private static byte[] serialize(List<Entry> entries) {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream(entries.size() * 8 + 8);
+    writeVarint(bos, entries.size());
+    long lastId = 0;
+    for (Entry e : entries) {
+      writeVarint(bos, e.tileId - lastId);
+      lastId = e.tileId;
+    }
+    for (Entry e : entries) writeVarint(bos, e.runLength);
+    for (Entry e : entries) writeVarint(bos, e.length);
+    for (int i = 0; i < entries.size(); i++) {
+      Entry e = entries.get(i);
+      if (i > 0) {
+        Entry p = entries.get(i - 1);
+        if (e.offset == p.offset + p.length) {
+          writeVarint(bos, 0);
+          continue;
+        }
+      }
+      writeVarint(bos, e.offset + 1);
+    }
+    return bos.toByteArray();
+  }
+
+  private static void writeVarint(ByteArrayOutputStream bos, long v) {
+    while ((v & ~0x7fL) != 0) {
+      bos.write((int) ((v & 0x7f) | 0x80));
+      v >>>= 7;
+    }
+    bos.write((int) v);
+  }
+
+  private static byte[] gzip(byte[] data) throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream(data.length / 2 + 32);
+    try (GZIPOutputStream gz = new GZIPOutputStream(bos)) {
+      gz.write(data);
+    }
+    return bos.toByteArray();
+  }
+
+  private static byte[] read(RandomAccessFile data, long offset, int length) throws IOException {
+    byte[] b = new byte[length];
+    data.seek(offset);
+    data.readFully(b);
+    return b;
+  }
+
+  private static String hash(byte[] b) throws IOException {
+    try {
+      byte[] d = MessageDigest.getInstance("SHA-1").digest(b);
+      StringBuilder sb = new StringBuilder(d.length * 2);
+      for (byte x : d) sb.append(String.format("%02x", x));
+      return sb.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+  }
+
+  /** PMTiles tile type from the image signature; 0 (unknown) otherwise. */
+  static int sniffTileType(@NonNull byte[] b) {
+    if (b.length >= 4 && (b[0] & 0xff) == 0x89 && b[1] == 'P' && b[2] == 'N' && b[3] == 'G') return PmTilesArchive.TILE_TYPE_PNG;
+    if (b.length >= 2 && (b[0] & 0xff) == 0xff && (b[1] & 0xff) == 0xd8) return PmTilesArchive.TILE_TYPE_JPEG;
+    if (b.length >= 12 && b[0] == 'R' && b[1] == 'I' && b[2] == 'F' && b[3] == 'F'
+        && b[8] == 'W' && b[9] == 'E' && b[10] == 'B' && b[11] == 'P') return PmTilesArchive.TILE_TYPE_WEBP;
+    return 0;
+  }
+
+  private static int e7(double deg) {
+    return (int) Math.round(deg * 1e7);
+  }
+}
@@ -0,0 +1,187 @@
+package com.example.google_maps_native_sdk;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Zoom-dependent level of detail for a large polyline.
+ *
+ * A single Douglas-Peucker pass over the Web Mercator projection assigns every
+ * vertex a significance (the largest tolerance at which it is still kept). The
+ * vertex set for an integer zoom band is then a threshold on that value, built
+ * lazily once per band and reused. Optionally, vertices inside the visible
+ * region (plus a margin) are always kept so the on-screen part stays at full
+ * resolution.
+ */
+final class PolylineLod {
+  /** From this zoom on the full geometry is drawn. */
+  static final int FULL_DETAIL_ZOOM = 18;
+
+  private final CoordBuffer path;
+  private final int first;
+  private final int n;
+  private final double[] xs;
+  private final double[] ys;
+  private final float[] significance;
+  private final int[][] bands = new int[FULL_DETAIL_ZOOM][];
+  private final double tolerancePx;
+  private final boolean keepVisibleDetail;
+
+  private int renderedBand = -1;
+  @Nullable private LatLngBounds renderedBounds;
+
+  PolylineLod(@NonNull CoordBuffer path, double tolerancePx, boolean keepVisibleDetail) {
+    this.path = path;
+    this.first = path.firstIndex();
+    this.n = path.size();
+    this.tolerancePx = tolerancePx > 0 ? tolerancePx : 1.0;
+    this.keepVisibleDetail = keepVisibleDetail;
+    this.xs = new double[n];
+    this.ys = new double[n];
+    for (int i = 0; i < n; i++) {
+      xs[i] = mercatorX(path.lng(first + i));
+      ys[i] = mercatorY(path.lat(first + i));
+    }
+    this.significance = computeSignificance(xs, ys);
+  }
+
+  /** Same settings over new geometry. */
+  @NonNull
+  PolylineLod rebuild(@NonNull CoordBuffer path) {
+    return new PolylineLod(path, tolerancePx, keepVisibleDetail);
+  }
+
+  /**
+   * Returns the points to draw for the camera, or null when the current
+   * rendering is still valid.
+   */
+  @Nullable
+  List<LatLng> pointsFor(float zoom, @Nullable LatLngBounds visible) {
+    int band = Math.max(0, Math.min(FULL_DETAIL_ZOOM, (int) Math.floor(zoom)));
+    boolean useVisible = keepVisibleDetail && visible != null && band < FULL_DETAIL_ZOOM
+        && visible.southwest.longitude <= visible.northeast.longitude;
+    if (band == renderedBand && (!useVisible || sameBounds(visible, renderedBounds))) return null;
+    renderedBand = band;
+    renderedBounds = useVisible ? visible : null;
+
+    if (band >= FULL_DETAIL_ZOOM) return path.toLatLngs(first, first + n);
+    if (!useVisible) return toLatLngs(band(band));
+
+    // Band vertices plus every vertex whose neighbourhood touches the expanded viewport
+    double minX = mercatorX(visible.southwest.longitude), maxX = mercatorX(visible.northeast.longitude);
+    double minY = mercatorY(visible.northeast.latitude), maxY = mercatorY(visible.southwest.latitude);
+    double mx = (maxX - minX) * 0.25, my = (maxY - minY) * 0.25;
+    minX -= mx; maxX += mx; minY -= my; maxY += my;
+    double tol = toleranceAt(band);
+    List<LatLng> out = new ArrayList<>();
+    boolean prevIn = false;
+    boolean curIn = n > 0 && inside(0, minX, maxX, minY, maxY);
+    for (int i = 0; i < n; i++) {
+      boolean nextIn = i + 1 < n && inside(i + 1, minX, maxX, minY, maxY);
+      if (significance[i] > tol || prevIn || curIn || nextIn) {
+        out.add(new LatLng(path.lat(first + i), path.lng(first + i)));
+      }
+      prevIn = curIn;
+      curIn = nextIn;
+    }
+    return out;
+  }
+
+  private boolean inside(int i, double minX, double maxX, double minY, double maxY) {
+    return xs[i] >= minX && xs[i] <= maxX && ys[i] >= minY && ys[i] <= maxY;
+  }
+
+  @NonNull
+  private int[] band(int z) {
+    int[] idx = bands[z];
+    if (idx != null) return idx;
+    double tol = toleranceAt(z);
+    int count = 0;
+    for (int i = 0; i < n; i++) if (significance[i] > tol) count++;
+    idx = new int[count];
+    int k = 0;
+    for (int i = 0; i < n; i++) if (significance[i] > tol) idx[k++] = i;
+    bands[z] = idx;
+    return idx;
+  }
+
+  @NonNull
+  private List<LatLng> toLatLngs(@NonNull int[] idx) {
+    List<LatLng> out = new ArrayList<>(idx.length);
+    for (int i : idx) out.add(new LatLng(path.lat(first + i), path.lng(first + i)));
+    return out;
+  }
+
+  // Tolerance in normalized mercator units (world = 1.0) for one screen pixel at zoom z
+  private double toleranceAt(int z) {
+    return tolerancePx / (256.0 * Math.pow(2, z));
+  }
+
+  private static boolean sameBounds(@Nullable LatLngBounds a, @Nullable LatLngBounds b) {
+    if (a == null || b == null) return a == b;
+    return a.southwest.latitude == b.southwest.latitude && a.southwest.longitude == b.southwest.longitude
+        && a.northeast.latitude == b.northeast.latitude && a.northeast.longitude == b.northeast.longitude;
+  }
+
+  // Iterative Douglas-Peucker with tolerance 0: each split vertex records its distance,
+  // clamped by its parent's so significance never increases down the tree.
+  @NonNull
+  private static float[] computeSignificance(@NonNull double[] xs, @NonNull double[] ys) {
+    int n = xs.length;
+    float[] sig = new float[n];
+    if (n == 0) return sig;
+    sig[0] = Float.MAX_VALUE;
+    sig[n - 1] = Float.MAX_VALUE;
+    if (n < 3) return sig;
+    int[] stackFirst = new int[64];
+    int[] stackLast = new int[64];
+    float[] stackSig = new float[64];
+    int sp = 0;
+    stackFirst[sp] = 0; stackLast[sp] = n - 1; stackSig[sp] = Float.MAX_VALUE; sp++;
+    while (sp > 0) {
+      sp--;
+      int f = stackFirst[sp], l = stackLast[sp];
+      float parent = stackSig[sp];
+      if (l - f < 2) continue;
+      double maxD = -1;
+      int k = -1;
+      for (int i = f + 1; i < l; i++) {
+        double d = segmentDistance(xs[i], ys[i], xs[f], ys[f], xs[l], ys[l]);
+        if (d > maxD) { maxD = d; k = i; }
+      }
+      float s = (float) Math.min(maxD, parent);
+      sig[k] = s;
+      if (sp + 2 > stackFirst.length) {
+        int cap = stackFirst.length * 2;
+        stackFirst = java.util.Arrays.copyOf(stackFirst, cap);
+        stackLast = java.util.Arrays.copyOf(stackLast, cap);
+        stackSig = java.util.Arrays.copyOf(stackSig, cap);
+      }
+      stackFirst[sp] = f; stackLast[sp] = k; stackSig[sp] = s; sp++;
+      stackFirst[sp] = k; stackLast[sp] = l; stackSig[sp] = s; sp++;
+    }
+    return sig;
+  }
+
+  private static double segmentDistance(double px, double py, double ax, double ay, double bx, double by) {
+    double dx = bx - ax, dy = by - ay;
+    double len2 = dx * dx + dy * dy;
+    double t = len2 > 0 ? ((px - ax) * dx + (py - ay) * dy) / len2 : 0;
+    t = Math.max(0, Math.min(1, t));
+    double cx = ax + t * dx - px, cy = ay + t * dy - py;
+    return Math.sqrt(cx * cx + cy * cy);
+  }
+
+  static double mercatorX(double lng) { return (lng + 180.0) / 360.0; }
+
+  static double mercatorY(double lat) {
+    double s = Math.sin(Math.toRadians(Math.max(-85.05112878, Math.min(85.05112878, lat))));
+    return 0.5 - Math.log((1 + s) / (1 - s)) / (4 * Math.PI);
+  }
+}
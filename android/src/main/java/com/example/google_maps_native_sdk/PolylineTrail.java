@@ -0,0 +1,112 @@
+package com.example.google_maps_native_sdk;
+
+import androidx.annotation.NonNull;
+
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.Polyline;
+import com.google.android.gms.maps.model.PolylineOptions;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Renders a growing polyline (breadcrumb trail, route progress) as a chain of
+ * fixed-size chunks so appends and prefix trims cost the same on long trips.
+ *
+ * Only the live (last) chunk is rewritten on append; full chunks are sealed and
+ * left untouched until a trim drops them. Neighbouring chunks share their
+ * boundary point so the line stays continuous.
+ */
+final class PolylineTrail {
+  static final int CHUNK_POINTS = 256;
+
+  private static final class Chunk {
+    final Polyline line;
+    int start;     // absolute index of the first point
+    final int end; // absolute index one past the last point
+
+    Chunk(Polyline line, int start, int end) {
+      this.line = line;
+      this.start = start;
+      this.end = end;
+    }
+  }
+
+  private final GoogleMap map;
+  private final CoordBuffer path;
+  private final ArrayDeque<Chunk> sealed = new ArrayDeque<>();
+  private Polyline live;
+  private int liveStart;
+
+  PolylineTrail(@NonNull GoogleMap map, @NonNull CoordBuffer path, @NonNull Polyline live) {
+    this.map = map;
+    this.path = path;
+    this.live = live;
+    this.liveStart = path.firstIndex();
+  }
+
+  /** The chunk receiving appends; this is the polyline registered under the id. */
+  @NonNull Polyline live() { return live; }
+
+  @NonNull CoordBuffer path() { return path; }
+
+  void append(@NonNull List<LatLng> pts) {
+    if (pts.isEmpty()) return;
+    path.appendAll(pts);
+    int end = path.endIndex();
+    while (end - liveStart > CHUNK_POINTS) {
+      int sealEnd = liveStart + CHUNK_POINTS;
+      live.setPoints(path.toLatLngs(liveStart, sealEnd));
+      sealed.addLast(new Chunk(live, liveStart, sealEnd));
+      Object tag = live.getTag(); // sealed chunks keep resolving to the trail's id
+      live = map.addPolyline(styleOf(live));
+      live.setTag(tag);
+      liveStart = sealEnd - 1;
+    }
+    live.setPoints(path.toLatLngs(liveStart, end));
+  }
+
+  /** Drops every point before the absolute {@code index}. Only the new first chunk is rewritten. */
+  void trimTo(int index) {
+    path.dropBefore(index);
+    int first = path.firstIndex();
+    while (!sealed.isEmpty()) {
+      Chunk head = sealed.peekFirst();
+      if (head.end - 1 <= first) {
+        head.line.remove();
+        sealed.pollFirst();
+        continue;
+      }
+      if (head.start < first) {
+        head.line.setPoints(path.toLatLngs(first, head.end));
+        head.start = first;
+      }
+      return;
+    }
+    if (liveStart < first) {
+      liveStart = first;
+      live.setPoints(path.size() > 0 ? path.toLatLngs(first, path.endIndex()) : Collections.<LatLng>emptyList());
+    }
+  }
+
+  /** Removes sealed chunks; the live chunk is left to the caller. */
+  void removeSealed() {
+    for (Chunk c : sealed) {
+      try { c.line.remove(); } catch (Throwable ignored) {}
+    }
+    sealed.clear();
+  }
+
+  @NonNull
+  private static PolylineOptions styleOf(@NonNull Polyline p) {
+    return new PolylineOptions()
+        .color(p.getColor())
+        .width(p.getWidth())
+        .geodesic(p.isGeodesic())
+        .pattern(p.getPattern())
+        .zIndex(p.getZIndex())
+        .clickable(p.isClickable());
+  }
+}
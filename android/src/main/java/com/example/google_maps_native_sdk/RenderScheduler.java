@@ -0,0 +1,81 @@
+package com.example.google_maps_native_sdk;
+
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Merges refresh requests into at most one refresh per vsync.
+ *
+ * A request only sets a dirty flag and posts one frame callback; further
+ * requests before that frame are counted as coalesced. Requests flagged as
+ * not visible (an off-screen virtual marker, a marker with no live object)
+ * never dirty the view. The refresh runs on the next frame and is dropped if
+ * the request was {@link #cancel cancelled} meanwhile. Main thread only.
+ */
+final class RenderScheduler implements Choreographer.FrameCallback {
+  @Nullable private final Choreographer choreographer;
+  private final Runnable refresh;
+  private boolean dirty;
+  private boolean posted;
+
+  private long requests;
+  private long coalesced;
+  private long skipped;
+  private long refreshes;
+
+  RenderScheduler(@Nullable Choreographer choreographer, @NonNull Runnable refresh) {
+    this.choreographer = choreographer;
+    this.refresh = refresh;
+  }
+
+  /** Asks for a refresh on the next frame; {@code visible} false only records the skip. */
+  void request(boolean visible) {
+    requests++;
+    if (!visible) {
+      skipped++;
+      return;
+    }
+    if (dirty) {
+      coalesced++;
+      return;
+    }
+    dirty = true;
+    if (posted || choreographer == null) return;
+    posted = true;
+    choreographer.postFrameCallback(this);
+  }
+
+  boolean isDirty() { return dirty; }
+
+  /** Drops a pending refresh. */
+  void cancel() {
+    dirty = false;
+    if (posted && choreographer != null) choreographer.removeFrameCallback(this);
+    posted = false;
+  }
+
+  @Override
+  public void doFrame(long frameTimeNanos) {
+    posted = false;
+    if (!dirty) return;
+    dirty = false;
+    refreshes++;
+    try { refresh.run(); } catch (Throwable ignored) {}
+  }
+
+  @NonNull
+  Map<String, Object> stats() {
+    Map<String, Object> out = new HashMap<>();
+    out.put("requests", requests);
+    out.put("coalesced", coalesced);
+    out.put("skipped", skipped);
+    out.put("refreshes", refreshes);
+    out.put("pending", dirty);
+    return out;
+  }
+}
@@ -0,0 +1,270 @@
+package com.example.google_maps_native_sdk;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Route polyline prepared for matching location fixes.
+ *
+ * Cumulative distances (meters, haversine) are computed once, so the
+ * distance along the route of any match is a lookup plus one segment.
+ * Segments are also bucketed into a uniform lat/lng grid (every cell their
+ * bounding box touches), and {@link #nearest} searches rings of cells
+ * outwards from the query until no unvisited cell can hold anything closer.
+ * Fixes usually arrive in order, so {@link #match} first searches a window
+ * of segments around the previous match (a little behind, further ahead)
+ * and only falls back to the grid when nothing in the window is within
+ * tolerance (start, reroute, GPS jump). Distances to segments use an
+ * equirectangular projection around the query point. Routes crossing the
+ * antimeridian are not supported. Not thread-safe.
+ */
+final class RouteGeometry {
+  private static final double METERS_PER_DEGREE = 111320.0;
+  static final double WINDOW_BEHIND_METERS = 50.0;
+  static final double WINDOW_AHEAD_METERS = 1000.0;
+  private static final double MIN_CELL_METERS = 100.0;
+  private static final int MAX_CELLS_PER_SEGMENT = 4096;
+
+  /** Closest point on the route to a fix. */
+  static final class Match {
+    double lat;
+    double lng;
+    int segment; // from vertex segment to segment + 1
+    double t; // 0..1 within the segment
+    double along; // meters from the start of the route
+    double distance; // meters from the fix (off-route distance)
+    double bearing; // of the segment, degrees clockwise from north
+  }
+
+  final double[] lat;
+  final double[] lng;
+  final double[] cum;
+  private int last = -1; // segment of the previous match
+  // Segment grid
+  private final double cellLat;
+  private final double cellLng;
+  private final int minCx, minCy, maxCx, maxCy;
+  private final HashMap<Long, int[]> cells = new HashMap<>();
+  private int[] longSegments = new int[0]; // too long to bucket; checked by every search
+  private final int[] visited; // per segment, the search that last looked at it
+  private int search;
+  private int bestSeg;
+  long windowHits;
+  long indexedSearches;
+
+  RouteGeometry(@NonNull double[] latLngs) {
+    int n = latLngs.length / 2;
+    lat = new double[n];
+    lng = new double[n];
+    cum = new double[n];
+    for (int i = 0; i < n; i++) {
+      lat[i] = latLngs[2 * i];
+      lng[i] = latLngs[2 * i + 1];
+      if (i > 0) cum[i] = cum[i - 1] + MarkerMotion.distance(lat[i - 1], lng[i - 1], lat[i], lng[i]);
+    }
+    visited = new int[Math.max(0, n - 1)];
+    // Cells about twice the mean segment length, so most segments touch one to four cells
+    double south = 90, north = -90;
+    for (double v : lat) { south = Math.min(south, v); north = Math.max(north, v); }
+    double cos = Math.max(0.01, Math.cos(Math.toRadians(n == 0 ? 0 : (south + north) / 2)));
+    double cellMeters = Math.max(MIN_CELL_METERS, n > 1 ? 2 * length() / (n - 1) : MIN_CELL_METERS);
+    cellLat = cellMeters / METERS_PER_DEGREE;
+    cellLng = cellMeters / (METERS_PER_DEGREE * cos);
+    int x0 = Integer.MAX_VALUE, y0 = Integer.MAX_VALUE, x1 = Integer.MIN_VALUE, y1 = Integer.MIN_VALUE;
+    HashMap<Long, int[]> building = new HashMap<>(); // {count, ids...}
+    for (int i = 0; i + 1 < n; i++) {
+      int ax = cx(Math.min(lng[i], lng[i + 1])), bx = cx(Math.max(lng[i], lng[i + 1]));
+      int ay = cy(Math.min(lat[i], lat[i + 1])), by = cy(Math.max(lat[i], lat[i + 1]));
+      x0 = Math.min(x0, ax); x1 = Math.max(x1, bx);
+      y0 = Math.min(y0, ay); y1 = Math.max(y1, by);
+      if ((long) (bx - ax + 1) * (by - ay + 1) > MAX_CELLS_PER_SEGMENT) {
+        // Very long segment: projected by every search instead of filling thousands of cells
+        longSegments = append(longSegments, i);
+        continue;
+      }
+      for (int x = ax; x <= bx; x++) {
+        for (int y = ay; y <= by; y++) add(building, key(x, y), i);
+      }
+    }
+    for (Map.Entry<Long, int[]> e : building.entrySet()) {
+      int[] v = e.getValue();
+      cells.put(e.getKey(), Arrays.copyOfRange(v, 1, v[0] + 1));
+    }
+    minCx = x0; maxCx = x1; minCy = y0; maxCy = y1;
+  }
+
+  private int cx(double lngDeg) { return (int) Math.floor(lngDeg / cellLng); }
+  private int cy(double latDeg) { return (int) Math.floor(latDeg / cellLat); }
+
+  private static long key(int x, int y) {
+    return ((long) x << 32) | (y & 0xffffffffL);
+  }
+
+  private static void add(HashMap<Long, int[]> building, long key, int seg) {
+    int[] v = building.get(key);
+    if (v == null) building.put(key, v = new int[4]);
+    else if (v[0] + 1 == v.length) building.put(key, v = Arrays.copyOf(v, v.length * 2));
+    if (v[0] > 0 && v[v[0]] == seg) return;
+    v[++v[0]] = seg;
+  }
+
+  private static int[] append(int[] a, int v) {
+    int[] out = Arrays.copyOf(a, a.length + 1);
+    out[a.length] = v;
+    return out;
+  }
+
+  @NonNull
+  static RouteGeometry of(@NonNull CoordBuffer path) {
+    double[] pts = new double[path.size() * 2];
+    int k = 0;
+    for (int i = path.firstIndex(); i < path.endIndex(); i++) {
+      pts[k++] = path.lat(i);
+      pts[k++] = path.lng(i);
+    }
+    return new RouteGeometry(pts);
+  }
+
+  int size() { return lat.length; }
+
+  double length() { return cum.length == 0 ? 0 : cum[cum.length - 1]; }
+
+  /** Forgets the previous match; the next one scans the whole route. */
+  void resetWindow() { last = -1; }
+
+  /**
+   * Match for the fix, searching near the previous match first and the whole route when the
+   * window has nothing within {@code toleranceMeters}. Null for routes with fewer than 2 points.
+   */
+  Match match(double fixLat, double fixLng, double toleranceMeters) {
+    if (lat.length < 2) return null;
+    Match m = new Match();
+    if (last >= 0) {
+      int from = last, to = last;
+      while (from > 0 && cum[last] - cum[from] < WINDOW_BEHIND_METERS) from--;
+      while (to < lat.length - 2 && cum[to + 1] - cum[last + 1] < WINDOW_AHEAD_METERS) to++;
+      scan(fixLat, fixLng, from, to, m);
+      if (m.distance <= toleranceMeters) {
+        windowHits++;
+        last = m.segment;
+        return m;
+      }
+    }
+    nearestInto(fixLat, fixLng, m);
+    last = m.segment;
+    return m;
+  }
+
+  /** Closest point on the whole route through the segment grid; leaves the window alone. */
+  Match nearest(double qLat, double qLng) {
+    if (lat.length < 2) return null;
+    Match m = new Match();
+    nearestInto(qLat, qLng, m);
+    return m;
+  }
+
+  private void nearestInto(double qLat, double qLng, Match m) {
+    indexedSearches++;
+    if (++search == Integer.MAX_VALUE) {
+      Arrays.fill(visited, 0);
+      search = 1;
+    }
+    double kx = METERS_PER_DEGREE * Math.cos(Math.toRadians(qLat));
+    // Nothing closer than r rings away can hide in cells not yet visited
+    double ringMeters = Math.min(cellLat * METERS_PER_DEGREE, cellLng * kx);
+    int qx = cx(qLng), qy = cy(qLat);
+    double best = Double.POSITIVE_INFINITY;
+    bestSeg = 0;
+    for (int s : longSegments) {
+      visited[s] = search;
+      double d = project(qLat, qLng, kx, s);
+      if (d < best) { best = d; bestSeg = s; }
+    }
+    // Rings that miss the grid's extent are empty
+    int rMin = Math.max(Math.max(minCx - qx, qx - maxCx), Math.max(minCy - qy, qy - maxCy));
+    int rMax = Math.max(Math.max(Math.abs(qx - minCx), Math.abs(qx - maxCx)), Math.max(Math.abs(qy - minCy), Math.abs(qy - maxCy)));
+    for (int r = Math.max(0, rMin); r <= rMax; r++) {
+      if (best != Double.POSITIVE_INFINITY) {
+        double reach = (r - 1) * ringMeters;
+        if (reach > 0 && best <= reach * reach) break;
+      }
+      int y0 = Math.max(minCy, qy - r), y1 = Math.min(maxCy, qy + r);
+      int x0 = Math.max(minCx, qx - r), x1 = Math.min(maxCx, qx + r);
+      for (int y = y0; y <= y1; y++) {
+        if (y == qy - r || y == qy + r) {
+          for (int x = x0; x <= x1; x++) best = visit(qLat, qLng, kx, x, y, best);
+        } else {
+          // Inner rows: only the ring's left and right cells are new
+          if (qx - r >= minCx) best = visit(qLat, qLng, kx, qx - r, y, best);
+          if (r > 0 && qx + r <= maxCx) best = visit(qLat, qLng, kx, qx + r, y, best);
+        }
+      }
+    }
+    fill(qLat, qLng, kx, bestSeg, m);
+  }
+
+  // Projects the unvisited segments of cell (x, y); returns the new best squared distance
+  private double visit(double qLat, double qLng, double kx, int x, int y, double best) {
+    int[] segs = cells.get(key(x, y));
+    if (segs == null) return best;
+    for (int s : segs) {
+      if (visited[s] == search) continue;
+      visited[s] = search;
+      double d = project(qLat, qLng, kx, s);
+      if (d < best) {
+        best = d;
+        bestSeg = s;
+      }
+    }
+    return best;
+  }
+
+  /** Closest point over every segment, ignoring window and grid (reference for tests). */
+  Match nearestLinear(double fixLat, double fixLng) {
+    if (lat.length < 2) return null;
+    Match m = new Match();
+    scan(fixLat, fixLng, 0, lat.length - 2, m);
+    return m;
+  }
+
+  // Best segment in [from, to] into m
+  private void scan(double fixLat, double fixLng, int from, int to, Match m) {
+    double kx = METERS_PER_DEGREE * Math.cos(Math.toRadians(fixLat));
+    double best = Double.POSITIVE_INFINITY;
+    for (int i = from; i <= to; i++) {
+      double d = project(fixLat, fixLng, kx, i);
+      if (d < best) {
+        best = d;
+        m.segment = i;
+      }
+    }
+    fill(fixLat, fixLng, kx, m.segment, m);
+  }
+
+  // Squared projected distance from the fix to segment i
+  private double project(double fixLat, double fixLng, double kx, int i) {
+    double ax = (lng[i] - fixLng) * kx, ay = (lat[i] - fixLat) * METERS_PER_DEGREE;
+    double dx = (lng[i + 1] - lng[i]) * kx, dy = (lat[i + 1] - lat[i]) * METERS_PER_DEGREE;
+    double l2 = dx * dx + dy * dy;
+    double t = l2 == 0 ? 0 : Math.max(0.0, Math.min(1.0, -(ax * dx + ay * dy) / l2));
+    double px = ax + t * dx, py = ay + t * dy;
+    return px * px + py * py;
+  }
+
+  private void fill(double fixLat, double fixLng, double kx, int i, Match m) {
+    double ax = (lng[i] - fixLng) * kx, ay = (lat[i] - fixLat) * METERS_PER_DEGREE;
+    double dx = (lng[i + 1] - lng[i]) * kx, dy = (lat[i + 1] - lat[i]) * METERS_PER_DEGREE;
+    double l2 = dx * dx + dy * dy;
+    double t = l2 == 0 ? 0 : Math.max(0.0, Math.min(1.0, -(ax * dx + ay * dy) / l2));
+    m.segment = i;
+    m.t = t;
+    m.lat = lat[i] + (lat[i + 1] - lat[i]) * t;
+    m.lng = lng[i] + (lng[i + 1] - lng[i]) * t;
+    m.along = cum[i] + (cum[i + 1] - cum[i]) * t;
+    m.distance = MarkerMotion.distance(fixLat, fixLng, m.lat, m.lng);
+    m.bearing = MarkerMotion.bearing(lat[i], lng[i], lat[i + 1], lng[i + 1]);
+  }
+}
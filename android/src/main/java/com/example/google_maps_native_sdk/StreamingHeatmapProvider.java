@@ -0,0 +1,161 @@
+package com.example.google_maps_native_sdk;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+
+import com.google.android.gms.maps.model.Tile;
+import com.google.android.gms.maps.model.TileProvider;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tile provider for a {@link HeatmapStream}.
+ *
+ * Rendered tiles are kept until a cell within their radius changes. The Maps
+ * SDK can only drop a tile overlay's whole cache, so after each refresh the
+ * map asks again for every visible tile: untouched ones are answered from
+ * here without rendering, and only tiles covering dirty cells are re-drawn.
+ */
+final class StreamingHeatmapProvider implements TileProvider {
+  private static final int MAX_RENDERED = 384;
+  private static final byte[] EMPTY = new byte[0];
+
+  private final HeatmapStream stream;
+  private final int radiusPx;
+  private final double maxIntensity;
+  private final int[] colorMap;
+  private final LinkedHashMap<Long, byte[]> rendered = new LinkedHashMap<Long, byte[]>(64, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+      return size() > MAX_RENDERED;
+    }
+  };
+  private final Set<Integer> zooms = ConcurrentHashMap.newKeySet();
+  // Automatic scale per zoom; sticky so tiles rendered at different times match
+  private final Map<Integer, Double> scales = new ConcurrentHashMap<>();
+  // Bumped by invalidate(): a render that raced it is not kept
+  private final AtomicLong generation = new AtomicLong();
+  private final AtomicLong renders = new AtomicLong();
+  private final AtomicLong reused = new AtomicLong();
+  private final AtomicLong invalidated = new AtomicLong();
+
+  /** {@code maxIntensity} <= 0 scales each zoom by its densest pixel. */
+  StreamingHeatmapProvider(@NonNull HeatmapStream stream, int radiusPx, double maxIntensity, @NonNull int[] colorMap) {
+    this.stream = stream;
+    this.radiusPx = Math.max(1, radiusPx);
+    this.maxIntensity = maxIntensity;
+    this.colorMap = colorMap;
+  }
+
+  @Override
+  public Tile getTile(int x, int y, int zoom) {
+    long key = TileCorridor.pack(zoom, x, y);
+    byte[] cached;
+    synchronized (rendered) { cached = rendered.get(key); }
+    if (cached != null) {
+      reused.incrementAndGet();
+      return cached.length == 0 ? NO_TILE : new Tile(HeatmapRaster.TILE, HeatmapRaster.TILE, cached);
+    }
+    long gen = generation.get();
+    zooms.add(zoom);
+    byte[] data = render(x, y, zoom);
+    renders.incrementAndGet();
+    if (data == null) return null; // encoding failed; the map asks again later
+    if (generation.get() == gen) {
+      synchronized (rendered) { rendered.put(key, data); }
+    }
+    return data.length == 0 ? NO_TILE : new Tile(HeatmapRaster.TILE, HeatmapRaster.TILE, data);
+  }
+
+  private byte[] render(int x, int y, int zoom) {
+    HeatmapStream.Cells cells = stream.cellsIn(zoom, x, y, radiusPx);
+    if (cells.size == 0) return EMPTY;
+    double max = maxIntensity > 0 ? maxIntensity : scaleFor(zoom);
+    int[] argb = HeatmapRaster.render(x, y, cells, stream.cellPx(zoom), radiusPx, max, colorMap);
+    if (argb == null) return EMPTY;
+    try {
+      Bitmap bmp = Bitmap.createBitmap(argb, HeatmapRaster.TILE, HeatmapRaster.TILE, Bitmap.Config.ARGB_8888);
+      ByteArrayOutputStream bos = new ByteArrayOutputStream(16 * 1024);
+      bmp.compress(Bitmap.CompressFormat.PNG, 100, bos);
+      bmp.recycle();
+      return bos.toByteArray();
+    } catch (Throwable t) {
+      return null;
+    }
+  }
+
+  private double scaleFor(int zoom) {
+    Double s = scales.get(zoom);
+    if (s == null) {
+      s = stream.maxPerPixel(zoom);
+      scales.put(zoom, s);
+    }
+    return s;
+  }
+
+  /**
+   * Forgets rendered tiles within the radius of the given cells (packed by {@link HeatmapStream#cell}).
+   * With the automatic scale, a zoom whose densest pixel moved by more than a quarter is
+   * rescaled and all of its tiles are dropped, since the new scale recolors them all.
+   */
+  void invalidate(@NonNull long[] cells) {
+    if (cells.length == 0) return;
+    generation.incrementAndGet();
+    synchronized (rendered) {
+      for (int z : zooms) {
+        if (maxIntensity <= 0) {
+          Double s = scales.get(z);
+          double peak = stream.maxPerPixel(z);
+          if (s == null || peak > s * 1.25 || peak < s * 0.8) {
+            scales.put(z, peak);
+            dropZoom(z);
+            continue;
+          }
+        }
+        double cellPx = stream.cellPx(z);
+        long size = 1L << z;
+        for (long c : cells) {
+          double px0 = HeatmapStream.cellX(c) * cellPx, py0 = HeatmapStream.cellY(c) * cellPx;
+          long tx0 = (long) Math.floor((px0 - radiusPx) / HeatmapRaster.TILE);
+          long tx1 = (long) Math.floor((px0 + cellPx + radiusPx) / HeatmapRaster.TILE);
+          long ty0 = Math.max(0, (long) Math.floor((py0 - radiusPx) / HeatmapRaster.TILE));
+          long ty1 = Math.min(size - 1, (long) Math.floor((py0 + cellPx + radiusPx) / HeatmapRaster.TILE));
+          for (long tx = tx0; tx <= tx1; tx++) {
+            for (long ty = ty0; ty <= ty1; ty++) {
+              if (rendered.remove(TileCorridor.pack(z, (int) Math.floorMod(tx, size), (int) ty)) != null) {
+                invalidated.incrementAndGet();
+              }
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private void dropZoom(int z) {
+    java.util.Iterator<Long> it = rendered.keySet().iterator();
+    while (it.hasNext()) {
+      if (TileCorridor.z(it.next()) == z) {
+        it.remove();
+        invalidated.incrementAndGet();
+      }
+    }
+  }
+
+  @NonNull
+  Map<String, Object> stats() {
+    Map<String, Object> out = new HashMap<>(stream.stats());
+    out.put("renders", renders.get());
+    out.put("reused", reused.get());
+    out.put("invalidated", invalidated.get());
+    synchronized (rendered) { out.put("renderedTiles", rendered.size()); }
+    return out;
+  }
+}
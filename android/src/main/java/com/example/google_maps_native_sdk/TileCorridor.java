@@ -0,0 +1,98 @@
+package com.example.google_maps_native_sdk;
+
+import androidx.annotation.NonNull;
+
+import java.util.LinkedHashSet;
+
+/**
+ * XYZ tiles covering a corridor around a route.
+ *
+ * The route is walked in small steps; at each step every requested zoom adds
+ * the tiles whose square lies within the corridor radius of that point. Tiles
+ * come out in the order the route first reaches them (all zooms interleaved),
+ * so a budget-limited prefetch warms what the vehicle needs next first.
+ * Tiles are packed into a long: z (6 bits), x and y (29 bits each).
+ */
+final class TileCorridor {
+  static final double EARTH_CIRCUMFERENCE_M = 40075016.686;
+  private static final double EARTH_RADIUS_M = 6371008.8;
+  private static final double MIN_STEP_M = 5.0;
+
+  private TileCorridor() {}
+
+  static long pack(int z, int x, int y) {
+    return ((long) z << 58) | ((long) x << 29) | y;
+  }
+
+  static int z(long tile) { return (int) (tile >>> 58); }
+  static int x(long tile) { return (int) ((tile >>> 29) & 0x1fffffffL); }
+  static int y(long tile) { return (int) (tile & 0x1fffffffL); }
+
+  /**
+   * Tiles within {@code corridorM} of the polyline (lat/lng arrays, points {@code from..end}),
+   * walking at most {@code aheadM} metres (<= 0: whole route) and returning at most
+   * {@code maxTiles}.
+   */
+  @NonNull
+  static long[] cover(@NonNull double[] lat, @NonNull double[] lng, int from, double corridorM,
+                      @NonNull int[] zooms, double aheadM, int maxTiles) {
+    LinkedHashSet<Long> out = new LinkedHashSet<>();
+    int n = Math.min(lat.length, lng.length);
+    if (n == 0 || zooms.length == 0 || maxTiles <= 0) return new long[0];
+    int start = Math.max(0, Math.min(n - 1, from));
+    double corridor = Math.max(0.0, corridorM);
+    int maxZoom = 0;
+    for (int z : zooms) maxZoom = Math.max(maxZoom, z);
+    double limit = aheadM > 0 ? aheadM : Double.MAX_VALUE;
+
+    addAround(out, lat[start], lng[start], corridor, zooms, maxTiles);
+    double walked = 0;
+    for (int i = start; i < n - 1 && out.size() < maxTiles && walked < limit; i++) {
+      double seg = distanceM(lat[i], lng[i], lat[i + 1], lng[i + 1]);
+      // Sample at a quarter of the finest tile so no crossed tile is skipped
+      double tileM = EARTH_CIRCUMFERENCE_M * Math.cos(Math.toRadians(lat[i])) / (1L << maxZoom);
+      double reach = Math.min(seg, limit - walked);
+      int steps = Math.max(1, (int) Math.ceil(reach / Math.max(MIN_STEP_M, tileM / 4)));
+      for (int k = 1; k <= steps && out.size() < maxTiles; k++) {
+        double t = reach * k / steps / Math.max(seg, 1e-9);
+        addAround(out, lat[i] + (lat[i + 1] - lat[i]) * t, lng[i] + (lng[i + 1] - lng[i]) * t, corridor, zooms, maxTiles);
+      }
+      walked += seg;
+    }
+    long[] tiles = new long[out.size()];
+    int i = 0;
+    for (long t : out) tiles[i++] = t;
+    return tiles;
+  }
+
+  private static void addAround(LinkedHashSet<Long> out, double lat, double lng, double corridorM,
+                                int[] zooms, int maxTiles) {
+    double mx = PolylineLod.mercatorX(lng);
+    double my = PolylineLod.mercatorY(lat);
+    double cos = Math.max(1e-6, Math.cos(Math.toRadians(lat)));
+    for (int z : zooms) {
+      int size = 1 << z;
+      double tx = mx * size;
+      double ty = my * size;
+      double r = corridorM / (EARTH_CIRCUMFERENCE_M * cos / size); // in tiles
+      int x0 = (int) Math.floor(tx - r), x1 = (int) Math.floor(tx + r);
+      int y0 = Math.max(0, (int) Math.floor(ty - r)), y1 = Math.min(size - 1, (int) Math.floor(ty + r));
+      for (int x = x0; x <= x1; x++) {
+        double dx = tx < x ? x - tx : (tx > x + 1 ? tx - x - 1 : 0);
+        for (int y = y0; y <= y1; y++) {
+          double dy = ty < y ? y - ty : (ty > y + 1 ? ty - y - 1 : 0);
+          if (dx * dx + dy * dy > r * r) continue;
+          out.add(pack(z, Math.floorMod(x, size), y));
+          if (out.size() >= maxTiles) return;
+        }
+      }
+    }
+  }
+
+  static double distanceM(double lat1, double lng1, double lat2, double lng2) {
+    double p1 = Math.toRadians(lat1), p2 = Math.toRadians(lat2);
+    double dp = p2 - p1, dl = Math.toRadians(lng2 - lng1);
+    double a = Math.sin(dp / 2) * Math.sin(dp / 2) + Math.cos(p1) * Math.cos(p2) * Math.sin(dl / 2) * Math.sin(dl / 2);
+    return 2 * EARTH_RADIUS_M * Math.asin(Math.min(1.0, Math.sqrt(a)));
+  }
+}
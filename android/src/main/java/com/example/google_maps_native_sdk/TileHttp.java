@@ -0,0 +1,47 @@
+package com.example.google_maps_native_sdk;
+
+import androidx.annotation.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/** Plain HTTP GET for map tiles, shared by the caching provider and offline downloads. */
+final class TileHttp {
+  static final int TIMEOUT_MS = 10000;
+  static final int MAX_TILE_BYTES = 4 * 1024 * 1024;
+  /** Returned for 204/404: the source has no tile at these coordinates. */
+  static final byte[] NO_DATA = new byte[0];
+
+  private TileHttp() {}
+
+  @NonNull
+  static byte[] download(@NonNull String url) throws IOException {
+    HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+    conn.setConnectTimeout(TIMEOUT_MS);
+    conn.setReadTimeout(TIMEOUT_MS);
+    conn.setInstanceFollowRedirects(true);
+    conn.setRequestProperty("User-Agent", "Mozilla/5.0 (Android) GoogleMapsNativeSDK/1.0");
+    try {
+      int code = conn.getResponseCode();
+      if (code == HttpURLConnection.HTTP_NO_CONTENT || code == HttpURLConnection.HTTP_NOT_FOUND) return NO_DATA;
+      if (code < 200 || code >= 300) throw new IOException("HTTP " + code + " for " + url);
+      try (InputStream is = conn.getInputStream()) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(32 * 1024);
+        byte[] buf = new byte[16 * 1024];
+        int total = 0;
+        int n;
+        while ((n = is.read(buf)) != -1) {
+          total += n;
+          if (total > MAX_TILE_BYTES) throw new IOException("tile too large");
+          bos.write(buf, 0, n);
+        }
+        return bos.toByteArray();
+      }
+    } finally {
+      try { conn.disconnect(); } catch (Throwable ignored) {}
+    }
+  }
+}
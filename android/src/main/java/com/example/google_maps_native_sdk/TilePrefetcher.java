@@ -0,0 +1,146 @@
+package com.example.google_maps_native_sdk;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background warm-up of a planned tile list under a budget.
+ *
+ * One driver thread issues low-priority fetches in list order, keeping at most
+ * {@code concurrency} of them outstanding (below the shared fetch pool's size,
+ * so visible tiles always find a free worker) and pausing whenever the bytes
+ * received run ahead of {@code maxBytesPerSecond}. A new plan replaces the
+ * running one; outstanding fetches are left to finish so visible requests
+ * that joined them are not disturbed.
+ */
+final class TilePrefetcher {
+  /** Starts a fetch for one tile; null when it is already fresh in cache. */
+  interface Source {
+    @Nullable
+    Future<byte[]> prefetch(int x, int y, int z);
+  }
+
+  private static final long FETCH_WAIT_MS = 30_000L;
+
+  private final class Run implements Runnable {
+    final Source source;
+    final long[] tiles;
+    final int concurrency;
+    final long maxBytesPerSecond;
+    volatile boolean cancelled;
+
+    Run(Source source, long[] tiles, int concurrency, long maxBytesPerSecond) {
+      this.source = source;
+      this.tiles = tiles;
+      this.concurrency = concurrency;
+      this.maxBytesPerSecond = maxBytesPerSecond;
+    }
+
+    @Override
+    public void run() {
+      try {
+        drive();
+      } finally {
+        if (current == this) current = null;
+      }
+    }
+
+    private void drive() {
+      ArrayDeque<Future<byte[]>> window = new ArrayDeque<>();
+      long started = System.nanoTime();
+      long runBytes = 0;
+      for (long t : tiles) {
+        if (cancelled) return;
+        Future<byte[]> f = source.prefetch(TileCorridor.x(t), TileCorridor.y(t), TileCorridor.z(t));
+        if (f == null) {
+          alreadyCached.incrementAndGet();
+          continue;
+        }
+        issued.incrementAndGet();
+        window.add(f);
+        while (window.size() >= concurrency && !cancelled) runBytes += await(window.poll());
+        if (maxBytesPerSecond > 0) {
+          long dueMs = runBytes * 1000L / maxBytesPerSecond;
+          long elapsedMs = (System.nanoTime() - started) / 1_000_000L;
+          if (dueMs > elapsedMs) {
+            try { Thread.sleep(dueMs - elapsedMs); } catch (InterruptedException e) { return; }
+          }
+        }
+      }
+      while (!window.isEmpty() && !cancelled) await(window.poll());
+    }
+  }
+
+  private final ExecutorService driver = Executors.newSingleThreadExecutor(r -> {
+    Thread t = new Thread(r, "gmns-prefetch");
+    t.setDaemon(true);
+    t.setPriority(Thread.MIN_PRIORITY);
+    return t;
+  });
+  @Nullable private volatile Run current;
+  private final AtomicLong planned = new AtomicLong();
+  private final AtomicLong issued = new AtomicLong();
+  private final AtomicLong alreadyCached = new AtomicLong();
+  private final AtomicLong completed = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicLong bytes = new AtomicLong();
+
+  /** Replaces any running plan with {@code tiles} (packed by {@link TileCorridor#pack}). */
+  void start(@NonNull Source source, @NonNull long[] tiles, int concurrency, long maxBytesPerSecond) {
+    cancel();
+    Run run = new Run(source, tiles, Math.max(1, concurrency), Math.max(0, maxBytesPerSecond));
+    current = run;
+    planned.addAndGet(tiles.length);
+    driver.execute(run);
+  }
+
+  void cancel() {
+    Run run = current;
+    if (run != null) run.cancelled = true;
+    current = null;
+  }
+
+  void shutdown() {
+    cancel();
+    driver.shutdownNow();
+  }
+
+  private long await(Future<byte[]> f) {
+    try {
+      byte[] data = f.get(FETCH_WAIT_MS, TimeUnit.MILLISECONDS);
+      completed.incrementAndGet();
+      long n = data != null ? data.length : 0;
+      bytes.addAndGet(n);
+      return n;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return 0;
+    } catch (Throwable t) {
+      failed.incrementAndGet();
+      return 0;
+    }
+  }
+
+  @NonNull
+  Map<String, Object> stats() {
+    Map<String, Object> out = new HashMap<>();
+    Run run = current;
+    out.put("active", run != null && !run.cancelled);
+    out.put("planned", planned.get());
+    out.put("issued", issued.get());
+    out.put("alreadyCached", alreadyCached.get());
+    out.put("completed", completed.get());
+    out.put("failed", failed.get());
+    out.put("bytes", bytes.get());
+    return out;
+  }
+}
@@ -0,0 +1,67 @@
+package com.example.google_maps_native_sdk;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * XYZ URL template ({@code {x}}, {@code {y}}, {@code {z}}) split once into
+ * literal and placeholder parts, so building a tile URL is a single append pass.
+ */
+final class TileUrlTemplate {
+  private static final int X = -1;
+  private static final int Y = -2;
+  private static final int Z = -3;
+
+  private final String[] literals;
+  private final int[] parts; // >= 0: literal index; < 0: placeholder
+  private final int baseLength;
+
+  private TileUrlTemplate(String[] literals, int[] parts, int baseLength) {
+    this.literals = literals;
+    this.parts = parts;
+    this.baseLength = baseLength;
+  }
+
+  @NonNull
+  static TileUrlTemplate compile(@NonNull String template) {
+    List<String> literals = new ArrayList<>();
+    List<Integer> parts = new ArrayList<>();
+    int len = 0;
+    int i = 0;
+    int start = 0;
+    while (i < template.length()) {
+      int ph = template.startsWith("{x}", i) ? X : template.startsWith("{y}", i) ? Y : template.startsWith("{z}", i) ? Z : 0;
+      if (ph == 0) { i++; continue; }
+      if (i > start) {
+        parts.add(literals.size());
+        literals.add(template.substring(start, i));
+        len += i - start;
+      }
+      parts.add(ph);
+      i += 3;
+      start = i;
+    }
+    if (start < template.length()) {
+      parts.add(literals.size());
+      literals.add(template.substring(start));
+      len += template.length() - start;
+    }
+    int[] p = new int[parts.size()];
+    for (int k = 0; k < p.length; k++) p[k] = parts.get(k);
+    return new TileUrlTemplate(literals.toArray(new String[0]), p, len);
+  }
+
+  @NonNull
+  String url(int x, int y, int z) {
+    StringBuilder sb = new StringBuilder(baseLength + 24);
+    for (int p : parts) {
+      if (p == X) sb.append(x);
+      else if (p == Y) sb.append(y);
+      else if (p == Z) sb.append(z);
+      else sb.append(literals[p]);
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,98 @@
+package com.example.google_maps_native_sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+/** Track lifecycle and frame skipping of the shared animation engine (driven by hand). */
+public class AnimationEngineTest {
+  private static final class Counting implements AnimationEngine.Track {
+    final int frames;
+    int steps;
+    int ends;
+    long lastNanos;
+
+    Counting(int frames) { this.frames = frames; }
+
+    @Override public boolean step(long frameNanos) {
+      lastNanos = frameNanos;
+      return ++steps < frames;
+    }
+
+    @Override public void end() { ends++; }
+  }
+
+  @Test
+  public void stepsAllTracksInOnePassAndEndsFinishedOnes() {
+    AnimationEngine engine = new AnimationEngine(null);
+    Counting[] tracks = new Counting[200];
+    for (int i = 0; i < tracks.length; i++) {
+      tracks[i] = new Counting(1 + i % 5);
+      engine.start("pulse:" + i, tracks[i]);
+    }
+    assertEquals(200, engine.size());
+    for (int f = 1; f <= 5; f++) engine.doFrame(f * 16_000_000L);
+    assertEquals(0, engine.size());
+    for (int i = 0; i < tracks.length; i++) {
+      assertEquals(1 + i % 5, tracks[i].steps);
+      assertEquals(1, tracks[i].ends);
+    }
+  }
+
+  @Test
+  public void replacingOrCancellingEndsTheOldTrack() {
+    AnimationEngine engine = new AnimationEngine(null);
+    Counting a = new Counting(100), b = new Counting(100);
+    engine.start("bounce:m", a);
+    engine.start("bounce:m", b);
+    assertEquals(1, a.ends);
+    assertEquals(1, engine.size());
+    assertTrue(engine.cancel("bounce:m"));
+    assertFalse(engine.cancel("bounce:m"));
+    assertEquals(1, b.ends);
+    assertNull(engine.get("bounce:m"));
+
+    Counting c = new Counting(100);
+    engine.start("pulse:x", c);
+    engine.cancelAll();
+    assertEquals(1, c.ends);
+    assertEquals(0, engine.size());
+  }
+
+  @Test
+  public void slowPassesSkipFramesWithoutStallingTime() {
+    AnimationEngine engine = new AnimationEngine(null);
+    Counting t = new Counting(1000);
+    engine.start("pulse:slow", t);
+    engine.record(3 * AnimationEngine.BUDGET_NANOS);
+    engine.doFrame(16_000_000L);
+    engine.doFrame(32_000_000L);
+    engine.doFrame(48_000_000L);
+    assertEquals(0, t.steps);
+    engine.doFrame(64_000_000L);
+    assertEquals(1, t.steps);
+    assertEquals(64_000_000L, t.lastNanos); // steps with the current frame time, jumping ahead
+    Map<String, Object> stats = engine.stats();
+    assertEquals(3L, stats.get("skippedFrames"));
+    assertEquals(1, stats.get("active"));
+  }
+
+  @Test
+  public void failingTrackIsDroppedAlone() {
+    AnimationEngine engine = new AnimationEngine(null);
+    Counting ok = new Counting(10);
+    engine.start("ok", ok);
+    engine.start("bad", new AnimationEngine.Track() {
+      @Override public boolean step(long frameNanos) { throw new IllegalStateException(); }
+      @Override public void end() {}
+    });
+    engine.doFrame(1L);
+    assertEquals(1, engine.size());
+    assertEquals(1, ok.steps);
+  }
+}
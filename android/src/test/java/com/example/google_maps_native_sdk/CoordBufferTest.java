@@ -0,0 +1,103 @@
+package com.example.google_maps_native_sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Absolute indices, trims and versions of the primitive polyline buffer. */
+public class CoordBufferTest {
+  // Point i is (i, -i) * SCALE: in range for LatLng (which clamps latitude and wraps longitude)
+  // while any read can still be checked against its absolute index
+  private static final double SCALE = 1e-4;
+  private static final double EPS = 1e-9;
+
+  private static List<LatLng> points(int from, int to) {
+    List<LatLng> out = new ArrayList<>();
+    for (int i = from; i < to; i++) out.add(new LatLng(i * SCALE, -i * SCALE));
+    return out;
+  }
+
+  private static void assertContents(CoordBuffer b, int first, int end) {
+    assertEquals(first, b.firstIndex());
+    assertEquals(end, b.endIndex());
+    assertEquals(end - first, b.size());
+    for (int i = first; i < end; i++) {
+      assertEquals(i * SCALE, b.lat(i), EPS);
+      assertEquals(-i * SCALE, b.lng(i), EPS);
+    }
+    List<LatLng> all = b.toLatLngs();
+    assertEquals(end - first, all.size());
+    if (!all.isEmpty()) assertEquals(first * SCALE, all.get(0).latitude, EPS);
+  }
+
+  @Test
+  public void trimAdvancesFirstIndexWithoutRenumbering() {
+    CoordBuffer b = CoordBuffer.of(points(0, 10));
+    b.dropBefore(4);
+    assertContents(b, 4, 10);
+    b.append(10 * SCALE, -10 * SCALE);
+    assertContents(b, 4, 11);
+    // Below the first index or past the end: clamped
+    b.dropBefore(2);
+    assertContents(b, 4, 11);
+    b.dropBefore(100);
+    assertContents(b, 11, 11);
+    b.appendAll(points(11, 14));
+    assertContents(b, 11, 14);
+  }
+
+  @Test
+  public void appendsAndTrimsAcrossChunkBoundaries() {
+    int chunk = PolylineTrail.CHUNK_POINTS;
+    CoordBuffer b = new CoordBuffer(4);
+    int end = 0;
+    int first = 0;
+    // A long trip: batches of appends with the tail trimmed past chunk boundaries, so the
+    // storage both grows and compacts the dropped prefix
+    for (int round = 0; round < 40; round++) {
+      b.appendAll(points(end, end + 97));
+      end += 97;
+      if (round % 3 == 2) {
+        first = Math.min(end, first + chunk + 5);
+        b.dropBefore(first);
+      }
+      assertContents(b, first, end);
+    }
+    List<LatLng> range = b.toLatLngs(first + chunk - 1, first + chunk + 1);
+    assertEquals(2, range.size());
+    assertEquals((first + chunk - 1) * SCALE, range.get(0).latitude, EPS);
+    // Ranges are clamped to the live points
+    assertEquals(end - first, b.toLatLngs(0, Integer.MAX_VALUE).size());
+  }
+
+  @Test
+  public void setRestartsIndicesAtZero() {
+    CoordBuffer b = CoordBuffer.of(points(0, 300));
+    b.dropBefore(280);
+    b.set(points(0, 5));
+    assertContents(b, 0, 5);
+  }
+
+  @Test
+  public void versionChangesOnlyWithContents() {
+    CoordBuffer b = CoordBuffer.of(points(0, 3));
+    int v = b.version();
+    b.append(3 * SCALE, -3 * SCALE);
+    assertNotEquals(v, v = b.version());
+    b.appendAll(points(4, 6));
+    assertNotEquals(v, v = b.version());
+    b.dropBefore(2);
+    assertNotEquals(v, v = b.version());
+    // Nothing dropped
+    b.dropBefore(1);
+    assertEquals(v, b.version());
+    b.set(points(0, 2));
+    assertNotEquals(v, b.version());
+  }
+}
@@ -0,0 +1,121 @@
+package com.example.google_maps_native_sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.maps.android.heatmaps.WeightedLatLng;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Every accepted channel coordinate form decodes to the same points. */
+public class CoordinateCodecTest {
+  private static final double[][] PTS = {{38.5, -120.2}, {40.7, -120.95}, {43.252, -126.453}};
+
+  // Reference encoder (Google encoded polyline algorithm)
+  private static String encode(double[][] pts, double scale) {
+    StringBuilder sb = new StringBuilder();
+    long prevLat = 0, prevLng = 0;
+    for (double[] p : pts) {
+      long lat = Math.round(p[0] * scale), lng = Math.round(p[1] * scale);
+      encodeValue(lat - prevLat, sb);
+      encodeValue(lng - prevLng, sb);
+      prevLat = lat;
+      prevLng = lng;
+    }
+    return sb.toString();
+  }
+
+  private static void encodeValue(long v, StringBuilder sb) {
+    v = v < 0 ? ~(v << 1) : v << 1;
+    while (v >= 0x20) {
+      sb.append((char) ((0x20 | (v & 0x1f)) + 63));
+      v >>= 5;
+    }
+    sb.append((char) (v + 63));
+  }
+
+  private static void assertPoints(double[][] expected, List<LatLng> actual, double eps) {
+    assertEquals(expected.length, actual.size());
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i][0], actual.get(i).latitude, eps);
+      assertEquals(expected[i][1], actual.get(i).longitude, eps);
+    }
+  }
+
+  private static Map<String, Object> args(String key, Object value) {
+    Map<String, Object> m = new HashMap<>();
+    m.put(key, value);
+    return m;
+  }
+
+  @Test
+  public void decodesTheReferenceEncodedPolyline() {
+    assertEquals("_p~iF~ps|U_ulLnnqC_mqNvxq`@", encode(PTS, 1e5));
+    assertPoints(PTS, CoordinateCodec.readLatLngs(args("encoded", "_p~iF~ps|U_ulLnnqC_mqNvxq`@")), 1e-9);
+  }
+
+  @Test
+  public void autoDetectsPrecisionFromTheValueRange() {
+    double[][] precise = {{38.512345, -120.212345}, {40.7, -120.95}};
+    assertPoints(precise, CoordinateCodec.decodeEncoded(encode(precise, 1e6), 0), 1e-9);
+    assertPoints(PTS, CoordinateCodec.decodeEncoded(encode(PTS, 1e5), 0), 1e-9);
+    // Explicit precision wins over detection
+    Map<String, Object> a = args("encoded", encode(new double[][]{{1.5, 2.5}}, 1e6));
+    a.put("precision", 6);
+    assertPoints(new double[][]{{1.5, 2.5}}, CoordinateCodec.readLatLngs(a), 1e-9);
+    assertEquals(0, CoordinateCodec.decodeEncoded("", 0).size());
+  }
+
+  @Test
+  public void readsPackedDoublesAndLittleEndianBytes() {
+    double[] packed = {38.5, -120.2, 40.7, -120.95, 43.252, -126.453};
+    assertPoints(PTS, CoordinateCodec.readLatLngs(args("points", packed)), 0);
+
+    ByteBuffer bb = ByteBuffer.allocate(packed.length * 8).order(ByteOrder.LITTLE_ENDIAN);
+    for (double v : packed) bb.putDouble(v);
+    byte[] bytes = bb.array();
+    assertPoints(PTS, CoordinateCodec.readLatLngs(args("points", bytes)), 0);
+    assertEquals(packed.length, CoordinateCodec.readDoubles(bytes).length);
+    assertEquals(-126.453, CoordinateCodec.readDoubles(bytes)[5], 0);
+    assertEquals(0, CoordinateCodec.readDoubles(null).length);
+  }
+
+  @Test
+  public void readsTheLegacyListOfMaps() {
+    List<Map<String, Object>> list = new ArrayList<>();
+    for (double[] p : PTS) {
+      Map<String, Object> m = new HashMap<>();
+      m.put("lat", p[0]);
+      m.put("lng", p[1]);
+      list.add(m);
+    }
+    Map<String, Object> a = args("points", list);
+    assertPoints(PTS, CoordinateCodec.readLatLngs(a), 0);
+    // No weight key: not weighted, heatmaps fall back to unit intensity
+    assertNull(CoordinateCodec.readWeighted(a));
+    for (WeightedLatLng w : CoordinateCodec.readWeightedOrUnit(a)) assertEquals(1.0, w.getIntensity(), 0);
+  }
+
+  @Test
+  public void strideThreeCarriesWeights() {
+    double[] packed = {38.5, -120.2, 2.0, 40.7, -120.95, 0.5, 43.252, -126.453, 7.0};
+    Map<String, Object> a = args("points", packed);
+    a.put("stride", 3);
+    assertPoints(PTS, CoordinateCodec.readLatLngs(a), 0);
+    List<WeightedLatLng> w = CoordinateCodec.readWeighted(a);
+    assertEquals(3, w.size());
+    assertEquals(2.0, w.get(0).getIntensity(), 0);
+    assertEquals(0.5, w.get(1).getIntensity(), 0);
+    assertEquals(7.0, w.get(2).getIntensity(), 0);
+    // Stride 2 is never weighted
+    assertNull(CoordinateCodec.readWeighted(args("points", new double[]{1, 2})));
+  }
+}
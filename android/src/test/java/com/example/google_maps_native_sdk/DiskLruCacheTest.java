@@ -0,0 +1,160 @@
+package com.example.google_maps_native_sdk;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/** Journal replay, LRU eviction and startup cleanup of the disk cache, over a temp directory. */
+public class DiskLruCacheTest {
+  private File dir;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("gmns-disk").toFile();
+  }
+
+  @After
+  public void tearDown() {
+    DiskLruCache.open(dir, 1, 1).close();
+    File[] files = dir.listFiles();
+    if (files != null) for (File f : files) f.delete();
+    dir.delete();
+  }
+
+  private static byte[] bytes(int n, int fill) {
+    byte[] b = new byte[n];
+    java.util.Arrays.fill(b, (byte) fill);
+    return b;
+  }
+
+  private static void write(File f, String content) throws IOException {
+    try (FileOutputStream out = new FileOutputStream(f)) {
+      out.write(content.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  // A new instance over the same directory, as after a process restart
+  private DiskLruCache reopen(DiskLruCache c, long maxBytes, int maxEntries) {
+    c.close();
+    return DiskLruCache.open(dir, maxBytes, maxEntries);
+  }
+
+  @Test
+  public void entriesAndValidatorsSurviveARestart() {
+    DiskLruCache c = DiskLruCache.open(dir, 1 << 20, 100);
+    c.putBytes("a", bytes(10, 1), new HttpIconFetcher.Validators("\"v1\"", "Tue, 01 Jan 2030 00:00:00 GMT", 1234L, false));
+    c.putBytes("b", bytes(20, 2), null);
+    c.putBytes("gone", bytes(5, 3), null);
+    c.remove("gone");
+    c.updateValidators("b", new HttpIconFetcher.Validators("etag with spaces", null, 99L, false));
+
+    c = reopen(c, 1 << 20, 100);
+    assertArrayEquals(bytes(10, 1), c.getBytes("a"));
+    assertArrayEquals(bytes(20, 2), c.getBytes("b"));
+    assertNull(c.getBytes("gone"));
+    HttpIconFetcher.Validators va = c.validators("a");
+    assertNotNull(va);
+    assertEquals("\"v1\"", va.etag);
+    assertEquals("Tue, 01 Jan 2030 00:00:00 GMT", va.lastModified);
+    assertEquals(1234L, va.expiresAt);
+    HttpIconFetcher.Validators vb = c.validators("b");
+    assertEquals("etag with spaces", vb.etag);
+    assertNull(vb.lastModified);
+    assertEquals(99L, vb.expiresAt);
+    assertEquals(2, c.stats().get("entries"));
+    assertEquals(30L, c.stats().get("bytes"));
+  }
+
+  @Test
+  public void replaysHandWrittenJournal() throws IOException {
+    for (String k : new String[]{"k1", "k2", "k3"}) write(new File(dir, k), "xxxx");
+    write(new File(dir, "journal"),
+        "P k1 4 0 - -\n"
+            + "P k2 4 0 - -\n"
+            + "P k3 4 0 - -\n"
+            + "P k4 4 0 - -\n"
+            + "V k2 7 etag -\n"
+            + "R k4\n"
+            + "A k1\n"
+            + "garbage\n");
+    // Room for two: V and A touch their entry, so replay order is k3, k2, k1 and k3 is evicted on load
+    DiskLruCache c = DiskLruCache.open(dir, 1 << 20, 2);
+    assertNull(c.validators("k1")); // first use loads the journal
+    assertEquals(2, c.stats().get("entries"));
+    assertEquals(8L, c.stats().get("bytes"));
+    assertNull(c.getBytes("k3"));
+    assertFalse(new File(dir, "k3").exists());
+    assertNotNull(c.getBytes("k1"));
+    assertNotNull(c.getBytes("k2"));
+    assertEquals(7L, c.validators("k2").expiresAt);
+    assertEquals("etag", c.validators("k2").etag);
+    assertNull(c.getBytes("k4"));
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsedByEntriesAndBytes() {
+    DiskLruCache c = DiskLruCache.open(dir, 100, 3);
+    c.putBytes("a", bytes(10, 1), null);
+    c.putBytes("b", bytes(10, 2), null);
+    c.putBytes("c", bytes(10, 3), null);
+    c.getBytes("a"); // b is now the least recently used
+    c.putBytes("d", bytes(10, 4), null);
+    assertNull(c.getBytes("b"));
+    assertNotNull(c.getBytes("a"));
+
+    // Byte bound: LRU order is now c, d, a; a 75-byte entry pushes out only c
+    c.putBytes("big", bytes(75, 5), null);
+    assertEquals(95L, c.stats().get("bytes"));
+    assertNull(c.getBytes("c"));
+    assertNotNull(c.getBytes("d"));
+    assertNotNull(c.getBytes("big"));
+    // Larger than the whole cache: never stored
+    c.putBytes("huge", bytes(101, 6), null);
+    assertNull(c.getBytes("huge"));
+    assertFalse(new File(dir, "huge").exists());
+
+    // Order and totals survive a restart
+    long total = (Long) c.stats().get("bytes");
+    c = reopen(c, 100, 3);
+    assertNotNull(c.getBytes("big"));
+    assertEquals(total, c.stats().get("bytes"));
+  }
+
+  @Test
+  public void deletesStrayFilesOnFirstUse() throws IOException {
+    DiskLruCache c = DiskLruCache.open(dir, 1 << 20, 100);
+    c.putBytes("keep", bytes(3, 1), null);
+    c.close();
+    write(new File(dir, "old-icon.png"), "png");
+    write(new File(dir, "keep.17.tmp"), "partial");
+    c = DiskLruCache.open(dir, 1 << 20, 100);
+    assertNull(c.validators("keep")); // first use loads the journal and scans once
+    assertEquals(1, c.stats().get("entries"));
+    assertFalse(new File(dir, "old-icon.png").exists());
+    assertFalse(new File(dir, "keep.17.tmp").exists());
+    assertTrue(new File(dir, "keep").exists());
+    assertTrue(new File(dir, "journal").exists());
+  }
+
+  @Test
+  public void missingFileIsDroppedOnRead() {
+    DiskLruCache c = DiskLruCache.open(dir, 1 << 20, 100);
+    c.putBytes("a", bytes(3, 1), null);
+    assertTrue(new File(dir, "a").delete());
+    assertNull(c.getBytes("a"));
+    assertEquals(0, c.stats().get("entries"));
+  }
+}
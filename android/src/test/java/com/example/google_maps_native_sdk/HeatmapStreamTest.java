@@ -0,0 +1,134 @@
+package com.example.google_maps_native_sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/** Windowed aggregation, expiry, dirty tracking and tile rendering of streaming heatmaps. */
+public class HeatmapStreamTest {
+  private static final long T0 = 1_700_000_000_000L;
+
+  private static double[] ev(double lat, double lng, double w, long ts) {
+    return new double[]{lat, lng, w, ts};
+  }
+
+  private static Set<Long> asSet(long[] cells) {
+    Set<Long> s = new HashSet<>();
+    for (long c : cells) s.add(c);
+    return s;
+  }
+
+  private static double total(HeatmapStream s, int z, int x, int y) {
+    HeatmapStream.Cells c = s.cellsIn(z, x, y, 0);
+    double sum = 0;
+    for (int i = 0; i < c.size; i++) sum += c.weights[i];
+    return sum;
+  }
+
+  @Test
+  public void sumsEventsPerCell() {
+    HeatmapStream s = new HeatmapStream(60_000, 6, 20);
+    assertEquals(3, s.add(new double[]{
+        -23.5, -46.6, 1, T0,
+        -23.5, -46.6, 2, T0,
+        -23.6, -46.7, 4, T0}, T0));
+    assertEquals(2, s.takeDirty().length);
+    assertEquals(7.0, total(s, 0, 0, 0), 1e-9);
+    // The densest pixel at low zoom holds every event; at cell resolution only the shared cell
+    assertEquals(7.0, s.maxPerPixel(0), 1e-9);
+    assertEquals(4.0, s.maxPerPixel(14), 1e-9);
+    assertEquals(0, s.takeDirty().length);
+  }
+
+  @Test
+  public void expiresBucketsAsTheWindowMoves() {
+    HeatmapStream s = new HeatmapStream(60_000, 6, 20); // 10 s buckets
+    s.add(ev(10, 10, 1, T0), T0);
+    s.add(ev(20, 20, 1, T0 + 30_000), T0 + 30_000);
+    s.takeDirty();
+
+    s.advance(T0 + 59_000);
+    assertEquals(0, s.takeDirty().length);
+    assertEquals(2.0, total(s, 0, 0, 0), 1e-9);
+
+    s.advance(T0 + 70_000); // the first event's bucket left the window
+    long[] dirty = s.takeDirty();
+    assertEquals(1, dirty.length);
+    assertEquals(1.0, total(s, 0, 0, 0), 1e-9);
+
+    s.advance(T0 + 10 * 60_000); // long jump: everything expires at once
+    assertTrue(s.isEmpty());
+    assertEquals(1, s.takeDirty().length);
+  }
+
+  @Test
+  public void dropsEventsOlderThanTheWindowAndBadWeights() {
+    HeatmapStream s = new HeatmapStream(60_000, 6, 20);
+    s.advance(T0);
+    double[] batch = new double[]{
+        1, 1, 1, T0 - 120_000,  // too old
+        1, 1, 0, T0,            // no weight
+        1, 1, Double.NaN, T0,
+        1, 1, 1, T0 + 5_000};   // future: counted as now
+    assertEquals(1, s.add(batch, T0));
+    assertEquals(3L, s.stats().get("dropped"));
+    s.advance(T0 + 60_000);
+    assertTrue(s.isEmpty());
+  }
+
+  @Test
+  public void onlyTouchedCellsBecomeDirty() {
+    HeatmapStream s = new HeatmapStream(60_000, 6, 20);
+    s.add(new double[]{0, 0, 1, T0, 45, 90, 1, T0}, T0);
+    Set<Long> first = asSet(s.takeDirty());
+    s.add(ev(45, 90, 1, T0 + 1), T0 + 1);
+    Set<Long> second = asSet(s.takeDirty());
+    assertEquals(1, second.size());
+    assertTrue(first.containsAll(second));
+  }
+
+  @Test
+  public void cellsInFindsNeighboursAcrossTileEdgesAndTheAntimeridian() {
+    HeatmapStream s = new HeatmapStream(60_000, 6, 20);
+    s.add(ev(0.001, 179.9999, 1, T0), T0);
+    int z = 10;
+    int last = (1 << z) - 1;
+    // The event sits in the last column; tile x=0 sees it through its margin only
+    assertEquals(1.0, total(s, z, last, (1 << z) / 2 - 1), 1e-9);
+    assertEquals(0, s.cellsIn(z, 0, (1 << z) / 2 - 1, 0).size);
+    HeatmapStream.Cells wrapped = s.cellsIn(z, 0, (1 << z) / 2 - 1, 20);
+    assertEquals(1, wrapped.size);
+    assertTrue(HeatmapStream.cellX(wrapped.keys[0]) < 0); // unwrapped to the left of tile 0
+  }
+
+  @Test
+  public void rendersOnlyNearData() {
+    HeatmapStream s = new HeatmapStream(60_000, 6, 21);
+    s.add(ev(-23.55, -46.63, 5, T0), T0);
+    int z = 14;
+    int x = (int) (PolylineLod.mercatorX(-46.63) * (1 << z));
+    int y = (int) (PolylineLod.mercatorY(-23.55) * (1 << z));
+    int[] colors = HeatmapRaster.defaultColorMap(1.0);
+    int[] tile = HeatmapRaster.render(x, y, s.cellsIn(z, x, y, 20), s.cellPx(z), 20, s.maxPerPixel(z), colors);
+    assertNotNull(tile);
+    int painted = 0;
+    for (int p : tile) if ((p >>> 24) != 0) painted++;
+    assertTrue(painted > 50 && painted < 2000);
+    assertNull(HeatmapRaster.render(x + 3, y, s.cellsIn(z, x + 3, y, 20), s.cellPx(z), 20, s.maxPerPixel(z), colors));
+  }
+
+  @Test
+  public void colorMapFadesInAndHitsTheLastColor() {
+    int[] map = HeatmapRaster.colorMap(new int[]{0xff00ff00, 0xffff0000}, new float[]{0.5f, 1f}, 0.5);
+    assertEquals(0, map[0] >>> 24);
+    assertEquals(0xffff0000 & 0xffffff, map[255] & 0xffffff);
+    assertEquals(128, map[255] >>> 24);
+    assertTrue((map[64] >>> 24) < (map[127] >>> 24));
+  }
+}
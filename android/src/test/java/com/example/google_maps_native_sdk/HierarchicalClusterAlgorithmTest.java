@@ -0,0 +1,141 @@
+package com.example.google_maps_native_sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import com.google.maps.android.clustering.Cluster;
+import com.google.maps.android.clustering.ClusterItem;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/** Per-zoom cluster hierarchy: totals, incremental updates and viewport queries. */
+public class HierarchicalClusterAlgorithmTest {
+  private static final class Item implements ClusterItem {
+    LatLng position;
+
+    Item(double lat, double lng) { position = new LatLng(lat, lng); }
+
+    @Override public LatLng getPosition() { return position; }
+    @Override public String getTitle() { return null; }
+    @Override public String getSnippet() { return null; }
+    @Override public Float getZIndex() { return null; }
+  }
+
+  private static List<Item> randomItems(int n, long seed) {
+    Random r = new Random(seed);
+    List<Item> out = new ArrayList<>();
+    for (int i = 0; i < n; i++) out.add(new Item(-23.8 + r.nextDouble() * 0.6, -46.9 + r.nextDouble() * 0.6));
+    return out;
+  }
+
+  private static int total(Set<? extends Cluster<Item>> clusters) {
+    int n = 0;
+    for (Cluster<Item> c : clusters) {
+      assertEquals(c.getSize(), c.getItems().size());
+      n += c.getSize();
+    }
+    return n;
+  }
+
+  // cluster size by rounded position, for comparing two indexes
+  private static Map<String, Integer> signature(Set<? extends Cluster<Item>> clusters) {
+    Map<String, Integer> out = new HashMap<>();
+    for (Cluster<Item> c : clusters) {
+      String k = Math.round(c.getPosition().latitude * 1e6) + ":" + Math.round(c.getPosition().longitude * 1e6);
+      out.merge(k, c.getSize(), Integer::sum);
+    }
+    return out;
+  }
+
+  @Test
+  public void everyZoomAccountsForEveryItem() {
+    HierarchicalClusterAlgorithm<Item> algo = new HierarchicalClusterAlgorithm<>(100, 18);
+    algo.addItems(randomItems(5000, 1));
+    int previous = 0;
+    for (int z = 0; z <= 19; z++) {
+      Set<? extends Cluster<Item>> clusters = algo.getClusters(z + 0.5f);
+      assertEquals(5000, total(clusters));
+      assertTrue(clusters.size() >= previous); // finer zooms never merge more
+      previous = clusters.size();
+    }
+    assertEquals(5000, algo.getClusters(19).size()); // above maxZoom: one per item
+  }
+
+  @Test
+  public void incrementalUpdatesMatchAFreshBuild() {
+    List<Item> items = randomItems(3000, 2);
+    HierarchicalClusterAlgorithm<Item> live = new HierarchicalClusterAlgorithm<>(80, 16);
+    live.addItems(items);
+    Random r = new Random(3);
+    List<Item> kept = new ArrayList<>(items);
+    for (int i = 0; i < 500; i++) {
+      Item it = kept.remove(r.nextInt(kept.size()));
+      live.removeItem(it);
+    }
+    for (int i = 0; i < 500; i++) {
+      Item it = kept.get(r.nextInt(kept.size()));
+      it.position = new LatLng(-23.8 + r.nextDouble() * 0.6, -46.9 + r.nextDouble() * 0.6);
+      live.updateItem(it);
+    }
+    HierarchicalClusterAlgorithm<Item> fresh = new HierarchicalClusterAlgorithm<>(80, 16);
+    fresh.addItems(kept);
+    for (int z = 4; z <= 16; z += 3) {
+      Set<? extends Cluster<Item>> a = live.getClusters(z), b = fresh.getClusters(z);
+      assertEquals(kept.size(), total(a));
+      assertEquals(b.size(), a.size());
+      Map<String, Integer> sa = signature(a), sb = signature(b);
+      assertEquals(sb.keySet().size(), sa.keySet().size());
+      int same = 0;
+      for (Map.Entry<String, Integer> e : sb.entrySet()) if (e.getValue().equals(sa.get(e.getKey()))) same++;
+      // Centroids are sums: float rounding may move a few by a micro-degree
+      assertTrue(same >= sb.size() * 0.98);
+    }
+  }
+
+  @Test
+  public void viewportLimitsTheQuery() {
+    HierarchicalClusterAlgorithm<Item> algo = new HierarchicalClusterAlgorithm<>(60, 20);
+    algo.addItems(randomItems(2000, 4));
+    Item far = new Item(48.85, 2.35);
+    algo.addItem(far);
+    algo.setVisibleBounds(new LatLngBounds(new LatLng(-23.6, -46.7), new LatLng(-23.5, -46.6)));
+    Set<? extends Cluster<Item>> clusters = algo.getClusters(14);
+    int n = total(clusters);
+    assertTrue(n > 0 && n < 2000);
+    for (Cluster<Item> c : clusters) assertTrue(!c.getItems().contains(far));
+    algo.setVisibleBounds(null);
+    assertEquals(2001, total(algo.getClusters(14)));
+  }
+
+  @Test
+  public void viewportAcrossTheAntimeridian() {
+    HierarchicalClusterAlgorithm<Item> algo = new HierarchicalClusterAlgorithm<>(60, 20);
+    Item east = new Item(0, 179.99), west = new Item(0, -179.99), middle = new Item(0, 0);
+    algo.addItem(east);
+    algo.addItem(west);
+    algo.addItem(middle);
+    algo.setVisibleBounds(new LatLngBounds(new LatLng(-1, 179.5), new LatLng(1, -179.5)));
+    assertEquals(2, total(algo.getClusters(12)));
+  }
+
+  @Test
+  public void changingTheGridRebuildsTheHierarchy() {
+    HierarchicalClusterAlgorithm<Item> algo = new HierarchicalClusterAlgorithm<>(40, 18);
+    algo.addItems(randomItems(2000, 5));
+    int fine = algo.getClusters(10).size();
+    algo.setMaxDistanceBetweenClusteredItems(200);
+    int coarse = algo.getClusters(10).size();
+    assertTrue(coarse < fine);
+    assertEquals(2000, total(algo.getClusters(10)));
+    assertEquals(200, algo.getMaxDistanceBetweenClusteredItems());
+  }
+}
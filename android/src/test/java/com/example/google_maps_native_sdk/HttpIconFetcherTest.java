@@ -0,0 +1,178 @@
+package com.example.google_maps_native_sdk;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/** Conditional icon fetches against an in-process HTTP server. */
+public class HttpIconFetcherTest {
+  private static final byte[] V1 = "icon-v1".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] V2 = "icon-v2".getBytes(StandardCharsets.UTF_8);
+  private static final String LAST_MODIFIED = "Mon, 01 Jan 2024 00:00:00 GMT";
+
+  private HttpServer server;
+  private String base;
+  private final AtomicReference<byte[]> body = new AtomicReference<>(V1);
+  private final AtomicReference<String> etag = new AtomicReference<>("\"v1\"");
+  private final AtomicReference<String> cacheControl = new AtomicReference<>("max-age=120");
+  private final AtomicReference<String> lastIfNoneMatch = new AtomicReference<>();
+  private final AtomicReference<String> lastIfModifiedSince = new AtomicReference<>();
+  private final AtomicInteger bodiesSent = new AtomicInteger();
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/icon.png", this::handleIcon);
+    server.createContext("/lm.png", this::handleLastModified);
+    server.start();
+    base = "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+  }
+
+  // ETag-validated resource; 304 when If-None-Match matches the current tag
+  private void handleIcon(HttpExchange ex) throws IOException {
+    String inm = ex.getRequestHeaders().getFirst("If-None-Match");
+    lastIfNoneMatch.set(inm);
+    ex.getResponseHeaders().add("ETag", etag.get());
+    if (cacheControl.get() != null) ex.getResponseHeaders().add("Cache-Control", cacheControl.get());
+    if (etag.get().equals(inm)) {
+      ex.sendResponseHeaders(304, -1);
+      ex.close();
+      return;
+    }
+    send(ex, body.get());
+  }
+
+  // Last-Modified-validated resource without ETag
+  private void handleLastModified(HttpExchange ex) throws IOException {
+    String ims = ex.getRequestHeaders().getFirst("If-Modified-Since");
+    lastIfModifiedSince.set(ims);
+    ex.getResponseHeaders().add("Last-Modified", LAST_MODIFIED);
+    ex.getResponseHeaders().add("Cache-Control", "max-age=60");
+    if (LAST_MODIFIED.equals(ims)) {
+      ex.sendResponseHeaders(304, -1);
+      ex.close();
+      return;
+    }
+    send(ex, V1);
+  }
+
+  private void send(HttpExchange ex, byte[] data) throws IOException {
+    bodiesSent.incrementAndGet();
+    ex.sendResponseHeaders(200, data.length);
+    try (OutputStream os = ex.getResponseBody()) {
+      os.write(data);
+    }
+  }
+
+  @Test
+  public void firstFetchReturnsBodyValidatorsAndMaxAge() throws IOException {
+    long now = 1_000_000L;
+    HttpIconFetcher.Response res = HttpIconFetcher.fetch(base + "/icon.png", null, now);
+    assertFalse(res.notModified);
+    assertArrayEquals(V1, res.body);
+    assertEquals("\"v1\"", res.validators.etag);
+    assertEquals(now + 120_000L, res.validators.expiresAt);
+    assertFalse(res.validators.noStore);
+    assertNull(lastIfNoneMatch.get());
+  }
+
+  @Test
+  public void unchangedIconRevalidatesWith304() throws IOException {
+    HttpIconFetcher.Response first = HttpIconFetcher.fetch(base + "/icon.png", null, 0L);
+    cacheControl.set("max-age=300");
+    long later = 500_000L;
+    HttpIconFetcher.Response res = HttpIconFetcher.fetch(base + "/icon.png", first.validators, later);
+    assertTrue(res.notModified);
+    assertNull(res.body);
+    assertEquals("\"v1\"", lastIfNoneMatch.get());
+    assertEquals("\"v1\"", res.validators.etag);
+    assertEquals(later + 300_000L, res.validators.expiresAt);
+    assertEquals(1, bodiesSent.get());
+  }
+
+  @Test
+  public void changedIconReturnsNewBodyAndEtag() throws IOException {
+    HttpIconFetcher.Response first = HttpIconFetcher.fetch(base + "/icon.png", null, 0L);
+    body.set(V2);
+    etag.set("\"v2\"");
+    HttpIconFetcher.Response res = HttpIconFetcher.fetch(base + "/icon.png", first.validators, 0L);
+    assertFalse(res.notModified);
+    assertArrayEquals(V2, res.body);
+    assertEquals("\"v2\"", res.validators.etag);
+    assertEquals("\"v1\"", lastIfNoneMatch.get());
+  }
+
+  @Test
+  public void lastModifiedIsSentAsIfModifiedSince() throws IOException {
+    HttpIconFetcher.Response first = HttpIconFetcher.fetch(base + "/lm.png", null, 0L);
+    assertNull(first.validators.etag);
+    assertEquals(LAST_MODIFIED, first.validators.lastModified);
+    assertTrue(first.validators.canRevalidate());
+    HttpIconFetcher.Response res = HttpIconFetcher.fetch(base + "/lm.png", first.validators, 10_000L);
+    assertTrue(res.notModified);
+    assertEquals(LAST_MODIFIED, lastIfModifiedSince.get());
+    assertEquals(LAST_MODIFIED, res.validators.lastModified);
+    assertEquals(70_000L, res.validators.expiresAt);
+  }
+
+  @Test
+  public void noStoreAndNoCacheAreExpiredImmediately() throws IOException {
+    cacheControl.set("no-store");
+    HttpIconFetcher.Response res = HttpIconFetcher.fetch(base + "/icon.png", null, 42L);
+    assertTrue(res.validators.noStore);
+    assertEquals(42L, res.validators.expiresAt);
+
+    cacheControl.set("no-cache");
+    res = HttpIconFetcher.fetch(base + "/icon.png", null, 42L);
+    assertFalse(res.validators.noStore);
+    assertEquals(42L, res.validators.expiresAt);
+  }
+
+  @Test(expected = IOException.class)
+  public void httpErrorsThrow() throws IOException {
+    HttpIconFetcher.fetch(base + "/missing.png", null, 0L);
+  }
+
+  @Test
+  public void parsesMaxAgeDirective() {
+    assertEquals(60L, HttpIconFetcher.parseMaxAge("public, max-age=60"));
+    assertEquals(5L, HttpIconFetcher.parseMaxAge("MAX-AGE=\"5\", must-revalidate"));
+    assertEquals(-1L, HttpIconFetcher.parseMaxAge("public"));
+    assertEquals(-1L, HttpIconFetcher.parseMaxAge("max-age=abc"));
+  }
+
+  @Test
+  public void freshnessFallsBackToExpiresThenHeuristic() {
+    long dateMs = 1_704_067_200_000L; // Mon, 01 Jan 2024 00:00:00 GMT
+    assertEquals(3_600_000L, HttpIconFetcher.freshnessMs(null,
+        "Mon, 01 Jan 2024 01:00:00 GMT", "Mon, 01 Jan 2024 00:00:00 GMT", null, 0L));
+    // 10 days since Last-Modified -> 1 day of freshness (the cap)
+    assertEquals(24L * 3_600_000L, HttpIconFetcher.freshnessMs(null, null,
+        "Thu, 11 Jan 2024 00:00:00 GMT", LAST_MODIFIED, 0L));
+    // 1 day since Last-Modified -> 10% of it
+    assertEquals(8_640_000L, HttpIconFetcher.freshnessMs(null, null, null, LAST_MODIFIED, dateMs + 86_400_000L));
+    assertEquals(HttpIconFetcher.DEFAULT_TTL_MS, HttpIconFetcher.freshnessMs(null, null, null, null, 0L));
+  }
+}
@@ -0,0 +1,108 @@
+package com.example.google_maps_native_sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/** Coalescing, cancel and priority order of the icon loader (one worker held by a latch). */
+public class IconLoaderTest {
+  private final CountDownLatch gate = new CountDownLatch(1);
+  private final CountDownLatch blocked = new CountDownLatch(1);
+  private final List<String> loaded = Collections.synchronizedList(new ArrayList<>());
+  private final List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+  private final List<List<String>> deliveredOwners = Collections.synchronizedList(new ArrayList<>());
+
+  // Loads run on one thread; "block" holds it until the gate opens so the rest stay queued
+  private final IconLoader loader = new IconLoader((url, dp) -> {
+    if (url.equals("block")) {
+      blocked.countDown();
+      gate.await(10, TimeUnit.SECONDS);
+    }
+    loaded.add(url);
+    return null;
+  }, (key, bitmap, owners) -> {
+    delivered.add(key);
+    deliveredOwners.add(owners);
+  }, Runnable::run, 1);
+
+  @After
+  public void tearDown() {
+    loader.shutdown();
+  }
+
+  private void holdWorker() throws InterruptedException {
+    loader.request("blocker", "block", "block", 48, IconLoader.PRIORITY_VISIBLE);
+    assertTrue(blocked.await(10, TimeUnit.SECONDS));
+  }
+
+  private void releaseAndWait(int expectedLoads) throws InterruptedException {
+    gate.countDown();
+    long deadline = System.currentTimeMillis() + 10_000L;
+    while (delivered.size() < expectedLoads) {
+      if (System.currentTimeMillis() > deadline) throw new AssertionError("timed out: " + delivered);
+      Thread.sleep(5);
+    }
+  }
+
+  @Test
+  public void ownersOfOneKeyShareOneLoad() throws Exception {
+    holdWorker();
+    for (String owner : Arrays.asList("a", "b", "c")) {
+      loader.request(owner, "k", "k", 48, IconLoader.PRIORITY_OFFSCREEN);
+    }
+    // Asking again for the same key is not a new request
+    loader.request("a", "k", "k", 48, IconLoader.PRIORITY_OFFSCREEN);
+    releaseAndWait(2);
+    assertEquals(Arrays.asList("block", "k"), loaded);
+    assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), new HashSet<>(deliveredOwners.get(1)));
+    Map<String, Object> stats = loader.stats();
+    assertEquals(2L, stats.get("dedupeHits"));
+    assertEquals(2L, stats.get("loads"));
+  }
+
+  @Test
+  public void cancellingTheLastOwnerDropsTheQueuedLoad() throws Exception {
+    holdWorker();
+    loader.request("a", "k1", "k1", 48, IconLoader.PRIORITY_OFFSCREEN);
+    loader.request("b", "k1", "k1", 48, IconLoader.PRIORITY_OFFSCREEN);
+    loader.request("c", "k2", "k2", 48, IconLoader.PRIORITY_OFFSCREEN);
+    loader.cancel("a"); // b still waits for k1
+    loader.cancel("c");
+    // Switching icon detaches the owner from its previous key
+    loader.request("d", "k3", "k3", 48, IconLoader.PRIORITY_OFFSCREEN);
+    loader.request("d", "k4", "k4", 48, IconLoader.PRIORITY_OFFSCREEN);
+    releaseAndWait(3);
+    Thread.sleep(50);
+    assertEquals(Arrays.asList("block", "k1", "k4"), loaded);
+    assertEquals(Collections.singletonList("b"), deliveredOwners.get(1));
+    assertEquals(2L, loader.stats().get("cancelled"));
+  }
+
+  @Test
+  public void visibleLoadsJumpTheQueue() throws Exception {
+    holdWorker();
+    loader.request("o1", "k1", "k1", 48, IconLoader.PRIORITY_OFFSCREEN);
+    loader.request("o2", "k2", "k2", 48, IconLoader.PRIORITY_OFFSCREEN);
+    loader.request("o3", "k3", "k3", 48, IconLoader.PRIORITY_OFFSCREEN);
+    loader.request("o4", "k4", "k4", 48, IconLoader.PRIORITY_OFFSCREEN);
+    // Camera moved: o3 is now on screen
+    loader.reprioritize(owner -> owner.equals("o3"));
+    // A visible marker joining a queued load raises its priority
+    loader.request("o5", "k2", "k2", 48, IconLoader.PRIORITY_VISIBLE);
+    assertEquals(4, loader.stats().get("queueDepth"));
+    releaseAndWait(5);
+    // Same priority: request order
+    assertEquals(Arrays.asList("block", "k2", "k3", "k1", "k4"), loaded);
+  }
+}
@@ -0,0 +1,76 @@
+package com.example.google_maps_native_sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/** Viewport queries of the marker spatial index against a linear scan. */
+public class MarkerGridTest {
+  private static Set<String> scan(List<double[]> pts, double s, double w, double n, double e) {
+    Set<String> out = new HashSet<>();
+    for (int i = 0; i < pts.size(); i++) {
+      double[] p = pts.get(i);
+      if (MarkerGrid.inside(p[0], p[1], s, w, n, e)) out.add("m" + i);
+    }
+    return out;
+  }
+
+  @Test
+  public void queriesMatchALinearScan() {
+    Random r = new Random(7);
+    MarkerGrid grid = new MarkerGrid(16);
+    List<double[]> pts = new ArrayList<>();
+    for (int i = 0; i < 20_000; i++) {
+      double[] p = {-24 + r.nextDouble(), -47 + r.nextDouble()};
+      pts.add(p);
+      grid.put("m" + i, p[0], p[1]);
+    }
+    // Move a quarter of them, some across cells
+    for (int i = 0; i < 5_000; i++) {
+      int k = r.nextInt(pts.size());
+      double[] p = {-24 + r.nextDouble(), -47 + r.nextDouble()};
+      pts.set(k, p);
+      grid.put("m" + k, p[0], p[1]);
+    }
+    double[][] boxes = {
+        {-23.6, -46.7, -23.5, -46.6},   // street level: probes cells
+        {-24.0, -47.0, -23.0, -46.0},   // everything
+        {-30, -60, 0, -30},             // zoomed out: scans occupied cells
+    };
+    for (double[] b : boxes) {
+      assertEquals(scan(pts, b[0], b[1], b[2], b[3]), new HashSet<>(grid.query(b[0], b[1], b[2], b[3])));
+    }
+  }
+
+  @Test
+  public void removeAndClear() {
+    MarkerGrid grid = new MarkerGrid(14);
+    grid.put("a", 1, 1);
+    grid.put("b", 1.0001, 1.0001);
+    assertTrue(grid.remove("a"));
+    assertFalse(grid.remove("a"));
+    assertEquals(1, grid.size());
+    assertEquals(1, grid.query(0, 0, 2, 2).size());
+    grid.clear();
+    assertEquals(0, grid.query(-90, -180, 90, 180).size());
+  }
+
+  @Test
+  public void boxAcrossTheAntimeridian() {
+    MarkerGrid grid = new MarkerGrid(12);
+    grid.put("east", 0, 179.9);
+    grid.put("west", 0, -179.9);
+    grid.put("middle", 0, 0);
+    Set<String> got = new HashSet<>(grid.query(-1, 179, 1, -179));
+    assertEquals(2, got.size());
+    assertTrue(got.contains("east") && got.contains("west"));
+  }
+}
@@ -0,0 +1,76 @@
+package com.example.google_maps_native_sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/** Constant-speed interpolation and shortest-arc rotation of marker motion. */
+public class MarkerMotionTest {
+  private static final double EPS = 1e-9;
+
+  @Test
+  public void endpointsAndConstantSpeedAcrossLegs() {
+    // Short leg then a leg three times as long
+    double[] path = {0, 0, 0, 0.001, 0, 0.004};
+    MarkerMotion m = new MarkerMotion(path, false, 0, Double.NaN, false);
+    m.positionAt(0);
+    assertEquals(0, m.out[1], EPS);
+    m.positionAt(0.25);
+    assertEquals(0.001, m.out[1], 1e-7);
+    m.positionAt(0.625);
+    assertEquals(0.0025, m.out[1], 1e-7);
+    m.positionAt(1);
+    assertEquals(0.004, m.out[1], EPS);
+    assertFalse(m.rotates());
+  }
+
+  @Test
+  public void linearCrossesTheAntimeridianTheShortWay() {
+    MarkerMotion m = new MarkerMotion(new double[]{10, 179.5, 10, -179.5}, false, 0, Double.NaN, false);
+    m.positionAt(0.5);
+    assertEquals(180.0, Math.abs(m.out[1]), 1e-9);
+    m.positionAt(0.75);
+    assertEquals(-179.75, m.out[1], 1e-9);
+  }
+
+  @Test
+  public void geodesicFollowsTheGreatCircle() {
+    // Equator to the pole along a meridian: halfway is 45 degrees
+    MarkerMotion m = new MarkerMotion(new double[]{0, 30, 90, 30}, true, 0, Double.NaN, false);
+    m.positionAt(0.5);
+    assertEquals(45, m.out[0], 1e-9);
+    // High-latitude east-west leg bulges towards the pole, unlike lat/lng interpolation
+    MarkerMotion g = new MarkerMotion(new double[]{60, -30, 60, 30}, true, 0, Double.NaN, false);
+    g.positionAt(0.5);
+    assertTrue(g.out[0] > 60.5);
+    assertEquals(0, g.out[1], 1e-9);
+  }
+
+  @Test
+  public void rotationTakesTheShortArc() {
+    MarkerMotion m = new MarkerMotion(new double[]{0, 0, 0, 1}, false, 350, 10, false);
+    assertTrue(m.rotates());
+    assertEquals(0, m.rotationAt(0.5), EPS);
+    assertEquals(355, m.rotationAt(0.25), EPS);
+    assertEquals(10, m.rotationAt(1), EPS);
+    assertEquals(-20, MarkerMotion.shortestArc(10, 350), EPS);
+    assertEquals(180, MarkerMotion.shortestArc(0, 180), EPS);
+  }
+
+  @Test
+  public void rotationAlongPathTurnsIntoEachLeg() {
+    // East, then north
+    double[] path = {0, 0, 0, 0.01, 0.01, 0.01};
+    MarkerMotion m = new MarkerMotion(path, false, 0, Double.NaN, true);
+    m.positionAt(0.25);
+    assertEquals(90, m.rotationAt(0.25), 1e-6);
+    m.positionAt(0.999);
+    assertEquals(0, Math.min(m.rotationAt(0.999), 360 - m.rotationAt(0.999)), 1e-6);
+    // Just past the corner the heading is still turning from east to north
+    m.positionAt(0.51);
+    double r = m.rotationAt(0.51);
+    assertTrue(r > 0 && r < 90);
+  }
+}
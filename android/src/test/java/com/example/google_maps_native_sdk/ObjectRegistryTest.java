@@ -0,0 +1,82 @@
+package com.example.google_maps_native_sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/** Both directions of the object registry, tagged and untagged. */
+public class ObjectRegistryTest {
+  private static final class Tagged {
+    Object tag;
+  }
+
+  private static ObjectRegistry<Tagged> tagged() {
+    return new ObjectRegistry<>(new ObjectRegistry.Tags<Tagged>() {
+      @Override public void set(Tagged obj, Object tag) { obj.tag = tag; }
+      @Override public Object get(Tagged obj) { return obj.tag; }
+    });
+  }
+
+  @Test
+  public void resolvesTaggedObjectsBothWays() {
+    ObjectRegistry<Tagged> reg = tagged();
+    Tagged a = new Tagged(), b = new Tagged();
+    reg.put("a", a);
+    reg.put("b", b);
+    assertSame(a, reg.get("a"));
+    assertEquals("b", reg.idOf(b));
+    assertEquals(2, reg.size());
+
+    assertSame(a, reg.remove("a"));
+    assertNull(reg.idOf(a));
+    assertNull(a.tag);
+    assertFalse(reg.containsKey("a"));
+  }
+
+  @Test
+  public void linkedObjectsResolveWithoutBeingListed() {
+    ObjectRegistry<Tagged> reg = tagged();
+    Tagged line = new Tagged(), chunk = new Tagged();
+    reg.put("route", line);
+    reg.link("route", chunk);
+    assertEquals("route", reg.idOf(chunk));
+    assertEquals(1, reg.size());
+
+    // A replaced object keeps its id until removed from the map by its owner
+    Tagged next = new Tagged();
+    assertSame(line, reg.put("route", next));
+    assertEquals("route", reg.idOf(line));
+    assertEquals("route", reg.idOf(next));
+
+    reg.clear();
+    assertTrue(reg.isEmpty());
+    assertNull(reg.idOf(next));
+  }
+
+  @Test
+  public void foreignTagsAreNotIds() {
+    ObjectRegistry<Tagged> reg = tagged();
+    Tagged t = new Tagged();
+    t.tag = 42;
+    assertNull(reg.idOf(t));
+    assertNull(reg.idOf(null));
+  }
+
+  @Test
+  public void untaggedObjectsUseTheReverseMap() {
+    ObjectRegistry<String> reg = new ObjectRegistry<>(null);
+    reg.put("x", "overlay-1");
+    reg.put("y", "overlay-2");
+    assertEquals("x", reg.idOf("overlay-1"));
+    reg.remove("x");
+    assertNull(reg.idOf("overlay-1"));
+    assertEquals("y", reg.idOf("overlay-2"));
+    reg.clear();
+    assertNull(reg.idOf("overlay-2"));
+    assertEquals(0, reg.keySet().size());
+  }
+}
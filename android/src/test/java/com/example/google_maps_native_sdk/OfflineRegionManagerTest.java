@@ -0,0 +1,226 @@
+package com.example.google_maps_native_sdk;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Region downloads against an in-process stand-in tile server. */
+public class OfflineRegionManagerTest {
+  private HttpServer server;
+  private String template;
+  private File dir;
+  private OfflineRegionManager manager;
+  private final BlockingQueue<Map<String, Object>> events = new LinkedBlockingQueue<>();
+  private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+  private volatile int failZoom = -1;
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/tiles/", this::handleTile);
+    server.setExecutor(java.util.concurrent.Executors.newFixedThreadPool(8));
+    server.start();
+    template = "http://127.0.0.1:" + server.getAddress().getPort() + "/tiles/{z}/{x}/{y}.png";
+    dir = Files.createTempDirectory("offline").toFile();
+    manager = newManager();
+  }
+
+  @After
+  public void tearDown() {
+    manager.shutdown();
+    server.stop(0);
+    File[] files = dir.listFiles();
+    if (files != null) for (File f : files) f.delete();
+    dir.delete();
+  }
+
+  private OfflineRegionManager newManager() {
+    return new OfflineRegionManager(dir, OfflineRegionManager.DEFAULT_MAX_TILES, events::add);
+  }
+
+  // /tiles/z/x/y.png -> "tile z/x/y"; z2/0/0 has no tile; tiles at failZoom answer 500
+  private void handleTile(HttpExchange ex) throws IOException {
+    String path = ex.getRequestURI().getPath().substring("/tiles/".length()).replace(".png", "");
+    requests.computeIfAbsent(path, k -> new AtomicInteger()).incrementAndGet();
+    int z = Integer.parseInt(path.substring(0, path.indexOf('/')));
+    if (z == failZoom || "2/0/0".equals(path)) {
+      ex.sendResponseHeaders(z == failZoom ? 500 : 404, -1);
+      ex.close();
+      return;
+    }
+    byte[] body = tile(path);
+    ex.sendResponseHeaders(200, body.length);
+    try (OutputStream os = ex.getResponseBody()) {
+      os.write(body);
+    }
+  }
+
+  private static byte[] tile(String path) {
+    return ("tile " + path).getBytes(StandardCharsets.UTF_8);
+  }
+
+  private Map<String, Object> awaitStatus(String status) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 30_000L;
+    while (System.currentTimeMillis() < deadline) {
+      Map<String, Object> e = events.poll(1, TimeUnit.SECONDS);
+      if (e != null && status.equals(e.get("status"))) return e;
+    }
+    throw new AssertionError("timed out waiting for " + status);
+  }
+
+  private Map<String, Object> create(String id) throws IOException {
+    return manager.create(id, "Test", template, -10, -10, 10, 10, 0, 4, 3);
+  }
+
+  @Test
+  public void downloadsRegionIntoArchive() throws Exception {
+    Map<String, Object> created = create("city");
+    long total = (Long) created.get("total");
+    assertEquals(OfflineRegionManager.countTiles(-10, -10, 10, 10, 0, 4), total);
+
+    Map<String, Object> done = awaitStatus(OfflineRegionManager.STATUS_COMPLETE);
+    assertEquals(total, done.get("completed"));
+    assertEquals(0L, done.get("failed"));
+    assertTrue((Long) done.get("bytes") > 0);
+    File archiveFile = new File((String) done.get("path"));
+    assertTrue(archiveFile.exists());
+    assertFalse(new File(dir, "city.data").exists());
+    assertFalse(new File(dir, "city.idx").exists());
+
+    PmTilesArchive archive = PmTilesArchive.open(archiveFile);
+    OfflineRegionManager.TileIterator it = new OfflineRegionManager.TileIterator(regionOf(created));
+    int count = 0;
+    for (int[] t = it.next(); t != null; t = it.next()) {
+      count++;
+      String path = t[0] + "/" + t[1] + "/" + t[2];
+      assertEquals(1, requests.get(path).get());
+      if ("2/0/0".equals(path)) {
+        assertNull(archive.getTile(t[0], t[1], t[2]));
+      } else {
+        assertArrayEquals(tile(path), archive.getTile(t[0], t[1], t[2]));
+      }
+    }
+    assertEquals(total, count);
+
+    // State survives a restart
+    OfflineRegionManager reopened = newManager();
+    List<Map<String, Object>> regions = reopened.list();
+    assertEquals(1, regions.size());
+    assertEquals(OfflineRegionManager.STATUS_COMPLETE, regions.get(0).get("status"));
+    reopened.shutdown();
+  }
+
+  @Test
+  public void resumeFetchesOnlyMissingTiles() throws Exception {
+    failZoom = 3;
+    create("trip");
+    Map<String, Object> partial = awaitStatus(OfflineRegionManager.STATUS_INCOMPLETE);
+    long failed = (Long) partial.get("failed");
+    assertTrue(failed > 0);
+    assertTrue(new File(dir, "trip.idx").exists());
+    assertFalse(manager.archiveFile("trip").exists());
+
+    failZoom = -1;
+    // A fresh manager (as after process death) resumes from the staging files
+    manager.shutdown();
+    manager = newManager();
+    assertEquals(OfflineRegionManager.STATUS_INCOMPLETE, manager.get("trip").get("status"));
+    assertTrue(manager.resume("trip", 2));
+    Map<String, Object> done = awaitStatus(OfflineRegionManager.STATUS_COMPLETE);
+    assertEquals(done.get("total"), done.get("completed"));
+    for (Map.Entry<String, AtomicInteger> e : requests.entrySet()) {
+      boolean retried = e.getKey().startsWith("3/");
+      // Completed tiles are never refetched; failed ones were tried 3 times, then once more
+      assertEquals(e.getKey(), retried ? 4 : 1, e.getValue().get());
+    }
+    assertNotNull(PmTilesArchive.open(manager.archiveFile("trip")).getTile(3, 3, 3));
+  }
+
+  @Test
+  public void deleteRemovesFiles() throws Exception {
+    create("gone");
+    awaitStatus(OfflineRegionManager.STATUS_COMPLETE);
+    assertTrue(manager.delete("gone"));
+    assertNull(manager.get("gone"));
+    assertFalse(manager.archiveFile("gone").exists());
+    assertFalse(new File(dir, "gone.region").exists());
+    assertFalse(manager.delete("gone"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsRegionsOverTheTileLimit() throws IOException {
+    manager.create("world", null, template, -80, -170, 80, 170, 0, 14, 4);
+  }
+
+  @Test
+  public void stagingDropsTornRecords() throws IOException {
+    File data = new File(dir, "s.data");
+    File idx = new File(dir, "s.idx");
+    OfflineRegionManager.Staging s = new OfflineRegionManager.Staging(data, idx);
+    s.append(1, new byte[]{1, 2, 3});
+    s.append(2, new byte[0]);
+    s.append(3, new byte[]{4, 5});
+    s.close();
+    // Crash mid-append: half an index record and bytes without a record
+    try (RandomAccessFile raf = new RandomAccessFile(idx, "rw")) {
+      raf.setLength(raf.length() - 7);
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(data, "rw")) {
+      raf.seek(raf.length());
+      raf.write(new byte[]{9, 9, 9});
+    }
+
+    s = new OfflineRegionManager.Staging(data, idx);
+    assertEquals(2, s.records.size());
+    assertTrue(s.has(1));
+    assertTrue(s.has(2));
+    assertFalse(s.has(3));
+    assertEquals(3, data.length());
+    s.append(3, new byte[]{4, 5});
+    assertEquals(5, data.length());
+    s.close();
+  }
+
+  @Test
+  public void tileRangesFollowWebMercator() {
+    assertEquals(0, OfflineRegionManager.lngToX(-180, 3));
+    assertEquals(7, OfflineRegionManager.lngToX(180, 3));
+    assertEquals(4, OfflineRegionManager.lngToX(0, 3));
+    assertEquals(0, OfflineRegionManager.latToY(85.1, 3));
+    assertEquals(7, OfflineRegionManager.latToY(-85.1, 3));
+    assertEquals(1, OfflineRegionManager.countTiles(0, 0, 0, 0, 0, 0));
+    assertEquals(1 + 4 + 16, OfflineRegionManager.countTiles(-85, -180, 85, 180, 0, 2));
+  }
+
+  private static OfflineRegionManager.Region regionOf(Map<String, Object> m) {
+    return new OfflineRegionManager.Region((String) m.get("id"), (String) m.get("name"), (String) m.get("template"),
+        (Double) m.get("minLat"), (Double) m.get("minLng"), (Double) m.get("maxLat"), (Double) m.get("maxLng"),
+        (Integer) m.get("minZoom"), (Integer) m.get("maxZoom"), 0L);
+  }
+}
@@ -0,0 +1,152 @@
+package com.example.google_maps_native_sdk;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/** Archives written by PmTilesWriter read back through PmTilesArchive. */
+public class PmTilesWriterTest {
+  private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', 0x0d, 0x0a, 0x1a, 0x0a};
+  private static final double[] WORLD = {-180, -85, 180, 85};
+
+  private File dir;
+  private RandomAccessFile staging;
+  private final List<PmTilesWriter.Source> sources = new ArrayList<>();
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("pmtiles").toFile();
+    staging = new RandomAccessFile(new File(dir, "staging.data"), "rw");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    staging.close();
+    File[] files = dir.listFiles();
+    if (files != null) for (File f : files) f.delete();
+    dir.delete();
+  }
+
+  private void stage(int z, int x, int y, byte[] data) throws IOException {
+    long offset = staging.length();
+    staging.seek(offset);
+    staging.write(data);
+    sources.add(new PmTilesWriter.Source(PmTilesArchive.tileId(z, x, y), offset, data.length));
+  }
+
+  private static byte[] png(String body) {
+    byte[] b = body.getBytes(StandardCharsets.UTF_8);
+    byte[] out = new byte[PNG.length + b.length];
+    System.arraycopy(PNG, 0, out, 0, PNG.length);
+    System.arraycopy(b, 0, out, PNG.length, b.length);
+    return out;
+  }
+
+  private File write(int minZoom, int maxZoom) throws IOException {
+    Collections.sort(sources, (a, b) -> Long.compare(a.tileId, b.tileId));
+    File out = new File(dir, "out.pmtiles");
+    PmTilesWriter.write(out, sources, staging, minZoom, maxZoom, WORLD);
+    return out;
+  }
+
+  @Test
+  public void roundTripsTilesAndDedupesRepeatedContent() throws IOException {
+    byte[] sea = png("sea");
+    Map<String, byte[]> expected = new HashMap<>();
+    for (int z = 0; z <= 3; z++) {
+      int n = 1 << z;
+      for (int x = 0; x < n; x++) {
+        for (int y = 0; y < n; y++) {
+          if (z == 3 && x == 7 && y == 7) continue; // missing tile
+          byte[] b = (z == 3 && x != 2) ? sea : png("t" + z + "/" + x + "/" + y);
+          stage(z, x, y, b);
+          expected.put(z + "/" + x + "/" + y, b);
+        }
+      }
+    }
+    stage(3, 7, 7, new byte[0]); // staged "no tile" marker is skipped
+    File out = write(0, 3);
+
+    PmTilesArchive archive = PmTilesArchive.open(out);
+    assertEquals(PmTilesArchive.TILE_TYPE_PNG, archive.tileType);
+    assertEquals(0, archive.minZoom);
+    assertEquals(3, archive.maxZoom);
+    assertEquals(-180.0, archive.minLon, 1e-6);
+    assertEquals(85.0, archive.maxLat, 1e-6);
+    for (Map.Entry<String, byte[]> e : expected.entrySet()) {
+      String[] p = e.getKey().split("/");
+      assertArrayEquals(e.getValue(), archive.getTile(Integer.parseInt(p[0]), Integer.parseInt(p[1]), Integer.parseInt(p[2])));
+    }
+    assertNull(archive.getTile(3, 7, 7));
+    assertNull(archive.getTile(4, 0, 0));
+
+    ByteBuffer h = header(out);
+    long addressed = h.getLong(72);
+    long contents = h.getLong(88);
+    assertEquals(expected.size(), addressed);
+    // 1 + 4 + 16 unique tiles below z3, the z3 column x=2 (8), and one shared "sea" tile
+    assertEquals(1 + 4 + 16 + 8 + 1, contents);
+    assertTrue(h.getLong(80) < addressed);
+  }
+
+  @Test
+  public void largeDirectoriesSpillIntoLeaves() throws IOException {
+    Random rnd = new Random(7);
+    Map<Long, int[]> picked = new HashMap<>();
+    while (picked.size() < 20000) {
+      int x = rnd.nextInt(1 << 12);
+      int y = rnd.nextInt(1 << 12);
+      picked.put(PmTilesArchive.tileId(12, x, y), new int[]{x, y});
+    }
+    Map<Long, byte[]> data = new HashMap<>();
+    for (Map.Entry<Long, int[]> e : picked.entrySet()) {
+      int[] xy = e.getValue();
+      byte[] b = png(xy[0] + "," + xy[1] + "#" + Integer.toHexString(rnd.nextInt(1 << (rnd.nextInt(24) + 1))));
+      stage(12, xy[0], xy[1], b);
+      data.put(e.getKey(), b);
+    }
+    File out = write(12, 12);
+
+    assertTrue(header(out).getLong(48) > 0);
+    PmTilesArchive archive = PmTilesArchive.open(out);
+    for (Map.Entry<Long, int[]> e : picked.entrySet()) {
+      int[] xy = e.getValue();
+      assertArrayEquals(data.get(e.getKey()), archive.getTile(12, xy[0], xy[1]));
+    }
+  }
+
+  @Test
+  public void sniffsRasterTileTypes() {
+    assertEquals(PmTilesArchive.TILE_TYPE_PNG, PmTilesWriter.sniffTileType(PNG));
+    assertEquals(PmTilesArchive.TILE_TYPE_JPEG, PmTilesWriter.sniffTileType(new byte[]{(byte) 0xff, (byte) 0xd8, (byte) 0xff}));
+    assertEquals(PmTilesArchive.TILE_TYPE_WEBP, PmTilesWriter.sniffTileType("RIFF\0\0\0\0WEBPVP8 ".getBytes(StandardCharsets.US_ASCII)));
+    assertEquals(0, PmTilesWriter.sniffTileType(new byte[]{1, 2, 3}));
+  }
+
+  private static ByteBuffer header(File f) throws IOException {
+    byte[] b = new byte[PmTilesArchive.HEADER_BYTES];
+    try (RandomAccessFile raf = new RandomAccessFile(f, "r")) {
+      raf.readFully(b);
+    }
+    return ByteBuffer.wrap(b).order(ByteOrder.LITTLE_ENDIAN);
+  }
+}
@@ -0,0 +1,96 @@
+package com.example.google_maps_native_sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/** Per-zoom-band vertex selection of the polyline level of detail. */
+public class PolylineLodTest {
+  // Wandering line of n points, a few meters apart
+  private static CoordBuffer line(int n, long seed) {
+    Random r = new Random(seed);
+    List<LatLng> pts = new ArrayList<>(n);
+    double lat = -23.55, lng = -46.63, heading = 0;
+    for (int i = 0; i < n; i++) {
+      pts.add(new LatLng(lat, lng));
+      heading += (r.nextDouble() - 0.5) * 0.6;
+      lat += Math.cos(heading) * 0.0001;
+      lng += Math.sin(heading) * 0.0001;
+    }
+    return CoordBuffer.of(pts);
+  }
+
+  private static Set<String> keys(List<LatLng> pts) {
+    Set<String> out = new HashSet<>();
+    for (LatLng p : pts) out.add(p.latitude + "," + p.longitude);
+    return out;
+  }
+
+  @Test
+  public void keepsEndpointsAndGrowsWithZoom() {
+    CoordBuffer path = line(20_000, 5);
+    PolylineLod lod = new PolylineLod(path, 1.0, false);
+    LatLng start = new LatLng(path.lat(0), path.lng(0));
+    LatLng end = new LatLng(path.lat(path.endIndex() - 1), path.lng(path.endIndex() - 1));
+    Set<String> previous = new HashSet<>();
+    for (int z = 0; z <= PolylineLod.FULL_DETAIL_ZOOM; z++) {
+      List<LatLng> pts = lod.pointsFor(z + 0.5f, null);
+      assertTrue(pts.size() >= 2);
+      assertEquals(start.latitude, pts.get(0).latitude, 0);
+      assertEquals(start.longitude, pts.get(0).longitude, 0);
+      assertEquals(end.latitude, pts.get(pts.size() - 1).latitude, 0);
+      assertEquals(end.longitude, pts.get(pts.size() - 1).longitude, 0);
+      // Higher bands only add vertices
+      Set<String> current = keys(pts);
+      assertTrue("zoom " + z, current.size() >= previous.size() && current.containsAll(previous));
+      previous = current;
+    }
+    assertTrue(lod.pointsFor(3, null) != null && lod.pointsFor(3, null) == null);
+  }
+
+  @Test
+  public void fullDetailZoomReturnsEveryPoint() {
+    CoordBuffer path = line(5_000, 9);
+    PolylineLod lod = new PolylineLod(path, 1.0, true);
+    List<LatLng> pts = lod.pointsFor(PolylineLod.FULL_DETAIL_ZOOM, null);
+    assertEquals(path.size(), pts.size());
+    for (int i = 0; i < pts.size(); i++) assertEquals(path.lat(i), pts.get(i).latitude, 0);
+    // Deeper zooms share the full-detail band
+    assertNull(lod.pointsFor(21, null));
+    assertTrue(lod.pointsFor(4, null).size() < path.size());
+  }
+
+  @Test
+  public void sameBandIsServedOnceAndVisibleDetailAddsVertices() {
+    CoordBuffer path = line(5_000, 13);
+    PolylineLod lod = new PolylineLod(path, 1.0, true);
+    int coarse = lod.pointsFor(10.2f, null).size();
+    assertNull(lod.pointsFor(10.9f, null));
+    // A viewport around the middle of the line keeps its vertices at full resolution
+    int mid = path.size() / 2;
+    LatLngBounds view = new LatLngBounds(
+        new LatLng(path.lat(mid) - 0.001, path.lng(mid) - 0.001),
+        new LatLng(path.lat(mid) + 0.001, path.lng(mid) + 0.001));
+    List<LatLng> detailed = lod.pointsFor(10.5f, view);
+    assertTrue(detailed.size() > coarse);
+    assertTrue(keys(detailed).contains(path.lat(mid) + "," + path.lng(mid)));
+    assertNull(lod.pointsFor(10.5f, view));
+  }
+
+  @Test
+  public void tinyLinesKeepAllPoints() {
+    assertEquals(0, new PolylineLod(CoordBuffer.of(new ArrayList<>()), 1.0, false).pointsFor(5, null).size());
+    assertEquals(2, new PolylineLod(line(2, 1), 1.0, false).pointsFor(0, null).size());
+  }
+}
@@ -0,0 +1,59 @@
+package com.example.google_maps_native_sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+/** Coalescing of refresh requests into frames (frames driven by hand). */
+public class RenderSchedulerTest {
+  private int refreshes;
+
+  private RenderScheduler scheduler() {
+    return new RenderScheduler(null, () -> refreshes++);
+  }
+
+  @Test
+  public void burstOfRequestsRefreshesOncePerFrame() {
+    RenderScheduler s = scheduler();
+    for (int i = 0; i < 1000; i++) s.request(true);
+    assertTrue(s.isDirty());
+    s.doFrame(16_000_000L);
+    assertEquals(1, refreshes);
+    s.doFrame(32_000_000L);
+    assertEquals(1, refreshes);
+
+    s.request(true);
+    s.request(true);
+    s.doFrame(48_000_000L);
+    assertEquals(2, refreshes);
+
+    Map<String, Object> stats = s.stats();
+    assertEquals(1002L, stats.get("requests"));
+    assertEquals(1000L, stats.get("coalesced"));
+    assertEquals(2L, stats.get("refreshes"));
+  }
+
+  @Test
+  public void invisibleChangesNeverRefresh() {
+    RenderScheduler s = scheduler();
+    for (int i = 0; i < 10; i++) s.request(false);
+    assertFalse(s.isDirty());
+    s.doFrame(16_000_000L);
+    assertEquals(0, refreshes);
+    assertEquals(10L, s.stats().get("skipped"));
+  }
+
+  @Test
+  public void cancelDropsThePendingRefresh() {
+    RenderScheduler s = scheduler();
+    s.request(true);
+    s.cancel();
+    s.doFrame(16_000_000L);
+    assertEquals(0, refreshes);
+    assertEquals(false, s.stats().get("pending"));
+  }
+}
@@ -0,0 +1,133 @@
+package com.example.google_maps_native_sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/** Route matching (search window and segment grid) against a scan of every segment. */
+public class RouteGeometryTest {
+  // Wandering route of n points, roughly 20-60 m apart
+  static double[] route(int n, long seed) {
+    Random r = new Random(seed);
+    double[] pts = new double[n * 2];
+    double lat = -23.55, lng = -46.63, heading = 0;
+    for (int i = 0; i < n; i++) {
+      pts[2 * i] = lat;
+      pts[2 * i + 1] = lng;
+      heading += (r.nextDouble() - 0.5) * 0.8;
+      double step = (20 + r.nextDouble() * 40) / 111320.0;
+      lat += Math.cos(heading) * step;
+      lng += Math.sin(heading) * step / Math.cos(Math.toRadians(lat));
+    }
+    return pts;
+  }
+
+  @Test
+  public void cumulativeDistancesAddUp() {
+    RouteGeometry g = new RouteGeometry(new double[]{0, 0, 0, 0.001, 0.001, 0.001});
+    assertEquals(3, g.size());
+    assertEquals(MarkerMotion.distance(0, 0, 0, 0.001) + MarkerMotion.distance(0, 0.001, 0.001, 0.001), g.length(), 1e-6);
+    RouteGeometry.Match m = g.match(0.0001, 0.0005, 30);
+    assertEquals(0, m.segment);
+    assertEquals(0.0, m.lat, 1e-12);
+    assertEquals(0.0005, m.lng, 1e-12);
+    assertEquals(g.length() / 2 / 2, m.along, 0.5);
+    assertEquals(11.1, m.distance, 0.2);
+    assertEquals(90, m.bearing, 1e-6);
+  }
+
+  @Test
+  public void windowedMatchesAgreeWithLinearScanAlongADrive() {
+    double[] pts = route(5000, 3);
+    RouteGeometry g = new RouteGeometry(pts);
+    Random r = new Random(5);
+    double last = -1;
+    int differ = 0;
+    for (int i = 0; i + 1 < 5000; i += 3) {
+      double t = r.nextDouble();
+      double lat = pts[2 * i] + (pts[2 * i + 2] - pts[2 * i]) * t + (r.nextDouble() - 0.5) * 8e-5;
+      double lng = pts[2 * i + 1] + (pts[2 * i + 3] - pts[2 * i + 1]) * t + (r.nextDouble() - 0.5) * 8e-5;
+      RouteGeometry.Match w = g.match(lat, lng, 30);
+      RouteGeometry.Match l = g.nearestLinear(lat, lng);
+      // The window may keep a slightly farther match where the route passes near itself
+      assertTrue(w.distance >= l.distance - 1e-9);
+      assertTrue(w.distance <= 30 || w.distance - l.distance < 1e-6);
+      if (w.distance - l.distance > 1e-6) differ++;
+      assertTrue(w.along >= last - RouteGeometry.WINDOW_BEHIND_METERS);
+      last = w.along;
+    }
+    assertTrue(differ < 20);
+    assertTrue(g.windowHits > 1500);
+    assertTrue(g.indexedSearches < 20);
+  }
+
+  @Test
+  public void lostFixFallsBackToAFullScan() {
+    double[] pts = route(2000, 11);
+    RouteGeometry g = new RouteGeometry(pts);
+    g.match(pts[0], pts[1], 30);
+    long scans = g.indexedSearches;
+    // Jump far ahead (e.g. after a tunnel): outside the window, found by the scan
+    RouteGeometry.Match m = g.match(pts[2 * 1800], pts[2 * 1800 + 1], 30);
+    assertEquals(scans + 1, g.indexedSearches);
+    assertTrue(m.segment == 1799 || m.segment == 1800);
+    assertEquals(0, m.distance, 1e-6);
+  }
+
+  @Test
+  public void gridNearestEqualsLinearScanNearAndFar() {
+    double[] pts = route(3000, 17);
+    RouteGeometry g = new RouteGeometry(pts);
+    Random r = new Random(19);
+    for (int k = 0; k < 3000; k++) {
+      int i = r.nextInt(2999);
+      // Mostly near the route, sometimes kilometres away or well outside its extent
+      double spread = k % 10 == 0 ? 0.5 : k % 3 == 0 ? 0.02 : 0.001;
+      double lat = pts[2 * i] + (r.nextDouble() - 0.5) * spread;
+      double lng = pts[2 * i + 1] + (r.nextDouble() - 0.5) * spread;
+      RouteGeometry.Match a = g.nearest(lat, lng);
+      RouteGeometry.Match b = g.nearestLinear(lat, lng);
+      assertEquals(b.distance, a.distance, 1e-6);
+      assertEquals(b.along, a.along, 1e-3);
+    }
+  }
+
+  @Test
+  public void longStraightSegmentsAreFound() {
+    // Two vertices 300 km apart between short legs
+    double[] pts = {0, 0, 0, 0.001, 0, 2.7, 0, 2.701};
+    RouteGeometry g = new RouteGeometry(pts);
+    RouteGeometry.Match m = g.nearest(0.0005, 1.35);
+    assertEquals(1, m.segment);
+    assertEquals(55.7, m.distance, 0.5);
+  }
+
+  @Test
+  public void largeRouteGridMatchesLinearScan() {
+    // Cross-country route: 10k points, ~1,000 km
+    int n = 10_000;
+    double[] pts = new double[n * 2];
+    Random r = new Random(23);
+    double lat = -23.5, lng = -46.6;
+    for (int i = 0; i < n; i++) {
+      pts[2 * i] = lat;
+      pts[2 * i + 1] = lng;
+      lat += (r.nextDouble() - 0.3) * 0.0012;
+      lng += (r.nextDouble() - 0.3) * 0.0012;
+    }
+    RouteGeometry g = new RouteGeometry(pts);
+    for (int k = 0; k < 2_000; k++) {
+      int i = r.nextInt(n - 1);
+      double qLat = pts[2 * i] + (r.nextDouble() - 0.5) * 0.002;
+      double qLng = pts[2 * i + 1] + (r.nextDouble() - 0.5) * 0.002;
+      assertEquals(g.nearestLinear(qLat, qLng).distance, g.nearest(qLat, qLng).distance, 1e-6);
+    }
+    assertEquals(2_000, g.indexedSearches);
+    // Ordered fixes along the route stay in the window
+    for (int i = 0; i + 1 < n; i++) g.match(pts[2 * i] + 1e-5, pts[2 * i + 1], 30);
+    assertTrue(g.windowHits > n * 9L / 10);
+  }
+}
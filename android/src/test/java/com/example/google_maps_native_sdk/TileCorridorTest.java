@@ -0,0 +1,90 @@
+package com.example.google_maps_native_sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/** Corridor tile coverage and ordering. */
+public class TileCorridorTest {
+  // ~5.5 km due east along the equator, then ~5.5 km north
+  private static final double[] LAT = {0.0, 0.0, 0.05};
+  private static final double[] LNG = {0.0, 0.05, 0.05};
+
+  private static Set<Long> asSet(long[] tiles) {
+    Set<Long> s = new HashSet<>();
+    for (long t : tiles) s.add(t);
+    return s;
+  }
+
+  @Test
+  public void packsAndUnpacksTiles() {
+    long t = TileCorridor.pack(22, (1 << 22) - 1, 12345);
+    assertEquals(22, TileCorridor.z(t));
+    assertEquals((1 << 22) - 1, TileCorridor.x(t));
+    assertEquals(12345, TileCorridor.y(t));
+  }
+
+  @Test
+  public void coversEveryTileTheRouteCrosses() {
+    int z = 15;
+    long[] tiles = TileCorridor.cover(LAT, LNG, 0, 0, new int[]{z}, 0, 10_000);
+    Set<Long> set = asSet(tiles);
+    assertEquals(tiles.length, set.size());
+    // Dense ground truth: sample every metre-ish along both legs
+    for (int leg = 0; leg < 2; leg++) {
+      for (int k = 0; k <= 5000; k++) {
+        double t = k / 5000.0;
+        double lat = LAT[leg] + (LAT[leg + 1] - LAT[leg]) * t;
+        double lng = LNG[leg] + (LNG[leg + 1] - LNG[leg]) * t;
+        int x = (int) Math.floor(PolylineLod.mercatorX(lng) * (1 << z));
+        int y = (int) Math.floor(PolylineLod.mercatorY(lat) * (1 << z));
+        assertTrue("missing " + x + "," + y, set.contains(TileCorridor.pack(z, x, y)));
+      }
+    }
+  }
+
+  @Test
+  public void widerCorridorAddsNeighbours() {
+    int[] zooms = {16};
+    long[] narrow = TileCorridor.cover(LAT, LNG, 0, 10, zooms, 0, 10_000);
+    long[] wide = TileCorridor.cover(LAT, LNG, 0, 1000, zooms, 0, 10_000);
+    assertTrue(asSet(wide).containsAll(asSet(narrow)));
+    // 1 km either side at z16 (~611 m tiles) is roughly 3-4 tiles across instead of 1-2
+    assertTrue(wide.length > narrow.length * 2);
+  }
+
+  @Test
+  public void tilesFollowRouteOrderAcrossZooms() {
+    long[] tiles = TileCorridor.cover(LAT, LNG, 0, 50, new int[]{13, 16}, 0, 10_000);
+    long first = tiles[0];
+    long last = tiles[tiles.length - 1];
+    int xStart = (int) Math.floor(PolylineLod.mercatorX(0) * (1 << TileCorridor.z(first)));
+    assertEquals(xStart, TileCorridor.x(first), 1);
+    // The end of the route (north leg) is reached last
+    int yEnd = (int) Math.floor(PolylineLod.mercatorY(0.05) * (1 << TileCorridor.z(last)));
+    assertEquals(yEnd, TileCorridor.y(last), 1);
+    boolean sawCoarse = false;
+    for (int i = 0; i < 8 && i < tiles.length; i++) sawCoarse |= TileCorridor.z(tiles[i]) == 13;
+    assertTrue(sawCoarse);
+  }
+
+  @Test
+  public void honoursStartIndexDistanceAndTileBudget() {
+    int[] zooms = {16};
+    long[] all = TileCorridor.cover(LAT, LNG, 0, 0, zooms, 0, 10_000);
+    long[] secondLeg = TileCorridor.cover(LAT, LNG, 1, 0, zooms, 0, 10_000);
+    long[] firstKm = TileCorridor.cover(LAT, LNG, 0, 0, zooms, 1000, 10_000);
+    long[] capped = TileCorridor.cover(LAT, LNG, 0, 500, zooms, 0, 7);
+    assertTrue(secondLeg.length < all.length);
+    int xStart = (int) Math.floor(PolylineLod.mercatorX(0) * (1 << 16));
+    assertFalse(asSet(secondLeg).contains(TileCorridor.pack(16, xStart, TileCorridor.y(all[0]))));
+    // ~611 m tiles: 1 km reaches 2-3 tiles
+    assertTrue(firstKm.length >= 2 && firstKm.length <= 3);
+    assertEquals(7, capped.length);
+  }
+}
@@ -0,0 +1,118 @@
+package com.example.google_maps_native_sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Budgeted prefetch driving against a fake tile source. */
+public class TilePrefetcherTest {
+  private final TilePrefetcher prefetcher = new TilePrefetcher();
+
+  @After
+  public void tearDown() {
+    prefetcher.shutdown();
+  }
+
+  private static long[] plan(int n) {
+    long[] tiles = new long[n];
+    for (int i = 0; i < n; i++) tiles[i] = TileCorridor.pack(16, i, 0);
+    return tiles;
+  }
+
+  private static void waitFor(java.util.function.BooleanSupplier cond) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10_000L;
+    while (!cond.getAsBoolean()) {
+      if (System.currentTimeMillis() > deadline) throw new AssertionError("timed out");
+      Thread.sleep(5);
+    }
+  }
+
+  @Test
+  public void keepsOutstandingFetchesWithinConcurrency() throws Exception {
+    List<CompletableFuture<byte[]>> issued = new ArrayList<>();
+    AtomicInteger maxOutstanding = new AtomicInteger();
+    TilePrefetcher.Source source = (x, y, z) -> {
+      synchronized (issued) {
+        CompletableFuture<byte[]> f = new CompletableFuture<>();
+        issued.add(f);
+        long open = issued.stream().filter(p -> !p.isDone()).count();
+        maxOutstanding.set(Math.max(maxOutstanding.get(), (int) open));
+        return f;
+      }
+    };
+    prefetcher.start(source, plan(20), 2, 0);
+    int done = 0;
+    while (done < 20) {
+      CompletableFuture<byte[]> next;
+      synchronized (issued) {
+        next = issued.size() > done ? issued.get(done) : null;
+      }
+      if (next == null) {
+        Thread.sleep(2);
+        continue;
+      }
+      next.complete(new byte[10]);
+      done++;
+    }
+    waitFor(() -> !(Boolean) prefetcher.stats().get("active"));
+    assertEquals(2, maxOutstanding.get());
+    assertEquals(20L, prefetcher.stats().get("completed"));
+    assertEquals(200L, prefetcher.stats().get("bytes"));
+  }
+
+  @Test
+  public void skipsCachedTilesAndCountsFailures() throws Exception {
+    TilePrefetcher.Source source = (x, y, z) -> {
+      if (x % 2 == 0) return null;
+      CompletableFuture<byte[]> f = new CompletableFuture<>();
+      if (x == 3) f.completeExceptionally(new java.io.IOException("boom"));
+      else f.complete(new byte[1]);
+      return f;
+    };
+    prefetcher.start(source, plan(10), 3, 0);
+    waitFor(() -> !(Boolean) prefetcher.stats().get("active"));
+    assertEquals(5L, prefetcher.stats().get("alreadyCached"));
+    assertEquals(5L, prefetcher.stats().get("issued"));
+    assertEquals(4L, prefetcher.stats().get("completed"));
+    assertEquals(1L, prefetcher.stats().get("failed"));
+  }
+
+  @Test
+  public void throttlesToByteBudget() throws Exception {
+    TilePrefetcher.Source source = (x, y, z) -> CompletableFuture.completedFuture(new byte[1000]);
+    long t0 = System.nanoTime();
+    // 10 KB at 20 KB/s: about half a second
+    prefetcher.start(source, plan(10), 1, 20_000);
+    waitFor(() -> !(Boolean) prefetcher.stats().get("active"));
+    long ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+    assertTrue("took " + ms + " ms", ms >= 400);
+  }
+
+  @Test
+  public void newPlanReplacesRunningOne() throws Exception {
+    AtomicInteger firstPlanCalls = new AtomicInteger();
+    CompletableFuture<byte[]> gate = new CompletableFuture<>();
+    prefetcher.start((x, y, z) -> {
+      firstPlanCalls.incrementAndGet();
+      return gate;
+    }, plan(100), 1, 0);
+    waitFor(() -> firstPlanCalls.get() >= 1);
+    AtomicInteger secondPlanCalls = new AtomicInteger();
+    prefetcher.start((x, y, z) -> {
+      secondPlanCalls.incrementAndGet();
+      return CompletableFuture.completedFuture(new byte[0]);
+    }, plan(5), 1, 0);
+    gate.complete(new byte[0]);
+    waitFor(() -> secondPlanCalls.get() == 5);
+    assertTrue(firstPlanCalls.get() <= 2);
+  }
+}
@@ -8,6 +8,7 @@ library google_maps_native_sdk;
 import 'dart:async';
 import 'dart:convert';
 import 'dart:math' as math;
+import 'dart:typed_data';
 
 import 'package:flutter/services.dart';
 import 'package:flutter/widgets.dart';
@@ -34,6 +35,7 @@ part 'src/nav_banner.dart';
 part 'src/heading.dart';
 part 'src/audio_focus.dart';
 part 'src/navigation_ui.dart';
+part 'src/offline.dart';
 
 /// Convenience wrapper exposing package/platform version from the host side.
 class GoogleMapsNativeSdk {
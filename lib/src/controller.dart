@@ -21,12 +21,29 @@ class GoogleMapController {
   final int viewId;
   final MethodChannel _channel;
 
+  // Android accepts packed Float64List coordinates and encoded polylines natively
+  bool get _packedCoords =>
+      _web == null && defaultTargetPlatform == TargetPlatform.android;
+
   final StreamController<String> _markerTapController =
       StreamController<String>.broadcast();
+  final StreamController<String> _polylineTapController =
+      StreamController<String>.broadcast();
+  final StreamController<String> _circleTapController =
+      StreamController<String>.broadcast();
   final Completer<void> _mapLoadedCompleter = Completer<void>();
 
   /// Stream of marker tap events (emits the marker id).
   Stream<String> get onMarkerTap => _markerTapController.stream;
+
+  /// Stream of polyline tap events (emits the polyline id). Only polylines
+  /// added with `clickable: true` are reported; trail chunks and the traveled
+  /// part of a route report their polyline's id. Android only.
+  Stream<String> get onPolylineTap => _polylineTapController.stream;
+
+  /// Stream of circle tap events (emits the id). Pulse rings report the id of
+  /// their marker. Android only.
+  Stream<String> get onCircleTap => _circleTapController.stream;
   Future<void> get onMapLoaded => _mapLoadedCompleter.future;
 
   void _bindCallbacks() {
@@ -37,6 +54,14 @@ class GoogleMapController {
           final id = call.arguments as String?;
           if (id != null) _markerTapController.add(id);
           break;
+        case 'event#onPolylineTap':
+          final id = call.arguments as String?;
+          if (id != null) _polylineTapController.add(id);
+          break;
+        case 'event#onCircleTap':
+          final id = call.arguments as String?;
+          if (id != null) _circleTapController.add(id);
+          break;
         case 'event#onMapLoaded':
           if (!_mapLoadedCompleter.isCompleted) {
             _mapLoadedCompleter.complete();
@@ -52,6 +77,44 @@ class GoogleMapController {
     await _channel.invokeMethod('map#setClusteringEnabled', enabled);
   }
 
+  /// Virtualizes non-clustered markers: all of them are kept natively as
+  /// lightweight records in a spatial index, and only those inside the visible
+  /// region grown by [margin] (fraction of its size on each side) are real map
+  /// markers, drawn from a reusable pool and refreshed on camera idle. At most
+  /// [maxLive] are live at once (nearest to the centre first). Taps and
+  /// `updateMarker` behave as before. Ignored while clustering. Android only.
+  Future<void> setMarkerVirtualization(
+    bool enabled, {
+    double margin = 0.5,
+    int maxLive = 1500,
+  }) async {
+    if (_web != null || defaultTargetPlatform != TargetPlatform.android) return;
+    await _channel.invokeMethod('map#setMarkerVirtualization', {
+      'enabled': enabled,
+      'margin': margin,
+      'maxLive': maxLive,
+    });
+  }
+
+  /// Chooses the clustering [algorithm] and its [gridSize] (cell size / merge
+  /// distance in dp). [maxZoom] is the last zoom that clusters with
+  /// [ClusterAlgorithm.hierarchical]; above it every marker shows on its own.
+  /// Options left null keep their current value (the algorithm starts as
+  /// [ClusterAlgorithm.distance]). Can be called before or after enabling
+  /// clustering. Android only.
+  Future<void> setClusterOptions({
+    ClusterAlgorithm? algorithm,
+    int? gridSize,
+    int? maxZoom,
+  }) async {
+    if (_web != null || defaultTargetPlatform != TargetPlatform.android) return;
+    await _channel.invokeMethod('map#setClusterOptions', {
+      if (algorithm != null) 'algorithm': algorithm.name,
+      if (gridSize != null) 'gridSize': gridSize,
+      if (maxZoom != null) 'maxZoom': maxZoom,
+    });
+  }
+
   /// Enables or disables indoor maps (iOS/Android).
   Future<void> setIndoorEnabled(bool enabled) async {
     if (_web != null) return; // not supported on web
@@ -74,25 +137,127 @@ class GoogleMapController {
   Future<void> setHeatmap(List<LatLng> points, {int? radius, double? opacity}) async {
     if (_web != null) return; // not supported on web
     await _channel.invokeMethod('heatmap#set', {
-      'points': points.map((e) => e.toMap()).toList(growable: false),
+      'points': _packedCoords
+          ? _packLatLngs(points)
+          : points.map((e) => e.toMap()).toList(growable: false),
       if (radius != null) 'radius': radius,
       if (opacity != null) 'opacity': opacity,
     });
   }
 
-  /// Removes any active heatmap overlay.
+  /// Removes every heatmap layer.
   Future<void> clearHeatmap() async {
     if (_web != null) return;
     await _channel.invokeMethod('heatmap#clear');
   }
 
+  /// Appends weighted [points] to heatmap layer [id], creating it on first use.
+  /// The layer's provider is updated in place and only its tile cache is
+  /// cleared, so the overlay does not flicker; points are decoded off the
+  /// main thread. Returns the layer's point count. Android only.
+  Future<int> addHeatmapPoints(
+    List<WeightedLatLng> points, {
+    String id = 'default',
+    int? radius,
+    double? opacity,
+  }) =>
+      _heatmapData('heatmap#addPoints', id, points, radius, opacity);
+
+  /// Replaces the points of heatmap layer [id] in place (empty list removes the
+  /// layer). Use one [id] per independent layer. Returns the point count.
+  /// Android only.
+  Future<int> replaceHeatmapData(
+    List<WeightedLatLng> points, {
+    String id = 'default',
+    int? radius,
+    double? opacity,
+  }) =>
+      _heatmapData('heatmap#replaceData', id, points, radius, opacity);
+
+  /// Removes heatmap layer [id]. Android only.
+  Future<void> removeHeatmap(String id) async {
+    if (_web != null || defaultTargetPlatform != TargetPlatform.android) return;
+    await _channel.invokeMethod('heatmap#remove', id);
+  }
+
+  /// Creates streaming heatmap layer [id]: events pushed with
+  /// [pushHeatmapEvents] are summed into a grid of cells ([cellZoom], 2^cellZoom
+  /// cells per axis) and into [buckets] time slices covering [window]; slices
+  /// that fall out of the window are expired natively. The layer re-renders
+  /// only the tiles around changed cells, at most [maxRefreshHz] times per
+  /// second. [maxIntensity] fixes the color scale (default: follows the
+  /// densest pixel of each zoom). Android only.
+  Future<void> createHeatmapStream(
+    String id, {
+    required Duration window,
+    int buckets = 60,
+    int cellZoom = 23,
+    int radius = 20,
+    double opacity = 0.7,
+    double? maxIntensity,
+    double maxRefreshHz = 2,
+    List<Color>? gradientColors,
+    List<double>? gradientStartPoints,
+  }) async {
+    if (_web != null || defaultTargetPlatform != TargetPlatform.android) return;
+    await _channel.invokeMethod('heatmap#streamCreate', {
+      'id': id,
+      'windowMs': window.inMilliseconds,
+      'buckets': buckets,
+      'cellZoom': cellZoom,
+      'radius': radius,
+      'opacity': opacity,
+      if (maxIntensity != null) 'maxIntensity': maxIntensity,
+      'maxRefreshHz': maxRefreshHz,
+      if (gradientColors != null && gradientStartPoints != null) ...{
+        'gradientColors': gradientColors.map(_argbColorInt).toList(),
+        'gradientStartPoints': gradientStartPoints,
+      },
+    });
+  }
+
+  /// Pushes a batch of timestamped [events] into streaming heatmap [id].
+  /// Events older than the window are dropped. Returns how many were accepted.
+  /// Remove the layer with [removeHeatmap]. Android only.
+  Future<int> pushHeatmapEvents(String id, List<HeatmapEvent> events) async {
+    if (_web != null || defaultTargetPlatform != TargetPlatform.android) return 0;
+    final res = await _channel.invokeMethod('heatmap#streamPush', {
+      'id': id,
+      'events': _packEvents(events),
+    });
+    return (res as num?)?.toInt() ?? 0;
+  }
+
+  Future<int> _heatmapData(
+    String method,
+    String id,
+    List<WeightedLatLng> points,
+    int? radius,
+    double? opacity,
+  ) async {
+    if (_web != null || defaultTargetPlatform != TargetPlatform.android) return 0;
+    final res = await _channel.invokeMethod(method, {
+      'id': id,
+      'points': _packWeighted(points),
+      'stride': 3,
+      if (radius != null) 'radius': radius,
+      if (opacity != null) 'opacity': opacity,
+    });
+    return (res as num?)?.toInt() ?? 0;
+  }
+
   /// Adds a tile overlay from a URL template. Template may contain {z},{x},{y}.
+  ///
+  /// With [cache] (Android) tiles are kept in memory and on disk for
+  /// [cacheTtl], so revisiting an area does not hit the network.
   Future<void> addTileOverlay(
     String id,
     String urlTemplate, {
     int tileSize = 256,
     double opacity = 1.0,
     double zIndex = 0,
+    bool cache = false,
+    Duration cacheTtl = const Duration(days: 1),
   }) async {
     if (_web != null) return; // not supported on web
     await _channel.invokeMethod('tiles#add', {
@@ -101,7 +266,33 @@ class GoogleMapController {
       'tileSize': tileSize,
       'opacity': opacity,
       'zIndex': zIndex,
+      if (cache) 'cache': true,
+      if (cache) 'cacheTtlMs': cacheTtl.inMilliseconds,
+    });
+  }
+
+  /// Adds a tile overlay served from a local PMTiles (v3) archive at [path].
+  /// The file is memory-mapped and tiles are looked up in its directory index,
+  /// so no network or per-tile file access is needed. Raster archives only.
+  /// Android only; returns null elsewhere. Throws [PlatformException] when the
+  /// archive cannot be read.
+  Future<TileArchiveInfo?> addLocalTileOverlay(
+    String id,
+    String path, {
+    int tileSize = 256,
+    double opacity = 1.0,
+    double zIndex = 0,
+  }) async {
+    if (_web != null || defaultTargetPlatform != TargetPlatform.android) return null;
+    final res = await _channel.invokeMethod('tiles#addLocal', {
+      'id': id,
+      'path': path,
+      'tileSize': tileSize,
+      'opacity': opacity,
+      'zIndex': zIndex,
     });
+    if (res is Map) return TileArchiveInfo.fromMap(res);
+    return null;
   }
 
   Future<void> removeTileOverlay(String id) async {
@@ -114,6 +305,51 @@ class GoogleMapController {
     await _channel.invokeMethod('tiles#clear');
   }
 
+  /// Warms the cache of tile overlay [overlayId] (added with `cache: true`)
+  /// along a route, so tiles ahead of the vehicle are ready before they are
+  /// visible. The route is a stored polyline ([polylineId], starting at
+  /// absolute vertex [fromIndex]) or explicit [points]. Tiles within
+  /// [corridorMeters] of the route at each of [zooms] are fetched in route
+  /// order, up to [aheadMeters] (null = whole route) and [maxTiles], with at
+  /// most [concurrency] low-priority fetches outstanding (capped so visible
+  /// tiles always have a free worker) and at most [maxBytesPerSecond] when set.
+  /// A new call replaces the running prefetch. Returns the planned tile count.
+  /// Android only; returns 0 elsewhere.
+  Future<int> prefetchRouteTiles(
+    String overlayId, {
+    String? polylineId,
+    List<LatLng>? points,
+    int fromIndex = 0,
+    double corridorMeters = 150,
+    List<int> zooms = const [14, 15, 16],
+    double? aheadMeters,
+    int maxTiles = 1000,
+    int concurrency = 2,
+    int? maxBytesPerSecond,
+  }) async {
+    if (_web != null || defaultTargetPlatform != TargetPlatform.android) return 0;
+    assert(polylineId != null || points != null, 'polylineId or points is required');
+    final res = await _channel.invokeMethod('tiles#prefetchRoute', {
+      'overlayId': overlayId,
+      if (polylineId != null) 'polylineId': polylineId,
+      if (polylineId == null && points != null) 'points': _packLatLngs(points),
+      'fromIndex': fromIndex,
+      'corridorMeters': corridorMeters,
+      'zooms': zooms,
+      if (aheadMeters != null) 'aheadMeters': aheadMeters,
+      'maxTiles': maxTiles,
+      'concurrency': concurrency,
+      if (maxBytesPerSecond != null) 'maxBytesPerSecond': maxBytesPerSecond,
+    });
+    return (res as num?)?.toInt() ?? 0;
+  }
+
+  /// Stops issuing new route prefetches (fetches already started finish).
+  Future<void> cancelRouteTilePrefetch() async {
+    if (_web != null || defaultTargetPlatform != TargetPlatform.android) return;
+    await _channel.invokeMethod('tiles#cancelPrefetch');
+  }
+
   // Called by the web host to propagate events
   void handleWebMarkerTap(String markerId) {
     _markerTapController.add(markerId);
@@ -251,6 +487,31 @@ class GoogleMapController {
     }
   }
 
+  /// Moves a marker smoothly to [target] over [duration], animated natively
+  /// at the display refresh rate instead of one [updateMarker] per step.
+  ///
+  /// [path] lists intermediate points (e.g. the road between two fixes); the
+  /// marker crosses all of them at constant speed. [rotation] turns the
+  /// marker the short way round; [rotateAlongPath] instead heads it along
+  /// each leg. Calling again while it moves retargets from where it is.
+  /// Clustered markers jump to the target. Android only; elsewhere this
+  /// falls back to [updateMarker].
+  Future<void> animateMarkerTo(
+    String id,
+    LatLng target, {
+    Duration duration = const Duration(seconds: 1),
+    MarkerInterpolation interpolation = MarkerInterpolation.linear,
+    double? rotation,
+    bool rotateAlongPath = false,
+    List<LatLng> path = const [],
+  }) async {
+    if (_web != null || defaultTargetPlatform != TargetPlatform.android) {
+      return updateMarker(id, position: target, rotation: rotation);
+    }
+    await _channel.invokeMethod('markers#animateTo', _animateToArgs(id, target,
+        duration, interpolation, rotation, rotateAlongPath, path));
+  }
+
   /// Updates the marker icon from raw PNG/JPEG bytes on native platforms.
   /// On web, this is currently a no-op.
   Future<void> setMarkerIconBytes(
@@ -289,6 +550,43 @@ class GoogleMapController {
     }
   }
 
+  /// Reconciles the map with the full desired set of [markers].
+  ///
+  /// Only new markers are added and markers missing from [markers] are
+  /// removed. Markers whose content changed are updated in place; markers
+  /// with the same content are left untouched. Android diffs natively using
+  /// [MarkerOptions.contentHash]; other platforms re-add every marker.
+  Future<MarkerSyncResult> syncMarkers(List<MarkerOptions> markers) async {
+    if (_web != null || defaultTargetPlatform != TargetPlatform.android) {
+      final desired = markers.map((e) => e.id).toSet();
+      int removed = 0;
+      for (final id in _syncedMarkerIds.difference(desired)) {
+        await removeMarker(id);
+        removed++;
+      }
+      int added = 0, updated = 0;
+      for (final m in markers) {
+        if (_syncedMarkerIds.contains(m.id)) {
+          updated++;
+        } else {
+          added++;
+        }
+        await addMarker(m);
+      }
+      _syncedMarkerIds = desired;
+      return MarkerSyncResult(added: added, updated: updated, removed: removed);
+    }
+    final res = await _channel.invokeMethod<Map<dynamic, dynamic>>('markers#sync', {
+      'markers': markers
+          .map((e) => {...e.toMap(), 'hash': e.contentHash})
+          .toList(growable: false),
+    });
+    return MarkerSyncResult.fromMap(res ?? const {});
+  }
+
+  // Ids applied by the last syncMarkers call (fallback path only)
+  Set<String> _syncedMarkerIds = <String>{};
+
   /// Starts a bounce animation on a marker. Useful to indicate an active state
   /// (e.g. searching for a driver).
   ///
@@ -333,12 +631,16 @@ class GoogleMapController {
   /// - [maxRadiusMeters]: radius the circle expands to (in meters).
   /// - [durationMs]: duration of a single pulse cycle.
   /// - [repeat]: number of cycles; 0 for infinite until [stopMarkerPulse].
+  /// - [clickable]: the ring emits [onCircleTap] with the marker id (Android).
+  ///   Off by default so the ring does not catch taps meant for the map or
+  ///   markers underneath.
   Future<void> startMarkerPulse(
     String id, {
     Color color = const Color(0x551976D2),
     double maxRadiusMeters = 120,
     int durationMs = 1200,
     int repeat = 0,
+    bool clickable = false,
   }) async {
     final args = {
       'id': id,
@@ -346,6 +648,7 @@ class GoogleMapController {
       'maxRadius': maxRadiusMeters,
       'durationMs': durationMs,
       'repeat': repeat,
+      if (clickable) 'clickable': true,
     };
     if (_web != null) {
       await _web!.startPulse(id,
@@ -369,17 +672,27 @@ class GoogleMapController {
     if (_web != null) {
       await _web!.addPolyline(options);
     } else {
-      await _channel.invokeMethod('polylines#add', options.toMap());
+      final args = options.toMap();
+      if (_packedCoords) args['points'] = _packLatLngs(options.points);
+      await _channel.invokeMethod('polylines#add', args);
     }
   }
 
   /// Adds a polyline by decoding an encoded polyline string.
+  /// On Android the string is decoded natively.
   Future<void> addPolylineFromEncoded(
     String id,
     String encoded, {
     Color color = const Color(0xFF1B5E20),
     double width = 6,
   }) async {
+    if (_packedCoords) {
+      final args = PolylineOptions(id: id, points: const [], color: color, width: width).toMap();
+      args.remove('points');
+      args['encoded'] = encoded;
+      await _channel.invokeMethod('polylines#add', args);
+      return;
+    }
     final pts = PolylineCodec.decode(encoded);
     await addPolyline(
       PolylineOptions(id: id, points: pts, color: color, width: width),
@@ -411,11 +724,249 @@ class GoogleMapController {
     } else {
       await _channel.invokeMethod('polylines#updatePoints', {
         'id': id,
-        'points': points.map((e) => e.toMap()).toList(growable: false),
+        'points': _packedCoords
+            ? _packLatLngs(points)
+            : points.map((e) => e.toMap()).toList(growable: false),
       });
     }
   }
 
+  /// Applies several marker/polyline/tile/heatmap mutations in one call.
+  ///
+  /// On Android the operations run in a single native pass, and clustering
+  /// and redraw happen at most once per batch. On iOS the operations are
+  /// sent one by one. Returns one [MapBatchResult] per op, in order.
+  Future<List<MapBatchResult>> applyBatch(List<MapBatchOp> ops) async {
+    if (_web != null) {
+      return ops
+          .map((_) => const MapBatchResult(ok: false, code: 'not_supported'))
+          .toList(growable: false);
+    }
+    if (defaultTargetPlatform != TargetPlatform.android) {
+      final results = <MapBatchResult>[];
+      for (final op in ops) {
+        try {
+          final value = await _channel.invokeMethod(op.method, op.arguments);
+          results.add(MapBatchResult(ok: true, value: value));
+        } on PlatformException catch (e) {
+          results.add(MapBatchResult(ok: false, code: e.code, message: e.message));
+        } on MissingPluginException {
+          results.add(const MapBatchResult(ok: false, code: 'not_implemented'));
+        }
+      }
+      return results;
+    }
+    final res = await _channel.invokeMethod<List<dynamic>>('map#batch', {
+      'ops': ops.map((e) => e.toMap()).toList(growable: false),
+    });
+    return (res ?? const [])
+        .map((e) => MapBatchResult.fromMap(e as Map))
+        .toList(growable: false);
+  }
+
+  /// Appends [points] to the end of polyline [id] (Android).
+  ///
+  /// Only the new points are sent; the native side keeps the geometry and
+  /// redraws a bounded chunk, so per-update cost does not grow with the
+  /// length of the line. Returns the absolute index one past the last point.
+  ///
+  /// Elsewhere this is a no-op returning `null`; keep the full list on the
+  /// Dart side and send it with [updatePolylinePoints] there.
+  Future<int?> appendPolylinePoints(String id, List<LatLng> points) async {
+    if (_web != null || defaultTargetPlatform != TargetPlatform.android) return null;
+    return _channel.invokeMethod<int>('polylines#appendPoints', {
+      'id': id,
+      'points': _packedCoords
+          ? _packLatLngs(points)
+          : points.map((e) => e.toMap()).toList(growable: false),
+    });
+  }
+
+  /// Drops the first [count] points of polyline [id] (Android; no-op
+  /// elsewhere, like [appendPolylinePoints]).
+  Future<void> trimPolylinePrefix(String id, int count) async {
+    if (_web != null || defaultTargetPlatform != TargetPlatform.android) return;
+    await _channel.invokeMethod('polylines#trimPrefix', {'id': id, 'count': count});
+  }
+
+  /// Drops every point before absolute [index] of polyline [id] (Android).
+  ///
+  /// Indices count from the first point set by [addPolyline] or
+  /// [updatePolylinePoints] and are not renumbered by appends or trims.
+  /// No-op elsewhere, like [appendPolylinePoints].
+  Future<void> trimPolylineToIndex(String id, int index) async {
+    if (_web != null || defaultTargetPlatform != TargetPlatform.android) return;
+    await _channel.invokeMethod('polylines#trimToIndex', {'id': id, 'index': index});
+  }
+
+  /// Splits a polyline into traveled and remaining parts at [fraction] of the
+  /// segment starting at [segmentIndex] (absolute point index). The geometry
+  /// already lives on the native side, so each update only sends these values.
+  /// Android only; no-op elsewhere.
+  Future<void> setPolylineProgress(String id, int segmentIndex, double fraction,
+      {Color? traveledColor, double? traveledWidth}) async {
+    if (_web != null || defaultTargetPlatform != TargetPlatform.android) return;
+    await _channel.invokeMethod('polylines#setProgress', {
+      'id': id,
+      'segmentIndex': segmentIndex,
+      'fraction': fraction,
+      if (traveledColor != null) 'traveledColor': traveledColor.value,
+      if (traveledWidth != null) 'traveledWidth': traveledWidth,
+    });
+  }
+
+  /// Removes the traveled/remaining split and redraws the full polyline.
+  /// Android only; no-op elsewhere.
+  Future<void> clearPolylineProgress(String id) async {
+    if (_web != null || defaultTargetPlatform != TargetPlatform.android) return;
+    await _channel.invokeMethod('polylines#clearProgress', id);
+  }
+
+  /// Closest point of polyline [polylineId] to [point], answered natively
+  /// from a segment grid and precomputed cumulative distances instead of
+  /// scanning every segment. With [sequential] (ordered fixes of one
+  /// vehicle), the search starts around the previous match. Android only;
+  /// throws [MissingPluginException] elsewhere.
+  Future<RouteMatch> nearestPointOnRoute(
+    String polylineId,
+    LatLng point, {
+    bool sequential = false,
+  }) async {
+    final res = await _channel.invokeMethod<Map<dynamic, dynamic>>(
+        'route#nearest', _routeQueryArgs(polylineId, point, sequential));
+    return RouteMatch._fromMap(res ?? const {});
+  }
+
+  /// Meters along polyline [polylineId] up to the point closest to [point].
+  /// Android only; throws [MissingPluginException] elsewhere.
+  Future<double> distanceAlongRoute(
+    String polylineId,
+    LatLng point, {
+    bool sequential = false,
+  }) async {
+    final res = await _channel.invokeMethod<num>(
+        'route#distanceAlong', _routeQueryArgs(polylineId, point, sequential));
+    return (res ?? 0).toDouble();
+  }
+
+  /// Whether [point] is farther than [thresholdMeters] from polyline
+  /// [polylineId] (distance in [nearestPointOnRoute]). Android only;
+  /// throws [MissingPluginException] elsewhere.
+  Future<bool> isOffRoute(
+    String polylineId,
+    LatLng point, {
+    double thresholdMeters = 30,
+    bool sequential = false,
+  }) async {
+    final res = await _channel.invokeMethod<Map<dynamic, dynamic>>('route#offRoute', {
+      ..._routeQueryArgs(polylineId, point, sequential),
+      'thresholdMeters': thresholdMeters,
+    });
+    return res?['offRoute'] == true;
+  }
+
+  Map<String, dynamic> _routeQueryArgs(String polylineId, LatLng point, bool sequential) => {
+        'polylineId': polylineId,
+        'lat': point.latitude,
+        'lng': point.longitude,
+        if (sequential) 'sequential': true,
+      };
+
+  /// Starts the native navigation follow mode (Android): each fix pushed with
+  /// [pushNavigationLocation] is snapped to the polyline [polylineId] (a
+  /// window around the last match, full scan when lost), the heading is
+  /// smoothed, and the marker [markerId] and the camera move together along
+  /// the route in the same frame. [headingSmoothing] is the share of each
+  /// heading change applied (1 = none). Below [lowSpeedKmh] the device
+  /// heading is preferred over the GPS course. No-op elsewhere.
+  Future<void> startNavigationFollow({
+    required String polylineId,
+    String? markerId,
+    bool snapToRoute = true,
+    bool moveCamera = true,
+    bool followBearing = true,
+    double? zoom,
+    double? tilt,
+    double headingSmoothing = 0.35,
+    double lowSpeedKmh = 5,
+    double toleranceMeters = 30,
+    Duration animation = const Duration(seconds: 1),
+    VehicleRotationSource vehicleRotation = VehicleRotationSource.course,
+  }) async {
+    if (_web != null || defaultTargetPlatform != TargetPlatform.android) return;
+    await _channel.invokeMethod('nav#startFollow', {
+      'polylineId': polylineId,
+      if (markerId != null) 'markerId': markerId,
+      'snapToRoute': snapToRoute,
+      'moveCamera': moveCamera,
+      'followBearing': followBearing,
+      if (zoom != null) 'zoom': zoom,
+      if (tilt != null) 'tilt': tilt,
+      'headingSmoothing': headingSmoothing,
+      'lowSpeedKmh': lowSpeedKmh,
+      'toleranceMeters': toleranceMeters,
+      'durationMs': animation.inMilliseconds,
+      'vehicleRotation': vehicleRotation == VehicleRotationSource.deviceHeading
+          ? 'heading'
+          : vehicleRotation.name,
+    });
+  }
+
+  /// Pushes one fix to the follow mode and returns the snapped position,
+  /// progress and off-route distance in the same reply. Android only;
+  /// elsewhere returns the raw fix without route fields.
+  Future<NavFollowUpdate> pushNavigationLocation(NavFix fix) async {
+    if (_web != null || defaultTargetPlatform != TargetPlatform.android) {
+      return NavFollowUpdate(position: fix.position);
+    }
+    final res = await _channel.invokeMethod<Map<dynamic, dynamic>>('nav#location', {
+      'lat': fix.position.latitude,
+      'lng': fix.position.longitude,
+      if (fix.speedKmh != null) 'speedKmh': fix.speedKmh,
+      if (fix.course != null) 'course': fix.course,
+      if (fix.heading != null) 'heading': fix.heading,
+    });
+    return NavFollowUpdate._fromMap(res ?? const {});
+  }
+
+  /// Pushes several fixes in order (e.g. buffered while in background);
+  /// only the last one is animated. Android only; elsewhere returns the
+  /// last raw fix without route fields.
+  Future<NavFollowUpdate> pushNavigationLocations(List<NavFix> fixes) async {
+    if (_web != null || defaultTargetPlatform != TargetPlatform.android) {
+      return NavFollowUpdate(position: fixes.isEmpty ? const LatLng(0, 0) : fixes.last.position);
+    }
+    final packed = Float64List(fixes.length * 5);
+    for (var i = 0; i < fixes.length; i++) {
+      final f = fixes[i];
+      packed[i * 5] = f.position.latitude;
+      packed[i * 5 + 1] = f.position.longitude;
+      packed[i * 5 + 2] = f.speedKmh ?? double.nan;
+      packed[i * 5 + 3] = f.course ?? double.nan;
+      packed[i * 5 + 4] = f.heading ?? double.nan;
+    }
+    final res = await _channel.invokeMethod<Map<dynamic, dynamic>>('nav#location', {'fixes': packed});
+    return NavFollowUpdate._fromMap(res ?? const {});
+  }
+
+  /// Stops the native follow mode. Android only.
+  Future<void> stopNavigationFollow() async {
+    if (_web != null || defaultTargetPlatform != TargetPlatform.android) return;
+    await _channel.invokeMethod('nav#stopFollow');
+  }
+
+  /// Native runtime counters for diagnostics (e.g. `icons.queueDepth`,
+  /// `icons.dedupeHits`). Android only; returns an empty map elsewhere.
+  Future<Map<String, dynamic>> getNativeStats() async {
+    if (_web != null || defaultTargetPlatform != TargetPlatform.android) return {};
+    final res = await _channel.invokeMethod('map#getStats');
+    if (res is Map) return _deepCast(res);
+    return {};
+  }
+
+  static Map<String, dynamic> _deepCast(Map m) =>
+      m.map((k, v) => MapEntry(k.toString(), v is Map ? _deepCast(v) : v));
+
   /// Captures a PNG snapshot of the current map viewport.
   Future<Uint8List?> takeSnapshot() async {
     if (_web != null) {
@@ -435,6 +986,8 @@ class GoogleMapController {
       await _channel.invokeMethod('map#dispose');
     }
     await _markerTapController.close();
+    await _polylineTapController.close();
+    await _circleTapController.close();
     if (!_mapLoadedCompleter.isCompleted) {
       _mapLoadedCompleter.completeError(StateError('disposed'));
     }
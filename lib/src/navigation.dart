@@ -273,6 +273,7 @@ class NavigationSession {
     try { await _sub?.cancel(); } catch (_) {}
     try { _shared.simTimer?.cancel(); } catch (_) {}
     try { await _headingSub?.cancel(); } catch (_) {}
+    try { await controller.stopNavigationFollow(); } catch (_) {}
     if (options.voiceGuidance) {
       try { await _tts?.stop(); } catch (_) {}
     }
@@ -307,6 +308,23 @@ class MapNavigator {
     await controller.addPolyline(PolylineOptions(id: polylineId, points: route.points, color: routeClr, width: options.routeWidth));
     await controller.animateToBounds(route.northeast, route.southwest, padding: 60);
 
+    // Android: snapping, heading smoothing, vehicle marker and camera run natively per fix
+    final nativeFollow = controller._web == null && defaultTargetPlatform == TargetPlatform.android;
+    if (nativeFollow) {
+      await controller.startNavigationFollow(
+        polylineId: polylineId,
+        markerId: options.showVehicleMarker ? options.vehicleMarkerId : null,
+        snapToRoute: options.snapToRoute,
+        followBearing: options.followBearing,
+        zoom: options.cameraZoom,
+        tilt: options.cameraTilt,
+        headingSmoothing: options.headingFilterAlpha > 0 ? options.headingFilterAlpha : 1.0,
+        lowSpeedKmh: options.lowSpeedAutoRotateKmh,
+        toleranceMeters: options.mapMatchingToleranceMeters,
+        vehicleRotation: options.vehicleRotationSource,
+      );
+    }
+
     // Prepare TTS / Audio
     FlutterTts? tts;
     if (options.voiceGuidance) {
@@ -378,7 +396,29 @@ class MapNavigator {
       LatLng camTarget = user;
       double? camBearing;
       double? routeBearing;
-      if (options.snapToRoute && route.points.length >= 2) {
+      NavFollowUpdate? follow;
+      if (nativeFollow) {
+        if (options.showVehicleMarker && !vehicleMarkerAdded) {
+          try {
+            await controller.addMarker(MarkerOptions(
+              id: options.vehicleMarkerId,
+              position: user,
+              iconUrl: options.vehicleIconUrl,
+              iconDp: options.vehicleIconDp,
+              anchorU: options.vehicleIconAnchorU,
+              anchorV: options.vehicleIconAnchorV,
+              rotation: _normalizeBearing(course) ?? 0,
+              zIndex: 9999,
+            ));
+            vehicleMarkerAdded = true;
+          } catch (_) {}
+        }
+        try {
+          follow = await controller.pushNavigationLocation(
+              NavFix(user, speedKmh: speedKmh, course: course, heading: latestHeading));
+          camTarget = follow.position;
+        } catch (_) {}
+      } else if (options.snapToRoute && route.points.length >= 2) {
         final np = _nearestPointOnPolyline(user, route.points);
         camTarget = np.point;
         final a = route.points[np.segIndex];
@@ -387,7 +427,7 @@ class MapNavigator {
       }
 
       // Determine camera bearing
-      if (options.followBearing) {
+      if (options.followBearing && !nativeFollow) {
         final speed = speedKmh.isFinite ? speedKmh : 0.0;
         double? candidate;
         if (speed >= options.lowSpeedAutoRotateKmh) {
@@ -407,7 +447,7 @@ class MapNavigator {
       }
 
       // Vehicle marker: add/update if enabled
-      if (options.showVehicleMarker) {
+      if (options.showVehicleMarker && !nativeFollow) {
         final markerPos = options.snapToRoute ? camTarget : user;
         if (!vehicleMarkerAdded) {
           try {
@@ -446,12 +486,14 @@ class MapNavigator {
         }
       }
 
-      await controller.animateCamera(
-        camTarget,
-        zoom: options.cameraZoom,
-        tilt: options.cameraTilt,
-        bearing: options.followBearing ? camBearing : null,
-      );
+      if (!nativeFollow) {
+        await controller.animateCamera(
+          camTarget,
+          zoom: options.cameraZoom,
+          tilt: options.cameraTilt,
+          bearing: options.followBearing ? camBearing : null,
+        );
+      }
 
       // Velocidade/alertas (opcional provider dinÃ¢mico)
       if (options.speedAlertsEnabled) {
@@ -468,7 +510,7 @@ class MapNavigator {
 
       // Progresso/ETA
       if (totalMeters > 0) {
-        final traveled = _traveledAlongRoute(camTarget, route.points, cumul);
+        final traveled = follow?.distanceAlongMeters ?? _traveledAlongRoute(camTarget, route.points, cumul);
         final remaining = (totalMeters - traveled).clamp(0.0, totalMeters);
         double? etaSeconds;
         if (route.durationSeconds != null && totalMeters > 1) {
@@ -513,7 +555,7 @@ class MapNavigator {
       }
 
       // Off-route e Reroute
-      final off = _distanceToPolylineMeters(camTarget, route.points);
+      final off = follow?.offRouteMeters ?? _distanceToPolylineMeters(camTarget, route.points);
       if (options.rerouteOnOffRoute && off > options.offRouteThresholdMeters) {
         stateCtl.add(NavState.offRoute);
         final now = DateTime.now();
@@ -766,6 +808,99 @@ class SpeedAlert {
   const SpeedAlert({required this.speedKmh, this.speedLimitKmh, required this.overLimit});
 }
 
+/// Closest point of a route polyline to a query, from
+/// [GoogleMapController.nearestPointOnRoute].
+class RouteMatch {
+  final LatLng position;
+
+  /// Absolute index of the segment start vertex.
+  final int segmentIndex;
+  final double distanceAlongMeters;
+  final double distanceRemainingMeters;
+
+  /// Distance from the query point to [position].
+  final double distanceMeters;
+
+  /// Bearing of the matched segment, degrees.
+  final double bearing;
+
+  const RouteMatch({
+    required this.position,
+    required this.segmentIndex,
+    required this.distanceAlongMeters,
+    required this.distanceRemainingMeters,
+    required this.distanceMeters,
+    required this.bearing,
+  });
+
+  factory RouteMatch._fromMap(Map<dynamic, dynamic> m) {
+    double d(String k) => (m[k] as num?)?.toDouble() ?? 0;
+    return RouteMatch(
+      position: LatLng(d('lat'), d('lng')),
+      segmentIndex: (m['segmentIndex'] as num?)?.toInt() ?? 0,
+      distanceAlongMeters: d('distanceAlongMeters'),
+      distanceRemainingMeters: d('distanceRemainingMeters'),
+      distanceMeters: d('distanceMeters'),
+      bearing: d('bearing'),
+    );
+  }
+}
+
+/// Raw location fix for [GoogleMapController.pushNavigationLocation].
+class NavFix {
+  final LatLng position;
+  final double? speedKmh;
+  final double? course; // GPS course, degrees
+  final double? heading; // device heading, degrees
+  const NavFix(this.position, {this.speedKmh, this.course, this.heading});
+}
+
+/// Reply of the native follow mode for the last fix pushed.
+class NavFollowUpdate {
+  /// Snapped position (or the raw fix when not snapping / no route).
+  final LatLng position;
+
+  /// Smoothed heading used for the camera, degrees.
+  final double? heading;
+
+  /// Absolute index of the route segment matched; null without a route.
+  final int? segmentIndex;
+  final double? distanceAlongMeters;
+  final double? distanceRemainingMeters;
+
+  /// Share of the route covered, 0..1.
+  final double? progress;
+
+  /// Distance from the raw fix to the route.
+  final double? offRouteMeters;
+  final double? routeBearing;
+
+  const NavFollowUpdate({
+    required this.position,
+    this.heading,
+    this.segmentIndex,
+    this.distanceAlongMeters,
+    this.distanceRemainingMeters,
+    this.progress,
+    this.offRouteMeters,
+    this.routeBearing,
+  });
+
+  factory NavFollowUpdate._fromMap(Map<dynamic, dynamic> m) {
+    double? d(String k) => (m[k] as num?)?.toDouble();
+    return NavFollowUpdate(
+      position: LatLng(d('lat') ?? 0, d('lng') ?? 0),
+      heading: d('heading'),
+      segmentIndex: (m['segmentIndex'] as num?)?.toInt(),
+      distanceAlongMeters: d('distanceAlongMeters'),
+      distanceRemainingMeters: d('distanceRemainingMeters'),
+      progress: d('progress'),
+      offRouteMeters: d('offRouteMeters'),
+      routeBearing: d('routeBearing'),
+    );
+  }
+}
+
 List<double> _cumulativeDistances(List<LatLng> pts) {
   final res = <double>[];
   double acc = 0.0;
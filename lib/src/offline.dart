@@ -0,0 +1,165 @@
+part of 'package:google_maps_native_sdk/google_maps_native_sdk.dart';
+
+/// Snapshot of an offline region pack as reported by the native side.
+class OfflineRegion {
+  final String id;
+  final String name;
+  final String urlTemplate;
+  final LatLng southwest;
+  final LatLng northeast;
+  final int minZoom;
+  final int maxZoom;
+
+  /// One of `downloading`, `paused`, `incomplete`, `complete`, `failed`.
+  final String status;
+
+  /// Tiles in the region and tiles already processed (including ones the
+  /// server has no data for).
+  final int totalTiles;
+  final int completedTiles;
+
+  /// Tiles that failed in the last run; [OfflineRegions.resume] retries them.
+  final int failedTiles;
+
+  /// Downloaded payload bytes and, once complete, the archive size on disk.
+  final int downloadedBytes;
+  final int archiveBytes;
+
+  /// PMTiles archive to pass to [GoogleMapController.addLocalTileOverlay];
+  /// set only when [isComplete].
+  final String? path;
+  final String? error;
+
+  const OfflineRegion({
+    required this.id,
+    required this.name,
+    required this.urlTemplate,
+    required this.southwest,
+    required this.northeast,
+    required this.minZoom,
+    required this.maxZoom,
+    required this.status,
+    required this.totalTiles,
+    required this.completedTiles,
+    required this.failedTiles,
+    required this.downloadedBytes,
+    required this.archiveBytes,
+    this.path,
+    this.error,
+  });
+
+  bool get isComplete => status == 'complete';
+
+  /// Completed fraction in [0, 1].
+  double get progress => totalTiles <= 0 ? 0 : completedTiles / totalTiles;
+
+  factory OfflineRegion.fromMap(Map<dynamic, dynamic> m) => OfflineRegion(
+        id: m['id'] as String,
+        name: (m['name'] as String?) ?? m['id'] as String,
+        urlTemplate: (m['template'] as String?) ?? '',
+        southwest: LatLng(
+          (m['minLat'] as num?)?.toDouble() ?? 0,
+          (m['minLng'] as num?)?.toDouble() ?? 0,
+        ),
+        northeast: LatLng(
+          (m['maxLat'] as num?)?.toDouble() ?? 0,
+          (m['maxLng'] as num?)?.toDouble() ?? 0,
+        ),
+        minZoom: (m['minZoom'] as num?)?.toInt() ?? 0,
+        maxZoom: (m['maxZoom'] as num?)?.toInt() ?? 0,
+        status: (m['status'] as String?) ?? 'paused',
+        totalTiles: (m['total'] as num?)?.toInt() ?? 0,
+        completedTiles: (m['completed'] as num?)?.toInt() ?? 0,
+        failedTiles: (m['failed'] as num?)?.toInt() ?? 0,
+        downloadedBytes: (m['bytes'] as num?)?.toInt() ?? 0,
+        archiveBytes: (m['archiveBytes'] as num?)?.toInt() ?? 0,
+        path: m['path'] as String?,
+        error: m['error'] as String?,
+      );
+}
+
+/// Offline region packs (Android): downloads every XYZ tile of a bounding box
+/// and zoom range into one local PMTiles archive, resumable across pauses,
+/// network failures and app restarts.
+class OfflineRegions {
+  static const MethodChannel _ch = MethodChannel('google_maps_native_sdk/offline');
+  static const EventChannel _events = EventChannel('google_maps_native_sdk/offline/events');
+
+  static Stream<OfflineRegion>? _cached;
+
+  static bool get _supported => !kIsWeb && defaultTargetPlatform == TargetPlatform.android;
+
+  /// Progress and state changes of all regions (throttled natively).
+  static Stream<OfflineRegion> get updates {
+    _cached ??= _events
+        .receiveBroadcastStream()
+        .where((e) => e is Map)
+        .map((e) => OfflineRegion.fromMap(e as Map))
+        .asBroadcastStream();
+    return _cached!;
+  }
+
+  /// Registers region [id] (letters, digits, `_`, `-`) and starts downloading.
+  /// [urlTemplate] uses `{x}`, `{y}`, `{z}` like [GoogleMapController.addTileOverlay].
+  /// [concurrency] bounds parallel tile requests (1..8). Throws
+  /// [PlatformException] (`invalid_region`) for bad input, an existing id or
+  /// more than 100k tiles. Returns null on unsupported platforms.
+  static Future<OfflineRegion?> create({
+    required String id,
+    required String urlTemplate,
+    required LatLng southwest,
+    required LatLng northeast,
+    required int minZoom,
+    required int maxZoom,
+    String? name,
+    int concurrency = 4,
+  }) async {
+    if (!_supported) return null;
+    final res = await _ch.invokeMethod('offline#create', {
+      'id': id,
+      'name': name,
+      'urlTemplate': urlTemplate,
+      'bounds': {
+        'minLat': southwest.latitude,
+        'minLng': southwest.longitude,
+        'maxLat': northeast.latitude,
+        'maxLng': northeast.longitude,
+      },
+      'minZoom': minZoom,
+      'maxZoom': maxZoom,
+      'concurrency': concurrency,
+    });
+    return res is Map ? OfflineRegion.fromMap(res) : null;
+  }
+
+  static Future<List<OfflineRegion>> list() async {
+    if (!_supported) return const [];
+    final res = await _ch.invokeMethod('offline#list');
+    if (res is! List) return const [];
+    return res.whereType<Map>().map(OfflineRegion.fromMap).toList();
+  }
+
+  static Future<OfflineRegion?> get(String id) async {
+    if (!_supported) return null;
+    final res = await _ch.invokeMethod('offline#get', id);
+    return res is Map ? OfflineRegion.fromMap(res) : null;
+  }
+
+  /// Stops downloading after in-flight tiles; progress is kept.
+  static Future<bool> pause(String id) async {
+    if (!_supported) return false;
+    return await _ch.invokeMethod('offline#pause', id) == true;
+  }
+
+  /// Continues an unfinished region; only missing or failed tiles are fetched.
+  static Future<bool> resume(String id, {int concurrency = 4}) async {
+    if (!_supported) return false;
+    return await _ch.invokeMethod('offline#resume', {'id': id, 'concurrency': concurrency}) == true;
+  }
+
+  /// Cancels any download and deletes the region's files.
+  static Future<bool> delete(String id) async {
+    if (!_supported) return false;
+    return await _ch.invokeMethod('offline#delete', id) == true;
+  }
+}
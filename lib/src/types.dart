@@ -14,6 +14,41 @@ class LatLng {
   String toString() => 'LatLng($latitude, $longitude)';
 }
 
+/// Heatmap point with an intensity [weight] (1 = an ordinary point).
+class WeightedLatLng {
+  final LatLng point;
+  final double weight;
+
+  const WeightedLatLng(this.point, [this.weight = 1.0]);
+
+  Map<String, double> toMap() =>
+      {'lat': point.latitude, 'lng': point.longitude, 'weight': weight};
+}
+
+/// Clustering engine used when clustering is enabled.
+///
+/// - [distance]: the maps-utils default (merges items closer than the grid
+///   size, recomputed on every change).
+/// - [grid]: maps-utils fixed-grid clustering.
+/// - [hierarchical]: per-zoom cluster hierarchy updated incrementally; each
+///   camera idle only reads the clusters in view. Best for many thousands of
+///   markers.
+enum ClusterAlgorithm { distance, grid, hierarchical }
+
+/// How [GoogleMapController.animateMarkerTo] moves between points: straight
+/// in latitude/longitude, or along great circles (long distances).
+enum MarkerInterpolation { linear, geodesic }
+
+/// Timestamped heatmap sample for a streaming heatmap: counts only while
+/// [time] is inside the stream's window.
+class HeatmapEvent {
+  final LatLng point;
+  final double weight;
+  final DateTime time;
+
+  const HeatmapEvent(this.point, this.time, [this.weight = 1.0]);
+}
+
 /// Initial camera setup for the map.
 class CameraPosition {
   final LatLng target;
@@ -81,9 +116,88 @@ class MarkerOptions {
         'draggable': draggable,
         'zIndex': zIndex,
       };
+
+  /// Hash of every field that affects rendering. Used by
+  /// [GoogleMapController.syncMarkers] to skip markers that did not change.
+  int get contentHash => Object.hash(
+        id,
+        position.latitude,
+        position.longitude,
+        title,
+        snippet,
+        iconUrl,
+        iconDp,
+        anchorU,
+        anchorV,
+        rotation,
+        draggable,
+        zIndex,
+      );
+}
+
+/// Counts reported by [GoogleMapController.syncMarkers].
+class MarkerSyncResult {
+  final int added;
+  final int updated;
+  final int removed;
+  final int unchanged;
+
+  const MarkerSyncResult({
+    this.added = 0,
+    this.updated = 0,
+    this.removed = 0,
+    this.unchanged = 0,
+  });
+
+  /// Builds a result from the native reply map.
+  factory MarkerSyncResult.fromMap(Map<dynamic, dynamic> m) => MarkerSyncResult(
+        added: (m['added'] as num?)?.toInt() ?? 0,
+        updated: (m['updated'] as num?)?.toInt() ?? 0,
+        removed: (m['removed'] as num?)?.toInt() ?? 0,
+        unchanged: (m['unchanged'] as num?)?.toInt() ?? 0,
+      );
+
+  @override
+  String toString() =>
+      'MarkerSyncResult(added: $added, updated: $updated, removed: $removed, unchanged: $unchanged)';
 }
 
 /// Polyline configuration.
+/// Header information of a local tile archive opened by
+/// [GoogleMapController.addLocalTileOverlay].
+class TileArchiveInfo {
+  final int minZoom;
+  final int maxZoom;
+  final LatLng southwest;
+  final LatLng northeast;
+
+  /// PMTiles tile type: 2 = png, 3 = jpeg, 4 = webp, 5 = avif.
+  final int tileType;
+
+  const TileArchiveInfo({
+    required this.minZoom,
+    required this.maxZoom,
+    required this.southwest,
+    required this.northeast,
+    required this.tileType,
+  });
+
+  /// Builds the info from the native reply map.
+  factory TileArchiveInfo.fromMap(Map<dynamic, dynamic> m) => TileArchiveInfo(
+        minZoom: (m['minZoom'] as num?)?.toInt() ?? 0,
+        maxZoom: (m['maxZoom'] as num?)?.toInt() ?? 0,
+        southwest: LatLng(
+          (m['minLat'] as num?)?.toDouble() ?? 0,
+          (m['minLng'] as num?)?.toDouble() ?? 0,
+        ),
+        northeast: LatLng(
+          (m['maxLat'] as num?)?.toDouble() ?? 0,
+          (m['maxLng'] as num?)?.toDouble() ?? 0,
+        ),
+        tileType: (m['tileType'] as num?)?.toInt() ?? 0,
+      );
+}
+
 class PolylineOptions {
   final String id;
   final List<LatLng> points;
@@ -92,6 +206,22 @@ class PolylineOptions {
   final bool geodesic;
   final bool dotted;
 
+  /// Android: keeps the full geometry natively and draws a simplified version
+  /// matching the current zoom (swapped on camera idle). Useful for routes and
+  /// tracks with thousands of points.
+  final bool levelOfDetail;
+
+  /// With [levelOfDetail], keeps the part inside the visible region at full
+  /// resolution.
+  final bool lodKeepVisibleDetail;
+
+  /// With [levelOfDetail], simplification tolerance in screen pixels.
+  final double lodTolerancePx;
+
+  /// Emits taps on the line through [GoogleMapController.onPolylineTap]
+  /// (Android).
+  final bool clickable;
+
   /// Creates polyline options. [id] must be unique.
   const PolylineOptions({
     required this.id,
@@ -100,6 +230,10 @@ class PolylineOptions {
     this.width = 6,
     this.geodesic = false,
     this.dotted = false,
+    this.levelOfDetail = false,
+    this.lodKeepVisibleDetail = false,
+    this.lodTolerancePx = 1.0,
+    this.clickable = false,
   });
 
   /// Serializes to the map format expected by the native layers.
@@ -110,9 +244,138 @@ class PolylineOptions {
         'width': width,
         'geodesic': geodesic,
         'dotted': dotted,
+        if (levelOfDetail) 'lod': true,
+        if (levelOfDetail) 'lodKeepVisible': lodKeepVisibleDetail,
+        if (levelOfDetail) 'lodTolerancePx': lodTolerancePx,
+        if (clickable) 'clickable': true,
       };
 }
 
+/// A single mutation applied as part of [GoogleMapController.applyBatch].
+///
+/// Only marker, polyline, tile and heatmap operations can be batched.
+class MapBatchOp {
+  /// Native method name (e.g. `markers#add`).
+  final String method;
+
+  /// Arguments passed to [method], in the same format as the direct call.
+  final Object? arguments;
+
+  /// Creates a raw batch operation for [method] with [arguments].
+  const MapBatchOp(this.method, [this.arguments]);
+
+  /// Adds or replaces a marker.
+  factory MapBatchOp.addMarker(MarkerOptions options) =>
+      MapBatchOp('markers#add', options.toMap());
+
+  /// Updates [position] and/or [rotation] of a marker.
+  factory MapBatchOp.updateMarker(String id, {LatLng? position, double? rotation}) =>
+      MapBatchOp('markers#update', {
+        'id': id,
+        if (position != null) 'position': position.toMap(),
+        if (rotation != null) 'rotation': rotation,
+      });
+
+  /// Moves a marker smoothly to [target]; see
+  /// [GoogleMapController.animateMarkerTo].
+  factory MapBatchOp.animateMarkerTo(
+    String id,
+    LatLng target, {
+    Duration duration = const Duration(seconds: 1),
+    MarkerInterpolation interpolation = MarkerInterpolation.linear,
+    double? rotation,
+    bool rotateAlongPath = false,
+    List<LatLng> path = const [],
+  }) =>
+      MapBatchOp('markers#animateTo', _animateToArgs(id, target, duration,
+          interpolation, rotation, rotateAlongPath, path));
+
+  /// Removes a marker by [id].
+  factory MapBatchOp.removeMarker(String id) => MapBatchOp('markers#remove', id);
+
+  /// Adds or replaces a polyline.
+  factory MapBatchOp.addPolyline(PolylineOptions options) =>
+      MapBatchOp('polylines#add', options.toMap());
+
+  /// Replaces the points of an existing polyline.
+  factory MapBatchOp.updatePolylinePoints(String id, List<LatLng> points) =>
+      MapBatchOp('polylines#updatePoints', {
+        'id': id,
+        'points': points.map((e) => e.toMap()).toList(growable: false),
+      });
+
+  /// Removes a polyline by [id].
+  factory MapBatchOp.removePolyline(String id) => MapBatchOp('polylines#remove', id);
+
+  /// Adds a URL template tile overlay.
+  factory MapBatchOp.addTileOverlay(
+    String id,
+    String urlTemplate, {
+    int tileSize = 256,
+    double opacity = 1.0,
+    double zIndex = 0,
+    bool cache = false,
+    Duration cacheTtl = const Duration(days: 1),
+  }) =>
+      MapBatchOp('tiles#add', {
+        'id': id,
+        'template': urlTemplate,
+        'tileSize': tileSize,
+        'opacity': opacity,
+        'zIndex': zIndex,
+        if (cache) 'cache': true,
+        if (cache) 'cacheTtlMs': cacheTtl.inMilliseconds,
+      });
+
+  /// Removes a tile overlay by [id].
+  factory MapBatchOp.removeTileOverlay(String id) => MapBatchOp('tiles#remove', id);
+
+  /// Sets the heatmap points.
+  factory MapBatchOp.setHeatmap(List<LatLng> points, {int? radius, double? opacity}) =>
+      MapBatchOp('heatmap#set', {
+        'points': points.map((e) => e.toMap()).toList(growable: false),
+        if (radius != null) 'radius': radius,
+        if (opacity != null) 'opacity': opacity,
+      });
+
+  /// Removes the heatmap overlay.
+  factory MapBatchOp.clearHeatmap() => const MapBatchOp('heatmap#clear');
+
+  /// Serializes to the map format expected by the native layers.
+  Map<String, dynamic> toMap() => {
+        'method': method,
+        if (arguments != null) 'args': arguments,
+      };
+}
+
+/// Outcome of a single [MapBatchOp].
+class MapBatchResult {
+  /// Whether the operation succeeded.
+  final bool ok;
+
+  /// Value returned by the operation, if any.
+  final Object? value;
+
+  /// Error code when [ok] is false.
+  final String? code;
+
+  /// Error message when [ok] is false.
+  final String? message;
+
+  const MapBatchResult({required this.ok, this.value, this.code, this.message});
+
+  /// Builds a result from the native reply map.
+  factory MapBatchResult.fromMap(Map<dynamic, dynamic> m) => MapBatchResult(
+        ok: m['ok'] == true,
+        value: m['value'],
+        code: m['code'] as String?,
+        message: m['message'] as String?,
+      );
+
+  @override
+  String toString() => ok ? 'MapBatchResult(ok)' : 'MapBatchResult($code: $message)';
+}
+
 /// Padding to be applied around the map viewport (in logical pixels).
 class MapPadding {
   final double left;
@@ -181,6 +444,62 @@ class PolylineCodec {
   }
 }
 
+/// Packs [points] as consecutive lat,lng doubles. Android decodes this
+/// without creating one map per point.
+Float64List _packLatLngs(List<LatLng> points) {
+  final out = Float64List(points.length * 2);
+  for (var i = 0; i < points.length; i++) {
+    out[i * 2] = points[i].latitude;
+    out[i * 2 + 1] = points[i].longitude;
+  }
+  return out;
+}
+
+/// Arguments of `markers#animateTo`; [path] is packed like polyline points.
+Map<String, dynamic> _animateToArgs(
+  String id,
+  LatLng target,
+  Duration duration,
+  MarkerInterpolation interpolation,
+  double? rotation,
+  bool rotateAlongPath,
+  List<LatLng> path,
+) =>
+    {
+      'id': id,
+      'target': target.toMap(),
+      'durationMs': duration.inMilliseconds,
+      'interpolation': interpolation.name,
+      if (rotation != null) 'rotation': rotation,
+      if (rotateAlongPath) 'rotateAlongPath': true,
+      if (path.isNotEmpty) 'points': _packLatLngs(path),
+    };
+
+/// Packs weighted heatmap points as consecutive lat,lng,weight doubles
+/// (sent with `stride: 3`).
+Float64List _packWeighted(List<WeightedLatLng> points) {
+  final out = Float64List(points.length * 3);
+  for (var i = 0; i < points.length; i++) {
+    final p = points[i];
+    out[i * 3] = p.point.latitude;
+    out[i * 3 + 1] = p.point.longitude;
+    out[i * 3 + 2] = p.weight;
+  }
+  return out;
+}
+
+Float64List _packEvents(List<HeatmapEvent> events) {
+  final out = Float64List(events.length * 4);
+  for (var i = 0; i < events.length; i++) {
+    final e = events[i];
+    out[i * 4] = e.point.latitude;
+    out[i * 4 + 1] = e.point.longitude;
+    out[i * 4 + 2] = e.weight;
+    out[i * 4 + 3] = e.time.millisecondsSinceEpoch.toDouble();
+  }
+  return out;
+}
+
 int _argbColorInt(Color c) {
   try {
     final dynamic d = c;